@@ -56,9 +56,8 @@ public class EAR extends AbstractDeployablewithSettableName
         if (this.webapps == null)
         {
             Map<String, String> webapps = new HashMap<String, String>();
-            try
+            try (EarArchive ear = new DefaultEarArchive(getFile()))
             {
-                EarArchive ear = new DefaultEarArchive(getFile());
                 ApplicationXml applicationXml = ear.getApplicationXml();
                 for (String webUri : applicationXml.getWebModuleUris())
                 {
@@ -19,6 +19,9 @@
  */
 package org.codehaus.cargo.container.deployer;
 
+import java.util.List;
+import java.util.Map;
+
 import org.codehaus.cargo.container.deployable.Deployable;
 import org.codehaus.cargo.util.log.Loggable;
 
@@ -122,6 +125,131 @@ public interface Deployer extends Loggable
      */
     void stop(Deployable deployable, DeployableMonitor monitor);
 
+    /**
+     * Deploy several {@link Deployable}s. Up to <code>concurrency</code> deployment actions run at
+     * the same time if the deployer {@link #isConcurrentDeploymentSupported() supports it}, else
+     * they run one after the other. Once all actions are done, the deployables that have a monitor
+     * are waited for in parallel. A failure does not stop the other deployables of the batch. The
+     * default implementation ignores <code>concurrency</code> and deploys the deployables one after
+     * the other.
+     * 
+     * @param deployables the {@link Deployable}s to deploy
+     * @param monitors the monitors that check for the deployment status of each {@link Deployable},
+     * can be <code>null</code> and need not contain all deployables
+     * @param concurrency maximum number of deployment actions running at the same time
+     * @return the outcome for each {@link Deployable}
+     */
+    default DeploymentReport deploy(List<Deployable> deployables,
+        Map<Deployable, DeployableMonitor> monitors, int concurrency)
+    {
+        DeploymentReport report = new DeploymentReport(deployables);
+        for (Deployable deployable : deployables)
+        {
+            DeployableMonitor monitor = monitors == null ? null : monitors.get(deployable);
+            try
+            {
+                if (monitor == null)
+                {
+                    deploy(deployable);
+                }
+                else
+                {
+                    deploy(deployable, monitor);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                report.setFailure(deployable, e);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Undeploy several {@link Deployable}s, in the same way as
+     * {@link #deploy(List, Map, int)} deploys them.
+     * The default implementation ignores <code>concurrency</code> and undeploys the deployables one
+     * after the other.
+     * 
+     * @param deployables the {@link Deployable}s to undeploy
+     * @param monitors the monitors that check for the deployment status of each {@link Deployable},
+     * can be <code>null</code> and need not contain all deployables
+     * @param concurrency maximum number of undeployment actions running at the same time
+     * @return the outcome for each {@link Deployable}
+     */
+    default DeploymentReport undeploy(List<Deployable> deployables,
+        Map<Deployable, DeployableMonitor> monitors, int concurrency)
+    {
+        DeploymentReport report = new DeploymentReport(deployables);
+        for (Deployable deployable : deployables)
+        {
+            DeployableMonitor monitor = monitors == null ? null : monitors.get(deployable);
+            try
+            {
+                if (monitor == null)
+                {
+                    undeploy(deployable);
+                }
+                else
+                {
+                    undeploy(deployable, monitor);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                report.setFailure(deployable, e);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Redeploy several {@link Deployable}s, in the same way as
+     * {@link #deploy(List, Map, int)} deploys them.
+     * The default implementation ignores <code>concurrency</code> and redeploys the deployables one
+     * after the other.
+     * 
+     * @param deployables the {@link Deployable}s to redeploy
+     * @param monitors the monitors that check for the deployment status of each {@link Deployable},
+     * can be <code>null</code> and need not contain all deployables
+     * @param concurrency maximum number of redeployment actions running at the same time
+     * @return the outcome for each {@link Deployable}
+     */
+    default DeploymentReport redeploy(List<Deployable> deployables,
+        Map<Deployable, DeployableMonitor> monitors, int concurrency)
+    {
+        DeploymentReport report = new DeploymentReport(deployables);
+        for (Deployable deployable : deployables)
+        {
+            DeployableMonitor monitor = monitors == null ? null : monitors.get(deployable);
+            try
+            {
+                if (monitor == null)
+                {
+                    redeploy(deployable);
+                }
+                else
+                {
+                    redeploy(deployable, monitor);
+                }
+            }
+            catch (RuntimeException e)
+            {
+                report.setFailure(deployable, e);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * @return <code>true</code> if the deploy, undeploy and redeploy actions of this deployer can
+     * run concurrently for different {@link Deployable}s, <code>false</code> by default
+     */
+    default boolean isConcurrentDeploymentSupported()
+    {
+        return false;
+    }
+
     /**
      * @return the deployer's type (local, remote, etc)
      */
@@ -0,0 +1,178 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.deployer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.codehaus.cargo.container.ContainerException;
+import org.codehaus.cargo.container.deployable.Deployable;
+
+/**
+ * Outcome of a batch action of a {@link Deployer}, such as
+ * {@link Deployer#deploy(List, Map, int)}: each {@link Deployable} of the batch either succeeded
+ * or failed with an error. This class is thread safe.
+ */
+public class DeploymentReport
+{
+    /**
+     * Deployables of the batch, in their original order.
+     */
+    private final List<Deployable> deployables;
+
+    /**
+     * Errors of the failed deployables. Deployables are compared by identity, since some of them
+     * may be equal to each other.
+     */
+    private final Map<Deployable, Throwable> failures =
+        new IdentityHashMap<Deployable, Throwable>();
+
+    /**
+     * @param deployables Deployables of the batch.
+     */
+    public DeploymentReport(List<Deployable> deployables)
+    {
+        this.deployables = new ArrayList<Deployable>(deployables);
+    }
+
+    /**
+     * Records the failure of a deployable, replacing any earlier failure of the same deployable.
+     * @param deployable Deployable which failed.
+     * @param error Reason of the failure.
+     */
+    public synchronized void setFailure(Deployable deployable, Throwable error)
+    {
+        this.failures.put(deployable, error);
+    }
+
+    /**
+     * Forgets the failure of a deployable, for example because the deployable monitor found it
+     * available in spite of an error of the deployment action.
+     * @param deployable Deployable which succeeded.
+     */
+    public synchronized void clearFailure(Deployable deployable)
+    {
+        this.failures.remove(deployable);
+    }
+
+    /**
+     * @return All deployables of the batch, in their original order.
+     */
+    public List<Deployable> getDeployables()
+    {
+        return Collections.unmodifiableList(this.deployables);
+    }
+
+    /**
+     * @param deployable Deployable of the batch.
+     * @return <code>true</code> if the action succeeded for <code>deployable</code>.
+     */
+    public synchronized boolean isSuccessful(Deployable deployable)
+    {
+        return !this.failures.containsKey(deployable);
+    }
+
+    /**
+     * @return <code>true</code> if the action succeeded for all deployables of the batch.
+     */
+    public synchronized boolean isSuccessful()
+    {
+        return this.failures.isEmpty();
+    }
+
+    /**
+     * @return Deployables for which the action succeeded, in their original order.
+     */
+    public synchronized List<Deployable> getSuccessfulDeployables()
+    {
+        List<Deployable> successful = new ArrayList<Deployable>();
+        for (Deployable deployable : this.deployables)
+        {
+            if (!this.failures.containsKey(deployable))
+            {
+                successful.add(deployable);
+            }
+        }
+        return successful;
+    }
+
+    /**
+     * @return Errors of the deployables for which the action failed, in their original order.
+     */
+    public synchronized Map<Deployable, Throwable> getFailures()
+    {
+        Map<Deployable, Throwable> result = new LinkedHashMap<Deployable, Throwable>();
+        for (Deployable deployable : this.deployables)
+        {
+            Throwable error = this.failures.get(deployable);
+            if (error != null)
+            {
+                result.put(deployable, error);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Throws if the action failed for any deployable of the batch. A single failure is rethrown as
+     * is when it is a {@link RuntimeException}; otherwise, a {@link ContainerException} lists all
+     * failures and has their errors as suppressed exceptions.
+     */
+    public void throwOnFailure()
+    {
+        Map<Deployable, Throwable> errors = getFailures();
+        if (errors.isEmpty())
+        {
+            return;
+        }
+
+        if (errors.size() == 1)
+        {
+            Throwable error = errors.values().iterator().next();
+            if (error instanceof RuntimeException)
+            {
+                throw (RuntimeException) error;
+            }
+        }
+
+        StringBuilder message = new StringBuilder();
+        message.append(errors.size());
+        message.append(" of ");
+        message.append(this.deployables.size());
+        message.append(" deployables failed:");
+        for (Map.Entry<Deployable, Throwable> error : errors.entrySet())
+        {
+            message.append("\n - [");
+            message.append(error.getKey().getFile());
+            message.append("]: ");
+            message.append(error.getValue().getMessage());
+        }
+        ContainerException exception = new ContainerException(message.toString());
+        for (Throwable error : errors.values())
+        {
+            exception.addSuppressed(error);
+        }
+        throw exception;
+    }
+}
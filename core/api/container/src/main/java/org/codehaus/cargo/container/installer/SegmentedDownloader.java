@@ -0,0 +1,972 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.installer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.codehaus.cargo.container.ContainerException;
+import org.codehaus.cargo.util.DefaultFileHandler;
+import org.codehaus.cargo.util.log.LoggedObject;
+
+/**
+ * Downloads a file from a URL into a <code>.part</code> file which is renamed into place once the
+ * download is complete and verified.<br>
+ * <br>
+ * When the server supports byte ranges, large files are downloaded as several segments in
+ * parallel and an interrupted download is resumed from the data already on disk. The downloaded
+ * file is verified against a user-supplied checksum or, if none is given, against a checksum
+ * published next to the file with a <code>.sha512</code> or <code>.sha1</code> extension. URLs
+ * which are not HTTP, such as <code>file:</code> URLs, are downloaded as a single stream.
+ */
+public class SegmentedDownloader extends LoggedObject
+{
+    /**
+     * Default maximum number of segments downloaded in parallel.
+     */
+    public static final int DEFAULT_SEGMENTS = 4;
+
+    /**
+     * Default minimum size of a segment, smaller files are downloaded as a single stream.
+     */
+    public static final long DEFAULT_MINIMUM_SEGMENT_SIZE = 8L * 1024 * 1024;
+
+    /**
+     * Suffix of the file the download is written to before being renamed into place.
+     */
+    public static final String PART_SUFFIX = ".part";
+
+    /**
+     * Extensions of published checksums, in order of preference.
+     */
+    private static final String[] PUBLISHED_CHECKSUMS = {"sha512", "sha1"};
+
+    /**
+     * Maximum length of a published checksum file.
+     */
+    private static final int MAX_CHECKSUM_FILE_LENGTH = 4096;
+
+    /**
+     * Properties of the remote file, as discovered when starting a download.
+     */
+    private static class RemoteFile
+    {
+        /**
+         * Length of the remote file, <code>-1</code> if unknown.
+         */
+        private long length = -1;
+
+        /**
+         * Whether the server supports byte ranges for this file.
+         */
+        private boolean ranges;
+
+        /**
+         * Validator used in <code>If-Range</code> headers, <code>null</code> if none.
+         */
+        private String validator;
+
+        /**
+         * Last modification date of the remote file, <code>0</code> if unknown.
+         */
+        private long lastModified;
+
+        /**
+         * Number of segments the file has been downloaded with.
+         */
+        private int segments = 1;
+
+        /**
+         * Whether data from a previous download has been reused.
+         */
+        private boolean resumed;
+    }
+
+    /**
+     * URL to download from.
+     */
+    private URL url;
+
+    /**
+     * Maximum number of segments downloaded in parallel.
+     */
+    private int segments = SegmentedDownloader.DEFAULT_SEGMENTS;
+
+    /**
+     * Minimum size of a segment.
+     */
+    private long minimumSegmentSize = SegmentedDownloader.DEFAULT_MINIMUM_SEGMENT_SIZE;
+
+    /**
+     * Digest algorithm of the user-supplied checksum, <code>null</code> if none.
+     */
+    private String checksumAlgorithm;
+
+    /**
+     * User-supplied checksum as an hexadecimal string, <code>null</code> if none.
+     */
+    private String checksum;
+
+    /**
+     * Whether to verify the download against a published checksum when no checksum is supplied.
+     */
+    private boolean verifyPublishedChecksum = true;
+
+    /**
+     * @param url URL to download from.
+     */
+    public SegmentedDownloader(URL url)
+    {
+        this.url = url;
+    }
+
+    /**
+     * @param segments Maximum number of segments downloaded in parallel, set to <code>1</code> to
+     * always download as a single stream.
+     */
+    public void setSegments(int segments)
+    {
+        if (segments < 1)
+        {
+            throw new IllegalArgumentException("The number of segments must be positive");
+        }
+        this.segments = segments;
+    }
+
+    /**
+     * @return Maximum number of segments downloaded in parallel.
+     */
+    public int getSegments()
+    {
+        return this.segments;
+    }
+
+    /**
+     * @param minimumSegmentSize Minimum size of a segment, in bytes.
+     */
+    public void setMinimumSegmentSize(long minimumSegmentSize)
+    {
+        if (minimumSegmentSize < 1)
+        {
+            throw new IllegalArgumentException("The minimum segment size must be positive");
+        }
+        this.minimumSegmentSize = minimumSegmentSize;
+    }
+
+    /**
+     * @return Minimum size of a segment, in bytes.
+     */
+    public long getMinimumSegmentSize()
+    {
+        return this.minimumSegmentSize;
+    }
+
+    /**
+     * Sets the checksum the downloaded file must match. The checksum is an hexadecimal string,
+     * optionally prefixed with the digest algorithm such as <code>sha512:</code>; without prefix
+     * the algorithm is deduced from the length of the checksum (MD5, SHA-1, SHA-256 or SHA-512).
+     * @param checksum Checksum, <code>null</code> or empty to use the published checksum if any.
+     */
+    public void setChecksum(String checksum)
+    {
+        if (checksum == null || checksum.trim().isEmpty())
+        {
+            this.checksumAlgorithm = null;
+            this.checksum = null;
+            return;
+        }
+
+        String value = checksum.trim();
+        String algorithm;
+        int colon = value.indexOf(':');
+        if (colon > 0)
+        {
+            algorithm = value.substring(0, colon).toUpperCase(Locale.ENGLISH);
+            value = value.substring(colon + 1).trim();
+            if (algorithm.matches("SHA\\d+"))
+            {
+                algorithm = "SHA-" + algorithm.substring(3);
+            }
+        }
+        else
+        {
+            algorithm = SegmentedDownloader.getAlgorithm(value);
+        }
+        if (algorithm == null || !value.matches("[0-9a-fA-F]+"))
+        {
+            throw new IllegalArgumentException("Invalid checksum [" + checksum + "]");
+        }
+        try
+        {
+            MessageDigest.getInstance(algorithm);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalArgumentException("Unsupported checksum algorithm [" + algorithm
+                + "]", e);
+        }
+
+        this.checksumAlgorithm = algorithm;
+        this.checksum = value.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * @return User-supplied checksum, prefixed with its digest algorithm, <code>null</code> if
+     * none.
+     */
+    public String getChecksum()
+    {
+        if (this.checksum == null)
+        {
+            return null;
+        }
+        return this.checksumAlgorithm + ":" + this.checksum;
+    }
+
+    /**
+     * @param verifyPublishedChecksum Whether to verify the download against a published checksum
+     * when no checksum is supplied.
+     */
+    public void setVerifyPublishedChecksum(boolean verifyPublishedChecksum)
+    {
+        this.verifyPublishedChecksum = verifyPublishedChecksum;
+    }
+
+    /**
+     * @return Whether to verify the download against a published checksum when no checksum is
+     * supplied.
+     */
+    public boolean isVerifyPublishedChecksum()
+    {
+        return this.verifyPublishedChecksum;
+    }
+
+    /**
+     * @param checksum Hexadecimal checksum.
+     * @return Digest algorithm producing checksums of that length, <code>null</code> if none.
+     */
+    private static String getAlgorithm(String checksum)
+    {
+        switch (checksum.length())
+        {
+            case 32:
+                return "MD5";
+            case 40:
+                return "SHA-1";
+            case 64:
+                return "SHA-256";
+            case 128:
+                return "SHA-512";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Downloads the file. Data left by an interrupted download of the same file is reused when
+     * the server supports it, and the target file is only created once the download is complete
+     * and verified.
+     * @param target File to download to.
+     * @throws IOException If the download fails or the downloaded file does not match its
+     * checksum.
+     */
+    public void download(File target) throws IOException
+    {
+        download(target, null);
+    }
+
+    /**
+     * Downloads the file, also writing its content in order to another stream while it is being
+     * downloaded. The file is then downloaded as a single stream, bytes reused from an interrupted
+     * download being written to the other stream first. As the other stream cannot be rewound,
+     * a resumed download which does not match its checksum is not downloaded again.
+     * @param target File to download to.
+     * @param tee Stream to also write the content of the file to, <code>null</code> if none. The
+     * stream is not closed by this method.
+     * @throws IOException If the download fails, the downloaded file does not match its checksum
+     * or writing to the other stream fails.
+     */
+    public void download(File target, OutputStream tee) throws IOException
+    {
+        File parent = target.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs())
+        {
+            throw new IOException("Cannot create directory [" + parent + "]");
+        }
+        File part = new File(target.getPath() + SegmentedDownloader.PART_SUFFIX);
+
+        long start = System.nanoTime();
+        String[] expected = getExpectedChecksum();
+        RemoteFile remote = transfer(part, tee);
+        if (expected != null && !verify(part, expected))
+        {
+            boolean matches = false;
+            if (remote.resumed && tee == null)
+            {
+                getLogger().info("Resumed download of [" + this.url + "] does not match its "
+                    + expected[0] + " checksum, downloading it again", getClass().getName());
+                deletePartFiles(part, null);
+                remote = transfer(part, null);
+                matches = verify(part, expected);
+            }
+            if (!matches)
+            {
+                deletePartFiles(part, null);
+                throw new IOException("Downloaded file [" + this.url + "] does not match its "
+                    + expected[0] + " checksum [" + expected[1] + "]");
+            }
+        }
+
+        try
+        {
+            Files.move(part.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (remote.lastModified != 0)
+        {
+            target.setLastModified(remote.lastModified);
+        }
+
+        long duration = Math.max((System.nanoTime() - start) / 1000000L, 1L);
+        double megabytes = target.length() / (1024.0 * 1024.0);
+        getLogger().info(String.format(Locale.ENGLISH,
+            "Downloaded [%s]: %.1f MB in %d ms (%.1f MB/s, %d segment(s)%s%s)", this.url,
+                megabytes, duration, megabytes * 1000 / duration, remote.segments,
+                    remote.resumed ? ", resumed" : "",
+                        expected != null ? ", " + expected[0] + " verified" : ""),
+                            getClass().getName());
+    }
+
+    /**
+     * Downloads the file into the <code>.part</code> file.
+     * @param part File to download to.
+     * @param tee Stream to also write the content of the file to, <code>null</code> if none.
+     * @return Properties of the remote file.
+     * @throws IOException If the download fails.
+     */
+    private RemoteFile transfer(File part, OutputStream tee) throws IOException
+    {
+        RemoteFile remote = new RemoteFile();
+        URLConnection connection = openConnection();
+        if (!(connection instanceof HttpURLConnection))
+        {
+            deletePartFiles(part, null);
+            transferStream(connection, part, remote, tee);
+            return remote;
+        }
+
+        // Probe with the first byte: this tells whether the server supports ranges and the length
+        // of the file, and if it does not the response is the whole file
+        HttpURLConnection probe = (HttpURLConnection) connection;
+        probe.setRequestProperty("Range", "bytes=0-0");
+        int responseCode = probe.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_PARTIAL)
+        {
+            remote.length = SegmentedDownloader.getContentRangeLength(probe);
+            remote.ranges = remote.length > 0;
+            remote.lastModified = probe.getLastModified();
+            String etag = probe.getHeaderField("ETag");
+            if (etag != null && !etag.startsWith("W/"))
+            {
+                remote.validator = etag;
+            }
+            else
+            {
+                remote.validator = probe.getHeaderField("Last-Modified");
+            }
+            try (InputStream in = probe.getInputStream())
+            {
+                while (in.read() != -1)
+                {
+                    // Consume the probed byte so that the connection can be reused
+                }
+            }
+        }
+        else if (responseCode == HttpURLConnection.HTTP_OK)
+        {
+            deletePartFiles(part, null);
+            transferStream(probe, part, remote, tee);
+            return remote;
+        }
+        else
+        {
+            probe.disconnect();
+        }
+
+        if (!remote.ranges)
+        {
+            deletePartFiles(part, null);
+            transferStream(openConnection(), part, remote, tee);
+        }
+        else
+        {
+            int count = 1;
+            if (tee == null)
+            {
+                count = (int) Math.min(this.segments, remote.length / this.minimumSegmentSize);
+            }
+            if (count > 1)
+            {
+                transferSegments(part, remote, count);
+            }
+            else
+            {
+                deletePartFiles(part, new File[] {part});
+                remote.resumed = part.isFile() && part.length() > 0
+                    && part.length() <= remote.length;
+                transferSegment(part, 0, remote.length - 1, remote, tee);
+            }
+        }
+        return remote;
+    }
+
+    /**
+     * Downloads the response of a connection as a single stream. If the <code>.part</code> file
+     * exists and the connection is not HTTP, the data already downloaded is skipped.
+     * @param connection Connection to read from.
+     * @param part File to download to.
+     * @param remote Properties of the remote file, updated by this method.
+     * @param tee Stream to also write the content of the file to, <code>null</code> if none.
+     * @throws IOException If the download fails.
+     */
+    private void transferStream(URLConnection connection, File part, RemoteFile remote,
+        OutputStream tee) throws IOException
+    {
+        long have = 0;
+        if (!(connection instanceof HttpURLConnection) && part.isFile())
+        {
+            have = part.length();
+        }
+
+        boolean restart = false;
+        try (InputStream in = connection.getInputStream())
+        {
+            remote.length = connection.getContentLengthLong();
+            remote.lastModified = connection.getLastModified();
+            if (have > 0 && (remote.length >= 0 && have > remote.length
+                || !SegmentedDownloader.skip(in, have)))
+            {
+                restart = true;
+            }
+            else
+            {
+                remote.resumed = have > 0;
+                if (have > 0)
+                {
+                    replay(part, tee);
+                }
+                try (OutputStream out = new FileOutputStream(part, have > 0))
+                {
+                    copy(in, out, tee);
+                }
+            }
+        }
+        if (restart)
+        {
+            // The partial download is larger than the remote file, start over
+            Files.delete(part.toPath());
+            transferStream(openConnection(), part, remote, tee);
+            return;
+        }
+
+        if (remote.length >= 0 && part.length() != remote.length)
+        {
+            throw new IOException("Incomplete download of [" + this.url + "]: received "
+                + part.length() + " of " + remote.length + " bytes");
+        }
+    }
+
+    /**
+     * Downloads the file as several segments in parallel, each segment being written to its own
+     * file. Once all segments are downloaded, they are appended to the <code>.part</code> file,
+     * which also holds the first segment.
+     * @param part File to download to.
+     * @param remote Properties of the remote file.
+     * @param count Number of segments.
+     * @throws IOException If the download fails.
+     */
+    private void transferSegments(final File part, final RemoteFile remote, int count)
+        throws IOException
+    {
+        final long size = remote.length / count;
+        final File[] files = new File[count];
+        boolean resumed = false;
+        for (int i = 0; i < count; i++)
+        {
+            if (i == 0)
+            {
+                files[i] = part;
+            }
+            else
+            {
+                // Segment files are named after their offset, so that data from a download made
+                // with other segment boundaries is never reused
+                files[i] = new File(part.getPath() + "." + i * size);
+            }
+            resumed |= files[i].isFile() && files[i].length() > 0;
+        }
+        deletePartFiles(part, files);
+        remote.segments = count;
+        remote.resumed = resumed;
+
+        ExecutorService executor = Executors.newFixedThreadPool(count);
+        try
+        {
+            List<Future<Void>> workers = new ArrayList<Future<Void>>(count);
+            for (int i = 0; i < count; i++)
+            {
+                final int segment = i;
+                final long end;
+                if (segment == count - 1)
+                {
+                    end = remote.length - 1;
+                }
+                else
+                {
+                    end = (segment + 1) * size - 1;
+                }
+                workers.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws IOException
+                    {
+                        transferSegment(files[segment], segment * size, end, remote, null);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> worker : workers)
+            {
+                try
+                {
+                    worker.get();
+                }
+                catch (ExecutionException e)
+                {
+                    if (e.getCause() instanceof IOException)
+                    {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new ContainerException("Failed to download [" + this.url + "]",
+                        e.getCause());
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while downloading ["
+                        + this.url + "]");
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        try (FileChannel out = FileChannel.open(part.toPath(), StandardOpenOption.APPEND))
+        {
+            for (int i = 1; i < count; i++)
+            {
+                try (FileChannel in = FileChannel.open(files[i].toPath(), StandardOpenOption.READ))
+                {
+                    long position = 0;
+                    long length = in.size();
+                    while (position < length)
+                    {
+                        position += in.transferTo(position, length - position, out);
+                    }
+                }
+                Files.delete(files[i].toPath());
+            }
+        }
+    }
+
+    /**
+     * Downloads a range of the file, resuming from the data already in the segment file.
+     * @param file File holding the segment.
+     * @param start Offset of the first byte of the segment.
+     * @param end Offset of the last byte of the segment.
+     * @param remote Properties of the remote file.
+     * @param tee Stream to also write the content of the segment to, <code>null</code> if none.
+     * @throws IOException If the download fails.
+     */
+    private void transferSegment(File file, long start, long end, RemoteFile remote,
+        OutputStream tee) throws IOException
+    {
+        long length = end - start + 1;
+        long have = 0;
+        if (file.isFile())
+        {
+            have = file.length();
+            if (have > length)
+            {
+                have = 0;
+            }
+            else if (have == length)
+            {
+                replay(file, tee);
+                return;
+            }
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) openConnection();
+        connection.setRequestProperty("Range", "bytes=" + (start + have) + "-" + end);
+        if (remote.validator != null)
+        {
+            connection.setRequestProperty("If-Range", remote.validator);
+        }
+        int responseCode = connection.getResponseCode();
+        if (responseCode == HttpURLConnection.HTTP_OK && start == 0 && end == remote.length - 1)
+        {
+            // The file has changed since it was probed, download it again as a whole
+            have = 0;
+        }
+        else if (responseCode != HttpURLConnection.HTTP_PARTIAL)
+        {
+            connection.disconnect();
+            throw new IOException("Server did not return the range " + (start + have) + "-"
+                + end + " of [" + this.url + "], response code: " + responseCode);
+        }
+
+        if (have > 0)
+        {
+            replay(file, tee);
+        }
+        try (InputStream in = connection.getInputStream();
+            OutputStream out = new FileOutputStream(file, have > 0))
+        {
+            copy(in, out, tee);
+        }
+        if (file.length() != length)
+        {
+            throw new IOException("Incomplete download of [" + this.url + "]: received "
+                + file.length() + " of " + length + " bytes for range " + start + "-" + end);
+        }
+    }
+
+    /**
+     * Deletes the <code>.part</code> file and its segment files.
+     * @param part <code>.part</code> file.
+     * @param keep Files to keep, <code>null</code> to delete them all.
+     * @throws IOException If a file cannot be deleted.
+     */
+    private void deletePartFiles(File part, File[] keep) throws IOException
+    {
+        List<File> kept = new ArrayList<File>();
+        if (keep != null)
+        {
+            for (File file : keep)
+            {
+                kept.add(file.getAbsoluteFile());
+            }
+        }
+
+        File[] children = part.getAbsoluteFile().getParentFile().listFiles();
+        if (children != null)
+        {
+            String prefix = part.getName() + ".";
+            for (File child : children)
+            {
+                if ((child.getName().equals(part.getName()) || child.getName().startsWith(prefix))
+                    && !kept.contains(child.getAbsoluteFile()))
+                {
+                    Files.deleteIfExists(child.toPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Expected checksum of the download, as the digest algorithm and the hexadecimal
+     * checksum, <code>null</code> if none.
+     */
+    private String[] getExpectedChecksum()
+    {
+        if (this.checksum != null)
+        {
+            return new String[] {this.checksumAlgorithm, this.checksum};
+        }
+        if (!this.verifyPublishedChecksum)
+        {
+            return null;
+        }
+
+        for (String extension : SegmentedDownloader.PUBLISHED_CHECKSUMS)
+        {
+            String published = null;
+            try
+            {
+                published = readPublishedChecksum(
+                    new URL(this.url.toExternalForm() + "." + extension));
+            }
+            catch (IOException e)
+            {
+                getLogger().debug("No published " + extension + " checksum for [" + this.url
+                    + "]: " + e, getClass().getName());
+            }
+            if (published != null)
+            {
+                String algorithm = SegmentedDownloader.getAlgorithm(published);
+                if (algorithm != null && published.matches("[0-9a-fA-F]+"))
+                {
+                    return new String[] {algorithm, published.toLowerCase(Locale.ENGLISH)};
+                }
+                getLogger().debug("Ignoring invalid published " + extension + " checksum ["
+                    + published + "] for [" + this.url + "]", getClass().getName());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param checksumUrl URL of a published checksum.
+     * @return First word of the published checksum file, <code>null</code> if empty.
+     * @throws IOException If the checksum file cannot be read.
+     */
+    private String readPublishedChecksum(URL checksumUrl) throws IOException
+    {
+        URLConnection connection = openConnection(checksumUrl);
+        if (connection instanceof HttpURLConnection
+            && ((HttpURLConnection) connection).getResponseCode() != HttpURLConnection.HTTP_OK)
+        {
+            ((HttpURLConnection) connection).disconnect();
+            return null;
+        }
+
+        byte[] content = new byte[SegmentedDownloader.MAX_CHECKSUM_FILE_LENGTH];
+        int length = 0;
+        try (InputStream in = connection.getInputStream())
+        {
+            int read;
+            while (length < content.length
+                && (read = in.read(content, length, content.length - length)) != -1)
+            {
+                length += read;
+            }
+        }
+        String text = new String(content, 0, length, StandardCharsets.US_ASCII).trim();
+        if (text.isEmpty())
+        {
+            return null;
+        }
+        return text.split("\\s+", 2)[0];
+    }
+
+    /**
+     * @param file File to verify.
+     * @param expected Expected digest algorithm and hexadecimal checksum.
+     * @return Whether the file matches the checksum.
+     * @throws IOException If reading the file fails.
+     */
+    private boolean verify(File file, String[] expected) throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance(expected[0]);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new ContainerException("Unsupported checksum algorithm [" + expected[0] + "]",
+                e);
+        }
+
+        byte[] buffer = new byte[DefaultFileHandler.FILE_BUFFER_SIZE];
+        try (InputStream in = new FileInputStream(file))
+        {
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder actual = new StringBuilder();
+        for (byte b : digest.digest())
+        {
+            actual.append(String.format("%02x", b & 0xff));
+        }
+        boolean matches = actual.toString().equals(expected[1]);
+        if (matches)
+        {
+            getLogger().debug("Download of [" + this.url + "] matches its " + expected[0]
+                + " checksum", getClass().getName());
+        }
+        return matches;
+    }
+
+    /**
+     * @return New connection to the download URL.
+     * @throws IOException If opening the connection fails.
+     */
+    private URLConnection openConnection() throws IOException
+    {
+        return openConnection(this.url);
+    }
+
+    /**
+     * @param connectionUrl URL to connect to.
+     * @return New connection to the URL, with authentication set from the download URL.
+     * @throws IOException If opening the connection fails.
+     */
+    private URLConnection openConnection(URL connectionUrl) throws IOException
+    {
+        URLConnection connection = connectionUrl.openConnection();
+        connection.addRequestProperty("Accept", "*/*");
+        connection.addRequestProperty("Accept-Encoding", "identity");
+
+        connection.setUseCaches(false);
+        if (connection instanceof HttpURLConnection)
+        {
+            HttpURLConnection httpConnection = (HttpURLConnection) connection;
+            httpConnection.setInstanceFollowRedirects(true);
+
+            String userInfo = this.url.getUserInfo();
+            if (userInfo != null)
+            {
+                connection.setRequestProperty("Authorization", "Basic "
+                    + Base64.getEncoder().encodeToString(
+                        userInfo.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Copies a stream, stopping if the current thread is interrupted.
+     * @param in Stream to read from.
+     * @param out Stream to write to.
+     * @param tee Stream to also write to, <code>null</code> if none.
+     * @throws IOException If the copy fails or is interrupted.
+     */
+    private void copy(InputStream in, OutputStream out, OutputStream tee) throws IOException
+    {
+        byte[] buffer = new byte[DefaultFileHandler.FILE_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+        {
+            if (Thread.currentThread().isInterrupted())
+            {
+                throw new InterruptedIOException("Download of [" + this.url + "] interrupted");
+            }
+            out.write(buffer, 0, read);
+            if (tee != null)
+            {
+                tee.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Writes the data already downloaded in a file to the other stream.
+     * @param file File holding the data already downloaded.
+     * @param tee Stream to write to, <code>null</code> if none.
+     * @throws IOException If reading or writing fails.
+     */
+    private void replay(File file, OutputStream tee) throws IOException
+    {
+        if (tee != null)
+        {
+            Files.copy(file.toPath(), tee);
+        }
+    }
+
+    /**
+     * @param connection Connection with a partial content response.
+     * @return Total length of the file given in the <code>Content-Range</code> header,
+     * <code>-1</code> if unknown.
+     */
+    private static long getContentRangeLength(HttpURLConnection connection)
+    {
+        String contentRange = connection.getHeaderField("Content-Range");
+        if (contentRange != null)
+        {
+            int slash = contentRange.lastIndexOf('/');
+            if (slash != -1)
+            {
+                try
+                {
+                    return Long.parseLong(contentRange.substring(slash + 1).trim());
+                }
+                catch (NumberFormatException e)
+                {
+                    // Length is unknown, for example bytes 0-0/*
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Skips bytes of a stream.
+     * @param in Stream to skip bytes of.
+     * @param count Number of bytes to skip.
+     * @return <code>true</code> if all bytes have been skipped, <code>false</code> if the end of
+     * the stream has been reached before.
+     * @throws IOException If reading fails.
+     */
+    private static boolean skip(InputStream in, long count) throws IOException
+    {
+        long remaining = count;
+        while (remaining > 0)
+        {
+            long skipped = in.skip(remaining);
+            if (skipped <= 0)
+            {
+                if (in.read() == -1)
+                {
+                    return false;
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+        return true;
+    }
+}
@@ -24,12 +24,35 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
 import java.net.URL;
-import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
 import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.ArchiveInputStream;
@@ -54,6 +77,75 @@ import org.codehaus.cargo.util.log.Logger;
  */
 public class ZipURLInstaller extends LoggedObject implements Installer
 {
+    /**
+     * Size of the buffer between the download and the extraction when streaming an install.
+     */
+    private static final int STREAMING_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * Number of hexadecimal characters of the key identifying an installation cache entry.
+     */
+    private static final int CACHE_KEY_LENGTH = 16;
+
+    /**
+     * Number of locks the installation cache entries are spread over within this JVM.
+     */
+    private static final int CACHE_LOCK_STRIPES = 64;
+
+    /**
+     * Locks of the installation cache entries within this JVM, an entry using the lock at the
+     * index given by the hash code of its lock file. File locks are held on behalf of the whole
+     * JVM, hence threads also need to be serialized.
+     */
+    private static final ReentrantLock[] CACHE_LOCKS =
+        new ReentrantLock[ZipURLInstaller.CACHE_LOCK_STRIPES];
+
+    /**
+     * Installation cache entries used within this JVM, indexed by usage lock file.
+     */
+    private static final Map<String, CacheEntryUsage> CACHE_USAGES =
+        new HashMap<String, CacheEntryUsage>();
+
+    static
+    {
+        for (int i = 0; i < ZipURLInstaller.CACHE_LOCK_STRIPES; i++)
+        {
+            ZipURLInstaller.CACHE_LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Shared OS lock held on an installation cache entry while it is used within this JVM, so that
+     * no installer evicts it.
+     */
+    private static final class CacheEntryUsage
+    {
+        /**
+         * Channel of the usage lock file.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Shared lock on the usage lock file.
+         */
+        private final FileLock lock;
+
+        /**
+         * Number of installers of this JVM using the entry.
+         */
+        private int users;
+
+        /**
+         * @param channel Channel of the usage lock file.
+         * @param lock Shared lock on the usage lock file.
+         */
+        private CacheEntryUsage(FileChannel channel, FileLock lock)
+        {
+            this.channel = channel;
+            this.lock = lock;
+        }
+    }
+
     /**
      * URL where the compressed container is located.
      */
@@ -74,6 +166,44 @@ public class ZipURLInstaller extends LoggedObject implements Installer
      */
     private Proxy proxy;
 
+    /**
+     * Checksum the downloaded file must match, <code>null</code> to use the published checksum if
+     * any.
+     */
+    private String checksum;
+
+    /**
+     * Maximum number of segments downloaded in parallel.
+     */
+    private int downloadSegments = SegmentedDownloader.DEFAULT_SEGMENTS;
+
+    /**
+     * Whether to extract the compressed container file while it is being downloaded.
+     */
+    private boolean streamingInstall;
+
+    /**
+     * Directory of the shared installation cache, <code>null</code> if not using a cache.
+     */
+    private String cacheDir;
+
+    /**
+     * Size budget of the installation cache in bytes, <code>0</code> for no limit.
+     */
+    private long cacheSize;
+
+    /**
+     * Directory the compressed container is being unpacked into, <code>null</code> to unpack into
+     * the extraction directory.
+     */
+    private String unpackDir;
+
+    /**
+     * Usage lock file of the installation cache entry this installer uses, <code>null</code> if
+     * none.
+     */
+    private String usedCacheEntry;
+
     /**
      * File utility class.
      */
@@ -161,7 +291,11 @@ public class ZipURLInstaller extends LoggedObject implements Installer
     {
         String extractDir;
 
-        if (this.extractDir == null)
+        if (this.cacheDir != null)
+        {
+            return getFileHandler().append(this.cacheDir, getExtractName() + "-" + getCacheKey());
+        }
+        else if (this.extractDir == null)
         {
             extractDir = getFileHandler().getTmpPath("installs");
         }
@@ -170,6 +304,15 @@ public class ZipURLInstaller extends LoggedObject implements Installer
             extractDir = this.extractDir;
         }
 
+        return getFileHandler().append(extractDir, getExtractName());
+    }
+
+    /**
+     * @return The name of the directory the compressed container install will be extracted in,
+     * which is the source file name without its extension.
+     */
+    private String getExtractName()
+    {
         String name = getSourceFileName();
 
         int dotPos = name.lastIndexOf(".");
@@ -182,7 +325,145 @@ public class ZipURLInstaller extends LoggedObject implements Installer
             name = name.substring(0, name.length() - 4);
         }
 
-        return getFileHandler().append(extractDir, name);
+        return name;
+    }
+
+    /**
+     * @return The directory the compressed container is being unpacked into, which is the
+     * extraction directory unless installing in the installation cache.
+     */
+    private String getUnpackDir()
+    {
+        if (this.unpackDir != null)
+        {
+            return this.unpackDir;
+        }
+        return getExtractDir();
+    }
+
+    /**
+     * @return The key of the installation cache entry, computed from the URL and, if set, the
+     * checksum of the compressed container. The key does not depend on the downloaded content:
+     * without a checksum, the installation of a URL whose content changes is not updated.
+     */
+    private String getCacheKey()
+    {
+        String key = this.remoteLocation.toExternalForm() + "\n";
+        if (this.checksum != null)
+        {
+            key += this.checksum.trim().toLowerCase(Locale.ENGLISH);
+        }
+
+        byte[] digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256").digest(
+                key.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new ContainerException("Cannot compute installation cache key", e);
+        }
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < ZipURLInstaller.CACHE_KEY_LENGTH / 2; i++)
+        {
+            hex.append(String.format("%02x", digest[i] & 0xff));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @param checksum the checksum the downloaded file must match, as an hexadecimal string
+     * optionally prefixed with the digest algorithm, for example <code>sha512:...</code>. If not
+     * set, the download is verified against the <code>.sha512</code> or <code>.sha1</code> file
+     * published next to it, if any.
+     * @see SegmentedDownloader#setChecksum(String)
+     */
+    public void setChecksum(String checksum)
+    {
+        this.checksum = checksum;
+    }
+
+    /**
+     * @return the checksum the downloaded file must match, <code>null</code> if not set.
+     */
+    public String getChecksum()
+    {
+        return this.checksum;
+    }
+
+    /**
+     * @param downloadSegments the maximum number of segments downloaded in parallel from servers
+     * supporting byte ranges, set to <code>1</code> to always download as a single stream.
+     */
+    public void setDownloadSegments(int downloadSegments)
+    {
+        this.downloadSegments = downloadSegments;
+    }
+
+    /**
+     * @return the maximum number of segments downloaded in parallel.
+     */
+    public int getDownloadSegments()
+    {
+        return this.downloadSegments;
+    }
+
+    /**
+     * @param streamingInstall whether to extract the compressed container file while it is being
+     * downloaded, instead of reading it again once downloaded. 7Z files cannot be read as a stream
+     * and are always extracted once downloaded.
+     */
+    public void setStreamingInstall(boolean streamingInstall)
+    {
+        this.streamingInstall = streamingInstall;
+    }
+
+    /**
+     * @return whether to extract the compressed container file while it is being downloaded.
+     */
+    public boolean isStreamingInstall()
+    {
+        return this.streamingInstall;
+    }
+
+    /**
+     * @param cacheDir the directory of an installation cache shared by all installers, even in
+     * other processes. When set, installations are stored in this directory (instead of the
+     * extraction directory) keyed by URL and, if set, checksum, installed by one installer at a
+     * time and reused by all others. An installation stays in use, and hence is never evicted from
+     * the cache, from {@link #install()} until {@link #release()} is called or the JVM exits;
+     * afterwards, the least recently installed or reused installations are evicted first.
+     */
+    public void setCacheDir(String cacheDir)
+    {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * @return the directory of the shared installation cache, <code>null</code> if not set.
+     */
+    public String getCacheDir()
+    {
+        return this.cacheDir;
+    }
+
+    /**
+     * @param cacheSize the size budget of the installation cache in bytes, <code>0</code> for no
+     * limit. When exceeded after an installation, the least recently used installations which are
+     * neither being installed nor in use are removed from the cache.
+     */
+    public void setCacheSize(long cacheSize)
+    {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * @return the size budget of the installation cache in bytes.
+     */
+    public long getCacheSize()
+    {
+        return this.cacheSize;
     }
 
     /**
@@ -207,67 +488,393 @@ public class ZipURLInstaller extends LoggedObject implements Installer
     @Override
     public void install()
     {
-        if (!isAlreadyExtracted())
+        if (this.cacheDir != null)
+        {
+            installInCache();
+        }
+        else if (!isAlreadyExtracted())
+        {
+            installArchive();
+        }
+        else
+        {
+            getLogger().debug("Container [" + getSourceFileName() + "] is already installed",
+                this.getClass().getName());
+            getLogger().debug("Using container installation dir [" + getExtractDir() + "]",
+                getClass().getName());
+        }
+    }
+
+    /**
+     * Downloads the compressed container if needed, unpacks it and registers the installation.
+     */
+    private void installArchive()
+    {
+        getLogger().debug("Container [" + getSourceFileName() + "] is not yet installed.",
+            this.getClass().getName());
+
+        String targetFile = getFileHandler().append(getDownloadDir(), getSourceFileName());
+        if (getFileHandler().isDirectory(targetFile))
         {
-            getLogger().debug("Container [" + getSourceFileName() + "] is not yet installed.",
+            throw new ContainerException(
+                "Target file [" + targetFile + "] already exists as a directory, either "
+                    + "delete it or change the ZipURLInstaller target folder or file name");
+        }
+        boolean unpacked = false;
+        if (!getFileHandler().exists(targetFile))
+        {
+            getLogger().debug("Container [" + getSourceFileName() + "] is not yet downloaded.",
                 this.getClass().getName());
 
-            String targetFile = getFileHandler().append(getDownloadDir(), getSourceFileName());
-            if (getFileHandler().isDirectory(targetFile))
+            if (isStreamingInstall() && !targetFile.endsWith(".7z"))
             {
-                throw new ContainerException(
-                    "Target file [" + targetFile + "] already exists as a directory, either "
-                        + "delete it or change the ZipURLInstaller target folder or file name");
+                unpacked = downloadAndUnpack();
             }
             if (!getFileHandler().exists(targetFile))
             {
-                getLogger().debug("Container [" + getSourceFileName() + "] is not yet downloaded.",
-                    this.getClass().getName());
-
                 download();
             }
+        }
 
-            try
+        try
+        {
+            if (!unpacked)
             {
                 getLogger().debug("Container [" + getSourceFileName()
                     + "] is downloaded, now unpacking.", this.getClass().getName());
 
                 unpack();
             }
-            catch (Exception e)
+        }
+        catch (Exception e)
+        {
+            getLogger().debug("Container [" + getSourceFileName() + "] is broken.",
+                this.getClass().getName());
+
+            getFileHandler().delete(targetFile);
+            download();
+            try
             {
-                getLogger().debug("Container [" + getSourceFileName() + "] is broken.",
-                    this.getClass().getName());
+                getLogger().debug("As the container was broken, also deleting ["
+                    + getUnpackDir() + "] before extraction.", this.getClass().getName());
+                getFileHandler().delete(getUnpackDir());
 
-                getFileHandler().delete(targetFile);
-                download();
+                unpack();
+            }
+            catch (Exception ee)
+            {
+                throw new ContainerException(
+                    "Failed to unpack [" + getSourceFileName() + "]", ee);
+            }
+        }
+
+        getLogger().debug("Container [" + getSourceFileName()
+            + "] is unpacked, now registering.", this.getClass().getName());
+
+        registerInstallation();
+    }
+
+    /**
+     * Installs the compressed container in the installation cache. An OS lock on the cache entry
+     * ensures that only one installer, in any process, downloads and unpacks it while the others
+     * wait for the installation to complete. The compressed container is unpacked in a temporary
+     * directory, which is then atomically renamed into the cache.
+     */
+    private void installInCache()
+    {
+        String extractDir = getExtractDir();
+        File lockFile = new File(extractDir + ".lock");
+
+        ReentrantLock jvmLock = getCacheLock(lockFile);
+        jvmLock.lock();
+        try
+        {
+            if (!getFileHandler().exists(this.cacheDir))
+            {
+                getFileHandler().mkdirs(this.cacheDir);
+            }
+
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.lock())
+            {
+                if (isAlreadyExtracted())
+                {
+                    getLogger().debug("Container [" + getSourceFileName()
+                        + "] is already installed in the cache [" + extractDir + "]",
+                            this.getClass().getName());
+                }
+                else
+                {
+                    String temporaryDir = getFileHandler().append(this.cacheDir,
+                        "." + getFileHandler().getName(extractDir) + ".tmp");
+                    getFileHandler().delete(temporaryDir);
+                    this.unpackDir = temporaryDir;
+                    try
+                    {
+                        installArchive();
+                    }
+                    finally
+                    {
+                        this.unpackDir = null;
+                    }
+
+                    getFileHandler().delete(extractDir);
+                    Files.move(new File(temporaryDir).toPath(), new File(extractDir).toPath(),
+                        StandardCopyOption.ATOMIC_MOVE);
+                    getLogger().info("Container [" + getSourceFileName()
+                        + "] installed in the cache [" + extractDir + "]", getClass().getName());
+                }
+
+                // The installation is marked as used before releasing the installation lock, so
+                // that no other installer can evict it in between
+                useCacheEntry(new File(extractDir + ".use"));
+
+                // The timestamp file records when the installation has last been used
+                new File(extractDir, ".cargo").setLastModified(System.currentTimeMillis());
+                evictCacheEntries(new File(extractDir));
+            }
+            catch (IOException e)
+            {
+                throw new ContainerException("Failed to install [" + getSourceFileName()
+                    + "] in the cache [" + extractDir + "]", e);
+            }
+        }
+        finally
+        {
+            jvmLock.unlock();
+        }
+    }
+
+    /**
+     * Stops using the installation in the installation cache, which other installers can then
+     * evict from the cache once it is the least recently used one. Does nothing if not using the
+     * installation cache. The Maven plugin, the Ant tasks and the daemon call it as soon as the
+     * container home has been set up.
+     */
+    public void release()
+    {
+        if (this.usedCacheEntry == null)
+        {
+            return;
+        }
+
+        synchronized (ZipURLInstaller.CACHE_USAGES)
+        {
+            CacheEntryUsage usage = ZipURLInstaller.CACHE_USAGES.get(this.usedCacheEntry);
+            if (usage != null && --usage.users == 0)
+            {
+                ZipURLInstaller.CACHE_USAGES.remove(this.usedCacheEntry);
                 try
                 {
-                    getLogger().debug("As the container was broken, also deleting ["
-                        + getExtractDir() + "] before extraction.", this.getClass().getName());
-                    getFileHandler().delete(getExtractDir());
+                    usage.lock.release();
+                    usage.channel.close();
+                }
+                catch (IOException e)
+                {
+                    getLogger().debug("Failed to release usage lock [" + this.usedCacheEntry
+                        + "]: " + e, getClass().getName());
+                }
+            }
+            this.usedCacheEntry = null;
+        }
+    }
 
-                    unpack();
+    /**
+     * @param lockFile Lock file of an installation cache entry.
+     * @return Lock of the installation cache entry within this JVM.
+     */
+    private static ReentrantLock getCacheLock(File lockFile)
+    {
+        int hash = lockFile.getAbsolutePath().hashCode();
+        return ZipURLInstaller.CACHE_LOCKS[(hash & Integer.MAX_VALUE)
+            % ZipURLInstaller.CACHE_LOCK_STRIPES];
+    }
+
+    /**
+     * Marks an installation cache entry as used by this installer, taking a shared OS lock on its
+     * usage lock file unless another installer of this JVM already uses it.
+     * @param usageFile Usage lock file of the installation cache entry.
+     * @throws IOException If the usage lock cannot be taken.
+     */
+    private void useCacheEntry(File usageFile) throws IOException
+    {
+        String usedCacheEntry = usageFile.getAbsolutePath();
+        if (usedCacheEntry.equals(this.usedCacheEntry))
+        {
+            return;
+        }
+        release();
+
+        synchronized (ZipURLInstaller.CACHE_USAGES)
+        {
+            CacheEntryUsage usage = ZipURLInstaller.CACHE_USAGES.get(usedCacheEntry);
+            if (usage == null)
+            {
+                FileChannel channel = FileChannel.open(usageFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                try
+                {
+                    usage = new CacheEntryUsage(channel, channel.lock(0L, Long.MAX_VALUE, true));
                 }
-                catch (Exception ee)
+                catch (IOException | RuntimeException e)
                 {
-                    throw new ContainerException(
-                        "Failed to unpack [" + getSourceFileName() + "]", ee);
+                    channel.close();
+                    throw e;
                 }
+                ZipURLInstaller.CACHE_USAGES.put(usedCacheEntry, usage);
             }
+            usage.users++;
+            this.usedCacheEntry = usedCacheEntry;
+        }
+    }
 
-            getLogger().debug("Container [" + getSourceFileName()
-                + "] is unpacked, now registering.", this.getClass().getName());
+    /**
+     * Removes the least recently used installations from the cache until it fits in its size
+     * budget. Installations being installed or in use, and hence locked, are kept.
+     * @param current Installation which has just been used, which is never removed.
+     */
+    private void evictCacheEntries(File current)
+    {
+        if (this.cacheSize <= 0)
+        {
+            return;
+        }
 
-            registerInstallation();
+        List<File> entries = new ArrayList<File>();
+        final Map<File, Long> lastUsed = new HashMap<File, Long>();
+        Map<File, Long> sizes = new HashMap<File, Long>();
+        long totalSize = 0;
+        File[] children = new File(this.cacheDir).listFiles();
+        if (children != null)
+        {
+            for (File child : children)
+            {
+                File timestampFile = new File(child, ".cargo");
+                if (!child.getName().startsWith(".") && timestampFile.isFile())
+                {
+                    entries.add(child);
+                    lastUsed.put(child, timestampFile.lastModified());
+                    sizes.put(child, getSize(child));
+                    totalSize += sizes.get(child);
+                }
+            }
         }
-        else
+        Collections.sort(entries, new Comparator<File>()
         {
-            getLogger().debug("Container [" + getSourceFileName() + "] is already installed",
-                this.getClass().getName());
-            getLogger().debug("Using container installation dir [" + getExtractDir() + "]",
+            @Override
+            public int compare(File entry1, File entry2)
+            {
+                return Long.compare(lastUsed.get(entry1), lastUsed.get(entry2));
+            }
+        });
+
+        for (File entry : entries)
+        {
+            if (totalSize <= this.cacheSize)
+            {
+                break;
+            }
+            if (!entry.getAbsoluteFile().equals(current.getAbsoluteFile())
+                && evictCacheEntry(entry))
+            {
+                totalSize -= sizes.get(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes an installation from the cache, unless it is being installed or in use.
+     * @param entry Installation to remove.
+     * @return <code>true</code> if the installation has been removed.
+     */
+    private boolean evictCacheEntry(File entry)
+    {
+        File lockFile = new File(entry.getPath() + ".lock");
+        File usageFile = new File(entry.getPath() + ".use");
+        ReentrantLock jvmLock = getCacheLock(lockFile);
+        if (!jvmLock.tryLock())
+        {
+            return false;
+        }
+
+        try
+        {
+            synchronized (ZipURLInstaller.CACHE_USAGES)
+            {
+                if (ZipURLInstaller.CACHE_USAGES.containsKey(usageFile.getAbsolutePath()))
+                {
+                    return false;
+                }
+            }
+
+            // Other installers lock the installation lock file while installing, and hold a
+            // shared lock on the usage lock file while using the installation
+            try (FileChannel channel = FileChannel.open(lockFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock lock = channel.tryLock();
+                FileChannel usageChannel = FileChannel.open(usageFile.toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                FileLock usageLock = lock == null ? null : usageChannel.tryLock())
+            {
+                if (usageLock == null)
+                {
+                    return false;
+                }
+
+                // Move the installation away first so that it disappears at once for other
+                // installers
+                File removed = new File(entry.getParentFile(), "." + entry.getName() + ".tmp");
+                getFileHandler().delete(removed.getPath());
+                Files.move(entry.toPath(), removed.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                getFileHandler().delete(removed.getPath());
+                getLogger().info("Removed least recently used installation [" + entry
+                    + "] from the cache", getClass().getName());
+                return true;
+            }
+            catch (OverlappingFileLockException e)
+            {
+                // Locked by another thread of this JVM
+                return false;
+            }
+            catch (IOException e)
+            {
+                getLogger().warn("Failed to remove installation [" + entry + "] from the cache: "
+                    + e, getClass().getName());
+                return false;
+            }
+        }
+        finally
+        {
+            jvmLock.unlock();
+        }
+    }
+
+    /**
+     * @param directory Directory.
+     * @return Total size of the files in the directory, in bytes.
+     */
+    private long getSize(File directory)
+    {
+        final long[] size = new long[1];
+        try
+        {
+            Files.walkFileTree(directory.toPath(), new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+                {
+                    size[0] += attributes.size();
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            getLogger().debug("Cannot compute the size of [" + directory + "]: " + e,
                 getClass().getName());
         }
+        return size[0];
     }
 
     /**
@@ -279,7 +886,7 @@ public class ZipURLInstaller extends LoggedObject implements Installer
     {
         try
         {
-            getFileHandler().writeTextFile(getFileHandler().append(getExtractDir(), ".cargo"),
+            getFileHandler().writeTextFile(getFileHandler().append(getUnpackDir(), ".cargo"),
                 "Do not remove this file", StandardCharsets.UTF_8);
         }
         catch (Exception e)
@@ -369,7 +976,7 @@ public class ZipURLInstaller extends LoggedObject implements Installer
     {
         String source = getFileHandler().append(getDownloadDir(), getSourceFileName());
         getLogger().info(
-            "Installing container [" + source + "] in [" + getExtractDir() + "]",
+            "Installing container [" + source + "] in [" + getUnpackDir() + "]",
                 getClass().getName());
 
         if (source.endsWith(".7z"))
@@ -379,7 +986,7 @@ public class ZipURLInstaller extends LoggedObject implements Installer
             while ((sevenZEntry = sevenZFile.getNextEntry()) != null)
             {
                 String destinationEntry =
-                    getFileHandler().append(getExtractDir(),
+                    getFileHandler().append(getUnpackDir(),
                         DefaultFileHandler.sanitizeFilename(sevenZEntry.getName(), getLogger()));
                 if (sevenZEntry.isDirectory())
                 {
@@ -410,34 +1017,43 @@ public class ZipURLInstaller extends LoggedObject implements Installer
             try (BufferedInputStream sourceInputStream =
                 new BufferedInputStream(getFileHandler().getInputStream(source)))
             {
-                boolean compressedStream;
-                try
-                {
-                    CompressorStreamFactory.detect(sourceInputStream);
-                    compressedStream = true;
-                }
-                catch (CompressorException e)
-                {
-                    // Source is not a compressed stream
-                    compressedStream = false;
-                }
+                unpackCompressedStream(sourceInputStream);
+            }
+        }
+    }
 
-                if (compressedStream)
-                {
-                    CompressorStreamFactory csf = new CompressorStreamFactory();
-                    try (BufferedInputStream decompressedInputStream =
-                        new BufferedInputStream(
-                            csf.createCompressorInputStream(sourceInputStream)))
-                    {
-                        unpackStream(decompressedInputStream);
-                    }
-                }
-                else
-                {
-                    unpackStream(sourceInputStream);
-                }
+    /**
+     * Handles the unpacking of a stream which may be compressed.
+     * @param sourceInputStream Source input stream, must support marks.
+     * @throws Exception If the compressed file is broken
+     */
+    private void unpackCompressedStream(InputStream sourceInputStream) throws Exception
+    {
+        boolean compressedStream;
+        try
+        {
+            CompressorStreamFactory.detect(sourceInputStream);
+            compressedStream = true;
+        }
+        catch (CompressorException e)
+        {
+            // Source is not a compressed stream
+            compressedStream = false;
+        }
+
+        if (compressedStream)
+        {
+            CompressorStreamFactory csf = new CompressorStreamFactory();
+            try (BufferedInputStream decompressedInputStream =
+                new BufferedInputStream(csf.createCompressorInputStream(sourceInputStream)))
+            {
+                unpackStream(decompressedInputStream);
             }
         }
+        else
+        {
+            unpackStream(sourceInputStream);
+        }
     }
 
     /**
@@ -455,7 +1071,7 @@ public class ZipURLInstaller extends LoggedObject implements Installer
             while ((archiveEntry = dearchivedInputStream.getNextEntry()) != null)
             {
                 String destinationEntry =
-                    getFileHandler().append(getExtractDir(),
+                    getFileHandler().append(getUnpackDir(),
                         DefaultFileHandler.sanitizeFilename(archiveEntry.getName(), getLogger()));
                 if (archiveEntry.isDirectory())
                 {
@@ -478,6 +1094,117 @@ public class ZipURLInstaller extends LoggedObject implements Installer
         }
     }
 
+    /**
+     * Downloads the compressed file containing the container files and unpacks it at the same
+     * time, the downloaded bytes being handed over to the extraction as they arrive.
+     * @return <code>true</code> if the compressed file has been downloaded and unpacked,
+     * <code>false</code> if it failed, in which case the extraction directory has been deleted
+     * and the compressed file is either downloaded or partially downloaded, ready to be resumed.
+     */
+    private boolean downloadAndUnpack()
+    {
+        getLogger().info("Installing container [" + this.remoteLocation + "] in ["
+            + getUnpackDir() + "] while downloading it", getClass().getName());
+
+        Map<String, String> previousProperties = null;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Void> extraction = null;
+        try
+        {
+            if (this.proxy != null)
+            {
+                previousProperties = this.proxy.configure();
+            }
+
+            final PipedInputStream pipedInputStream =
+                new PipedInputStream(ZipURLInstaller.STREAMING_BUFFER_SIZE);
+            try (PipedOutputStream pipedOutputStream = new PipedOutputStream(pipedInputStream))
+            {
+                extraction = executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws Exception
+                    {
+                        try (InputStream sourceInputStream =
+                            new BufferedInputStream(pipedInputStream))
+                        {
+                            unpackDownloadingStream(sourceInputStream);
+                        }
+                        return null;
+                    }
+                });
+
+                doDownload(pipedOutputStream);
+            }
+            extraction.get();
+            return true;
+        }
+        catch (Exception e)
+        {
+            if (e instanceof InterruptedException)
+            {
+                Thread.currentThread().interrupt();
+            }
+            Throwable cause = e;
+            if (e instanceof ExecutionException)
+            {
+                cause = e.getCause();
+            }
+            else if (extraction != null)
+            {
+                // The download failed, wait for the extraction to reach the end of the stream
+                // before deleting what it has extracted
+                try
+                {
+                    extraction.get();
+                }
+                catch (InterruptedException ie)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                catch (ExecutionException ee)
+                {
+                    // Expected, as the stream is truncated
+                }
+            }
+            getLogger().warn("Failed to unpack [" + getSourceFileName() + "] while downloading "
+                + "it, falling back to unpacking it once downloaded: " + cause,
+                    getClass().getName());
+            getFileHandler().delete(getUnpackDir());
+            return false;
+        }
+        finally
+        {
+            executor.shutdownNow();
+            if (this.proxy != null)
+            {
+                this.proxy.clear(previousProperties);
+            }
+        }
+    }
+
+    /**
+     * Handles the unpacking of a stream being downloaded. The stream is always read until its end,
+     * so that the download is never blocked.
+     * @param sourceInputStream Source input stream, must support marks.
+     * @throws Exception If the compressed file is broken
+     */
+    private void unpackDownloadingStream(InputStream sourceInputStream) throws Exception
+    {
+        try
+        {
+            unpackCompressedStream(sourceInputStream);
+        }
+        finally
+        {
+            byte[] buffer = new byte[DefaultFileHandler.FILE_BUFFER_SIZE];
+            while (sourceInputStream.read(buffer) != -1)
+            {
+                // Trailing bytes, for example the central directory of a ZIP file
+            }
+        }
+    }
+
     /**
      * Downloads the compressed file containing the container files.
      */
@@ -525,10 +1252,25 @@ public class ZipURLInstaller extends LoggedObject implements Installer
     }
 
     /**
-     * Perform the actual HTTP download.
+     * Perform the actual HTTP download. The file is downloaded next to the target file with a
+     * <code>.part</code> extension, in parallel segments and resuming previous downloads when the
+     * server supports byte ranges, then verified and renamed into place.
      * @throws IOException if any I/O exception occurs (with the URL connection or file streams)
+     * @see SegmentedDownloader
      */
     protected void doDownload() throws IOException
+    {
+        doDownload(null);
+    }
+
+    /**
+     * Perform the actual HTTP download, also writing the downloaded bytes in order to another
+     * stream.
+     * @param tee Stream to also write the downloaded bytes to, <code>null</code> if none.
+     * @throws IOException if any I/O exception occurs (with the URL connection or file streams)
+     * @see SegmentedDownloader#download(File, OutputStream)
+     */
+    protected void doDownload(OutputStream tee) throws IOException
     {
         String downloadDir = getDownloadDir();
         if (!getFileHandler().exists(downloadDir))
@@ -540,37 +1282,21 @@ public class ZipURLInstaller extends LoggedObject implements Installer
         getLogger().info("Downloading container from [" + this.remoteLocation + "] to ["
             + target + "]", getClass().getName());
 
-        final URLConnection connection = this.remoteLocation.openConnection();
-        connection.addRequestProperty("Accept", "*/*");
-        connection.addRequestProperty("Accept-Encoding", "identity");
-
-        connection.setUseCaches(false);
-        if (connection instanceof HttpURLConnection)
-        {
-            HttpURLConnection httpConnection = (HttpURLConnection) connection;
-            httpConnection.setInstanceFollowRedirects(true);
-
-            String userInfo = this.remoteLocation.getUserInfo();
-            if (userInfo != null)
-            {
-                connection.setRequestProperty("Authorization", "Basic "
-                    + Base64.getEncoder().encodeToString(
-                        userInfo.getBytes(StandardCharsets.UTF_8)));
-            }
-        }
-
-        try (InputStream httpStream = connection.getInputStream();
-            OutputStream fileStream = getFileHandler().getOutputStream(target))
-        {
-            getFileHandler().copy(httpStream, fileStream);
-        }
+        SegmentedDownloader downloader = createDownloader();
+        downloader.download(new File(target), tee);
+    }
 
-        final long remoteTimestamp = connection.getLastModified();
-        if (remoteTimestamp != 0)
-        {
-            File targetFile = new File(target);
-            targetFile.setLastModified(remoteTimestamp);
-        }
+    /**
+     * @return Downloader for the compressed container file, configured with the checksum and the
+     * number of segments of this installer.
+     */
+    protected SegmentedDownloader createDownloader()
+    {
+        SegmentedDownloader downloader = new SegmentedDownloader(this.remoteLocation);
+        downloader.setLogger(getLogger());
+        downloader.setSegments(this.downloadSegments);
+        downloader.setChecksum(this.checksum);
+        return downloader;
     }
 
     /**
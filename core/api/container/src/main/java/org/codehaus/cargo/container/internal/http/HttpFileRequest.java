@@ -64,6 +64,15 @@ public class HttpFileRequest extends HttpRequest
         this.file = file;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isRequestBodyStreamed()
+    {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -65,6 +65,15 @@ public class HttpFormRequest extends HttpRequest
         this.formData = formData;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isRequestBodyStreamed()
+    {
+        return formData instanceof MultipartFormContentType;
+    }
+
     /**
      * {@inheritDoc}
      */
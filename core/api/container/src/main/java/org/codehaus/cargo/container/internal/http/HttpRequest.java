@@ -29,9 +29,10 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.security.KeyManagementException;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.Base64;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -41,6 +42,7 @@ import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 
@@ -73,6 +75,19 @@ public class HttpRequest extends LoggedObject
      */
     private static final NonceCounter NONCE_COUNTER = new NonceCounter();
 
+    /**
+     * Host name verifier set on all HTTPS connections.
+     */
+    private static final HostnameVerifier PERMISSIVE_HOSTNAME_VERIFIER =
+        new PermissiveHostnameVerifier();
+
+    /**
+     * SSL socket factory set on all HTTPS connections, created on first use. As the JDK only
+     * reuses kept alive HTTPS connections opened with the same socket factory, it is shared by
+     * all requests.
+     */
+    private static SSLSocketFactory permissiveSslSocketFactory;
+
     /**
      * URL to be called.
      */
@@ -103,6 +118,17 @@ public class HttpRequest extends LoggedObject
      */
     private String requestBody;
 
+    /**
+     * Maximum number of response body bytes read, 0 for no limit.
+     */
+    private long maxResponseBodySize;
+
+    /**
+     * Whether large request bodies are announced with <code>Expect: 100-continue</code> when
+     * authenticating.
+     */
+    private boolean expectContinue = true;
+
     /**
      * Constructor.
      * 
@@ -143,6 +169,16 @@ public class HttpRequest extends LoggedObject
         this.requestBody = requestBody;
     }
 
+    /**
+     * @param maxResponseBodySize Maximum number of response body bytes read, 0 for no limit. When
+     * the response body is larger, it is truncated and {@link HttpResult#isResponseBodyTruncated()}
+     * returns <code>true</code>.
+     */
+    public void setMaxResponseBodySize(long maxResponseBodySize)
+    {
+        this.maxResponseBodySize = maxResponseBodySize;
+    }
+
     /**
      * Set HTTP authentication.
      * 
@@ -208,21 +244,24 @@ public class HttpRequest extends LoggedObject
         HttpURLConnection connection = null;
         try
         {
-            if (url.getProtocol().equalsIgnoreCase("https"))
-            {
-                TrustManager[] trustAll = {new PermissiveTrustManager()};
-                SSLContext sc = SSLContext.getInstance("SSL");
-                sc.init(null, trustAll, new java.security.SecureRandom());
-                HttpsURLConnection.setDefaultSSLSocketFactory(sc.getSocketFactory());
+            connection = openConnection();
 
-                connection = (HttpsURLConnection) url.openConnection();
-
-                HostnameVerifier verifyAll = new PermissiveHostnameVerifier();
-                ((HttpsURLConnection) connection).setHostnameVerifier(verifyAll);
-            }
-            else
+            String authorization = digestData;
+            boolean cachedDigest = false;
+            boolean hasUsername = this.username != null && !this.username.isEmpty();
+            if (authorization == null && hasUsername && url.getUserInfo() == null)
             {
-                connection = (HttpURLConnection) url.openConnection();
+                String challenge = NONCE_COUNTER.getChallenge(getDigestKey());
+                if (challenge != null)
+                {
+                    authorization = createDigestAuthorization(
+                        extractHeaderComponent(challenge, "realm"),
+                        extractHeaderComponent(challenge, "qop"),
+                        extractHeaderComponent(challenge, "nonce"),
+                        extractHeaderComponent(challenge, "opaque"),
+                        extractHeaderComponent(challenge, "algorithm"), httpMethod);
+                    cachedDigest = true;
+                }
             }
 
             connection.setRequestMethod(httpMethod);
@@ -245,10 +284,18 @@ public class HttpRequest extends LoggedObject
             // resource pooling in case of multiple requests to the same server
             // connection.setRequestProperty("Connection", "close");
 
-            if (digestData != null)
+            if (authorization != null)
             {
-                connection.setRequestProperty("Authorization", digestData);
-                getLogger().debug("Set Digest authentication", this.getClass().getName());
+                connection.setRequestProperty("Authorization", authorization);
+                if (cachedDigest)
+                {
+                    getLogger().debug("Set Digest authentication based on the previous challenge "
+                        + "of the server", this.getClass().getName());
+                }
+                else
+                {
+                    getLogger().debug("Set Digest authentication", this.getClass().getName());
+                }
             }
             else
             {
@@ -262,7 +309,7 @@ public class HttpRequest extends LoggedObject
                     getLogger().debug("Set Basic authentication based on URL user information",
                         this.getClass().getName());
                 }
-                else if (this.username != null && !this.username.isEmpty())
+                else if (hasUsername)
                 {
                     StringBuilder sb = new StringBuilder();
                     sb.append(username).append(':');
@@ -294,6 +341,14 @@ public class HttpRequest extends LoggedObject
                 }
             }
 
+            // Have the server answer before a large request body is sent, so that the body is not
+            // uploaded for nothing if the server requests (another) authentication
+            boolean expectContinue = this.expectContinue && hasUsername && isRequestBodyStreamed();
+            if (expectContinue)
+            {
+                connection.setRequestProperty("Expect", "100-continue");
+            }
+
             getLogger().debug("Sending request and writing to output stream if necessary",
                 this.getClass().getName());
             try
@@ -320,10 +375,19 @@ public class HttpRequest extends LoggedObject
             getLogger().debug("Got response code [" + responseCode + "]",
                 this.getClass().getName());
 
-            if (responseCode == 401)
+            if (responseCode == 417 && expectContinue)
+            {
+                getLogger().debug("Server does not support [Expect: 100-continue]",
+                    getClass().getName());
+                this.expectContinue = false;
+                discard(connection);
+                connection = null;
+                return connect(httpMethod, digestData);
+            }
+            else if (responseCode == 401)
             {
                 String wwwAuthenticate = connection.getHeaderField("WWW-Authenticate");
-                if (digestData == null && wwwAuthenticate != null
+                if ((authorization == null || cachedDigest) && wwwAuthenticate != null
                     && wwwAuthenticate.startsWith("Digest "))
                 {
                     getLogger().debug("Server requests Digest authentication",
@@ -362,87 +426,19 @@ public class HttpRequest extends LoggedObject
                                 + qop + "] instead of [auth]");
                         return result;
                     }
-                    if (algorithm == null)
-                    {
-                        algorithm = "MD5";
-                    }
-                    MessageDigest digest = MessageDigest.getInstance(algorithm);
-
-                    String ha1 = this.username + ":" + realm + ":" + this.password;
-                    byte[] hash = digest.digest(ha1.getBytes(StandardCharsets.UTF_8));
-                    StringBuilder sb = new StringBuilder();
-                    for (byte hashByte : hash)
-                    {
-                        sb.append(String.format("%02x", hashByte));
-                    }
-                    ha1 = sb.toString();
-
-                    String uri;
-                    String uriPath = url.getPath();
-                    String uriQuery = url.getQuery();
-                    if (uriQuery != null)
-                    {
-                        uri = uriPath + "?" + uriQuery;
-                    }
-                    else
-                    {
-                        uri = uriPath;
-                    }
-
-                    String ha2 = httpMethod;
-                    ha2 += ":" + uri;
-                    hash = digest.digest(ha2.getBytes(StandardCharsets.UTF_8));
-                    sb = new StringBuilder();
-                    for (byte hashByte : hash)
-                    {
-                        sb.append(String.format("%02x", hashByte));
-                    }
-                    ha2 = sb.toString();
-
-                    String nc = NONCE_COUNTER.count(nonce);
-
-                    String cnonce =
-                        String.format("%08x", (long) (Math.random() * 4294967295.0));
-                    cnonce = cnonce.substring(cnonce.length() - 8);
+                    String digestAuthorization = createDigestAuthorization(
+                        realm, qop, nonce, opaque, algorithm, httpMethod);
 
-                    String ha3;
-                    if (qop != null)
-                    {
-                        ha3 = ha1 + ":" + nonce + ":" + nc + ":" + cnonce + ":" + qop + ":" + ha2;
-                    }
-                    else
-                    {
-                        ha3 = ha1 + ":" + nonce + ":" + ha2;
-                    }
-                    hash = digest.digest(ha3.getBytes(StandardCharsets.UTF_8));
-                    sb = new StringBuilder();
-                    for (byte hashByte : hash)
-                    {
-                        sb.append(String.format("%02x", hashByte));
-                    }
-                    ha3 = sb.toString();
-
-                    wwwAuthenticate = "Digest username=\"" + this.username + "\", "
-                        + "realm=\"" + realm + "\", "
-                        + "nonce=\"" + nonce + "\", "
-                        + "uri=\"" + uri + "\", "
-                        + "algorithm=" + algorithm + ", "
-                        + "nc=" + nc + ", "
-                        + "cnonce=\"" + cnonce + "\", "
-                        + "response=\"" + ha3 + "\"";
-                    if (qop != null)
-                    {
-                        wwwAuthenticate += ", qop=\"" + qop + "\"";
-                    }
-                    if (opaque != null)
-                    {
-                        wwwAuthenticate += ", opaque=\"" + opaque + "\"";
-                    }
+                    // Remember the challenge, so that the next requests to this server are
+                    // authenticated right away
+                    NONCE_COUNTER.setChallenge(getDigestKey(), wwwAuthenticate);
 
-                    getLogger().debug("Digest authentication with ha=" + ha1 + ", ha2=" + ha2,
-                        getClass().getName());
+                    // Give the connection back before authenticating, so that the authenticated
+                    // request can reuse it
+                    discard(connection);
+                    connection = null;
 
-                    return connect(httpMethod, wwwAuthenticate);
+                    return connect(httpMethod, digestAuthorization);
                 }
                 else
                 {
@@ -454,10 +450,16 @@ public class HttpRequest extends LoggedObject
             HttpResult result = new HttpResult();
             result.setResponseCode(responseCode);
             result.setResponseMessage(connection.getResponseMessage());
-            result.setResponseBody(readFully(connection));
+            readFully(connection, result);
+            if (!result.isResponseBodyTruncated())
+            {
+                // The response has been fully read and its stream closed, hence leave the
+                // connection to the JDK so that it is kept alive for the next requests
+                connection = null;
+            }
             return result;
         }
-        catch (KeyManagementException | NoSuchAlgorithmException e)
+        catch (NoSuchAlgorithmException e)
         {
             throw new IOException(e);
         }
@@ -477,6 +479,185 @@ public class HttpRequest extends LoggedObject
         }
     }
 
+    /**
+     * Computes the <code>Authorization</code> header answering a Digest authentication
+     * challenge.
+     * 
+     * @param realm Realm of the challenge.
+     * @param qop Quality of protection of the challenge, <code>null</code> if none.
+     * @param nonce Nonce of the challenge.
+     * @param opaque Opaque value of the challenge, <code>null</code> if none.
+     * @param algorithm Algorithm of the challenge, <code>null</code> for MD5.
+     * @param httpMethod HTTP method to be called.
+     * @return <code>Authorization</code> header value.
+     * @throws NoSuchAlgorithmException If the algorithm is not supported.
+     */
+    private String createDigestAuthorization(String realm, String qop, String nonce,
+        String opaque, String algorithm, String httpMethod) throws NoSuchAlgorithmException
+    {
+        if (algorithm == null)
+        {
+            algorithm = "MD5";
+        }
+        MessageDigest digest = MessageDigest.getInstance(algorithm);
+
+        String ha1 = this.username + ":" + realm + ":" + this.password;
+        byte[] hash = digest.digest(ha1.getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder();
+        for (byte hashByte : hash)
+        {
+            sb.append(String.format("%02x", hashByte));
+        }
+        ha1 = sb.toString();
+
+        String uri;
+        String uriPath = url.getPath();
+        String uriQuery = url.getQuery();
+        if (uriQuery != null)
+        {
+            uri = uriPath + "?" + uriQuery;
+        }
+        else
+        {
+            uri = uriPath;
+        }
+
+        String ha2 = httpMethod;
+        ha2 += ":" + uri;
+        hash = digest.digest(ha2.getBytes(StandardCharsets.UTF_8));
+        sb = new StringBuilder();
+        for (byte hashByte : hash)
+        {
+            sb.append(String.format("%02x", hashByte));
+        }
+        ha2 = sb.toString();
+
+        String nc = NONCE_COUNTER.count(nonce);
+
+        String cnonce =
+            String.format("%08x", (long) (Math.random() * 4294967295.0));
+        cnonce = cnonce.substring(cnonce.length() - 8);
+
+        String ha3;
+        if (qop != null)
+        {
+            ha3 = ha1 + ":" + nonce + ":" + nc + ":" + cnonce + ":" + qop + ":" + ha2;
+        }
+        else
+        {
+            ha3 = ha1 + ":" + nonce + ":" + ha2;
+        }
+        hash = digest.digest(ha3.getBytes(StandardCharsets.UTF_8));
+        sb = new StringBuilder();
+        for (byte hashByte : hash)
+        {
+            sb.append(String.format("%02x", hashByte));
+        }
+        ha3 = sb.toString();
+
+        String authorization = "Digest username=\"" + this.username + "\", "
+            + "realm=\"" + realm + "\", "
+            + "nonce=\"" + nonce + "\", "
+            + "uri=\"" + uri + "\", "
+            + "algorithm=" + algorithm + ", "
+            + "nc=" + nc + ", "
+            + "cnonce=\"" + cnonce + "\", "
+            + "response=\"" + ha3 + "\"";
+        if (qop != null)
+        {
+            authorization += ", qop=\"" + qop + "\"";
+        }
+        if (opaque != null)
+        {
+            authorization += ", opaque=\"" + opaque + "\"";
+        }
+
+        getLogger().debug("Digest authentication with ha=" + ha1 + ", ha2=" + ha2,
+            getClass().getName());
+
+        return authorization;
+    }
+
+    /**
+     * @return Key under which the Digest authentication challenge of the server is remembered.
+     */
+    private String getDigestKey()
+    {
+        return url.getProtocol() + "://" + url.getHost() + ":"
+            + (url.getPort() != -1 ? url.getPort() : url.getDefaultPort());
+    }
+
+    /**
+     * Opens the connection to the {@link #url}. HTTPS connections accept any certificate and
+     * host name.
+     * 
+     * @return the HTTP URL connection
+     * @throws IOException if the connection cannot be opened
+     */
+    private HttpURLConnection openConnection() throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (connection instanceof HttpsURLConnection)
+        {
+            HttpsURLConnection httpsConnection = (HttpsURLConnection) connection;
+            httpsConnection.setSSLSocketFactory(getPermissiveSslSocketFactory());
+            httpsConnection.setHostnameVerifier(PERMISSIVE_HOSTNAME_VERIFIER);
+        }
+        return connection;
+    }
+
+    /**
+     * @return SSL socket factory which does not validate certificate chains.
+     * @throws IOException if the SSL context cannot be created
+     */
+    private static synchronized SSLSocketFactory getPermissiveSslSocketFactory()
+        throws IOException
+    {
+        if (permissiveSslSocketFactory == null)
+        {
+            try
+            {
+                SSLContext sc = SSLContext.getInstance("SSL");
+                sc.init(null, new TrustManager[] {new PermissiveTrustManager()},
+                    new SecureRandom());
+                permissiveSslSocketFactory = sc.getSocketFactory();
+            }
+            catch (GeneralSecurityException e)
+            {
+                throw new IOException("Cannot create SSL context", e);
+            }
+        }
+        return permissiveSslSocketFactory;
+    }
+
+    /**
+     * Reads what remains of a response, so that the JDK can reuse its connection. The connection
+     * is closed if the response is too large to be read.
+     * 
+     * @param connection the HTTP URL connection to discard
+     * @throws IOException if an error happens during the read
+     */
+    private void discard(HttpURLConnection connection) throws IOException
+    {
+        HttpResult result = new HttpResult();
+        readFully(connection, result);
+        if (result.isResponseBodyTruncated())
+        {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Whether {@link #writeOutputStream(HttpURLConnection)} streams a potentially large request
+     * body, which should then only be sent once the server accepted the request.
+     * 
+     * @return <code>false</code>, as the {@link #requestBody} is small.
+     */
+    protected boolean isRequestBodyStreamed()
+    {
+        return false;
+    }
+
     /**
      * If necessary, writes to the output stream of the HTTP URL connection. By default, the
      * {@link #requestBody} is written as output.
@@ -504,13 +685,14 @@ public class HttpRequest extends LoggedObject
 
     /**
      * Fully reads the input stream from the passed HTTP URL connection to prevent (harmless)
-     * server-side exception.
+     * server-side exception, up to {@link #maxResponseBodySize} bytes. The stream is then closed,
+     * which lets the JDK keep the connection alive if the response has been fully read.
      * 
      * @param connection the HTTP URL connection to read from
+     * @param result the result in which to set the response body
      * @exception IOException if an error happens during the read
-     * @return the HTTP connection response body
      */
-    private String readFully(HttpURLConnection connection) throws IOException
+    private void readFully(HttpURLConnection connection, HttpResult result) throws IOException
     {
         String responseBody = "";
 
@@ -527,23 +709,27 @@ public class HttpRequest extends LoggedObject
             int responseCode = connection.getResponseCode();
             if (responseCode >= 200 && responseCode < 300)
             {
-                InputStream in = connection.getInputStream();
-                if (in != null)
+                try (InputStream in = connection.getInputStream())
                 {
-                    responseBody = readStreamData(in, charset);
+                    if (in != null)
+                    {
+                        responseBody = readStreamData(in, charset, result);
+                    }
                 }
             }
             else
             {
-                InputStream in = connection.getErrorStream();
-                if (in != null)
+                try (InputStream in = connection.getErrorStream())
                 {
-                    responseBody = readStreamData(in, charset);
+                    if (in != null)
+                    {
+                        responseBody = readStreamData(in, charset, result);
+                    }
                 }
             }
         }
 
-        return responseBody;
+        result.setResponseBody(responseBody);
     }
 
     /**
@@ -576,12 +762,20 @@ public class HttpRequest extends LoggedObject
     /**
      * @param stream the stream from which to read data from
      * @param charset the charset to use when constructing the string
+     * @param result the result to mark as truncated if the stream exceeds
+     * {@link #maxResponseBodySize}
      * @return the stream data
      * @throws IOException in case of error
      */
-    private String readStreamData(InputStream stream, Charset charset) throws IOException
+    private String readStreamData(InputStream stream, Charset charset, HttpResult result)
+        throws IOException
     {
-        InputStreamReader reader = new InputStreamReader(stream, charset);
+        InputStream limitedStream = stream;
+        if (maxResponseBodySize > 0)
+        {
+            limitedStream = new LimitedInputStream(stream, maxResponseBodySize, result);
+        }
+        InputStreamReader reader = new InputStreamReader(limitedStream, charset);
 
         StringBuilder sb = new StringBuilder();
         char[] chars = new char[1024];
@@ -636,7 +830,8 @@ public class HttpRequest extends LoggedObject
 
     /**
      * NonceCounter provides a 1,000 item LRU cache counting
-     * the number of times a nonce has been seen.
+     * the number of times a nonce has been seen, and remembers
+     * the last Digest authentication challenge of each server.
      */
     private static class NonceCounter
     {
@@ -650,6 +845,11 @@ public class HttpRequest extends LoggedObject
          */
         private Map<String, Integer> nonces;
 
+        /**
+         * Map holds the last Digest authentication challenge of each server
+         */
+        private Map<String, String> challenges = new HashMap<String, String>();
+
         /**
          * Nonce counter.
          */
@@ -692,6 +892,97 @@ public class HttpRequest extends LoggedObject
 
             return String.format("%08x", count);
         }
+
+        /**
+         * Remembers the last Digest authentication challenge of a server, so that its nonce can
+         * be used for the next requests to that server.
+         * 
+         * @param server the server key
+         * @param challenge the <code>WWW-Authenticate</code> header of the server
+         */
+        public synchronized void setChallenge(String server, String challenge)
+        {
+            challenges.put(server, challenge);
+        }
+
+        /**
+         * @param server the server key
+         * @return the last Digest authentication challenge of the server, <code>null</code> if
+         * none
+         */
+        public synchronized String getChallenge(String server)
+        {
+            return challenges.get(server);
+        }
+    }
+
+    /**
+     * Input stream returning end of stream once a maximum number of bytes has been read, and
+     * marking the result as truncated if more bytes were available.
+     */
+    private class LimitedInputStream extends InputStream
+    {
+        /**
+         * Wrapped stream.
+         */
+        private final InputStream in;
+
+        /**
+         * Number of bytes which can still be read.
+         */
+        private long remaining;
+
+        /**
+         * Result to mark as truncated.
+         */
+        private final HttpResult result;
+
+        /**
+         * @param in Wrapped stream.
+         * @param limit Maximum number of bytes read.
+         * @param result Result to mark as truncated.
+         */
+        LimitedInputStream(InputStream in, long limit, HttpResult result)
+        {
+            this.in = in;
+            this.remaining = limit;
+            this.result = result;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read() throws IOException
+        {
+            byte[] b = new byte[1];
+            int n = read(b, 0, 1);
+            return n == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (remaining <= 0)
+            {
+                if (!result.isResponseBodyTruncated() && in.read() != -1)
+                {
+                    result.setResponseBodyTruncated(true);
+                    getLogger().warn("Response body from [" + url + "] truncated to "
+                        + maxResponseBodySize + " bytes", HttpRequest.this.getClass().getName());
+                }
+                return -1;
+            }
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+            if (n > 0)
+            {
+                remaining -= n;
+            }
+            return n;
+        }
     }
 
     /**
@@ -39,6 +39,11 @@ public class HttpResult
      */
     private String responseBody;
 
+    /**
+     * Whether the HTTP connection response body has been truncated.
+     */
+    private boolean responseBodyTruncated;
+
     /**
      * @return Response body of HTTP response.
      */
@@ -55,6 +60,23 @@ public class HttpResult
         this.responseBody = responseBody;
     }
 
+    /**
+     * @return <code>true</code> if the response body has been truncated as it exceeded the
+     * maximum response body size.
+     */
+    public boolean isResponseBodyTruncated()
+    {
+        return responseBodyTruncated;
+    }
+
+    /**
+     * @param responseBodyTruncated Whether the response body has been truncated.
+     */
+    public void setResponseBodyTruncated(boolean responseBodyTruncated)
+    {
+        this.responseBodyTruncated = responseBodyTruncated;
+    }
+
     /**
      * @return HTTP response code.
      */
@@ -23,12 +23,16 @@
 package org.codehaus.cargo.container.internal.util;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
@@ -38,6 +42,7 @@ import java.util.Map;
 import org.codehaus.cargo.util.CargoException;
 import org.codehaus.cargo.util.DefaultFileHandler;
 import org.codehaus.cargo.util.FileHandler;
+import org.codehaus.cargo.util.TokenReplacer;
 import org.codehaus.cargo.util.log.LoggedObject;
 import org.codehaus.cargo.util.log.Logger;
 
@@ -166,8 +171,17 @@ public final class ResourceUtils extends LoggedObject
     public void copyResource(String resourceName, String destFile, FileHandler handler,
         Map<String, String> replacements, Charset encoding) throws IOException
     {
-        handler.writeTextFile(
-            destFile, readResource(resourceName, replacements, encoding), encoding);
+        Charset outputEncoding = encoding;
+        if (outputEncoding == null)
+        {
+            outputEncoding = StandardCharsets.UTF_8;
+        }
+
+        try (Writer out = new BufferedWriter(
+            new OutputStreamWriter(handler.getOutputStream(destFile), outputEncoding)))
+        {
+            readResource(resourceName, replacements, encoding, out);
+        }
     }
 
     /**
@@ -239,6 +253,24 @@ public final class ResourceUtils extends LoggedObject
      */
     public String readResource(String resourceName, Map<String, String> replacements,
         Charset encoding) throws IOException
+    {
+        StringWriter out = new StringWriter();
+        readResource(resourceName, replacements, encoding, out);
+        return out.toString();
+    }
+
+    /**
+     * Reads a container resource from the JAR and writes it with the specified filters applied in
+     * a single pass, without loading the whole resource in memory.
+     * 
+     * @param resourceName The name of the resource
+     * @param replacements The replacements that should be applied while reading
+     * @param encoding The encoding that should be used when reading the resource
+     * @param writer Writer to write the filtered resource to, will be closed
+     * @throws IOException If an I/O error occurs while reading the resource
+     */
+    private void readResource(String resourceName, Map<String, String> replacements,
+        Charset encoding, Writer writer) throws IOException
     {
         try (InputStream resource = ResourceUtils.resourceLoader.getResourceAsStream(resourceName))
         {
@@ -248,35 +280,28 @@ public final class ResourceUtils extends LoggedObject
                     + "] not found in resource loader " + ResourceUtils.resourceLoader);
             }
 
-            try (BufferedReader in = new BufferedReader(new InputStreamReader(resource, encoding)))
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(resource, encoding));
+                Writer out = new TokenReplacer(replacements, "@").newWriter(writer))
             {
                 String line;
-                StringBuilder out = new StringBuilder();
+                boolean empty = true;
                 while ((line = in.readLine()) != null)
                 {
                     if (line.isEmpty())
                     {
-                        out.append(FileHandler.NEW_LINE);
+                        out.write(FileHandler.NEW_LINE);
+                        empty = false;
                     }
                     else
                     {
-                        if (out.length() > 0)
+                        if (!empty)
                         {
-                            out.append(FileHandler.NEW_LINE);
+                            out.write(FileHandler.NEW_LINE);
                         }
-                        out.append(line);
-                    }
-                }
-                String output = out.toString();
-                if (replacements != null)
-                {
-                    for (Map.Entry<String, String> replacement : replacements.entrySet())
-                    {
-                        String replacementKey = "@" + replacement.getKey() + "@";
-                        output = output.replace(replacementKey, replacement.getValue());
+                        out.write(line);
+                        empty = false;
                     }
                 }
-                return output;
             }
         }
     }
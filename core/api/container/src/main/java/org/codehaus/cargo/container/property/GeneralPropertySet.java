@@ -81,8 +81,55 @@ public interface GeneralPropertySet
      */
     String IGNORE_NON_EXISTING_PROPERTIES = "cargo.standalone.ignoreNonExistingProperties";
 
+    /**
+     * Directory in which standalone configurations keep snapshots of their configured home,
+     * indexed by a fingerprint of all configuration inputs. When set, configuring again with the
+     * same inputs restores the snapshot instead of creating the configuration from scratch. Unset
+     * by default, which disables snapshots.
+     */
+    String CONFIGURATION_SNAPSHOT_DIR = "cargo.standalone.snapshotDir";
+
     /**
      * The port offset to apply to the container ports.
      */
     String PORT_OFFSET = "cargo.port.offset";
+
+    /**
+     * Strategy used when copying binary files such as deployables and container libraries, one of
+     * <code>stream</code>, <code>channel</code> (the default) or <code>link</code>. The
+     * <code>link</code> mode creates hard links instead of copies; files which are later written
+     * to are first replaced with a copy, so that the original files are never modified.
+     * 
+     * @see org.codehaus.cargo.util.DefaultFileHandler.CopyMode
+     */
+    String FILE_COPY_MODE = "cargo.file.copyMode";
+
+    /**
+     * Regular expression which, once found in the output of the container process, indicates that
+     * the container has started. Overrides the container's default pattern; set it to an empty value
+     * in order to only rely on the Cargo Ping Component for detecting the container startup.
+     */
+    String STARTUP_LOG_PATTERN = "cargo.startup.logPattern";
+
+    /**
+     * Maximum number of deployables which a deployer deploys, undeploys or redeploys at the same
+     * time when given several of them. Defaults to <code>1</code>, i.e. one after the other.
+     * Deployers which do not support concurrent deployments ignore it.
+     * 
+     * @see org.codehaus.cargo.container.deployer.Deployer#isConcurrentDeploymentSupported()
+     */
+    String DEPLOYER_CONCURRENCY = "cargo.deployer.concurrency";
+
+    /**
+     * How copying deployers deploy expanded deployables which were already deployed, one of
+     * <code>copy</code> (the default), <code>delta</code> or <code>hash</code>. With
+     * <code>copy</code>, the whole directory is copied again. With <code>delta</code>, only the
+     * files whose size or modification time changed since the previous deployment are copied, the
+     * deleted files are removed and the container is asked to reload the deployable. With
+     * <code>hash</code>, files whose size or modification time changed are additionally compared
+     * by content hash, so that rebuilt but identical files are not copied.
+     * 
+     * @see org.codehaus.cargo.container.spi.deployer.DeployableSynchronizer.SyncMode
+     */
+    String DEPLOYER_SYNC_MODE = "cargo.deployer.syncMode";
 }
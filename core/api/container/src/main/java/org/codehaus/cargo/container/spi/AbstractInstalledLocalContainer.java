@@ -27,6 +27,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -44,10 +45,14 @@ import org.codehaus.cargo.container.internal.util.HttpUtils;
 import org.codehaus.cargo.container.internal.util.JdkUtils;
 import org.codehaus.cargo.container.internal.util.ResourceUtils;
 import org.codehaus.cargo.container.property.GeneralPropertySet;
+import org.codehaus.cargo.container.spi.jvm.DefaultJvmLauncher;
 import org.codehaus.cargo.container.spi.jvm.DefaultJvmLauncherFactory;
 import org.codehaus.cargo.container.spi.jvm.JvmLauncher;
 import org.codehaus.cargo.container.spi.jvm.JvmLauncherFactory;
 import org.codehaus.cargo.container.spi.jvm.JvmLauncherRequest;
+import org.codehaus.cargo.container.spi.jvm.PatternOutputSink;
+import org.codehaus.cargo.container.spi.startup.LogPatternContainerMonitor;
+import org.codehaus.cargo.container.startup.ContainerMonitor;
 import org.codehaus.cargo.util.CargoException;
 import org.codehaus.cargo.util.FileHandler;
 import org.codehaus.cargo.util.log.Logger;
@@ -120,6 +125,17 @@ public abstract class AbstractInstalledLocalContainer extends AbstractLocalConta
      */
     private JvmLauncher jvmStartLauncher;
 
+    /**
+     * Whether the JVM that started the container was still running when stopping the container.
+     */
+    private boolean jvmStartLauncherAlive;
+
+    /**
+     * Sink watching the output of the JVM that started the container for the startup pattern,
+     * <code>null</code> if that output is not watched.
+     */
+    private PatternOutputSink startupLogSink;
+
     /**
      * Major JVM version
      */
@@ -292,6 +308,13 @@ public abstract class AbstractInstalledLocalContainer extends AbstractLocalConta
     protected void startInternal() throws Exception
     {
         jvmStartLauncher = createJvmLauncher(true);
+        startupLogSink = null;
+        Pattern startupLogPattern = compileStartupLogPattern();
+        if (startupLogPattern != null && jvmStartLauncher instanceof DefaultJvmLauncher)
+        {
+            startupLogSink = new PatternOutputSink(Charset.defaultCharset(), startupLogPattern);
+            ((DefaultJvmLauncher) jvmStartLauncher).addOutputSink(startupLogSink);
+        }
         // Due to defect in org.apache.tools.ant.taskdefs.Java#setAppend we
         // can't call setAppendOutput if we want to spawn the process. If the
         // output isn't null we will have already disabled process spawning
@@ -309,9 +332,46 @@ public abstract class AbstractInstalledLocalContainer extends AbstractLocalConta
     @Override
     protected void stopInternal() throws Exception
     {
+        jvmStartLauncherAlive = jvmStartLauncher != null && jvmStartLauncher.isAlive();
         doStop(createJvmLauncher(false));
     }
 
+    /**
+     * Watches the output of the JVM that started the container for the startup pattern, if that
+     * JVM was launched by a {@link DefaultJvmLauncher}. {@inheritDoc}
+     */
+    @Override
+    protected ContainerMonitor createStartupLogMonitor()
+    {
+        if (startupLogSink == null)
+        {
+            return null;
+        }
+        return new LogPatternContainerMonitor(this, startupLogSink);
+    }
+
+    /**
+     * The shutdown is considered detached when the JVM that started the container was not running
+     * anymore when stopping the container, for example when the start command only launches the
+     * container in the background. Containers which know better can override this method.
+     * 
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean isShutdownDetached()
+    {
+        return !jvmStartLauncherAlive;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected boolean waitForProcessExit(long millis) throws InterruptedException
+    {
+        return jvmStartLauncher == null || jvmStartLauncher.waitFor(millis);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -23,6 +23,8 @@ import java.io.IOException;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.UnknownHostException;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import org.codehaus.cargo.container.ContainerException;
 import org.codehaus.cargo.container.LocalContainer;
@@ -34,6 +36,8 @@ import org.codehaus.cargo.container.property.GeneralPropertySet;
 import org.codehaus.cargo.container.property.ServletPropertySet;
 import org.codehaus.cargo.container.spi.deployer.DeployerWatchdog;
 import org.codehaus.cargo.container.spi.jvm.DefaultJvmLauncher;
+import org.codehaus.cargo.container.spi.startup.CargoPingComponentContainerMonitor;
+import org.codehaus.cargo.container.spi.startup.CombinedContainerMonitor;
 import org.codehaus.cargo.container.spi.util.ContainerUtils;
 import org.codehaus.cargo.container.startup.ContainerMonitor;
 import org.codehaus.cargo.util.CargoException;
@@ -45,6 +49,28 @@ import org.codehaus.cargo.util.FileHandler;
  */
 public abstract class AbstractLocalContainer extends AbstractContainer implements LocalContainer
 {
+    /**
+     * Time to wait after the ports have been shutdown for the container to fully stop, in
+     * milliseconds.
+     */
+    protected static final long STOP_GRACE_PERIOD = 5000L;
+
+    /**
+     * Timeout of each ping of the Cargo Ping Component while waiting for the container to start,
+     * in milliseconds. Pings are repeated until the container timeout has elapsed.
+     */
+    protected static final long STARTUP_PING_TIMEOUT = 5000L;
+
+    /**
+     * Initial interval between two port shutdown checks, in milliseconds.
+     */
+    private static final long PORT_SHUTDOWN_MIN_INTERVAL = 50L;
+
+    /**
+     * Maximum interval between two port shutdown checks, in milliseconds.
+     */
+    private static final long PORT_SHUTDOWN_MAX_INTERVAL = 500L;
+
     /**
      * The file to which output of the container should be written.
      */
@@ -422,14 +448,25 @@ public abstract class AbstractLocalContainer extends AbstractContainer implement
 
         if (waitForStarting)
         {
-            DeployableMonitor monitor =
-                new URLDeployableMonitor(ContainerUtils.getCPCURL(config), getTimeout(),
-                    "Cargo Ping Component used to verify if the container is started.");
-            monitor.setLogger(getLogger());
-            DeployerWatchdog watchdog = new DeployerWatchdog(monitor);
-            watchdog.setLogger(getLogger());
-
-            watchdog.watch(waitForStarting);
+            ContainerMonitor logMonitor = createStartupLogMonitor();
+            if (logMonitor != null)
+            {
+                // The CPC remains a fallback should the startup pattern never be logged
+                waitForStarting(new CombinedContainerMonitor(this, false, logMonitor,
+                    new CargoPingComponentContainerMonitor(this,
+                        Math.min(getTimeout(), STARTUP_PING_TIMEOUT))));
+            }
+            else
+            {
+                DeployableMonitor monitor =
+                    new URLDeployableMonitor(ContainerUtils.getCPCURL(config), getTimeout(),
+                        CargoPingComponentContainerMonitor.CPC_CONTENT);
+                monitor.setLogger(getLogger());
+                DeployerWatchdog watchdog = new DeployerWatchdog(monitor);
+                watchdog.setLogger(getLogger());
+
+                watchdog.watch(waitForStarting);
+            }
         }
         else
         {
@@ -469,11 +506,101 @@ public abstract class AbstractLocalContainer extends AbstractContainer implement
             }
 
             // Many container do not fully stop even after having destroyed all their sockets;
-            // as a result wait 5 more seconds
-            Thread.sleep(5000);
+            // as a result wait for the container process to exit or, if the shutdown detaches
+            // from any process Cargo can watch, wait 5 more seconds
+            if (isShutdownDetached())
+            {
+                Thread.sleep(STOP_GRACE_PERIOD);
+            }
+            else if (!waitForProcessExit(STOP_GRACE_PERIOD))
+            {
+                getLogger().debug("Container process still running " + STOP_GRACE_PERIOD
+                    + " milliseconds after its ports have been shutdown",
+                        this.getClass().getName());
+            }
         }
     }
 
+    /**
+     * @return Regular expression which, once found in the container output, indicates that the
+     * container has started, <code>null</code> if the container has no such pattern. The default
+     * implementation returns <code>null</code>.
+     * @see GeneralPropertySet#STARTUP_LOG_PATTERN
+     */
+    protected String getStartupLogPattern()
+    {
+        return null;
+    }
+
+    /**
+     * Compiles the startup pattern, read from the {@link GeneralPropertySet#STARTUP_LOG_PATTERN}
+     * property and defaulting to {@link #getStartupLogPattern()}.
+     * 
+     * @return Startup pattern, <code>null</code> if no startup pattern is defined.
+     */
+    protected Pattern compileStartupLogPattern()
+    {
+        String pattern =
+            getConfiguration().getPropertyValue(GeneralPropertySet.STARTUP_LOG_PATTERN);
+        if (pattern == null)
+        {
+            pattern = getStartupLogPattern();
+        }
+        if (pattern == null || pattern.trim().isEmpty())
+        {
+            return null;
+        }
+
+        try
+        {
+            return Pattern.compile(pattern);
+        }
+        catch (PatternSyntaxException e)
+        {
+            throw new ContainerException("Invalid startup log pattern [" + pattern + "]", e);
+        }
+    }
+
+    /**
+     * Creates a monitor looking for the startup pattern in the container output. The default
+     * implementation returns <code>null</code>, containers which watch the output of the process
+     * they have launched override it.
+     * 
+     * @return Startup log monitor, <code>null</code> if the container output is not watched or if
+     * no startup pattern is defined.
+     * @see #compileStartupLogPattern()
+     */
+    protected ContainerMonitor createStartupLogMonitor()
+    {
+        return null;
+    }
+
+    /**
+     * Whether the shutdown of this container detaches from any process Cargo can watch, in which
+     * case Cargo waits for a grace period of {@link #STOP_GRACE_PERIOD} milliseconds after the
+     * container ports have been shutdown. The default implementation returns <code>false</code>.
+     *
+     * @return <code>true</code> if the container stop cannot be followed by watching a process.
+     */
+    protected boolean isShutdownDetached()
+    {
+        return false;
+    }
+
+    /**
+     * Waits for the process running the container to exit. The default implementation has no
+     * process to wait for and returns immediately.
+     *
+     * @param millis Maximum time to wait, in milliseconds.
+     * @return <code>true</code> if the process has exited or if there is no process to wait for,
+     * <code>false</code> if the process is still running.
+     * @throws InterruptedException If the thread was interrupted while waiting for the process.
+     */
+    protected boolean waitForProcessExit(long millis) throws InterruptedException
+    {
+        return true;
+    }
+
     /**
      * Waits for the shutdown of the specified server port.
      * 
@@ -487,6 +614,8 @@ public abstract class AbstractLocalContainer extends AbstractContainer implement
         getLogger().debug("Waiting for port " + port + " to shutdown, deadline " + deadline,
             this.getClass().getName());
 
+        // Start with short intervals, most ports are shutdown within the first milliseconds
+        long interval = PORT_SHUTDOWN_MIN_INTERVAL;
         while (true)
         {
             if (isPortShutdown(port))
@@ -494,13 +623,15 @@ public abstract class AbstractLocalContainer extends AbstractContainer implement
                 break;
             }
 
-            if (System.currentTimeMillis() > deadline)
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining < 0)
             {
                 throw new ContainerException("Server port " + port
                     + " did not shutdown within the timeout period [" + getTimeout() + "]");
             }
 
-            Thread.sleep(1000);
+            Thread.sleep(Math.min(interval, remaining + 1));
+            interval = Math.min(interval * 2, PORT_SHUTDOWN_MAX_INTERVAL);
         }
     }
 
@@ -265,6 +265,37 @@ public abstract class AbstractLocalConfiguration extends AbstractConfiguration i
         parsePropertiesForPendingConfiguration();
         verify();
 
+        String copyMode = getPropertyValue(GeneralPropertySet.FILE_COPY_MODE);
+        if (copyMode != null)
+        {
+            DefaultFileHandler.CopyMode mode = DefaultFileHandler.CopyMode.toCopyMode(copyMode);
+            setCopyMode(getFileHandler(), mode);
+            setCopyMode(container.getFileHandler(), mode);
+        }
+
+        prepareHome(container);
+    }
+
+    /**
+     * Prepares the configuration home, by calling {@link #configureHome(LocalContainer)}.
+     * Standalone configurations override it to restore the configuration home from a snapshot
+     * instead.
+     * @param container the container to configure
+     */
+    protected void prepareHome(LocalContainer container)
+    {
+        configureHome(container);
+    }
+
+    /**
+     * Creates the configuration home, by running {@link #doConfigure(LocalContainer)} and then
+     * configuring the files. Configurations which write more files into their home once these are
+     * created should override this method rather than {@link #configure(LocalContainer)}, so that
+     * these files are part of the configuration snapshots.
+     * @param container the container to configure
+     */
+    protected void configureHome(LocalContainer container)
+    {
         try
         {
             doConfigure(container);
@@ -278,6 +309,25 @@ public abstract class AbstractLocalConfiguration extends AbstractConfiguration i
         configureFiles(getReplacements(), container);
     }
 
+    /**
+     * Set the copy mode on a file handler, if that file handler supports it.
+     * @param fileHandler File handler to set the copy mode on.
+     * @param copyMode Copy mode to set.
+     */
+    private void setCopyMode(FileHandler fileHandler, DefaultFileHandler.CopyMode copyMode)
+    {
+        if (fileHandler instanceof DefaultFileHandler)
+        {
+            ((DefaultFileHandler) fileHandler).setCopyMode(copyMode);
+        }
+        else if (fileHandler != null)
+        {
+            getLogger().debug("File handler " + fileHandler.getClass().getName()
+                + " does not support copy modes, ignoring " + GeneralPropertySet.FILE_COPY_MODE,
+                    this.getClass().getName());
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
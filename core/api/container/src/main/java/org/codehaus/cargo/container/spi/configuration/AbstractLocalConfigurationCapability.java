@@ -42,5 +42,9 @@ public abstract class AbstractLocalConfigurationCapability extends AbstractConfi
         this.propertySupportMap.put(GeneralPropertySet.START_JVMARGS, Boolean.TRUE);
         this.propertySupportMap.put(GeneralPropertySet.SPAWN_PROCESS, Boolean.TRUE);
         this.propertySupportMap.put(GeneralPropertySet.PORT_OFFSET, Boolean.TRUE);
+        this.propertySupportMap.put(GeneralPropertySet.FILE_COPY_MODE, Boolean.TRUE);
+        this.propertySupportMap.put(GeneralPropertySet.STARTUP_LOG_PATTERN, Boolean.TRUE);
+        this.propertySupportMap.put(GeneralPropertySet.DEPLOYER_CONCURRENCY, Boolean.TRUE);
+        this.propertySupportMap.put(GeneralPropertySet.DEPLOYER_SYNC_MODE, Boolean.TRUE);
     }
 }
@@ -38,5 +38,6 @@ public abstract class AbstractRuntimeConfigurationCapability
         this.propertySupportMap.put(GeneralPropertySet.HOSTNAME, Boolean.TRUE);
         this.propertySupportMap.put(RemotePropertySet.USERNAME, Boolean.TRUE);
         this.propertySupportMap.put(RemotePropertySet.PASSWORD, Boolean.TRUE);
+        this.propertySupportMap.put(GeneralPropertySet.DEPLOYER_CONCURRENCY, Boolean.TRUE);
     }
 }
@@ -23,10 +23,8 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import org.codehaus.cargo.container.ContainerException;
 import org.codehaus.cargo.container.LocalContainer;
@@ -35,6 +33,7 @@ import org.codehaus.cargo.container.configuration.StandaloneLocalConfiguration;
 import org.codehaus.cargo.container.property.GeneralPropertySet;
 import org.codehaus.cargo.container.property.LoggingLevel;
 import org.codehaus.cargo.util.CargoException;
+import org.codehaus.cargo.util.DefaultFileHandler;
 import org.codehaus.cargo.util.FileHandler.XmlReplacementDetails;
 import org.codehaus.cargo.util.XmlReplacement;
 
@@ -74,10 +73,10 @@ public abstract class AbstractStandaloneLocalConfiguration extends AbstractLocal
         boolean ignoreNonExistingProperties = Boolean.parseBoolean(
             getPropertyValue(GeneralPropertySet.IGNORE_NON_EXISTING_PROPERTIES));
 
+        List<XmlReplacement> replacements = new ArrayList<XmlReplacement>();
         for (Map.Entry<String, Map<XmlReplacementDetails, String>> xmlReplacementDetails
             : this.xmlReplacements.entrySet())
         {
-            Set<XmlReplacement> replacements = new HashSet<XmlReplacement>();
             String destinationFile = getFileHandler().append(
                 container.getConfiguration().getHome(), xmlReplacementDetails.getKey());
 
@@ -105,13 +104,13 @@ public abstract class AbstractStandaloneLocalConfiguration extends AbstractLocal
 
                 replacements.add(xmlReplacement);
             }
+        }
 
-            if (!replacements.isEmpty())
-            {
-                XmlReplacement[] replacementsArray = new XmlReplacement[replacements.size()];
-                replacementsArray = replacements.toArray(replacementsArray);
-                getFileHandler().replaceInXmlFile(replacementsArray);
-            }
+        // Apply all replacements at once, so that each file is parsed and written only once
+        if (!replacements.isEmpty())
+        {
+            getFileHandler().replaceInXmlFile(
+                replacements.toArray(new XmlReplacement[replacements.size()]));
         }
     }
 
@@ -170,6 +169,61 @@ public abstract class AbstractStandaloneLocalConfiguration extends AbstractLocal
         }
     }
 
+    /**
+     * {@inheritDoc}. If {@link GeneralPropertySet#CONFIGURATION_SNAPSHOT_DIR} is set, restores the
+     * configuration home from the snapshot of a previous configuration with the same inputs and,
+     * if there is no such snapshot yet, saves one once the configuration home is created. No
+     * snapshot is saved if creating the configuration home modifies its inputs, for example files
+     * of the container installation, since restoring the snapshot would not do the same.
+     */
+    @Override
+    protected void prepareHome(LocalContainer container)
+    {
+        String snapshotDir = getPropertyValue(GeneralPropertySet.CONFIGURATION_SNAPSHOT_DIR);
+        if (snapshotDir == null || snapshotDir.isEmpty()
+            || !(getFileHandler() instanceof DefaultFileHandler))
+        {
+            super.prepareHome(container);
+            return;
+        }
+
+        ConfigurationSnapshot snapshots = new ConfigurationSnapshot(snapshotDir);
+        snapshots.setLogger(getLogger());
+        String fingerprint = snapshots.getFingerprint(this, container);
+        if (snapshots.contains(fingerprint))
+        {
+            try
+            {
+                setupConfigurationDir();
+                snapshots.restore(fingerprint, getHome());
+                return;
+            }
+            catch (IOException e)
+            {
+                getLogger().warn("Cannot restore configuration snapshot [" + fingerprint
+                    + "], creating configuration: " + e.getMessage(), getClass().getName());
+            }
+        }
+
+        super.prepareHome(container);
+
+        if (!fingerprint.equals(snapshots.getFingerprint(this, container)))
+        {
+            getLogger().info("Configuring has modified the inputs of the configuration, not "
+                + "saving configuration snapshot [" + fingerprint + "]", getClass().getName());
+            return;
+        }
+        try
+        {
+            snapshots.store(fingerprint, getHome());
+        }
+        catch (IOException e)
+        {
+            getLogger().warn("Cannot save configuration snapshot [" + fingerprint + "]: "
+                + e.getMessage(), getClass().getName());
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
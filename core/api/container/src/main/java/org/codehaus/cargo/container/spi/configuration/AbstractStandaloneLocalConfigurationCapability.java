@@ -39,6 +39,7 @@ public abstract class AbstractStandaloneLocalConfigurationCapability
         this.propertySupportMap.put(GeneralPropertySet.LOGGING, Boolean.TRUE);
         this.propertySupportMap.put(GeneralPropertySet.IGNORE_NON_EXISTING_PROPERTIES,
             Boolean.TRUE);
+        this.propertySupportMap.put(GeneralPropertySet.CONFIGURATION_SNAPSHOT_DIR, Boolean.TRUE);
         this.propertySupportMap.put(ServletPropertySet.USERS, Boolean.TRUE);
     }
 }
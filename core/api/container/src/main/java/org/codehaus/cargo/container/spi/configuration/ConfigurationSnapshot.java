@@ -0,0 +1,404 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.codehaus.cargo.container.ContainerException;
+import org.codehaus.cargo.container.InstalledLocalContainer;
+import org.codehaus.cargo.container.LocalContainer;
+import org.codehaus.cargo.container.configuration.FileConfig;
+import org.codehaus.cargo.container.configuration.LocalConfiguration;
+import org.codehaus.cargo.container.configuration.StandaloneLocalConfiguration;
+import org.codehaus.cargo.container.configuration.entry.DataSource;
+import org.codehaus.cargo.container.configuration.entry.Resource;
+import org.codehaus.cargo.container.deployable.Deployable;
+import org.codehaus.cargo.container.deployable.WAR;
+import org.codehaus.cargo.container.property.User;
+import org.codehaus.cargo.util.CargoException;
+import org.codehaus.cargo.util.XmlReplacement;
+import org.codehaus.cargo.util.log.LoggedObject;
+
+/**
+ * Snapshots of configuration homes, each snapshot being identified by a fingerprint of all inputs
+ * of the configuration: container, properties, file configurations, datasources, resources,
+ * users, XML replacements and deployables. Files and directories used as inputs, including the
+ * container installation, are fingerprinted by name, size and modification date, not by content.
+ */
+public class ConfigurationSnapshot extends LoggedObject
+{
+    /**
+     * Directory holding the snapshots, one sub-directory per fingerprint.
+     */
+    private File snapshotDir;
+
+    /**
+     * @param snapshotDir Directory holding the snapshots.
+     */
+    public ConfigurationSnapshot(String snapshotDir)
+    {
+        this.snapshotDir = new File(snapshotDir);
+    }
+
+    /**
+     * Computes the fingerprint of the inputs of a configuration.
+     * @param configuration Configuration, with all its properties set.
+     * @param container Container the configuration is for.
+     * @return Fingerprint of the configuration, as an hexadecimal string.
+     */
+    public String getFingerprint(LocalConfiguration configuration, LocalContainer container)
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new ContainerException("Cannot compute configuration fingerprint", e);
+        }
+
+        add(digest, "cargo", ConfigurationSnapshot.class.getPackage().getImplementationVersion());
+        add(digest, "configuration", configuration.getClass().getName());
+        add(digest, "home", configuration.getHome());
+        add(digest, "container", container.getClass().getName() + " " + container.getId());
+        if (container instanceof InstalledLocalContainer)
+        {
+            InstalledLocalContainer installedContainer = (InstalledLocalContainer) container;
+            add(digest, "container.home", installedContainer.getHome());
+            addFile(digest, "container.home.content", installedContainer.getHome());
+            addFiles(digest, "container.extraClasspath", installedContainer.getExtraClasspath());
+            addFiles(digest, "container.sharedClasspath",
+                installedContainer.getSharedClasspath());
+        }
+
+        for (String property : new TreeSet<String>(configuration.getProperties()))
+        {
+            add(digest, "property." + property, configuration.getPropertyValue(property));
+        }
+
+        for (FileConfig fileConfig : configuration.getFileProperties())
+        {
+            add(digest, "file", fileConfig.getFile() + " " + fileConfig.getToDir() + " "
+                + fileConfig.getToFile() + " " + fileConfig.getOverwrite() + " "
+                    + fileConfig.getConfigfile() + " " + fileConfig.getEncoding());
+            addFile(digest, "file.content", fileConfig.getFile());
+        }
+
+        for (DataSource dataSource : configuration.getDataSources())
+        {
+            add(digest, "datasource", dataSource.getId() + " " + dataSource.getJndiLocation()
+                + " " + dataSource.getConnectionType() + " " + dataSource.getTransactionSupport()
+                    + " " + dataSource.getDriverClass() + " " + dataSource.getUrl() + " "
+                        + dataSource.getUsername() + " " + dataSource.getPassword() + " "
+                            + new TreeMap<Object, Object>(dataSource.getConnectionProperties()));
+        }
+
+        for (Resource resource : configuration.getResources())
+        {
+            add(digest, "resource", resource.getId() + " " + resource.getName() + " "
+                + resource.getType() + " " + resource.getClassName() + " "
+                    + new TreeMap<String, String>(resource.getParameters()));
+        }
+
+        for (User user : configuration.getUsers())
+        {
+            add(digest, "user", user.getName() + " " + user.getPassword() + " "
+                + user.getRoles());
+        }
+
+        if (configuration instanceof StandaloneLocalConfiguration)
+        {
+            List<String> xmlReplacements = new ArrayList<String>();
+            for (XmlReplacement xmlReplacement
+                : ((StandaloneLocalConfiguration) configuration).getXmlReplacements())
+            {
+                xmlReplacements.add(xmlReplacement.getFile() + " "
+                    + xmlReplacement.getXpathExpression() + " " + xmlReplacement.getAttributeName()
+                        + " " + xmlReplacement.getReplacementBehavior() + " "
+                            + xmlReplacement.getValue());
+            }
+            Collections.sort(xmlReplacements);
+            for (String xmlReplacement : xmlReplacements)
+            {
+                add(digest, "xmlReplacement", xmlReplacement);
+            }
+        }
+
+        for (Deployable deployable : configuration.getDeployables())
+        {
+            String description = deployable.getClass().getName() + " " + deployable.getType()
+                + " " + deployable.getName() + " " + deployable.getFile() + " "
+                    + deployable.isExpanded();
+            if (deployable instanceof WAR)
+            {
+                description += " " + ((WAR) deployable).getContext();
+            }
+            add(digest, "deployable", description);
+            addFile(digest, "deployable.content", deployable.getFile());
+        }
+
+        StringBuilder fingerprint = new StringBuilder();
+        for (byte b : digest.digest())
+        {
+            fingerprint.append(String.format("%02x", b & 0xff));
+        }
+        return fingerprint.toString();
+    }
+
+    /**
+     * @param fingerprint Fingerprint of a configuration.
+     * @return Whether a snapshot exists for that fingerprint.
+     */
+    public boolean contains(String fingerprint)
+    {
+        return new File(this.snapshotDir, fingerprint).isDirectory();
+    }
+
+    /**
+     * Copies a snapshot into a configuration home. Files are always copied, never linked, as the
+     * container and later configuration steps may modify them in place.
+     * @param fingerprint Fingerprint of the configuration.
+     * @param home Configuration home, which must exist.
+     * @throws IOException If copying fails.
+     */
+    public void restore(String fingerprint, String home) throws IOException
+    {
+        final Path source = new File(this.snapshotDir, fingerprint).toPath();
+        final Path target = new File(home).toPath();
+        long start = System.currentTimeMillis();
+
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes)
+                throws IOException
+            {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+                throws IOException
+            {
+                Path targetFile = target.resolve(source.relativize(file).toString());
+                Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.COPY_ATTRIBUTES);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        getLogger().info("Configuration [" + home + "] restored from snapshot [" + fingerprint
+            + "] in " + (System.currentTimeMillis() - start) + " ms", getClass().getName());
+    }
+
+    /**
+     * Saves a configuration home as a snapshot. The configuration home is first copied into a
+     * temporary directory which is then atomically renamed, so that other processes either see
+     * the complete snapshot or no snapshot at all.
+     * @param fingerprint Fingerprint of the configuration.
+     * @param home Configuration home.
+     * @throws IOException If copying fails.
+     */
+    public void store(String fingerprint, String home) throws IOException
+    {
+        File snapshot = new File(this.snapshotDir, fingerprint);
+        if (snapshot.isDirectory())
+        {
+            return;
+        }
+
+        Files.createDirectories(this.snapshotDir.toPath());
+        final Path source = new File(home).toPath();
+        final Path temporary =
+            Files.createTempDirectory(this.snapshotDir.toPath(), "." + fingerprint);
+        try
+        {
+            Files.walkFileTree(source, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes)
+                    throws IOException
+                {
+                    Files.createDirectories(temporary.resolve(source.relativize(dir).toString()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+                    throws IOException
+                {
+                    Files.copy(file, temporary.resolve(source.relativize(file).toString()),
+                        StandardCopyOption.COPY_ATTRIBUTES);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            try
+            {
+                Files.move(temporary, snapshot.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                getLogger().info("Configuration [" + home + "] saved as snapshot ["
+                    + fingerprint + "]", getClass().getName());
+            }
+            catch (IOException e)
+            {
+                if (!snapshot.isDirectory())
+                {
+                    throw e;
+                }
+                // Another process has saved the same snapshot in the meantime
+            }
+        }
+        finally
+        {
+            delete(temporary);
+        }
+    }
+
+    /**
+     * Deletes a directory if it exists.
+     * @param directory Directory to delete.
+     * @throws IOException If deleting fails.
+     */
+    private static void delete(Path directory) throws IOException
+    {
+        if (!Files.exists(directory))
+        {
+            return;
+        }
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>()
+        {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+                throws IOException
+            {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException
+            {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Adds an input to a fingerprint.
+     * @param digest Fingerprint being computed.
+     * @param name Name of the input.
+     * @param value Value of the input, may be <code>null</code>.
+     */
+    private static void add(MessageDigest digest, String name, String value)
+    {
+        String input;
+        if (value == null)
+        {
+            input = name + "\n";
+        }
+        else
+        {
+            input = name + "=" + value.length() + ":" + value + "\n";
+        }
+        digest.update(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Adds the state of files to a fingerprint.
+     * @param digest Fingerprint being computed.
+     * @param name Name of the input.
+     * @param files Files or directories, may be <code>null</code>.
+     */
+    private static void addFiles(MessageDigest digest, String name, String[] files)
+    {
+        if (files != null)
+        {
+            for (String file : files)
+            {
+                add(digest, name, file);
+                addFile(digest, name + ".content", file);
+            }
+        }
+    }
+
+    /**
+     * Adds the state of a file or directory to a fingerprint: size and modification date of the
+     * file or, for a directory, of each file it contains.
+     * @param digest Fingerprint being computed.
+     * @param name Name of the input.
+     * @param file File or directory, may be <code>null</code>.
+     */
+    private static void addFile(final MessageDigest digest, final String name, String file)
+    {
+        if (file == null)
+        {
+            return;
+        }
+
+        final Path root = new File(file).toPath();
+        if (!Files.exists(root))
+        {
+            add(digest, name, "missing");
+            return;
+        }
+
+        final Map<String, String> states = new TreeMap<String, String>();
+        try
+        {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult visitFile(Path path, BasicFileAttributes attributes)
+                {
+                    states.put(root.relativize(path).toString(), attributes.size() + " "
+                        + attributes.lastModifiedTime().toMillis());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            throw new CargoException("Cannot read [" + file + "]", e);
+        }
+        for (Map.Entry<String, String> state : states.entrySet())
+        {
+            add(digest, name, state.getKey() + " " + state.getValue());
+        }
+    }
+}
@@ -28,8 +28,7 @@ import org.codehaus.cargo.container.configuration.entry.DataSourceSupport;
 import org.codehaus.cargo.container.configuration.entry.Resource;
 import org.codehaus.cargo.container.configuration.entry.ResourceSupport;
 import org.codehaus.cargo.container.spi.configuration.AbstractStandaloneLocalConfiguration;
-import org.codehaus.cargo.util.DefaultXmlFileBuilder;
-import org.codehaus.cargo.util.XmlFileBuilder;
+import org.codehaus.cargo.util.XmlEditSession;
 
 /**
  * {@inheritDoc} Convenience class that simplifies development of
@@ -49,6 +48,12 @@ import org.codehaus.cargo.util.XmlFileBuilder;
 public abstract class AbstractStandaloneLocalConfigurationWithXMLConfigurationBuilder extends
     AbstractStandaloneLocalConfiguration implements DataSourceSupport, ResourceSupport
 {
+    /**
+     * XML edit session used while configuring datasources and resources, so that each
+     * configuration file is parsed and written only once. <code>null</code> outside of
+     * {@link #configureHome(LocalContainer)}.
+     */
+    private XmlEditSession xmlEditSession;
 
     /**
      * {@inheritDoc}
@@ -111,16 +116,25 @@ public abstract class AbstractStandaloneLocalConfigurationWithXMLConfigurationBu
     protected abstract ConfigurationBuilder createConfigurationBuilder(LocalContainer container);
 
     /**
-     * Configure the specified container.
-     * 
-     * @param container the container to configure
+     * {@inheritDoc}. Then configures the datasources and resources.
      */
     @Override
-    public void configure(LocalContainer container)
+    protected void configureHome(LocalContainer container)
     {
-        super.configure(container);
-        configureDataSources(container);
-        configureResources(container);
+        super.configureHome(container);
+
+        this.xmlEditSession = new XmlEditSession(getFileHandler());
+        try
+        {
+            configureDataSources(container);
+            configureResources(container);
+            this.xmlEditSession.save();
+        }
+        finally
+        {
+            this.xmlEditSession.discard();
+            this.xmlEditSession = null;
+        }
     }
 
     /**
@@ -172,7 +186,9 @@ public abstract class AbstractStandaloneLocalConfigurationWithXMLConfigurationBu
     }
 
     /**
-     * Utility method used to write XML to an appropriate place in the configuration file.
+     * Utility method used to write XML to an appropriate place in the configuration file. When
+     * called during {@link #configure(LocalContainer)}, the file is only written once all
+     * datasources and resources have been configured.
      * 
      * @param file where to write the datasource configuration to.
      * @param xml node you wish to write to the resources configuration file.
@@ -180,11 +196,15 @@ public abstract class AbstractStandaloneLocalConfigurationWithXMLConfigurationBu
      */
     protected void writeConfigurationToXpath(String file, String xml, String path)
     {
-        XmlFileBuilder manager = new DefaultXmlFileBuilder(getFileHandler());
-        manager.setNamespaces(getNamespaces());
-        manager.setFile(file);
-        manager.loadFile();
-        manager.insertElementsUnderXPath(xml, path);
-        manager.writeFile();
+        if (this.xmlEditSession != null)
+        {
+            this.xmlEditSession.insertElementsUnderXPath(file, xml, path, getNamespaces());
+        }
+        else
+        {
+            XmlEditSession session = new XmlEditSession(getFileHandler());
+            session.insertElementsUnderXPath(file, xml, path, getNamespaces());
+            session.save();
+        }
     }
 }
@@ -32,6 +32,7 @@ import org.codehaus.cargo.container.deployable.Deployable;
 import org.codehaus.cargo.container.deployable.DeployableType;
 import org.codehaus.cargo.container.deployable.EAR;
 import org.codehaus.cargo.container.deployable.WAR;
+import org.codehaus.cargo.container.property.GeneralPropertySet;
 import org.codehaus.cargo.util.CargoException;
 
 /**
@@ -98,18 +99,62 @@ public abstract class AbstractCopyingInstalledLocalDeployer extends
     }
 
     /**
-     * {@inheritDoc}
+     * {@inheritDoc}. The web contexts of the deployable are reserved before copying it, so
+     * that deployables with different web contexts can be copied concurrently.
      */
     @Override
-    public synchronized void deploy(Deployable deployable)
+    public void deploy(Deployable deployable)
     {
-        if (!canBeDeployed(deployable))
+        boolean reserved;
+        synchronized (this.deployedDeployables)
         {
-            throw new ContainerException("Failed to deploy [" + deployable.getFile() + "] to ["
-                + getDeployableDir(deployable) + "]. The required web context is already in use"
-                + " by another application.");
+            if (!canBeDeployed(deployable))
+            {
+                throw new ContainerException("Failed to deploy [" + deployable.getFile()
+                    + "] to [" + getDeployableDir(deployable) + "]. The required web context is"
+                    + " already in use by another application.");
+            }
+            reserved = !this.deployedDeployables.contains(deployable);
+            if (reserved)
+            {
+                this.deployedDeployables.add(deployable);
+            }
+        }
+
+        boolean deployed = false;
+        try
+        {
+            doCheckedDeploy(deployable);
+            deployed = true;
         }
+        finally
+        {
+            if (!deployed && reserved)
+            {
+                synchronized (this.deployedDeployables)
+                {
+                    this.deployedDeployables.remove(deployable);
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}. Deployables are copied to separate locations, hence can be deployed
+     * concurrently.
+     */
+    @Override
+    public boolean isConcurrentDeploymentSupported()
+    {
+        return true;
+    }
 
+    /**
+     * Checks that the deployable can be deployed in the container and deploys it.
+     * @param deployable Deployable to deploy.
+     */
+    private void doCheckedDeploy(Deployable deployable)
+    {
         // Check that the container supports the deployable type to deploy
         if (!getContainer().getCapability().supportsDeployableType(deployable.getType()))
         {
@@ -144,8 +189,6 @@ public abstract class AbstractCopyingInstalledLocalDeployer extends
             throw new ContainerException("Failed to deploy [" + deployable.getFile() + "] to ["
                 + deployableDir + "]", e);
         }
-
-        this.deployedDeployables.add(deployable);
     }
 
     /**
@@ -160,6 +203,11 @@ public abstract class AbstractCopyingInstalledLocalDeployer extends
         final Set<String> newDeployableContextSet = getWebContextsSet(newDeployable);
         for (Deployable deployedDeployable : this.deployedDeployables)
         {
+            if (deployedDeployable == newDeployable)
+            {
+                // Deploying the same deployable again, for example when redeploying it
+                continue;
+            }
             for (String webContext : getWebContexts(deployedDeployable))
             {
                 if (newDeployableContextSet.contains(webContext))
@@ -247,7 +295,39 @@ public abstract class AbstractCopyingInstalledLocalDeployer extends
                 getFileHandler().delete(target);
             }
 
-            getFileHandler().copyDirectory(deployable.getFile(), target);
+            DeployableSynchronizer.SyncMode syncMode = getSyncMode();
+            if (syncMode == DeployableSynchronizer.SyncMode.COPY)
+            {
+                getFileHandler().copyDirectory(deployable.getFile(), target);
+            }
+            else
+            {
+                DeployableSynchronizer synchronizer = createSynchronizer(syncMode);
+                String manifestFile =
+                    synchronizer.getManifestFile(deployableDir, getDeployableName(deployable));
+                if (synchronizer.canSynchronize(target, manifestFile))
+                {
+                    int changes =
+                        synchronizer.synchronize(deployable.getFile(), target, manifestFile);
+                    if (changes > 0)
+                    {
+                        getLogger().info("Synchronized " + changes + " changed file(s) of ["
+                            + deployable.getFile() + "], reloading it...",
+                                this.getClass().getName());
+                        reloadDeployable(deployableDir, deployable);
+                    }
+                    else
+                    {
+                        getLogger().info("[" + target + "] is up to date",
+                            this.getClass().getName());
+                    }
+                }
+                else
+                {
+                    getFileHandler().copyDirectory(deployable.getFile(), target);
+                    synchronizer.writeManifest(deployable.getFile(), manifestFile);
+                }
+            }
         }
         else
         {
@@ -262,6 +342,93 @@ public abstract class AbstractCopyingInstalledLocalDeployer extends
         }
     }
 
+    /**
+     * @return How expanded deployables which were already deployed are deployed again, as set in
+     * the {@link GeneralPropertySet#DEPLOYER_SYNC_MODE} property.
+     */
+    protected DeployableSynchronizer.SyncMode getSyncMode()
+    {
+        String syncMode = null;
+        if (getContainer().getConfiguration() != null)
+        {
+            syncMode = getContainer().getConfiguration().getPropertyValue(
+                GeneralPropertySet.DEPLOYER_SYNC_MODE);
+        }
+        return DeployableSynchronizer.SyncMode.toSyncMode(syncMode);
+    }
+
+    /**
+     * @param syncMode Sync mode, other than {@link DeployableSynchronizer.SyncMode#COPY}.
+     * @return Synchronizer for expanded deployables.
+     */
+    private DeployableSynchronizer createSynchronizer(DeployableSynchronizer.SyncMode syncMode)
+    {
+        DeployableSynchronizer synchronizer = new DeployableSynchronizer(getFileHandler(),
+            syncMode == DeployableSynchronizer.SyncMode.HASH);
+        synchronizer.setLogger(getLogger());
+        return synchronizer;
+    }
+
+    /**
+     * @param deployableDir Directory in which the deployable is deployed.
+     * @param deployable Deployable about to be deployed.
+     * @return Whether {@link #doDeploy(String, Deployable)} will synchronize an already deployed
+     * copy of the expanded deployable instead of copying it, in which case it calls
+     * {@link #reloadDeployable(String, Deployable)} if anything changed.
+     */
+    protected boolean isSynchronizedRedeploy(String deployableDir, Deployable deployable)
+    {
+        DeployableSynchronizer.SyncMode syncMode = getSyncMode();
+        if (!deployable.isExpanded() || syncMode == DeployableSynchronizer.SyncMode.COPY)
+        {
+            return false;
+        }
+        DeployableSynchronizer synchronizer = createSynchronizer(syncMode);
+        String deployableName = getDeployableName(deployable);
+        return synchronizer.canSynchronize(getFileHandler().append(deployableDir, deployableName),
+            synchronizer.getManifestFile(deployableDir, deployableName));
+    }
+
+    /**
+     * {@inheritDoc}. Expanded deployables which are synchronized, as per
+     * {@link #isSynchronizedRedeploy(String, Deployable)}, are not undeployed since undeploying
+     * would delete the deployed copy to synchronize.
+     */
+    @Override
+    protected boolean isUndeployedOnRedeploy(Deployable deployable)
+    {
+        return !isSynchronizedRedeploy(getDeployableDir(deployable), deployable);
+    }
+
+    /**
+     * Deletes the manifest which {@link #doDeploy(String, Deployable)} saves next to the deployed
+     * copy of an expanded deployable when synchronizing it. Deployers call this when undeploying,
+     * so that a later deployment copies the deployable again.
+     * @param deployableDir Directory in which the deployable is deployed.
+     * @param deployable Deployable being undeployed.
+     */
+    protected void deleteSyncManifest(String deployableDir, Deployable deployable)
+    {
+        String manifestFile = createSynchronizer(DeployableSynchronizer.SyncMode.DELTA)
+            .getManifestFile(deployableDir, getDeployableName(deployable));
+        if (getFileHandler().exists(manifestFile))
+        {
+            getFileHandler().delete(manifestFile);
+        }
+    }
+
+    /**
+     * Asks the container to reload an expanded deployable after changed files were synchronized
+     * into its deployed copy. This default implementation does nothing, which suits containers
+     * that scan deployed directories for changes.
+     * @param deployableDir Directory in which the deployable is deployed.
+     * @param deployable Deployable to reload.
+     */
+    protected void reloadDeployable(String deployableDir, Deployable deployable)
+    {
+        // Nothing by default
+    }
+
     /**
      * Gets the deployable name for the given <code>deployable</code>.
      * @param deployable Deployable to get the name for.
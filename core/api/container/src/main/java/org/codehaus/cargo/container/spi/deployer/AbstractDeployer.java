@@ -22,13 +22,25 @@ package org.codehaus.cargo.container.spi.deployer;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.codehaus.cargo.container.Container;
 import org.codehaus.cargo.container.ContainerException;
+import org.codehaus.cargo.container.LocalContainer;
+import org.codehaus.cargo.container.RemoteContainer;
+import org.codehaus.cargo.container.configuration.Configuration;
 import org.codehaus.cargo.container.deployable.Deployable;
 import org.codehaus.cargo.container.deployer.DeployableMonitor;
 import org.codehaus.cargo.container.deployer.Deployer;
+import org.codehaus.cargo.container.deployer.DeploymentReport;
+import org.codehaus.cargo.container.property.GeneralPropertySet;
 import org.codehaus.cargo.util.log.LogLevel;
 import org.codehaus.cargo.util.log.LoggedObject;
 
@@ -37,24 +49,218 @@ import org.codehaus.cargo.util.log.LoggedObject;
  */
 public abstract class AbstractDeployer extends LoggedObject implements Deployer
 {
+    /**
+     * Maximum number of threads waiting for deployable monitors during a batch action.
+     */
+    private static final int MAX_MONITOR_THREADS = 16;
+
+    /**
+     * Action of a batch on a single deployable.
+     */
+    private enum BatchAction
+    {
+        /**
+         * Deploy the deployable.
+         */
+        DEPLOY("The deployment has failed: "),
+
+        /**
+         * Undeploy the deployable.
+         */
+        UNDEPLOY("The undeployment has failed: "),
+
+        /**
+         * Undeploy the deployable, as first phase of a redeployment.
+         */
+        UNDEPLOY_FOR_REDEPLOY("The undeployment phase of the redeploy action has failed: "),
+
+        /**
+         * Redeploy the deployable.
+         */
+        REDEPLOY("The redeployment has failed: ");
+
+        /**
+         * Message logged when the action fails.
+         */
+        private final String failureMessage;
+
+        /**
+         * @param failureMessage Message logged when the action fails.
+         */
+        BatchAction(String failureMessage)
+        {
+            this.failureMessage = failureMessage;
+        }
+
+        /**
+         * @param deployer Deployer to perform the action with.
+         * @param deployable Deployable to perform the action on.
+         */
+        void perform(Deployer deployer, Deployable deployable)
+        {
+            switch (this)
+            {
+                case DEPLOY:
+                    deployer.deploy(deployable);
+                    break;
+                case REDEPLOY:
+                    deployer.redeploy(deployable);
+                    break;
+                default:
+                    deployer.undeploy(deployable);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * The container into which to perform deployment operations.
+     */
+    private Container container;
+
     /**
      * @param container the container into which to perform deployment operations
      */
     public AbstractDeployer(Container container)
     {
+        this.container = container;
         setLogger(container.getLogger());
     }
 
     /**
-     * Helper method to deploy multiple deployables at a time.
-     * @see Deployer#deploy(Deployable)
+     * Helper method to deploy multiple deployables at a time, running as many deployments at the
+     * same time as the {@link GeneralPropertySet#DEPLOYER_CONCURRENCY} property allows. All
+     * deployables are attempted even if some of them fail.
+     * @see Deployer#deploy(List, Map, int)
      * @param deployables Deployables to deploy.
      */
     public void deploy(List<Deployable> deployables)
     {
+        deploy(deployables, null, getConfiguredConcurrency()).throwOnFailure();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DeploymentReport deploy(List<Deployable> deployables,
+        Map<Deployable, DeployableMonitor> monitors, int concurrency)
+    {
+        DeploymentReport report = new DeploymentReport(deployables);
+        Map<Deployable, DeployableMonitor> batchMonitors = getBatchMonitors(monitors);
+        perform(BatchAction.DEPLOY, deployables, batchMonitors, concurrency, report);
+        watch(deployables, batchMonitors, true, report);
+        return report;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DeploymentReport undeploy(List<Deployable> deployables,
+        Map<Deployable, DeployableMonitor> monitors, int concurrency)
+    {
+        DeploymentReport report = new DeploymentReport(deployables);
+        Map<Deployable, DeployableMonitor> batchMonitors = getBatchMonitors(monitors);
+        perform(BatchAction.UNDEPLOY, deployables, batchMonitors, concurrency, report);
+        watch(deployables, batchMonitors, false, report);
+        return report;
+    }
+
+    /**
+     * {@inheritDoc}. As {@link #redeploy(Deployable, DeployableMonitor)} does, the deployables
+     * which have a monitor are first all undeployed, then waited for, then deployed again.
+     */
+    @Override
+    public DeploymentReport redeploy(List<Deployable> deployables,
+        Map<Deployable, DeployableMonitor> monitors, int concurrency)
+    {
+        DeploymentReport report = new DeploymentReport(deployables);
+        Map<Deployable, DeployableMonitor> batchMonitors = getBatchMonitors(monitors);
+
+        List<Deployable> monitored = new ArrayList<Deployable>();
+        List<Deployable> undeployed = new ArrayList<Deployable>();
         for (Deployable deployable : deployables)
         {
-            deploy(deployable);
+            if (batchMonitors.containsKey(deployable))
+            {
+                monitored.add(deployable);
+                if (isUndeployedOnRedeploy(deployable))
+                {
+                    undeployed.add(deployable);
+                }
+            }
+        }
+        perform(BatchAction.UNDEPLOY_FOR_REDEPLOY, undeployed, batchMonitors, concurrency, null);
+        watch(undeployed, batchMonitors, false, report);
+
+        List<Deployable> remaining = report.getSuccessfulDeployables();
+        List<Deployable> unmonitored = new ArrayList<Deployable>(remaining);
+        unmonitored.removeAll(monitored);
+        List<Runnable> actions = new ArrayList<Runnable>(remaining.size());
+        for (Deployable deployable : remaining)
+        {
+            BatchAction action;
+            if (unmonitored.contains(deployable))
+            {
+                action = BatchAction.REDEPLOY;
+            }
+            else
+            {
+                action = BatchAction.DEPLOY;
+            }
+            actions.add(createAction(action, deployable, batchMonitors, report));
+        }
+        run(actions, getActionThreads(concurrency, actions.size()));
+        remaining.removeAll(unmonitored);
+        watch(remaining, batchMonitors, true, report);
+        return report;
+    }
+
+    /**
+     * {@inheritDoc}. Deployers are not considered thread safe by default; deployers which are
+     * should override this method.
+     */
+    @Override
+    public boolean isConcurrentDeploymentSupported()
+    {
+        return false;
+    }
+
+    /**
+     * @return Number of deployables to deploy at the same time when given several of them, as
+     * set in the {@link GeneralPropertySet#DEPLOYER_CONCURRENCY} property of the container's
+     * configuration, <code>1</code> by default.
+     */
+    protected int getConfiguredConcurrency()
+    {
+        Configuration configuration = null;
+        if (this.container instanceof LocalContainer)
+        {
+            configuration = ((LocalContainer) this.container).getConfiguration();
+        }
+        else if (this.container instanceof RemoteContainer)
+        {
+            configuration = ((RemoteContainer) this.container).getConfiguration();
+        }
+        String concurrency = null;
+        if (configuration != null)
+        {
+            concurrency = configuration.getPropertyValue(GeneralPropertySet.DEPLOYER_CONCURRENCY);
+        }
+        if (concurrency == null || concurrency.trim().isEmpty())
+        {
+            return 1;
+        }
+
+        try
+        {
+            return Math.max(1, Integer.parseInt(concurrency.trim()));
+        }
+        catch (NumberFormatException e)
+        {
+            throw new ContainerException("Invalid value [" + concurrency + "] for the "
+                + GeneralPropertySet.DEPLOYER_CONCURRENCY + " property", e);
         }
     }
 
@@ -73,14 +279,7 @@ public abstract class AbstractDeployer extends LoggedObject implements Deployer
             // CARGO-1100: When the deployment action has failed, log the failure and then wait for
             // the watchdog to return. If deployment was indeed complete, the watchdog will detect
             // it; else it will make the method fail.
-            getLogger().info("The deployment has failed: " + t.toString(),
-                this.getClass().getName());
-            if (getLogger().getLevel() == LogLevel.DEBUG)
-            {
-                Writer stackTrace = new StringWriter();
-                t.printStackTrace(new PrintWriter(stackTrace));
-                getLogger().debug(stackTrace.toString(), this.getClass().getName());
-            }
+            logFailure("The deployment has failed: ", t);
         }
 
         // Wait for the Deployable to be deployed
@@ -104,14 +303,7 @@ public abstract class AbstractDeployer extends LoggedObject implements Deployer
             // CARGO-1100: When the undeployment action has failed, log the failure and then wait
             // for the watchdog to return. If undeployment was indeed complete, the watchdog will
             // detect it; else it will make the method fail.
-            getLogger().info("The undeployment has failed: " + t.toString(),
-                this.getClass().getName());
-            if (getLogger().getLevel() == LogLevel.DEBUG)
-            {
-                Writer stackTrace = new StringWriter();
-                t.printStackTrace(new PrintWriter(stackTrace));
-                getLogger().debug(stackTrace.toString(), this.getClass().getName());
-            }
+            logFailure("The undeployment has failed: ", t);
         }
 
         // Wait for the Deployable to be undeployed
@@ -121,16 +313,15 @@ public abstract class AbstractDeployer extends LoggedObject implements Deployer
     }
 
     /**
-     * Helper method to redeploy multiple deployables at a time.
-     * @see Deployer#redeploy(Deployable)
+     * Helper method to redeploy multiple deployables at a time, running as many redeployments at
+     * the same time as the {@link GeneralPropertySet#DEPLOYER_CONCURRENCY} property allows. All
+     * deployables are attempted even if some of them fail.
+     * @see Deployer#redeploy(List, Map, int)
      * @param deployables Deployables to redeploy.
      */
     public void redeploy(List<Deployable> deployables)
     {
-        for (Deployable deployable : deployables)
-        {
-            redeploy(deployable);
-        }
+        redeploy(deployables, null, getConfiguredConcurrency()).throwOnFailure();
     }
 
     /**
@@ -139,26 +330,22 @@ public abstract class AbstractDeployer extends LoggedObject implements Deployer
     @Override
     public void redeploy(Deployable deployable, DeployableMonitor monitor)
     {
-        try
-        {
-            undeploy(deployable);
-        }
-        catch (Throwable t)
+        if (isUndeployedOnRedeploy(deployable))
         {
-            getLogger().info("The undeployment phase of the redeploy action has failed: "
-                + t.toString(), this.getClass().getName());
-            if (getLogger().getLevel() == LogLevel.DEBUG)
+            try
             {
-                Writer stackTrace = new StringWriter();
-                t.printStackTrace(new PrintWriter(stackTrace));
-                getLogger().debug(stackTrace.toString(), this.getClass().getName());
+                undeploy(deployable);
+            }
+            catch (Throwable t)
+            {
+                logFailure("The undeployment phase of the redeploy action has failed: ", t);
             }
-        }
 
-        // Wait for the Deployable to be undeployed
-        DeployerWatchdog watchdog = new DeployerWatchdog(monitor);
-        watchdog.setLogger(getLogger());
-        watchdog.watchForUnavailability();
+            // Wait for the Deployable to be undeployed
+            DeployerWatchdog watchdog = new DeployerWatchdog(monitor);
+            watchdog.setLogger(getLogger());
+            watchdog.watchForUnavailability();
+        }
 
         deploy(deployable, monitor);
     }
@@ -233,16 +420,219 @@ public abstract class AbstractDeployer extends LoggedObject implements Deployer
     @Override
     public void redeploy(Deployable deployable)
     {
+        if (isUndeployedOnRedeploy(deployable))
+        {
+            try
+            {
+                undeploy(deployable);
+            }
+            catch (Throwable t)
+            {
+                getLogger().info("The undeployment phase of the redeploy action has failed: "
+                    + t.toString(), this.getClass().getName());
+            }
+        }
+
+        deploy(deployable);
+    }
+
+    /**
+     * @param deployable Deployable about to be redeployed.
+     * @return Whether redeploying <code>deployable</code> first undeploys it, which is the case by
+     * default. Deployers which can update an already deployed copy in place return
+     * <code>false</code>, in which case redeploying only deploys <code>deployable</code> again.
+     */
+    protected boolean isUndeployedOnRedeploy(Deployable deployable)
+    {
+        return true;
+    }
+
+    /**
+     * @param monitors Monitors given to a batch action, can be <code>null</code>.
+     * @return Monitors of the batch action, never <code>null</code>.
+     */
+    private static Map<Deployable, DeployableMonitor> getBatchMonitors(
+        Map<Deployable, DeployableMonitor> monitors)
+    {
+        if (monitors == null)
+        {
+            return Collections.emptyMap();
+        }
+        return monitors;
+    }
+
+    /**
+     * @param concurrency Requested concurrency.
+     * @param actions Number of actions to run.
+     * @return Number of threads to run the actions of a batch with.
+     */
+    private int getActionThreads(int concurrency, int actions)
+    {
+        if (!isConcurrentDeploymentSupported())
+        {
+            return 1;
+        }
+        return Math.min(concurrency, actions);
+    }
+
+    /**
+     * Performs an action on several deployables.
+     * @param action Action to perform.
+     * @param deployables Deployables to perform the action on.
+     * @param monitors Monitors of the deployables.
+     * @param concurrency Maximum number of actions running at the same time.
+     * @param report Report in which to record failures, <code>null</code> to only log them.
+     */
+    private void perform(BatchAction action, List<Deployable> deployables,
+        Map<Deployable, DeployableMonitor> monitors, int concurrency, DeploymentReport report)
+    {
+        List<Runnable> actions = new ArrayList<Runnable>(deployables.size());
+        for (Deployable deployable : deployables)
+        {
+            actions.add(createAction(action, deployable, monitors, report));
+        }
+        run(actions, getActionThreads(concurrency, actions.size()));
+    }
+
+    /**
+     * @param action Action to perform.
+     * @param deployable Deployable to perform the action on.
+     * @param monitors Monitors of the deployables.
+     * @param report Report in which to record a failure, <code>null</code> to only log it.
+     * @return Task performing the action on the deployable.
+     */
+    private Runnable createAction(final BatchAction action, final Deployable deployable,
+        final Map<Deployable, DeployableMonitor> monitors, final DeploymentReport report)
+    {
+        return new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    action.perform(AbstractDeployer.this, deployable);
+                }
+                catch (Throwable t)
+                {
+                    if (report != null)
+                    {
+                        report.setFailure(deployable, t);
+                    }
+                    // CARGO-1100: When a monitored action has failed, only log the failure; the
+                    // watchdog decides whether the action was complete in spite of the failure.
+                    if (report == null || monitors.containsKey(deployable))
+                    {
+                        logFailure(action.failureMessage, t);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Waits, in parallel, for the monitored deployables to become available or unavailable. The
+     * result of the watchdog overrides any earlier outcome of a monitored deployable.
+     * @param deployables Deployables to wait for, if they have a monitor.
+     * @param monitors Monitors of the deployables, can be <code>null</code>.
+     * @param availability <code>true</code> to wait for availability, <code>false</code> for
+     * unavailability.
+     * @param report Report in which to record the outcomes.
+     */
+    protected void watch(List<Deployable> deployables,
+        Map<Deployable, DeployableMonitor> monitors, final boolean availability,
+        final DeploymentReport report)
+    {
+        Map<Deployable, DeployableMonitor> batchMonitors = getBatchMonitors(monitors);
+        List<Runnable> watchdogs = new ArrayList<Runnable>();
+        for (final Deployable deployable : deployables)
+        {
+            final DeployableMonitor monitor = batchMonitors.get(deployable);
+            if (monitor == null)
+            {
+                continue;
+            }
+
+            watchdogs.add(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        DeployerWatchdog watchdog = new DeployerWatchdog(monitor);
+                        watchdog.setLogger(getLogger());
+                        watchdog.watch(availability);
+                        report.clearFailure(deployable);
+                    }
+                    catch (Throwable t)
+                    {
+                        report.setFailure(deployable, t);
+                    }
+                }
+            });
+        }
+        run(watchdogs, Math.min(watchdogs.size(), MAX_MONITOR_THREADS));
+    }
+
+    /**
+     * Runs tasks, which must not throw, and waits for all of them to complete.
+     * @param tasks Tasks to run.
+     * @param threads Number of threads to run the tasks with; if lower than 2, the tasks are run
+     * one after the other in the calling thread.
+     */
+    private static void run(List<Runnable> tasks, int threads)
+    {
+        if (threads < 2)
+        {
+            for (Runnable task : tasks)
+            {
+                task.run();
+            }
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
         try
         {
-            undeploy(deployable);
+            List<Future<?>> futures = new ArrayList<Future<?>>(tasks.size());
+            for (Runnable task : tasks)
+            {
+                futures.add(executor.submit(task));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
         }
-        catch (Throwable t)
+        catch (InterruptedException e)
         {
-            getLogger().info("The undeployment phase of the redeploy action has failed: "
-                + t.toString(), this.getClass().getName());
+            Thread.currentThread().interrupt();
+            throw new ContainerException("Interrupted while waiting for deployer actions", e);
         }
+        catch (ExecutionException e)
+        {
+            throw new ContainerException("Deployer action failed", e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
 
-        deploy(deployable);
+    /**
+     * Logs the failure of a deployer action, with its stack trace at debug level.
+     * @param message Message describing the failed action.
+     * @param t Failure.
+     */
+    private void logFailure(String message, Throwable t)
+    {
+        getLogger().info(message + t.toString(), this.getClass().getName());
+        if (getLogger().getLevel() == LogLevel.DEBUG)
+        {
+            Writer stackTrace = new StringWriter();
+            t.printStackTrace(new PrintWriter(stackTrace));
+            getLogger().debug(stackTrace.toString(), this.getClass().getName());
+        }
     }
 }
@@ -0,0 +1,372 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.deployer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.codehaus.cargo.container.ContainerException;
+import org.codehaus.cargo.util.CargoException;
+import org.codehaus.cargo.util.FileHandler;
+import org.codehaus.cargo.util.log.LoggedObject;
+
+/**
+ * Synchronizes an expanded deployable with its deployed copy, by copying only the files that
+ * changed since the previous synchronization and deleting the files that were removed. The state
+ * of the source directory at the previous synchronization is kept in a manifest file, hence only
+ * the source directory is scanned; the deployed copy is expected not to be modified by anyone
+ * else.
+ */
+public class DeployableSynchronizer extends LoggedObject
+{
+    /**
+     * Ways of deploying an expanded deployable which was already deployed.
+     */
+    public enum SyncMode
+    {
+        /**
+         * Copy the whole directory again.
+         */
+        COPY,
+
+        /**
+         * Copy the files whose size or modification time changed, delete the removed files.
+         */
+        DELTA,
+
+        /**
+         * As {@link #DELTA}, but files whose size or modification time changed are only copied
+         * if their content hash changed too.
+         */
+        HASH;
+
+        /**
+         * @param syncMode Sync mode name, case insensitive, <code>null</code> for the default.
+         * @return The matching {@link SyncMode}, {@link #COPY} by default.
+         * @throws CargoException If the sync mode is unknown.
+         */
+        public static SyncMode toSyncMode(String syncMode) throws CargoException
+        {
+            if (syncMode == null || syncMode.trim().isEmpty())
+            {
+                return COPY;
+            }
+
+            try
+            {
+                return SyncMode.valueOf(syncMode.trim().toUpperCase(Locale.ENGLISH));
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new CargoException("Unknown deployer sync mode [" + syncMode + "], valid "
+                    + "values are copy, delta and hash", e);
+            }
+        }
+    }
+
+    /**
+     * Manifest value of directories.
+     */
+    private static final String DIRECTORY = "d";
+
+    /**
+     * File handler used to access the files.
+     */
+    private FileHandler fileHandler;
+
+    /**
+     * Whether to compare files by content hash.
+     */
+    private boolean hash;
+
+    /**
+     * @param fileHandler File handler used to access the files.
+     * @param hash Whether files whose size or modification time changed should also be compared
+     * by content hash before being copied.
+     */
+    public DeployableSynchronizer(FileHandler fileHandler, boolean hash)
+    {
+        this.fileHandler = fileHandler;
+        this.hash = hash;
+    }
+
+    /**
+     * @param deployableDir Directory the deployable is deployed to.
+     * @param deployableName Name of the deployed copy in <code>deployableDir</code>.
+     * @return Manifest file of the deployed copy. It is a hidden file next to the deployed copy,
+     * which containers ignore when scanning for deployables.
+     */
+    public String getManifestFile(String deployableDir, String deployableName)
+    {
+        return this.fileHandler.append(deployableDir, "." + deployableName + ".cargo-sync");
+    }
+
+    /**
+     * @param target Deployed copy.
+     * @param manifestFile Manifest file of the deployed copy.
+     * @return Whether the deployed copy can be synchronized, i.e. both the deployed copy and the
+     * manifest of its previous synchronization exist.
+     */
+    public boolean canSynchronize(String target, String manifestFile)
+    {
+        return this.fileHandler.isDirectory(target) && this.fileHandler.exists(manifestFile);
+    }
+
+    /**
+     * Records the current state of the source directory, which has just been fully copied to the
+     * deployed copy.
+     * @param source Source directory.
+     * @param manifestFile Manifest file of the deployed copy.
+     */
+    public void writeManifest(String source, String manifestFile)
+    {
+        Map<String, String> manifest = new TreeMap<String, String>();
+        for (Map.Entry<String, String> entry : scan(source).entrySet())
+        {
+            String value = entry.getValue();
+            if (this.hash && !DIRECTORY.equals(value))
+            {
+                value = value + ":" + getHash(this.fileHandler.append(source, entry.getKey()));
+            }
+            manifest.put(entry.getKey(), value);
+        }
+        saveManifest(manifest, manifestFile);
+    }
+
+    /**
+     * Synchronizes the deployed copy with the source directory.
+     * @param source Source directory.
+     * @param target Deployed copy, as left by the previous synchronization.
+     * @param manifestFile Manifest file of the deployed copy.
+     * @return Number of files and directories which were created, updated or deleted.
+     */
+    public int synchronize(String source, String target, String manifestFile)
+    {
+        Map<String, String> previous = loadManifest(manifestFile);
+        Map<String, String> current = scan(source);
+        Map<String, String> manifest = new TreeMap<String, String>();
+        int changes = 0;
+
+        for (Map.Entry<String, String> entry : current.entrySet())
+        {
+            String path = entry.getKey();
+            String state = entry.getValue();
+            String previousState = previous.get(path);
+            String targetPath = this.fileHandler.append(target, path);
+
+            if (DIRECTORY.equals(state))
+            {
+                if (!DIRECTORY.equals(previousState))
+                {
+                    if (previousState != null)
+                    {
+                        this.fileHandler.delete(targetPath);
+                    }
+                    this.fileHandler.mkdirs(targetPath);
+                    changes++;
+                }
+                manifest.put(path, state);
+                continue;
+            }
+
+            if (previousState != null && previousState.startsWith(state)
+                && (previousState.length() == state.length()
+                    || previousState.charAt(state.length()) == ':'))
+            {
+                manifest.put(path, previousState);
+                continue;
+            }
+
+            String sourcePath = this.fileHandler.append(source, path);
+            if (this.hash)
+            {
+                String contentHash = getHash(sourcePath);
+                state = state + ":" + contentHash;
+                if (previousState != null && previousState.endsWith(":" + contentHash))
+                {
+                    manifest.put(path, state);
+                    continue;
+                }
+            }
+
+            if (DIRECTORY.equals(previousState))
+            {
+                this.fileHandler.delete(targetPath);
+            }
+            this.fileHandler.copyFile(sourcePath, targetPath, true);
+            manifest.put(path, state);
+            changes++;
+        }
+
+        List<String> removed = new ArrayList<String>();
+        for (String path : previous.keySet())
+        {
+            if (!current.containsKey(path))
+            {
+                removed.add(path);
+            }
+        }
+        // Delete children before their parent directories
+        Collections.sort(removed, Collections.reverseOrder());
+        for (String path : removed)
+        {
+            String targetPath = this.fileHandler.append(target, path);
+            if (this.fileHandler.exists(targetPath))
+            {
+                this.fileHandler.delete(targetPath);
+            }
+            changes++;
+        }
+
+        saveManifest(manifest, manifestFile);
+        getLogger().debug("Synchronized [" + source + "] to [" + target + "]: " + changes
+            + " change(s) out of " + current.size() + " files and directories",
+                this.getClass().getName());
+        return changes;
+    }
+
+    /**
+     * Lists all files and directories of a directory, with their state.
+     * @param source Directory to scan.
+     * @return Paths relative to <code>source</code>, separated with <code>/</code>, mapped to
+     * <code>size:modificationTime</code> for files and {@link #DIRECTORY} for directories.
+     */
+    private Map<String, String> scan(String source)
+    {
+        Map<String, String> state = new TreeMap<String, String>();
+        scan(source, "", state);
+        return state;
+    }
+
+    /**
+     * Lists all files and directories of a directory recursively.
+     * @param directory Directory to scan.
+     * @param prefix Path of <code>directory</code> relative to the scanned root.
+     * @param state Map in which to put the state of each file and directory.
+     */
+    private void scan(String directory, String prefix, Map<String, String> state)
+    {
+        for (String child : this.fileHandler.getChildren(directory))
+        {
+            String path = prefix + this.fileHandler.getName(child);
+            if (this.fileHandler.isDirectory(child))
+            {
+                state.put(path, DIRECTORY);
+                scan(child, path + "/", state);
+            }
+            else
+            {
+                state.put(path, this.fileHandler.getSize(child) + ":"
+                    + this.fileHandler.getLastModified(child));
+            }
+        }
+    }
+
+    /**
+     * @param file File to hash.
+     * @return SHA-1 hash of the file's content, as an hexadecimal string.
+     */
+    private String getHash(String file)
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new ContainerException("Cannot compute file hashes", e);
+        }
+
+        try (InputStream in = this.fileHandler.getInputStream(file))
+        {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, n);
+            }
+        }
+        catch (IOException e)
+        {
+            throw new ContainerException("Failed to read [" + file + "]", e);
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (byte b : digest.digest())
+        {
+            result.append(String.format("%02x", b & 0xff));
+        }
+        return result.toString();
+    }
+
+    /**
+     * @param manifestFile Manifest file to load.
+     * @return Content of the manifest.
+     */
+    private Map<String, String> loadManifest(String manifestFile)
+    {
+        Properties properties = new Properties();
+        try (InputStream in = this.fileHandler.getInputStream(manifestFile))
+        {
+            properties.load(in);
+        }
+        catch (IOException e)
+        {
+            throw new ContainerException("Failed to read sync manifest [" + manifestFile + "]", e);
+        }
+
+        Map<String, String> manifest = new TreeMap<String, String>();
+        for (String path : properties.stringPropertyNames())
+        {
+            manifest.put(path, properties.getProperty(path));
+        }
+        return manifest;
+    }
+
+    /**
+     * @param manifest Content of the manifest.
+     * @param manifestFile Manifest file to save to.
+     */
+    private void saveManifest(Map<String, String> manifest, String manifestFile)
+    {
+        Properties properties = new Properties();
+        properties.putAll(manifest);
+        try (OutputStream out = this.fileHandler.getOutputStream(manifestFile))
+        {
+            properties.store(out, "Cargo deployable sync manifest");
+        }
+        catch (IOException e)
+        {
+            throw new ContainerException("Failed to write sync manifest [" + manifestFile + "]",
+                e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Process output sink splitting the output into lines. Bytes are only decoded once a line is
+ * complete, lines longer than {@link #MAX_LINE_LENGTH} bytes being split.
+ */
+public abstract class AbstractLineOutputSink implements ProcessOutputSink
+{
+    /**
+     * Maximal length of a line, in bytes.
+     */
+    public static final int MAX_LINE_LENGTH = 64 * 1024;
+
+    /**
+     * Charset of the process output.
+     */
+    private final Charset charset;
+
+    /**
+     * Bytes of the current line.
+     */
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+    /**
+     * @param charset Charset of the process output.
+     */
+    public AbstractLineOutputSink(Charset charset)
+    {
+        this.charset = charset;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException
+    {
+        int lineStart = offset;
+        int end = offset + length;
+        for (int i = offset; i < end; i++)
+        {
+            if (buffer[i] == '\n')
+            {
+                this.line.write(buffer, lineStart, i - lineStart);
+                endLine();
+                lineStart = i + 1;
+            }
+            else if (this.line.size() + i - lineStart >= MAX_LINE_LENGTH)
+            {
+                this.line.write(buffer, lineStart, i - lineStart);
+                endLine();
+                lineStart = i;
+            }
+        }
+        this.line.write(buffer, lineStart, end - lineStart);
+    }
+
+    /**
+     * Decodes the current line and passes it to {@link #line(String)}.
+     * 
+     * @throws IOException If the line cannot be handled.
+     */
+    private void endLine() throws IOException
+    {
+        String decoded = new String(this.line.toByteArray(), this.charset);
+        this.line.reset();
+        if (decoded.endsWith("\r"))
+        {
+            decoded = decoded.substring(0, decoded.length() - 1);
+        }
+        line(decoded);
+    }
+
+    /**
+     * Handles a line of output.
+     * 
+     * @param text Line, without its line terminator.
+     * @throws IOException If the line cannot be handled.
+     */
+    protected abstract void line(String text) throws IOException;
+
+    /**
+     * Handles the last line, if not terminated. {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (this.line.size() > 0)
+        {
+            endLine();
+        }
+    }
+}
@@ -132,6 +132,11 @@ public class DefaultJvmLauncher implements JvmLauncher
      */
     private String category;
 
+    /**
+     * Additional sinks receiving the output of the JVM.
+     */
+    private List<ProcessOutputSink> outputSinks = new ArrayList<ProcessOutputSink>();
+
     /**
      * Build the complete command line.
      * 
@@ -462,6 +467,17 @@ public class DefaultJvmLauncher implements JvmLauncher
         this.category = category;
     }
 
+    /**
+     * Adds a sink receiving the output of the JVM, in addition to the output file or logger. When
+     * no sink is added, the output file is written directly by the operating system.
+     * 
+     * @param outputSink Sink receiving the output of the JVM.
+     */
+    public void addOutputSink(ProcessOutputSink outputSink)
+    {
+        this.outputSinks.add(outputSink);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -518,6 +534,26 @@ public class DefaultJvmLauncher implements JvmLauncher
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAlive()
+    {
+        Process launched = this.process;
+        return launched != null && launched.isAlive();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean waitFor(long millis) throws InterruptedException
+    {
+        Process launched = this.process;
+        return launched == null || launched.waitFor(millis, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -546,30 +582,52 @@ public class DefaultJvmLauncher implements JvmLauncher
             ProcessBuilder pb =
                 new ProcessBuilder(buildCommandLine()).directory(workingDirectory)
                     .redirectErrorStream(true);
+            List<ProcessOutputSink> sinks = new ArrayList<ProcessOutputSink>();
             if (outputFile != null)
             {
-                pb.redirectOutput(
-                    appendOutput ? Redirect.appendTo(outputFile) : Redirect.to(outputFile));
+                if (outputSinks.isEmpty())
+                {
+                    pb.redirectOutput(
+                        appendOutput ? Redirect.appendTo(outputFile) : Redirect.to(outputFile));
+                }
+                else
+                {
+                    sinks.add(new FileOutputSink(outputFile, appendOutput));
+                }
             }
+            else if (outputLogger != null)
+            {
+                sinks.add(new LoggerOutputSink(outputLogger, category));
+            }
+            sinks.addAll(outputSinks);
             pb.environment().putAll(environmentVariables);
 
-            this.process = pb.start();
-            process.getOutputStream().close();
-
-            if (outputFile == null)
+            try
             {
-                if (outputLogger != null)
-                {
-                    Thread outputStreamRedirector =
-                        new Thread(new DefaultJvmLauncherLoggerRedirector(
-                            process.getInputStream(), outputLogger, category));
-                    outputStreamRedirector.start();
-                }
-                else
+                this.process = pb.start();
+            }
+            catch (IOException e)
+            {
+                for (ProcessOutputSink sink : sinks)
                 {
-                    process.getErrorStream().close();
-                    process.getInputStream().close();
+                    sink.close();
                 }
+                throw e;
+            }
+            process.getOutputStream().close();
+
+            if (!sinks.isEmpty())
+            {
+                Thread outputPump = new Thread(
+                    new ProcessOutputPump(process.getInputStream(), sinks, outputLogger),
+                    "Cargo process output pump");
+                outputPump.setDaemon(true);
+                outputPump.start();
+            }
+            else if (outputFile == null)
+            {
+                process.getErrorStream().close();
+                process.getInputStream().close();
             }
         }
         catch (IOException e)
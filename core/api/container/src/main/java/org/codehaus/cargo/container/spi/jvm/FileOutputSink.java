@@ -0,0 +1,66 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.jvm;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Process output sink copying the output to a file, as is.
+ */
+public class FileOutputSink implements ProcessOutputSink
+{
+    /**
+     * Output file stream.
+     */
+    private final OutputStream output;
+
+    /**
+     * Opens the output file.
+     * 
+     * @param file Output file.
+     * @param append <code>true</code> to append to the file, <code>false</code> to overwrite it.
+     * @throws IOException If the file cannot be opened.
+     */
+    public FileOutputSink(File file, boolean append) throws IOException
+    {
+        this.output = new FileOutputStream(file, append);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(byte[] buffer, int offset, int length) throws IOException
+    {
+        this.output.write(buffer, offset, length);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+        this.output.close();
+    }
+}
@@ -186,6 +186,42 @@ public interface JvmLauncher
      */
     void kill();
 
+    /**
+     * Checks whether the JVM that was launched is still running.
+     * 
+     * @return {@code true} if the launched JVM is running, {@code false} if no JVM was launched,
+     * if it has terminated or if this JvmLauncher implementation cannot tell. The default
+     * implementation cannot tell and returns {@code false}.
+     */
+    default boolean isAlive()
+    {
+        return false;
+    }
+
+    /**
+     * Waits for the JVM that was launched to terminate. The default implementation polls
+     * {@link #isAlive()}.
+     * 
+     * @param millis The maximum time to wait, in milliseconds.
+     * @return {@code true} if the launched JVM has terminated or if no JVM was launched,
+     * {@code false} if it is still running once the time has elapsed.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    default boolean waitFor(long millis) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + millis;
+        while (isAlive())
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+            {
+                return false;
+            }
+            Thread.sleep(Math.min(remaining, 100));
+        }
+        return true;
+    }
+
     /**
      * Sets the timeout in milliseconds after which the process will be killed if still running.
      * 
@@ -0,0 +1,60 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.jvm;
+
+import java.nio.charset.StandardCharsets;
+
+import org.codehaus.cargo.util.log.Logger;
+
+/**
+ * Process output sink logging each line of output.
+ */
+public class LoggerOutputSink extends AbstractLineOutputSink
+{
+    /**
+     * The logger to which the output of the JVM is redirected
+     */
+    private final Logger outputLogger;
+
+    /**
+     * The log category to use when logging the JVM's outputs
+     */
+    private final String category;
+
+    /**
+     * @param outputLogger The logger to which the output of the JVM is redirected
+     * @param category the log category to use when logging the JVM's outputs
+     */
+    public LoggerOutputSink(Logger outputLogger, String category)
+    {
+        super(StandardCharsets.UTF_8);
+        this.outputLogger = outputLogger;
+        this.category = category;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void line(String text)
+    {
+        this.outputLogger.info(text, this.category);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.jvm;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Process output sink watching for the first line of output matching a pattern.
+ */
+public class PatternOutputSink extends AbstractLineOutputSink
+{
+    /**
+     * Pattern to watch for.
+     */
+    private final Pattern pattern;
+
+    /**
+     * Released once a line has matched or the output has ended.
+     */
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    /**
+     * First line matching the pattern.
+     */
+    private volatile String matchedLine;
+
+    /**
+     * @param charset Charset of the process output.
+     * @param pattern Pattern to watch for.
+     */
+    public PatternOutputSink(Charset charset, Pattern pattern)
+    {
+        super(charset);
+        this.pattern = pattern;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void line(String text)
+    {
+        if (this.matchedLine == null && this.pattern.matcher(text).find())
+        {
+            this.matchedLine = text;
+            this.done.countDown();
+        }
+    }
+
+    /**
+     * @return First line matching the pattern, <code>null</code> if none so far.
+     */
+    public String getMatchedLine()
+    {
+        return this.matchedLine;
+    }
+
+    /**
+     * Waits for a line to match the pattern.
+     * 
+     * @param millis Maximum time to wait, in milliseconds.
+     * @return <code>true</code> if a line has matched, <code>false</code> if the time has elapsed
+     * or if the output has ended without any line matching.
+     * @throws InterruptedException If the thread was interrupted while waiting.
+     */
+    public boolean await(long millis) throws InterruptedException
+    {
+        this.done.await(millis, TimeUnit.MILLISECONDS);
+        return this.matchedLine != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close()
+    {
+        try
+        {
+            super.close();
+        }
+        catch (IOException e)
+        {
+            // Cannot happen, lines are only matched
+        }
+        finally
+        {
+            this.done.countDown();
+        }
+    }
+}
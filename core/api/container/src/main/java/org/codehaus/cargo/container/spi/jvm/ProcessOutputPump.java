@@ -0,0 +1,172 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.jvm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.codehaus.cargo.util.log.Logger;
+
+/**
+ * Moves the output of a launched process to {@link ProcessOutputSink}s, without decoding it. The
+ * pump is meant to run in its own thread, one per process output stream: it blocks reading the
+ * stream until its end, which is only reached once every process holding the stream, including
+ * processes started by the launched process, has exited. A slow sink hence only slows down the
+ * process it receives the output of.
+ */
+public class ProcessOutputPump implements Runnable
+{
+    /**
+     * Size of the transfer buffer.
+     */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Process output stream.
+     */
+    private final InputStream input;
+
+    /**
+     * Sinks receiving the output.
+     */
+    private final List<ProcessOutputSink> sinks;
+
+    /**
+     * Logger used to report errors, may be <code>null</code>.
+     */
+    private final Logger logger;
+
+    /**
+     * Creates a new pump. Once the end of the output stream has been reached, the output stream
+     * and the sinks are closed.
+     * 
+     * @param input Process output stream.
+     * @param sinks Sinks receiving the output.
+     * @param logger Logger used to report errors, may be <code>null</code>.
+     */
+    public ProcessOutputPump(InputStream input, List<ProcessOutputSink> sinks, Logger logger)
+    {
+        if (input == null)
+        {
+            throw new IllegalArgumentException("Input stream should not be null");
+        }
+        this.input = input;
+        this.sinks = new ArrayList<ProcessOutputSink>(sinks);
+        this.logger = logger;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run()
+    {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try
+        {
+            int read;
+            while ((read = this.input.read(buffer)) != -1)
+            {
+                write(buffer, read);
+            }
+        }
+        catch (IOException e)
+        {
+            warn("Error reading process stream: " + e);
+        }
+        finally
+        {
+            close();
+        }
+    }
+
+    /**
+     * Moves bytes to the sinks. A sink which fails is closed and does not receive any more
+     * output.
+     * 
+     * @param buffer Bytes read from the process output.
+     * @param length Number of bytes read.
+     */
+    private void write(byte[] buffer, int length)
+    {
+        for (Iterator<ProcessOutputSink> it = this.sinks.iterator(); it.hasNext();)
+        {
+            ProcessOutputSink sink = it.next();
+            try
+            {
+                sink.write(buffer, 0, length);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                warn("Error writing process output to " + sink + ": " + e);
+                it.remove();
+                close(sink);
+            }
+        }
+    }
+
+    /**
+     * Closes the process output stream and all sinks.
+     */
+    private void close()
+    {
+        for (ProcessOutputSink sink : this.sinks)
+        {
+            close(sink);
+        }
+        try
+        {
+            this.input.close();
+        }
+        catch (IOException e)
+        {
+            // Ignored, the output has ended anyway
+        }
+    }
+
+    /**
+     * @param sink Sink to close.
+     */
+    private void close(ProcessOutputSink sink)
+    {
+        try
+        {
+            sink.close();
+        }
+        catch (IOException e)
+        {
+            warn("Error closing " + sink + ": " + e);
+        }
+    }
+
+    /**
+     * @param message Warning message.
+     */
+    private void warn(String message)
+    {
+        if (this.logger != null)
+        {
+            this.logger.warn(message, ProcessOutputPump.class.getName());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.jvm;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the raw output of a process launched by a {@link DefaultJvmLauncher}. Sinks are fed by
+ * a {@link ProcessOutputPump}, always from the same thread, and closed once the process output
+ * has ended.
+ */
+public interface ProcessOutputSink extends Closeable
+{
+    /**
+     * Receives bytes output by the process.
+     * 
+     * @param buffer Buffer containing the bytes, only valid during this call.
+     * @param offset Offset of the first byte.
+     * @param length Number of bytes.
+     * @throws IOException If the sink cannot handle the bytes, in which case it is closed and
+     * does not receive any more output.
+     */
+    void write(byte[] buffer, int offset, int length) throws IOException;
+}
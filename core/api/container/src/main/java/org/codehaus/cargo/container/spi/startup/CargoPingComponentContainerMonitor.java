@@ -0,0 +1,79 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.startup;
+
+import java.net.URL;
+
+import org.codehaus.cargo.container.Container;
+import org.codehaus.cargo.container.internal.util.HttpUtils;
+import org.codehaus.cargo.container.spi.util.ContainerUtils;
+
+/**
+ * Monitor checking container status by pinging the Cargo Ping Component (CPC).
+ */
+public class CargoPingComponentContainerMonitor extends AbstractContainerMonitor
+{
+    /**
+     * Text contained in the CPC page.
+     */
+    public static final String CPC_CONTENT =
+        "Cargo Ping Component used to verify if the container is started.";
+
+    /**
+     * HTTP utils.
+     */
+    private HttpUtils httpUtils;
+
+    /**
+     * CPC URL.
+     */
+    private URL pingUrl;
+
+    /**
+     * Timeout for each ping.
+     */
+    private long timeout;
+
+    /**
+     * Constructor.
+     * 
+     * @param container Container to be monitored.
+     * @param timeout Timeout for each ping, 0 to wait forever.
+     */
+    public CargoPingComponentContainerMonitor(Container container, long timeout)
+    {
+        super(container);
+        this.httpUtils = new HttpUtils();
+        this.httpUtils.setLogger(container.getLogger());
+        this.pingUrl = ContainerUtils.getCPCURL(getConfiguration());
+        this.timeout = timeout;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRunning()
+    {
+        HttpUtils.HttpResult result = new HttpUtils.HttpResult();
+        return this.httpUtils.ping(this.pingUrl, result, this.timeout)
+            && result.responseBody != null && result.responseBody.contains(CPC_CONTENT);
+    }
+}
@@ -26,7 +26,9 @@ import org.codehaus.cargo.container.Container;
 import org.codehaus.cargo.container.startup.ContainerMonitor;
 
 /**
- * Monitor which gathers information from multiple monitors.
+ * Monitor which gathers information from multiple monitors. By default, the container is
+ * considered running when all monitors report it running; it can also be considered running as
+ * soon as any of the monitors, checked in order, reports it running.
  */
 public class CombinedContainerMonitor extends AbstractContainerMonitor
 {
@@ -37,12 +39,31 @@ public class CombinedContainerMonitor extends AbstractContainerMonitor
     private final List<ContainerMonitor> monitors;
 
     /**
-     * Constructor.
+     * Whether all monitors need to report the container running.
+     */
+    private final boolean requireAll;
+
+    /**
+     * Constructor, all monitors need to report the container running.
      * 
      * @param container Container to be monitored.
      * @param monitors Underlying monitors
      */
     public CombinedContainerMonitor(Container container, ContainerMonitor... monitors)
+    {
+        this(container, true, monitors);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param container Container to be monitored.
+     * @param requireAll <code>true</code> if all monitors need to report the container running,
+     * <code>false</code> if any of them is enough.
+     * @param monitors Underlying monitors
+     */
+    public CombinedContainerMonitor(Container container, boolean requireAll,
+        ContainerMonitor... monitors)
     {
         super(container);
         if (monitors == null || monitors.length == 0)
@@ -50,6 +71,7 @@ public class CombinedContainerMonitor extends AbstractContainerMonitor
             throw new IllegalArgumentException("Specify at least one monitor");
         }
         this.monitors = Arrays.asList(monitors);
+        this.requireAll = requireAll;
     }
 
     /**
@@ -60,12 +82,12 @@ public class CombinedContainerMonitor extends AbstractContainerMonitor
     {
         for (ContainerMonitor monitor : monitors)
         {
-            if (!monitor.isRunning())
+            if (monitor.isRunning() != requireAll)
             {
-                return false;
+                return !requireAll;
             }
         }
-        return true;
+        return requireAll;
     }
 
 }
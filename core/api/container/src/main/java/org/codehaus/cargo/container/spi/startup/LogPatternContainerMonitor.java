@@ -0,0 +1,73 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.startup;
+
+import org.codehaus.cargo.container.Container;
+import org.codehaus.cargo.container.spi.jvm.PatternOutputSink;
+
+/**
+ * Monitor watching the output of the process that started the container, which considers the
+ * container running as soon as a line matching the startup pattern has been output. The output is
+ * watched using a {@link PatternOutputSink}, whichever the output file or logger the output goes
+ * to.
+ */
+public class LogPatternContainerMonitor extends AbstractContainerMonitor
+{
+    /**
+     * Sink watching the container output for the startup pattern.
+     */
+    private final PatternOutputSink sink;
+
+    /**
+     * Whether the pattern has been found.
+     */
+    private boolean found;
+
+    /**
+     * Constructor.
+     * 
+     * @param container Container to be monitored.
+     * @param sink Sink watching the container output for the startup pattern.
+     */
+    public LogPatternContainerMonitor(Container container, PatternOutputSink sink)
+    {
+        super(container);
+        this.sink = sink;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRunning()
+    {
+        if (!this.found)
+        {
+            String matchedLine = this.sink.getMatchedLine();
+            this.found = matchedLine != null;
+            if (this.found)
+            {
+                getLogger().debug("Found startup pattern in container output line ["
+                    + matchedLine + "]", this.getClass().getName());
+            }
+        }
+        return this.found;
+    }
+}
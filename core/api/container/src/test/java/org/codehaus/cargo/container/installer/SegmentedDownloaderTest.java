@@ -0,0 +1,339 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.installer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link SegmentedDownloader}, using a local HTTP server supporting byte ranges.
+ */
+public class SegmentedDownloaderTest
+{
+    /**
+     * Size of the file to download.
+     */
+    private static final int FILE_SIZE = 100 * 1024;
+
+    /**
+     * Content of the file to download.
+     */
+    private byte[] content;
+
+    /**
+     * Files served by the HTTP server, indexed by path.
+     */
+    private Map<String, byte[]> files = new HashMap<String, byte[]>();
+
+    /**
+     * <code>Range</code> headers received by the HTTP server for the file to download.
+     */
+    private List<String> ranges = new ArrayList<String>();
+
+    /**
+     * HTTP server.
+     */
+    private HttpServer server;
+
+    /**
+     * Directory to download to.
+     */
+    private File directory;
+
+    /**
+     * Starts the HTTP server.
+     * @throws Exception If anything goes wrong.
+     */
+    @BeforeEach
+    protected void setUp() throws Exception
+    {
+        this.content = new byte[FILE_SIZE];
+        new Random(42).nextBytes(this.content);
+        this.files.put("/file.zip", this.content);
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                serve(exchange);
+            }
+        });
+        this.server.start();
+
+        this.directory = Files.createTempDirectory("cargo-download").toFile();
+    }
+
+    /**
+     * Stops the HTTP server and deletes downloaded files.
+     */
+    @AfterEach
+    protected void tearDown()
+    {
+        this.server.stop(0);
+        for (File file : this.directory.listFiles())
+        {
+            file.delete();
+        }
+        this.directory.delete();
+    }
+
+    /**
+     * Serves a file, supporting single byte ranges.
+     * @param exchange HTTP exchange.
+     * @throws IOException If anything goes wrong.
+     */
+    private void serve(HttpExchange exchange) throws IOException
+    {
+        byte[] file = this.files.get(exchange.getRequestURI().getPath());
+        if (file == null)
+        {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+
+        int start = 0;
+        int end = file.length - 1;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (file == this.content)
+        {
+            synchronized (this.ranges)
+            {
+                this.ranges.add(range);
+            }
+        }
+        if (range != null)
+        {
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty())
+            {
+                end = Math.min(end, Integer.parseInt(bounds[1]));
+            }
+            exchange.getResponseHeaders().set("Content-Range",
+                "bytes " + start + "-" + end + "/" + file.length);
+        }
+        exchange.getResponseHeaders().set("ETag", "\"" + file.length + "\"");
+        exchange.sendResponseHeaders(range == null ? 200 : 206, end - start + 1);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(file, start, end - start + 1);
+        }
+    }
+
+    /**
+     * @param path Path on the HTTP server.
+     * @return URL of the path.
+     * @throws Exception If anything goes wrong.
+     */
+    private URL getUrl(String path) throws Exception
+    {
+        return new URL("http://127.0.0.1:" + this.server.getAddress().getPort() + path);
+    }
+
+    /**
+     * @param algorithm Digest algorithm.
+     * @param data Data to digest.
+     * @return Hexadecimal checksum.
+     * @throws Exception If anything goes wrong.
+     */
+    private static String checksum(String algorithm, byte[] data) throws Exception
+    {
+        StringBuilder checksum = new StringBuilder();
+        for (byte b : MessageDigest.getInstance(algorithm).digest(data))
+        {
+            checksum.append(String.format("%02x", b & 0xff));
+        }
+        return checksum.toString();
+    }
+
+    /**
+     * Test downloading a file in parallel segments.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testSegmentedDownload() throws Exception
+    {
+        SegmentedDownloader downloader = new SegmentedDownloader(getUrl("/file.zip"));
+        downloader.setMinimumSegmentSize(16 * 1024);
+        File target = new File(this.directory, "file.zip");
+        downloader.download(target);
+
+        Assertions.assertArrayEquals(this.content, Files.readAllBytes(target.toPath()));
+        Assertions.assertEquals(Arrays.asList("file.zip"), Arrays.asList(this.directory.list()));
+        Assertions.assertEquals("bytes=0-0", this.ranges.get(0));
+        Assertions.assertEquals(1 + SegmentedDownloader.DEFAULT_SEGMENTS, this.ranges.size());
+        Assertions.assertTrue(this.ranges.contains("bytes=76800-102399"), this.ranges.toString());
+    }
+
+    /**
+     * Test resuming a download from a <code>.part</code> file.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testResumeDownload() throws Exception
+    {
+        File target = new File(this.directory, "file.zip");
+        File part = new File(this.directory, "file.zip" + SegmentedDownloader.PART_SUFFIX);
+        Files.write(part.toPath(), Arrays.copyOf(this.content, 10000));
+
+        SegmentedDownloader downloader = new SegmentedDownloader(getUrl("/file.zip"));
+        downloader.setSegments(1);
+        downloader.setChecksum(checksum("SHA-512", this.content));
+        downloader.download(target);
+
+        Assertions.assertArrayEquals(this.content, Files.readAllBytes(target.toPath()));
+        Assertions.assertFalse(part.exists());
+        Assertions.assertEquals(Arrays.asList("bytes=0-0", "bytes=10000-102399"), this.ranges);
+    }
+
+    /**
+     * Test writing the content of a resumed download to another stream.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testTee() throws Exception
+    {
+        File target = new File(this.directory, "file.zip");
+        File part = new File(this.directory, "file.zip" + SegmentedDownloader.PART_SUFFIX);
+        Files.write(part.toPath(), Arrays.copyOf(this.content, 10000));
+
+        SegmentedDownloader downloader = new SegmentedDownloader(getUrl("/file.zip"));
+        downloader.setMinimumSegmentSize(16 * 1024);
+        ByteArrayOutputStream tee = new ByteArrayOutputStream();
+        downloader.download(target, tee);
+
+        Assertions.assertArrayEquals(this.content, tee.toByteArray());
+        Assertions.assertArrayEquals(this.content, Files.readAllBytes(target.toPath()));
+        Assertions.assertEquals(Arrays.asList("bytes=0-0", "bytes=10000-102399"), this.ranges);
+    }
+
+    /**
+     * Test that a resumed download which does not match its checksum is downloaded again.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testCorruptResumedDownload() throws Exception
+    {
+        File target = new File(this.directory, "file.zip");
+        File part = new File(this.directory, "file.zip" + SegmentedDownloader.PART_SUFFIX);
+        Files.write(part.toPath(), new byte[10000]);
+        this.files.put("/file.zip.sha1", (checksum("SHA-1", this.content) + "  file.zip\n")
+            .getBytes("US-ASCII"));
+
+        SegmentedDownloader downloader = new SegmentedDownloader(getUrl("/file.zip"));
+        downloader.setSegments(1);
+        downloader.download(target);
+
+        Assertions.assertArrayEquals(this.content, Files.readAllBytes(target.toPath()));
+        Assertions.assertEquals(Arrays.asList("bytes=0-0", "bytes=10000-102399", "bytes=0-0",
+            "bytes=0-102399"), this.ranges);
+    }
+
+    /**
+     * Test that a download not matching its published checksum fails and leaves no file.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testPublishedChecksumMismatch() throws Exception
+    {
+        this.files.put("/file.zip.sha512", checksum("SHA-512", new byte[0]).getBytes("US-ASCII"));
+
+        SegmentedDownloader downloader = new SegmentedDownloader(getUrl("/file.zip"));
+        File target = new File(this.directory, "file.zip");
+        Assertions.assertThrows(IOException.class, () -> downloader.download(target));
+        Assertions.assertEquals(0, this.directory.list().length);
+
+        downloader.setVerifyPublishedChecksum(false);
+        downloader.download(target);
+        Assertions.assertArrayEquals(this.content, Files.readAllBytes(target.toPath()));
+    }
+
+    /**
+     * Test downloading and resuming from a <code>file:</code> URL.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testFileUrl() throws Exception
+    {
+        File source = new File(this.directory, "source.zip");
+        Files.write(source.toPath(), this.content);
+        File target = new File(this.directory, "file.zip");
+        File part = new File(this.directory, "file.zip" + SegmentedDownloader.PART_SUFFIX);
+        Files.write(part.toPath(), Arrays.copyOf(this.content, 5000));
+
+        SegmentedDownloader downloader = new SegmentedDownloader(source.toURI().toURL());
+        downloader.setChecksum("sha256:" + checksum("SHA-256", this.content));
+        downloader.download(target);
+
+        Assertions.assertArrayEquals(this.content, Files.readAllBytes(target.toPath()));
+        Assertions.assertFalse(part.exists());
+
+        downloader.setChecksum(checksum("SHA-1", new byte[0]));
+        Assertions.assertThrows(IOException.class, () -> downloader.download(target));
+    }
+
+    /**
+     * Test parsing checksums.
+     */
+    @Test
+    public void testSetChecksum()
+    {
+        StringBuilder sha512 = new StringBuilder();
+        for (int i = 0; i < 64; i++)
+        {
+            sha512.append("AB");
+        }
+        SegmentedDownloader downloader = new SegmentedDownloader(null);
+        downloader.setChecksum("SHA512:" + sha512);
+        Assertions.assertEquals("SHA-512:" + sha512.toString().toLowerCase(),
+            downloader.getChecksum());
+        downloader.setChecksum(sha512.substring(0, 40));
+        Assertions.assertEquals("SHA-1:" + sha512.substring(0, 40).toLowerCase(),
+            downloader.getChecksum());
+        downloader.setChecksum(null);
+        Assertions.assertNull(downloader.getChecksum());
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> downloader.setChecksum("abc"));
+    }
+}
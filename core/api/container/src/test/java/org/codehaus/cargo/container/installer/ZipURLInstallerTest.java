@@ -19,9 +19,18 @@
  */
 package org.codehaus.cargo.container.installer;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -31,6 +40,7 @@ import org.apache.commons.vfs2.impl.StandardFileSystemManager;
 
 import org.codehaus.cargo.container.ContainerException;
 import org.codehaus.cargo.util.AbstractResourceTest;
+import org.codehaus.cargo.util.DefaultFileHandler;
 import org.codehaus.cargo.util.FileHandler;
 import org.codehaus.cargo.util.VFSFileHandler;
 
@@ -261,19 +271,166 @@ public class ZipURLInstallerTest extends AbstractResourceTest
         extractAndTest("zip");
     }
 
+    /**
+     * Test extraction of a TAR.GZ file while it is being downloaded.
+     * @throws Exception If an unexpected error occurs
+     */
+    @Test
+    public void testStreamingInstallTarGz() throws Exception
+    {
+        extractAndTest("tar.gz", true);
+    }
+
+    /**
+     * Test extraction of a ZIP file while it is being downloaded.
+     * @throws Exception If an unexpected error occurs
+     */
+    @Test
+    public void testStreamingInstallZip() throws Exception
+    {
+        extractAndTest("zip", true);
+    }
+
+    /**
+     * Test concurrent installations in the installation cache: only one downloads and unpacks,
+     * the others reuse its installation.
+     * @throws Exception If an unexpected error occurs
+     */
+    @Test
+    public void testConcurrentInstallInCache() throws Exception
+    {
+        final URL url = new URL(this.fileHandler.getURL(
+            getResourcePath(PACKAGE_PATH + "dummy-archive.tar.gz")));
+        final File cacheDir = Files.createTempDirectory("cargo-cache").toFile();
+        final AtomicInteger downloads = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<String>> homes = new ArrayList<Future<String>>();
+            for (int i = 0; i < 4; i++)
+            {
+                homes.add(executor.submit(new Callable<String>()
+                {
+                    @Override
+                    public String call() throws Exception
+                    {
+                        ZipURLInstaller installer = new ZipURLInstaller(url)
+                        {
+                            @Override
+                            protected void doDownload() throws IOException
+                            {
+                                downloads.incrementAndGet();
+                                super.doDownload();
+                            }
+                        };
+                        File downloadDir = Files.createTempDirectory("cargo-download").toFile();
+                        downloadDir.deleteOnExit();
+                        installer.setDownloadDir(downloadDir.getPath());
+                        installer.setCacheDir(cacheDir.getPath());
+                        installer.install();
+                        installer.release();
+                        return installer.getHome();
+                    }
+                }));
+            }
+
+            String home = homes.get(0).get();
+            for (Future<String> otherHome : homes)
+            {
+                Assertions.assertEquals(home, otherHome.get());
+            }
+            Assertions.assertEquals(1, downloads.get());
+            Assertions.assertTrue(home.startsWith(cacheDir.getPath()), home);
+            Assertions.assertEquals("this is a dummy file", this.fileHandler.readTextFile(
+                this.fileHandler.append(this.fileHandler.getParent(home), "dummy-file.txt"),
+                    StandardCharsets.UTF_8));
+        }
+        finally
+        {
+            executor.shutdownNow();
+            new DefaultFileHandler().delete(cacheDir.getPath());
+        }
+    }
+
+    /**
+     * Test that the least recently used installations are removed from the installation cache
+     * when it exceeds its size budget, unless they are in use.
+     * @throws Exception If an unexpected error occurs
+     */
+    @Test
+    public void testInstallationCacheEviction() throws Exception
+    {
+        File cacheDir = Files.createTempDirectory("cargo-cache").toFile();
+        try
+        {
+            ZipURLInstaller tarGzInstaller = new ZipURLInstaller(new URL(this.fileHandler.getURL(
+                getResourcePath(PACKAGE_PATH + "dummy-archive.tar.gz"))));
+            tarGzInstaller.setCacheDir(cacheDir.getPath());
+            tarGzInstaller.setCacheSize(1);
+            tarGzInstaller.install();
+            Assertions.assertTrue(tarGzInstaller.isAlreadyExtracted());
+
+            ZipURLInstaller zipInstaller = new ZipURLInstaller(new URL(this.fileHandler.getURL(
+                getResourcePath(PACKAGE_PATH + "dummy-archive.zip"))));
+            zipInstaller.setCacheDir(cacheDir.getPath());
+            zipInstaller.setCacheSize(1);
+            zipInstaller.install();
+
+            // The first installation is still in use
+            Assertions.assertTrue(zipInstaller.isAlreadyExtracted());
+            Assertions.assertTrue(tarGzInstaller.isAlreadyExtracted());
+
+            tarGzInstaller.release();
+            zipInstaller.install();
+
+            Assertions.assertTrue(zipInstaller.isAlreadyExtracted());
+            Assertions.assertFalse(tarGzInstaller.isAlreadyExtracted());
+            Assertions.assertNotEquals(tarGzInstaller.getExtractDir(),
+                zipInstaller.getExtractDir());
+            zipInstaller.release();
+        }
+        finally
+        {
+            new DefaultFileHandler().delete(cacheDir.getPath());
+        }
+    }
+
     /**
      * Test extraction of a a file.
      * @param extension the extension to test.
      * @throws Exception If an unexpected error occurs
      */
     private void extractAndTest(String extension) throws Exception
+    {
+        extractAndTest(extension, false);
+    }
+
+    /**
+     * Test extraction of a a file.
+     * @param extension the extension to test.
+     * @param streaming whether to extract the file while it is being downloaded.
+     * @throws Exception If an unexpected error occurs
+     */
+    private void extractAndTest(String extension, boolean streaming) throws Exception
     {
         URL url =
             new URL(this.fileHandler.getURL(
                 getResourcePath(PACKAGE_PATH + "dummy-archive." + extension)));
         ZipURLInstaller installer = new ZipURLInstaller(url);
+        if (streaming)
+        {
+            File downloadDir = Files.createTempDirectory("cargo-streaming").toFile();
+            downloadDir.deleteOnExit();
+            installer.setDownloadDir(downloadDir.getPath());
+            installer.setStreamingInstall(true);
+        }
         this.fileHandler.delete(installer.getExtractDir());
         installer.install();
+        if (streaming)
+        {
+            Assertions.assertTrue(installer.isAlreadyDownloaded());
+        }
 
         String home = this.fileHandler.getParent(installer.getHome());
         String dummyFileContents =
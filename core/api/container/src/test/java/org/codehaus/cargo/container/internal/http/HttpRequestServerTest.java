@@ -0,0 +1,406 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.internal.http;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link HttpRequest}, using a local HTTP server.
+ */
+public class HttpRequestServerTest
+{
+    /**
+     * HTTP server.
+     */
+    private HttpServer server;
+
+    /**
+     * Last request body received by the HTTP server.
+     */
+    private byte[] lastRequestBody;
+
+    /**
+     * Number of request bodies received by the HTTP server on <code>/digest</code>.
+     */
+    private int digestRequestBodies;
+
+    /**
+     * Client ports of the connections on which the HTTP server received requests.
+     */
+    private Set<Integer> clientPorts = new HashSet<Integer>();
+
+    /**
+     * Starts the HTTP server.
+     * @throws Exception If anything goes wrong.
+     */
+    @BeforeEach
+    protected void setUp() throws Exception
+    {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", new HttpHandler()
+        {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                serve(exchange);
+            }
+        });
+        this.server.start();
+    }
+
+    /**
+     * Stops the HTTP server.
+     */
+    @AfterEach
+    protected void tearDown()
+    {
+        this.server.stop(0);
+    }
+
+    /**
+     * Echoes the request body, or answers with the request path: with a fixed length for
+     * <code>/fixed</code> and chunked otherwise.
+     * @param exchange HTTP exchange.
+     * @throws IOException If anything goes wrong.
+     */
+    private void serve(HttpExchange exchange) throws IOException
+    {
+        ByteArrayOutputStream requestBody = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody())
+        {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+            {
+                requestBody.write(buffer, 0, n);
+            }
+        }
+        this.lastRequestBody = requestBody.toByteArray();
+        this.clientPorts.add(exchange.getRemoteAddress().getPort());
+
+        if ("/digest".equals(exchange.getRequestURI().getPath()))
+        {
+            if (this.lastRequestBody.length > 0)
+            {
+                this.digestRequestBodies++;
+            }
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("Digest "))
+            {
+                exchange.getResponseHeaders().set("WWW-Authenticate",
+                    "Digest realm=\"cargo\", qop=\"auth\", nonce=\"cargo-nonce\"");
+                exchange.sendResponseHeaders(401, -1);
+                exchange.close();
+                return;
+            }
+        }
+
+        byte[] response = exchange.getRequestURI().getPath().getBytes(StandardCharsets.UTF_8);
+        boolean fixed = "/fixed".equals(exchange.getRequestURI().getPath());
+        exchange.sendResponseHeaders(200, fixed ? response.length : 0);
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(response);
+        }
+    }
+
+    /**
+     * @param path Path on the HTTP server.
+     * @return URL of the path.
+     * @throws Exception If anything goes wrong.
+     */
+    private URL getUrl(String path) throws Exception
+    {
+        return new URL("http://127.0.0.1:" + this.server.getAddress().getPort() + path);
+    }
+
+    /**
+     * Test that successive requests to the same server reuse the same connection, as responses
+     * are fully read.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testConnectionReused() throws Exception
+    {
+        for (String path : new String[] {"/fixed", "/chunked", "/fixed"})
+        {
+            HttpRequest request = new HttpRequest(getUrl(path));
+            HttpResult result = request.get();
+            Assertions.assertEquals(200, result.getResponseCode());
+            Assertions.assertEquals(path, result.getResponseBody());
+        }
+
+        Assertions.assertEquals(1, this.clientPorts.size());
+    }
+
+    /**
+     * Test uploading a file in chunks, then sending a string body on the same connection.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testRequestBodies() throws Exception
+    {
+        byte[] content = new byte[600 * 1024];
+        new Random(42).nextBytes(content);
+        File file = File.createTempFile("cargo-upload", ".bin");
+        try
+        {
+            Files.write(file.toPath(), content);
+            HttpRequest request = new HttpFileRequest(getUrl("/upload"), file);
+            Assertions.assertEquals(200, request.put().getResponseCode());
+            Assertions.assertTrue(Arrays.equals(content, this.lastRequestBody));
+        }
+        finally
+        {
+            file.delete();
+        }
+
+        HttpRequest request = new HttpRequest(getUrl("/body"));
+        request.setRequestBody("Hello Cargo");
+        Assertions.assertEquals("/body", request.post().getResponseBody());
+        Assertions.assertEquals("Hello Cargo",
+            new String(this.lastRequestBody, StandardCharsets.UTF_8));
+        Assertions.assertEquals(1, this.clientPorts.size());
+    }
+
+    /**
+     * Test that the Digest authentication challenge of a server is remembered, so that a file is
+     * uploaded only once.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testDigestChallengeRemembered() throws Exception
+    {
+        HttpRequest request = new HttpRequest(getUrl("/digest"));
+        request.setAuthentication("cargo", "password");
+        Assertions.assertEquals(200, request.get().getResponseCode());
+
+        byte[] content = new byte[300 * 1024];
+        new Random(42).nextBytes(content);
+        File file = File.createTempFile("cargo-upload", ".bin");
+        try
+        {
+            Files.write(file.toPath(), content);
+            request = new HttpFileRequest(getUrl("/digest"), file);
+            request.setAuthentication("cargo", "password");
+            Assertions.assertEquals(200, request.put().getResponseCode());
+            Assertions.assertEquals(1, this.digestRequestBodies);
+            Assertions.assertTrue(Arrays.equals(content, this.lastRequestBody));
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that a file announced with <code>Expect: 100-continue</code> is not sent when the
+     * server requests authentication before accepting it.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testExpectContinueRejected() throws Exception
+    {
+        final List<Integer> bodySizes = new ArrayList<Integer>();
+        try (final ServerSocket serverSocket =
+            new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1")))
+        {
+            Thread serverThread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        boolean authenticated = false;
+                        while (!authenticated)
+                        {
+                            try (Socket socket = serverSocket.accept())
+                            {
+                                authenticated = serveExpectContinue(socket, bodySizes);
+                            }
+                        }
+                    }
+                    catch (IOException e)
+                    {
+                        bodySizes.add(-1);
+                    }
+                }
+            };
+            serverThread.start();
+
+            File file = File.createTempFile("cargo-upload", ".bin");
+            try
+            {
+                Files.write(file.toPath(), new byte[300 * 1024]);
+                HttpRequest request = new HttpFileRequest(new URL("http://127.0.0.1:"
+                    + serverSocket.getLocalPort() + "/upload"), file, 10000);
+                request.setAuthentication("cargo", "password");
+                Assertions.assertEquals(200, request.put().getResponseCode());
+            }
+            finally
+            {
+                file.delete();
+            }
+            serverThread.join(10000);
+        }
+        // The JDK might announce the unauthenticated request more than once, but it must never
+        // send its body
+        Assertions.assertTrue(bodySizes.size() >= 2);
+        for (int i = 0; i < bodySizes.size() - 1; i++)
+        {
+            Assertions.assertEquals(0, bodySizes.get(i).intValue());
+        }
+        Assertions.assertEquals(300 * 1024, bodySizes.get(bodySizes.size() - 1).intValue());
+    }
+
+    /**
+     * Answers one request with a chunked body announced with <code>Expect: 100-continue</code>:
+     * requests without Digest authentication are rejected and their connection closed, the
+     * others are accepted.
+     * @param socket Socket to serve.
+     * @param bodySizes List to add the size of the request body received to.
+     * @return <code>true</code> if the request was authenticated.
+     * @throws IOException If anything goes wrong.
+     */
+    private static boolean serveExpectContinue(Socket socket, List<Integer> bodySizes)
+        throws IOException
+    {
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        OutputStream out = socket.getOutputStream();
+        boolean authenticated = false;
+        String line;
+        while (!(line = readLine(in)).isEmpty())
+        {
+            authenticated |= line.startsWith("Authorization: Digest ");
+        }
+        if (authenticated)
+        {
+            out.write("HTTP/1.1 100 Continue\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            bodySizes.add(readChunkedBodySize(in));
+            out.write("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n"
+                .getBytes(StandardCharsets.ISO_8859_1));
+        }
+        else
+        {
+            out.write(("HTTP/1.1 401 Unauthorized\r\n"
+                + "WWW-Authenticate: Digest realm=\"cargo\", nonce=\"n\"\r\n"
+                + "Content-Length: 0\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            // Count whatever the client sends before closing the connection
+            int size = 0;
+            while (in.read() != -1)
+            {
+                size++;
+            }
+            bodySizes.add(size);
+        }
+        out.flush();
+        return authenticated;
+    }
+
+    /**
+     * @param in Stream to read from.
+     * @return Line read, without its CRLF terminator.
+     * @throws IOException If anything goes wrong.
+     */
+    private static String readLine(InputStream in) throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n')
+        {
+            if (b == -1)
+            {
+                throw new IOException("Unexpected end of stream");
+            }
+            line.append((char) b);
+        }
+        return line.toString().trim();
+    }
+
+    /**
+     * @param in Stream to read a chunked body from.
+     * @return Size of the body.
+     * @throws IOException If anything goes wrong.
+     */
+    private static int readChunkedBodySize(InputStream in) throws IOException
+    {
+        int size = 0;
+        int chunkSize;
+        while ((chunkSize = Integer.parseInt(readLine(in), 16)) > 0)
+        {
+            for (int i = 0; i < chunkSize; i++)
+            {
+                if (in.read() == -1)
+                {
+                    throw new IOException("Unexpected end of stream");
+                }
+            }
+            readLine(in);
+            size += chunkSize;
+        }
+        readLine(in);
+        return size;
+    }
+
+    /**
+     * Test that a response body larger than the maximum size is truncated.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testMaxResponseBodySize() throws Exception
+    {
+        HttpRequest request = new HttpRequest(getUrl("/fixed"));
+        request.setMaxResponseBodySize(3);
+        HttpResult result = request.get();
+        Assertions.assertEquals("/fi", result.getResponseBody());
+        Assertions.assertTrue(result.isResponseBodyTruncated());
+    }
+}
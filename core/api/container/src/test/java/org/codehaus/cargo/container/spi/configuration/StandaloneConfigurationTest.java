@@ -22,6 +22,10 @@ package org.codehaus.cargo.container.spi.configuration;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.Set;
 
@@ -29,11 +33,14 @@ import org.apache.commons.vfs2.AllFileSelector;
 import org.apache.commons.vfs2.FileObject;
 import org.apache.commons.vfs2.VFS;
 import org.codehaus.cargo.container.ContainerException;
+import org.codehaus.cargo.container.InstalledLocalContainer;
 import org.codehaus.cargo.container.LocalContainer;
 import org.codehaus.cargo.container.configuration.ConfigurationCapability;
 import org.codehaus.cargo.container.property.GeneralPropertySet;
 import org.codehaus.cargo.container.property.LoggingLevel;
 import org.codehaus.cargo.container.property.ServletPropertySet;
+import org.codehaus.cargo.container.stub.InstalledLocalContainerStub;
+import org.codehaus.cargo.util.DefaultFileHandler;
 import org.codehaus.cargo.util.VFSFileHandler;
 
 /**
@@ -99,6 +106,81 @@ public class StandaloneConfigurationTest
         }
     }
 
+    /**
+     * {@link TestableAbstractStandaloneConfiguration} which creates a file in its home, then adds
+     * a datasource to that file.
+     */
+    public class SnapshotTestConfiguration extends TestableAbstractStandaloneConfiguration
+    {
+        /**
+         * Number of times {@link #doConfigure(LocalContainer)} was called.
+         */
+        private int[] configured;
+
+        /**
+         * Whether to also write a file of the container installation.
+         */
+        private boolean writeContainerHome;
+
+        /**
+         * {@inheritDoc}
+         * @param dir Configuration directory.
+         * @param configured Number of times {@link #doConfigure(LocalContainer)} was called.
+         */
+        public SnapshotTestConfiguration(String dir, int[] configured)
+        {
+            super(dir);
+            this.configured = configured;
+        }
+
+        /**
+         * @param writeContainerHome Whether to also write a file of the container installation.
+         */
+        public void setWriteContainerHome(boolean writeContainerHome)
+        {
+            this.writeContainerHome = writeContainerHome;
+        }
+
+        /**
+         * Creates the configuration directory with a <code>server.xml</code> file containing the
+         * servlet port. {@inheritDoc}
+         * @param container Ignored.
+         */
+        @Override
+        protected void doConfigure(LocalContainer container)
+        {
+            this.configured[0]++;
+            try
+            {
+                setupConfigurationDir();
+                Files.write(new File(getHome(), "server.xml").toPath(),
+                    getPropertyValue(ServletPropertySet.PORT).getBytes(StandardCharsets.UTF_8));
+                if (this.writeContainerHome)
+                {
+                    Files.write(new File(((InstalledLocalContainer) container).getHome(),
+                        "module.xml").toPath(), String.valueOf(this.configured[0]).getBytes(
+                            StandardCharsets.UTF_8));
+                }
+            }
+            catch (IOException e)
+            {
+                throw new ContainerException("Cannot create configuration", e);
+            }
+        }
+
+        /**
+         * {@inheritDoc}. Then adds a datasource to the <code>server.xml</code> file.
+         */
+        @Override
+        protected void configureHome(LocalContainer container)
+        {
+            super.configureHome(container);
+            String serverXml = getFileHandler().append(getHome(), "server.xml");
+            getFileHandler().writeTextFile(serverXml, getFileHandler().readTextFile(serverXml,
+                StandardCharsets.UTF_8) + " <datasource/>", StandardCharsets.UTF_8);
+        }
+    }
+
     /**
      * Test the creation of a config directory when the target directory does not exist yet.
      * @throws Exception If anything goes wrong.
@@ -206,4 +288,70 @@ public class StandaloneConfigurationTest
         Assertions.assertEquals("8081", configuration.getPropertyValue(ServletPropertySet.PORT));
     }
 
+    /**
+     * Test that configuring again with the same inputs restores the configuration snapshot.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testConfigureFromSnapshot() throws Exception
+    {
+        File temp = Files.createTempDirectory("cargo-snapshot").toFile();
+        String home = new File(temp, "home").getAbsolutePath();
+        int[] configured = new int[1];
+
+        for (int i = 0; i < 3; i++)
+        {
+            TestableAbstractStandaloneConfiguration configuration =
+                new SnapshotTestConfiguration(home, configured);
+            configuration.setProperty(GeneralPropertySet.CONFIGURATION_SNAPSHOT_DIR,
+                new File(temp, "snapshots").getAbsolutePath());
+            if (i == 2)
+            {
+                configuration.setProperty(ServletPropertySet.PORT, "8081");
+            }
+            configuration.configure(new InstalledLocalContainerStub(configuration));
+
+            Assertions.assertEquals(i == 2 ? 2 : 1, configured[0]);
+            Assertions.assertEquals((i == 2 ? "8081" : "8080") + " <datasource/>", new String(
+                Files.readAllBytes(new File(home, "server.xml").toPath()),
+                    StandardCharsets.UTF_8));
+            Assertions.assertTrue(new File(home, ".cargo").isFile());
+        }
+        Assertions.assertEquals(2, new File(temp, "snapshots").list().length);
+
+        new DefaultFileHandler().delete(temp.getAbsolutePath());
+    }
+
+    /**
+     * Test that no snapshot is saved for configurations which modify the container installation,
+     * since restoring the snapshot would not modify it.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testNoSnapshotWhenModifyingContainerHome() throws Exception
+    {
+        File temp = Files.createTempDirectory("cargo-snapshot").toFile();
+        String home = new File(temp, "home").getAbsolutePath();
+        File containerHome = new File(temp, "container");
+        containerHome.mkdirs();
+        int[] configured = new int[1];
+
+        for (int i = 0; i < 2; i++)
+        {
+            SnapshotTestConfiguration configuration =
+                new SnapshotTestConfiguration(home, configured);
+            configuration.setWriteContainerHome(true);
+            configuration.setProperty(GeneralPropertySet.CONFIGURATION_SNAPSHOT_DIR,
+                new File(temp, "snapshots").getAbsolutePath());
+            InstalledLocalContainerStub container = new InstalledLocalContainerStub(configuration);
+            container.setHome(containerHome.getAbsolutePath());
+            configuration.configure(container);
+
+            Assertions.assertEquals(i + 1, configured[0]);
+        }
+        String[] snapshots = new File(temp, "snapshots").list();
+        Assertions.assertTrue(snapshots == null || snapshots.length == 0);
+
+        new DefaultFileHandler().delete(temp.getAbsolutePath());
+    }
 }
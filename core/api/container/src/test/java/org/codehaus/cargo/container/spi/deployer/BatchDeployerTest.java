@@ -0,0 +1,329 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.deployer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import org.codehaus.cargo.container.ContainerException;
+import org.codehaus.cargo.container.RemoteContainer;
+import org.codehaus.cargo.container.deployable.Deployable;
+import org.codehaus.cargo.container.deployable.WAR;
+import org.codehaus.cargo.container.deployer.DeployableMonitor;
+import org.codehaus.cargo.container.deployer.DeployableMonitorListener;
+import org.codehaus.cargo.container.deployer.Deployer;
+import org.codehaus.cargo.container.deployer.DeploymentReport;
+import org.codehaus.cargo.container.property.GeneralPropertySet;
+import org.codehaus.cargo.container.stub.RemoteContainerStub;
+import org.codehaus.cargo.container.stub.RemoteDeployerStub;
+import org.codehaus.cargo.container.stub.RuntimeConfigurationStub;
+import org.codehaus.cargo.util.log.LoggedObject;
+
+/**
+ * Unit tests for the batch actions of {@link AbstractDeployer}.
+ */
+public class BatchDeployerTest
+{
+    /**
+     * Deployer which counts how many deployments run at the same time.
+     */
+    private static class CountingDeployer extends AbstractRemoteDeployer
+    {
+        /**
+         * Whether concurrent deployments are supported.
+         */
+        private final boolean concurrent;
+
+        /**
+         * Deployments currently running.
+         */
+        private final AtomicInteger running = new AtomicInteger();
+
+        /**
+         * Maximum number of deployments which ran at the same time.
+         */
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        /**
+         * Deployables deployed so far.
+         */
+        private final List<Deployable> deployed = new ArrayList<Deployable>();
+
+        /**
+         * @param container Container to deploy to.
+         * @param concurrent Whether concurrent deployments are supported.
+         */
+        public CountingDeployer(RemoteContainer container, boolean concurrent)
+        {
+            super(container);
+            this.concurrent = concurrent;
+        }
+
+        /**
+         * Pretends deploying, fails for deployables whose file name contains <code>fail</code>.
+         * {@inheritDoc}
+         */
+        @Override
+        public void deploy(Deployable deployable)
+        {
+            int now = this.running.incrementAndGet();
+            try
+            {
+                int max;
+                do
+                {
+                    max = this.maxRunning.get();
+                }
+                while (now > max && !this.maxRunning.compareAndSet(max, now));
+                Thread.sleep(200);
+            }
+            catch (InterruptedException e)
+            {
+                throw new ContainerException("Interrupted", e);
+            }
+            finally
+            {
+                this.running.decrementAndGet();
+            }
+
+            if (deployable.getFile().contains("fail"))
+            {
+                throw new ContainerException("Cannot deploy " + deployable.getFile());
+            }
+            synchronized (this.deployed)
+            {
+                this.deployed.add(deployable);
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean isConcurrentDeploymentSupported()
+        {
+            return this.concurrent;
+        }
+    }
+
+    /**
+     * Monitor which always finds its deployable deployed.
+     */
+    private static class DeployedMonitor extends LoggedObject implements DeployableMonitor
+    {
+        /**
+         * Deployable monitor listener.
+         */
+        private DeployableMonitorListener listener;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void registerListener(DeployableMonitorListener listener)
+        {
+            this.listener = listener;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void monitor()
+        {
+            this.listener.deployed();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public long getTimeout()
+        {
+            return 20000L;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getDeployableName()
+        {
+            return "deployed";
+        }
+    }
+
+    /**
+     * @param names Names of the WAR files.
+     * @return WAR deployables.
+     */
+    private static List<Deployable> createWars(String... names)
+    {
+        List<Deployable> wars = new ArrayList<Deployable>();
+        for (String name : names)
+        {
+            wars.add(new WAR(name + ".war"));
+        }
+        return wars;
+    }
+
+    /**
+     * Test that deployments run concurrently, up to the requested concurrency.
+     */
+    @Test
+    public void testConcurrentDeploy()
+    {
+        CountingDeployer deployer = new CountingDeployer(new RemoteContainerStub(), true);
+        List<Deployable> wars = createWars("a", "b", "c", "d", "e", "f");
+
+        DeploymentReport report = deployer.deploy(wars, null, 3);
+
+        Assertions.assertTrue(report.isSuccessful());
+        Assertions.assertEquals(wars, report.getSuccessfulDeployables());
+        Assertions.assertEquals(6, deployer.deployed.size());
+        Assertions.assertTrue(deployer.maxRunning.get() > 1);
+        Assertions.assertTrue(deployer.maxRunning.get() <= 3);
+    }
+
+    /**
+     * Test that deployers which do not support concurrency deploy one deployable at a time.
+     */
+    @Test
+    public void testSequentialFallback()
+    {
+        CountingDeployer deployer = new CountingDeployer(new RemoteContainerStub(), false);
+
+        DeploymentReport report = deployer.deploy(createWars("a", "b", "c"), null, 3);
+
+        Assertions.assertTrue(report.isSuccessful());
+        Assertions.assertEquals(1, deployer.maxRunning.get());
+    }
+
+    /**
+     * Test the default batch actions of {@link Deployer}, for deployers which only implement the
+     * actions on a single deployable.
+     */
+    @Test
+    public void testDefaultBatchActions()
+    {
+        final List<Deployable> undeployed = new ArrayList<Deployable>();
+        Deployer deployer = new RemoteDeployerStub(new RemoteContainerStub())
+        {
+            /**
+             * Pretends undeploying, fails for deployables whose file name contains
+             * <code>fail</code>. {@inheritDoc}
+             */
+            @Override
+            public void undeploy(Deployable deployable)
+            {
+                if (deployable.getFile().contains("fail"))
+                {
+                    throw new ContainerException("Cannot undeploy " + deployable.getFile());
+                }
+                undeployed.add(deployable);
+            }
+        };
+        List<Deployable> wars = createWars("a", "fail", "b");
+
+        DeploymentReport report = deployer.undeploy(wars, null, 3);
+
+        Assertions.assertFalse(deployer.isConcurrentDeploymentSupported());
+        Assertions.assertEquals(2, undeployed.size());
+        Assertions.assertTrue(report.isSuccessful(wars.get(0)));
+        Assertions.assertFalse(report.isSuccessful(wars.get(1)));
+        Assertions.assertTrue(report.isSuccessful(wars.get(2)));
+        Assertions.assertTrue(deployer.deploy(wars, null, 3).isSuccessful());
+    }
+
+    /**
+     * Test that failures do not stop the other deployments and are aggregated in the report.
+     */
+    @Test
+    public void testFailuresAggregated()
+    {
+        CountingDeployer deployer = new CountingDeployer(new RemoteContainerStub(), true);
+        List<Deployable> wars = createWars("a", "fail1", "b", "fail2");
+
+        DeploymentReport report = deployer.deploy(wars, null, 4);
+
+        Assertions.assertFalse(report.isSuccessful());
+        Assertions.assertEquals(2, deployer.deployed.size());
+        Assertions.assertTrue(report.isSuccessful(wars.get(0)));
+        Assertions.assertFalse(report.isSuccessful(wars.get(1)));
+        Assertions.assertEquals(2, report.getFailures().size());
+        try
+        {
+            report.throwOnFailure();
+            Assertions.fail("No exception thrown");
+        }
+        catch (ContainerException expected)
+        {
+            Assertions.assertTrue(expected.getMessage().startsWith("2 of 4 deployables failed"));
+            Assertions.assertEquals(2, expected.getSuppressed().length);
+        }
+    }
+
+    /**
+     * Test that a monitored deployable is successful when its monitor finds it deployed, even if
+     * the deployment action failed, and that monitors are waited for in parallel.
+     */
+    @Test
+    public void testMonitorsWaitedInParallel()
+    {
+        CountingDeployer deployer = new CountingDeployer(new RemoteContainerStub(), false);
+        List<Deployable> wars = createWars("a", "fail", "b");
+        Map<Deployable, DeployableMonitor> monitors = new HashMap<Deployable, DeployableMonitor>();
+        for (Deployable war : wars)
+        {
+            monitors.put(war, new DeployedMonitor());
+        }
+
+        long start = System.currentTimeMillis();
+        DeploymentReport report = deployer.deploy(wars, monitors, 1);
+
+        Assertions.assertTrue(report.isSuccessful());
+        // Each watchdog waits one second, hence three sequential watchdogs would take three
+        Assertions.assertTrue(System.currentTimeMillis() - start < 2900);
+    }
+
+    /**
+     * Test that the helper method uses the concurrency set in the configuration.
+     */
+    @Test
+    public void testConfiguredConcurrency()
+    {
+        RuntimeConfigurationStub configuration = new RuntimeConfigurationStub();
+        configuration.setProperty(GeneralPropertySet.DEPLOYER_CONCURRENCY, "2");
+        CountingDeployer deployer =
+            new CountingDeployer(new RemoteContainerStub(configuration), true);
+        Assertions.assertEquals(2, deployer.getConfiguredConcurrency());
+
+        deployer.deploy(createWars("a", "b", "c", "d"));
+
+        Assertions.assertEquals(4, deployer.deployed.size());
+        Assertions.assertEquals(2, deployer.maxRunning.get());
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.codehaus.cargo.container.spi.deployer;
 
+import java.nio.charset.StandardCharsets;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -32,6 +34,7 @@ import org.codehaus.cargo.container.configuration.LocalConfiguration;
 import org.codehaus.cargo.container.deployable.Deployable;
 import org.codehaus.cargo.container.deployable.DeployableType;
 import org.codehaus.cargo.container.deployable.WAR;
+import org.codehaus.cargo.container.property.GeneralPropertySet;
 import org.codehaus.cargo.util.CargoException;
 import org.codehaus.cargo.util.FileHandler;
 import org.codehaus.cargo.util.VFSFileHandler;
@@ -131,6 +134,53 @@ public class CopyingDeployerTest
         }
     }
 
+    /**
+     * Mock {@link AbstractCopyingInstalledLocalDeployer} implementation which counts undeployments
+     * and reloads.
+     */
+    private class CountingCopyingDeployer extends TestableCopyingDeployer
+    {
+        /**
+         * Number of undeployments.
+         */
+        private int undeployed;
+
+        /**
+         * Number of reloads.
+         */
+        private int reloaded;
+
+        /**
+         * {@inheritDoc}
+         * @param container Local container.
+         */
+        public CountingCopyingDeployer(InstalledLocalContainer container)
+        {
+            super(container);
+        }
+
+        /**
+         * Deletes the deployed copy. {@inheritDoc}
+         */
+        @Override
+        public void undeploy(Deployable deployable)
+        {
+            this.undeployed++;
+            getFileHandler().delete(getFileHandler().append(getDeployableDir(deployable),
+                getDeployableName(deployable)));
+            deleteSyncManifest(getDeployableDir(deployable), deployable);
+        }
+
+        /**
+         * Counts reloads. {@inheritDoc}
+         */
+        @Override
+        protected void reloadDeployable(String deployableDir, Deployable deployable)
+        {
+            this.reloaded++;
+        }
+    }
+
     /**
      * Test that the handling of ShouldDeployExpanded functions correctly.
      */
@@ -267,6 +317,49 @@ public class CopyingDeployerTest
         Assertions.assertTrue(this.fsManager.resolveFile("ram:///webapps/context").exists());
     }
 
+    /**
+     * Test that redeploying a synchronized expanded WAR does not undeploy it but synchronizes its
+     * deployed copy, and that undeploying it deletes the synchronization manifest.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testRedeploySynchronizedExpandedWar() throws Exception
+    {
+        WAR war = new WAR("ram:///some/expanded/warfile");
+        war.setContext("context");
+        war.setFileHandler(this.fileHandler);
+        this.fileHandler.writeTextFile("ram:///some/expanded/warfile/index.html", "index",
+            StandardCharsets.UTF_8);
+
+        InstalledLocalContainer container =
+            createContainer(createContainerCapability(DeployableType.WAR), null);
+        Mockito.when(container.getConfiguration().getPropertyValue(
+            GeneralPropertySet.DEPLOYER_SYNC_MODE)).thenReturn("delta");
+        CountingCopyingDeployer deployer = new CountingCopyingDeployer(container);
+
+        deployer.deploy(war);
+        Assertions.assertTrue(
+            this.fsManager.resolveFile("ram:///webapps/.context.cargo-sync").exists());
+
+        this.fileHandler.writeTextFile("ram:///some/expanded/warfile/index.html", "new index",
+            StandardCharsets.UTF_8);
+        deployer.redeploy(war);
+        Assertions.assertEquals(0, deployer.undeployed);
+        Assertions.assertEquals(1, deployer.reloaded);
+        Assertions.assertEquals("new index", this.fileHandler.readTextFile(
+            "ram:///webapps/context/index.html", StandardCharsets.UTF_8));
+
+        deployer.undeploy(war);
+        Assertions.assertFalse(
+            this.fsManager.resolveFile("ram:///webapps/.context.cargo-sync").exists());
+
+        deployer.redeploy(war);
+        Assertions.assertEquals(2, deployer.undeployed);
+        Assertions.assertEquals(1, deployer.reloaded);
+        Assertions.assertTrue(
+            this.fsManager.resolveFile("ram:///webapps/context/index.html").exists());
+    }
+
     /**
      * Test deployment of an expanded WAR in a custom context.
      * @throws Exception If anything goes wrong.
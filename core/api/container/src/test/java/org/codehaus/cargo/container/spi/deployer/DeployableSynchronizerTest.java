@@ -0,0 +1,167 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.deployer;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.codehaus.cargo.util.DefaultFileHandler;
+import org.codehaus.cargo.util.FileHandler;
+
+/**
+ * Unit tests for {@link DeployableSynchronizer}.
+ */
+public class DeployableSynchronizerTest
+{
+    /**
+     * File handler.
+     */
+    private FileHandler fileHandler;
+
+    /**
+     * Temporary directory.
+     */
+    private String tmpDir;
+
+    /**
+     * Source directory.
+     */
+    private String source;
+
+    /**
+     * Deployed copy.
+     */
+    private String target;
+
+    /**
+     * Manifest file.
+     */
+    private String manifestFile;
+
+    /**
+     * Creates a source directory and deploys it.
+     */
+    @BeforeEach
+    protected void setUp()
+    {
+        this.fileHandler = new DefaultFileHandler();
+        this.tmpDir = this.fileHandler.createUniqueTmpDirectory();
+        this.source = this.fileHandler.append(this.tmpDir, "source");
+        String deployableDir = this.fileHandler.append(this.tmpDir, "deployments");
+        this.fileHandler.mkdirs(deployableDir);
+        this.target = this.fileHandler.append(deployableDir, "app");
+
+        write("index.html", "index");
+        write("WEB-INF/web.xml", "<web-app/>");
+        write("WEB-INF/classes/A.class", "A");
+        write("WEB-INF/classes/B.class", "B");
+
+        DeployableSynchronizer synchronizer = new DeployableSynchronizer(this.fileHandler, false);
+        this.manifestFile = synchronizer.getManifestFile(deployableDir, "app");
+        Assertions.assertFalse(synchronizer.canSynchronize(this.target, this.manifestFile));
+        this.fileHandler.copyDirectory(this.source, this.target);
+        synchronizer.writeManifest(this.source, this.manifestFile);
+        Assertions.assertTrue(synchronizer.canSynchronize(this.target, this.manifestFile));
+    }
+
+    /**
+     * Deletes the temporary directory.
+     */
+    @AfterEach
+    protected void tearDown()
+    {
+        this.fileHandler.delete(this.tmpDir);
+    }
+
+    /**
+     * @param path Path of the file in the source directory.
+     * @param content Content of the file.
+     */
+    private void write(String path, String content)
+    {
+        String file = this.fileHandler.append(this.source, path);
+        this.fileHandler.mkdirs(this.fileHandler.getParent(file));
+        this.fileHandler.writeTextFile(file, content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param path Path of a file in the deployed copy.
+     * @return Content of the file.
+     */
+    private String readTarget(String path)
+    {
+        return this.fileHandler.readTextFile(this.fileHandler.append(this.target, path),
+            StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test that only changes are copied, and that removed files are deleted.
+     */
+    @Test
+    public void testSynchronize()
+    {
+        DeployableSynchronizer synchronizer = new DeployableSynchronizer(this.fileHandler, false);
+        Assertions.assertEquals(0,
+            synchronizer.synchronize(this.source, this.target, this.manifestFile));
+
+        write("WEB-INF/classes/A.class", "A2");
+        this.fileHandler.setLastModified(this.fileHandler.append(this.source,
+            "WEB-INF/classes/A.class"), System.currentTimeMillis() + 10000);
+        write("WEB-INF/lib/c.jar", "C");
+        this.fileHandler.delete(this.fileHandler.append(this.source, "WEB-INF/classes/B.class"));
+
+        // Modified A.class, new lib directory, new c.jar, deleted B.class
+        Assertions.assertEquals(4,
+            synchronizer.synchronize(this.source, this.target, this.manifestFile));
+        Assertions.assertEquals("A2", readTarget("WEB-INF/classes/A.class"));
+        Assertions.assertEquals("C", readTarget("WEB-INF/lib/c.jar"));
+        Assertions.assertFalse(this.fileHandler.exists(
+            this.fileHandler.append(this.target, "WEB-INF/classes/B.class")));
+
+        Assertions.assertEquals(0,
+            synchronizer.synchronize(this.source, this.target, this.manifestFile));
+    }
+
+    /**
+     * Test that, in hash mode, files with a new modification time but the same content are not
+     * copied.
+     */
+    @Test
+    public void testSynchronizeWithHash()
+    {
+        DeployableSynchronizer synchronizer = new DeployableSynchronizer(this.fileHandler, true);
+        synchronizer.writeManifest(this.source, this.manifestFile);
+
+        String a = this.fileHandler.append(this.source, "WEB-INF/classes/A.class");
+        this.fileHandler.setLastModified(a, System.currentTimeMillis() + 10000);
+        Assertions.assertEquals(0,
+            synchronizer.synchronize(this.source, this.target, this.manifestFile));
+
+        write("WEB-INF/classes/A.class", "A3");
+        this.fileHandler.setLastModified(a, System.currentTimeMillis() + 20000);
+        Assertions.assertEquals(1,
+            synchronizer.synchronize(this.source, this.target, this.manifestFile));
+        Assertions.assertEquals("A3", readTarget("WEB-INF/classes/A.class"));
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.codehaus.cargo.container.spi.jvm;
 
+import java.io.File;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -131,4 +133,36 @@ public class DefaultJvmLauncherTest
                 "unbalanced quotes in a \"b c", e.getMessage(), "Wrong exception detail");
         }
     }
+
+    /**
+     * Test {@link DefaultJvmLauncher#isAlive()} and {@link DefaultJvmLauncher#waitFor(long)}.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testWaitFor() throws Exception
+    {
+        DefaultJvmLauncher launcher = new DefaultJvmLauncher();
+        Assertions.assertFalse(launcher.isAlive(), "No JVM launched yet");
+        Assertions.assertTrue(launcher.waitFor(0), "No JVM to wait for");
+
+        File java = new File(System.getProperty("java.home"), "bin/java");
+        if (!java.isFile())
+        {
+            java = new File(System.getProperty("java.home"), "bin/java.exe");
+        }
+        launcher.setJvm(java.getAbsolutePath());
+        // The -version argument makes the JVM exit before loading the main class
+        launcher.addJvmArguments("-version");
+        launcher.setMainClass("java.lang.Object");
+        launcher.start();
+        try
+        {
+            Assertions.assertTrue(launcher.waitFor(60000), "JVM did not exit");
+            Assertions.assertFalse(launcher.isAlive(), "JVM still alive after exiting");
+        }
+        finally
+        {
+            launcher.kill();
+        }
+    }
 }
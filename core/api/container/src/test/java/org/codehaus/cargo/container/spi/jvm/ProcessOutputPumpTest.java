@@ -0,0 +1,168 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.jvm;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ProcessOutputPump} and the process output sinks.
+ */
+public class ProcessOutputPumpTest
+{
+    /**
+     * Pumps a stream in a new thread.
+     * @param input Process output stream.
+     * @param sinks Sinks receiving the output.
+     * @return Started pump thread.
+     */
+    private Thread pump(InputStream input, ProcessOutputSink... sinks)
+    {
+        Thread thread = new Thread(new ProcessOutputPump(input, Arrays.asList(sinks), null));
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Test that the output of a process is moved to all sinks, which are then closed.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testPumpToSinks() throws Exception
+    {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+        {
+            output.append("line ").append(i).append("\r\n");
+        }
+        output.append("Server started in 42 ms\nlast line without terminator");
+
+        final List<String> lines = new ArrayList<String>();
+        AbstractLineOutputSink lineSink = new AbstractLineOutputSink(StandardCharsets.UTF_8)
+        {
+            @Override
+            protected void line(String text)
+            {
+                lines.add(text);
+            }
+        };
+        PatternOutputSink patternSink =
+            new PatternOutputSink(StandardCharsets.UTF_8, Pattern.compile("started in \\d+"));
+
+        Thread thread = pump(
+            new ByteArrayInputStream(output.toString().getBytes(StandardCharsets.UTF_8)),
+            lineSink, patternSink);
+
+        Assertions.assertTrue(patternSink.await(10000), "Pattern not found");
+        Assertions.assertEquals("Server started in 42 ms", patternSink.getMatchedLine());
+
+        thread.join(10000);
+        Assertions.assertFalse(thread.isAlive(), "Pump should stop at the end of the output");
+        Assertions.assertEquals(1002, lines.size());
+        Assertions.assertEquals("line 999", lines.get(999));
+        Assertions.assertEquals("last line without terminator", lines.get(1001));
+    }
+
+    /**
+     * Test that a pattern sink stops waiting once the output has ended.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testPatternNotFound() throws Exception
+    {
+        PatternOutputSink patternSink =
+            new PatternOutputSink(StandardCharsets.UTF_8, Pattern.compile("started"));
+        pump(new ByteArrayInputStream("nothing interesting\n".getBytes(StandardCharsets.UTF_8)),
+            patternSink);
+
+        Assertions.assertFalse(patternSink.await(10000), "Pattern should not be found");
+        Assertions.assertNull(patternSink.getMatchedLine());
+    }
+
+    /**
+     * Test that the output is pumped until the end of the stream, whether the process which was
+     * launched has exited or not, and that a slow sink does not delay the output of other
+     * processes.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testPumpUntilEndOfStream() throws Exception
+    {
+        final CountDownLatch release = new CountDownLatch(1);
+        ProcessOutputSink slowSink = new ProcessOutputSink()
+        {
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException
+            {
+                try
+                {
+                    release.await();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new IOException(e);
+                }
+            }
+
+            @Override
+            public void close()
+            {
+                // Nothing to close
+            }
+        };
+        PipedOutputStream slowProcess = new PipedOutputStream();
+        Thread slowPump = pump(new PipedInputStream(slowProcess), slowSink);
+        slowProcess.write('x');
+
+        PatternOutputSink patternSink =
+            new PatternOutputSink(StandardCharsets.UTF_8, Pattern.compile("started"));
+        PipedOutputStream process = new PipedOutputStream();
+        Thread thread = pump(new PipedInputStream(process), patternSink);
+        process.write("starting\n".getBytes(StandardCharsets.UTF_8));
+        process.flush();
+        Assertions.assertFalse(patternSink.await(200), "Pattern should not be found yet");
+
+        // For example output of a child process, after the launched process has exited
+        process.write("started\n".getBytes(StandardCharsets.UTF_8));
+        process.close();
+        Assertions.assertTrue(patternSink.await(10000), "Pattern not found");
+        thread.join(10000);
+        Assertions.assertFalse(thread.isAlive(), "Pump should stop at the end of the output");
+
+        Assertions.assertTrue(slowPump.isAlive(), "Slow sink should still be writing");
+        release.countDown();
+        slowProcess.close();
+        slowPump.join(10000);
+        Assertions.assertFalse(slowPump.isAlive(), "Pump should stop at the end of the output");
+    }
+}
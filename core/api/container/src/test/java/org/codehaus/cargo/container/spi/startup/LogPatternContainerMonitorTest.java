@@ -0,0 +1,126 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.spi.startup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.codehaus.cargo.container.spi.jvm.PatternOutputSink;
+import org.codehaus.cargo.container.startup.ContainerMonitor;
+import org.codehaus.cargo.container.stub.InstalledLocalContainerStub;
+
+/**
+ * Unit tests for {@link LogPatternContainerMonitor}.
+ */
+public class LogPatternContainerMonitorTest
+{
+    /**
+     * Monitored container.
+     */
+    private InstalledLocalContainerStub container;
+
+    /**
+     * Creates the monitored container.
+     */
+    @BeforeEach
+    public void setUp()
+    {
+        this.container = new InstalledLocalContainerStub();
+    }
+
+    /**
+     * Writes container output to a sink.
+     * @param sink Sink receiving the container output.
+     * @param text Output text.
+     * @throws Exception If anything goes wrong.
+     */
+    private void output(PatternOutputSink sink, String text) throws Exception
+    {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        sink.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param running Status to report.
+     * @return Monitor always reporting the given status.
+     */
+    private ContainerMonitor createMonitor(final boolean running)
+    {
+        return new AbstractContainerMonitor(this.container)
+        {
+            @Override
+            public boolean isRunning()
+            {
+                return running;
+            }
+        };
+    }
+
+    /**
+     * Test that the pattern is detected once its line is complete.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testPatternDetection() throws Exception
+    {
+        PatternOutputSink sink =
+            new PatternOutputSink(StandardCharsets.UTF_8, Pattern.compile("Server startup in"));
+        LogPatternContainerMonitor monitor = new LogPatternContainerMonitor(this.container, sink);
+        Assertions.assertFalse(monitor.isRunning(), "No output yet");
+
+        output(sink, "INFO: Starting service\nINFO: Server startup");
+        Assertions.assertFalse(monitor.isRunning(), "Incomplete line should be ignored");
+
+        output(sink, " in 500 ms\r\n");
+        Assertions.assertTrue(monitor.isRunning(), "Startup pattern not detected");
+        Assertions.assertTrue(monitor.isRunning(), "Container should remain running");
+    }
+
+    /**
+     * Test that the log monitor and a fallback monitor can be combined.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testCombinedWithFallback() throws Exception
+    {
+        PatternOutputSink sink =
+            new PatternOutputSink(StandardCharsets.UTF_8, Pattern.compile("Started"));
+        LogPatternContainerMonitor logMonitor =
+            new LogPatternContainerMonitor(this.container, sink);
+        ContainerMonitor running = createMonitor(true);
+        ContainerMonitor stopped = createMonitor(false);
+        Assertions.assertFalse(logMonitor.isRunning());
+
+        Assertions.assertTrue(
+            new CombinedContainerMonitor(this.container, false, logMonitor, running).isRunning());
+        Assertions.assertFalse(
+            new CombinedContainerMonitor(this.container, false, logMonitor, stopped).isRunning());
+        Assertions.assertFalse(
+            new CombinedContainerMonitor(this.container, logMonitor, running).isRunning());
+
+        output(sink, "Started\n");
+        Assertions.assertTrue(
+            new CombinedContainerMonitor(this.container, false, logMonitor, stopped).isRunning());
+    }
+}
@@ -19,10 +19,13 @@
  */
 package org.codehaus.cargo.generic;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import org.apache.commons.discovery.jdk.JDKHooks;
 import org.apache.commons.discovery.resource.ClassLoaders;
@@ -50,9 +53,123 @@ import org.codehaus.cargo.generic.packager.PackagerFactory;
  * <p>
  * Container implementors should override the 1-arg {@code register} methods to register its
  * implementations to the given factory.
+ * 
+ * <p>
+ * The class names of the discovered registries are cached per class loader, hence building several
+ * factories only scans the class path once. Each factory still gets new registry instances, which
+ * register all their implementations.
  */
 public abstract class AbstractFactoryRegistry
 {
+    /**
+     * Registries discovered so far, indexed by the first class loader they were discovered with.
+     * Keys are weakly referenced and values only keep class names and weak references to class
+     * loaders, so that the cache does not prevent class loaders from being garbage collected.
+     */
+    private static final Map<ClassLoader, DiscoveredRegistries> DISCOVERED =
+        new WeakHashMap<ClassLoader, DiscoveredRegistries>();
+
+    /**
+     * Registries discovered with a given list of class loaders.
+     */
+    private static final class DiscoveredRegistries
+    {
+        /**
+         * Class loaders the registries were discovered with.
+         */
+        private final List<WeakReference<ClassLoader>> classLoaders;
+
+        /**
+         * Class names of the discovered registries.
+         */
+        private final List<String> classNames = new ArrayList<String>();
+
+        /**
+         * For each discovered registry, index of the class loader which loads its class.
+         */
+        private final List<Integer> classLoaderIndexes = new ArrayList<Integer>();
+
+        /**
+         * @param classLoaders Class loaders the registries were discovered with.
+         * @param registries Discovered registries.
+         */
+        private DiscoveredRegistries(List<ClassLoader> classLoaders,
+            List<AbstractFactoryRegistry> registries)
+        {
+            this.classLoaders = new ArrayList<WeakReference<ClassLoader>>(classLoaders.size());
+            for (ClassLoader classLoader : classLoaders)
+            {
+                this.classLoaders.add(new WeakReference<ClassLoader>(classLoader));
+            }
+            for (AbstractFactoryRegistry registry : registries)
+            {
+                Class<?> registryClass = registry.getClass();
+                for (int i = 0; i < classLoaders.size(); i++)
+                {
+                    if (loadClass(registryClass.getName(), classLoaders.get(i)) == registryClass)
+                    {
+                        this.classNames.add(registryClass.getName());
+                        this.classLoaderIndexes.add(i);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Instantiates the discovered registries.
+         * 
+         * @param classLoaders Class loaders the registries were discovered with.
+         * @return New instances of the discovered registries, <code>null</code> if one of them
+         * cannot be instantiated any more.
+         */
+        private List<AbstractFactoryRegistry> instantiate(List<ClassLoader> classLoaders)
+        {
+            List<AbstractFactoryRegistry> registries =
+                new ArrayList<AbstractFactoryRegistry>(this.classNames.size());
+            for (int i = 0; i < this.classNames.size(); i++)
+            {
+                Class<?> registryClass = loadClass(this.classNames.get(i),
+                    classLoaders.get(this.classLoaderIndexes.get(i)));
+                if (registryClass == null)
+                {
+                    return null;
+                }
+                try
+                {
+                    registries.add(
+                        (AbstractFactoryRegistry) registryClass.getConstructor().newInstance());
+                }
+                catch (ReflectiveOperationException | LinkageError | ClassCastException e)
+                {
+                    return null;
+                }
+            }
+            return registries;
+        }
+
+        /**
+         * @param classLoaders Class loaders to search registries with.
+         * @return <code>true</code> if the registries were discovered with the same class
+         * loaders, in the same order.
+         */
+        private boolean isDiscoveredWith(List<ClassLoader> classLoaders)
+        {
+            if (this.classLoaders.size() != classLoaders.size())
+            {
+                return false;
+            }
+            for (int i = 0; i < classLoaders.size(); i++)
+            {
+                if (this.classLoaders.get(i).get() != classLoaders.get(i))
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
     /**
      * Discovers all the {@link org.codehaus.cargo.container.deployable.Deployable}s and adds them
      * to the given {@link DeployableFactory}.
@@ -213,50 +330,103 @@ public abstract class AbstractFactoryRegistry
     protected abstract void register(ContainerCapabilityFactory factory);
 
     /**
-     * Lists up {@link AbstractFactoryRegistry}s that are discovered.
+     * Forgets the registries discovered so far, for example after adding container implementation
+     * JARs to a class loader. The next factory to be built discovers registries again.
+     */
+    public static void clearCache()
+    {
+        synchronized (DISCOVERED)
+        {
+            DISCOVERED.clear();
+        }
+    }
+
+    /**
+     * Lists up {@link AbstractFactoryRegistry}s that are discovered. Registries discovered with the
+     * same class loaders are only discovered once.
      * 
      * @param classLoader See {@link #register(ClassLoader, DeployableFactory)} for more details.
      * @return always non-null but can be empty.
      */
     private static List<AbstractFactoryRegistry> list(ClassLoader classLoader)
     {
-        ClassLoader cl;
-        ClassLoaders loaders = new ClassLoaders();
+        List<ClassLoader> classLoaders = new ArrayList<ClassLoader>();
+        addClassLoader(classLoaders, classLoader);
+        addClassLoader(classLoaders, Thread.currentThread().getContextClassLoader());
+        addClassLoader(classLoaders, AbstractFactoryRegistry.class.getClassLoader());
+        addClassLoader(classLoaders, ResourceUtils.getResourceLoader());
+        addClassLoader(classLoaders, JDKHooks.getJDKHooks().getSystemClassLoader());
 
-        cl = classLoader;
-        if (cl != null)
+        if (classLoaders.isEmpty())
         {
-            loaders.put(cl);
+            // this is not our day. bail out.
+            return Collections.EMPTY_LIST;
         }
 
-        cl = Thread.currentThread().getContextClassLoader();
-        if (cl != null)
+        synchronized (DISCOVERED)
         {
-            loaders.put(cl);
+            DiscoveredRegistries discovered = DISCOVERED.get(classLoaders.get(0));
+            if (discovered != null && discovered.isDiscoveredWith(classLoaders))
+            {
+                List<AbstractFactoryRegistry> registries = discovered.instantiate(classLoaders);
+                if (registries != null)
+                {
+                    return registries;
+                }
+            }
+
+            List<AbstractFactoryRegistry> registries = discover(classLoaders);
+            DISCOVERED.put(classLoaders.get(0), new DiscoveredRegistries(classLoaders, registries));
+            return registries;
         }
+    }
 
-        cl = AbstractFactoryRegistry.class.getClassLoader();
-        if (cl != null)
+    /**
+     * Loads a class without initializing it.
+     * 
+     * @param className Name of the class to load.
+     * @param classLoader Class loader to load the class with.
+     * @return Loaded class, <code>null</code> if it cannot be loaded.
+     */
+    private static Class<?> loadClass(String className, ClassLoader classLoader)
+    {
+        try
         {
-            loaders.put(cl);
+            return Class.forName(className, false, classLoader);
         }
-
-        cl = ResourceUtils.getResourceLoader();
-        if (cl != null)
+        catch (ClassNotFoundException | LinkageError e)
         {
-            loaders.put(cl);
+            return null;
         }
+    }
 
-        cl = JDKHooks.getJDKHooks().getSystemClassLoader();
-        if (cl != null)
+    /**
+     * Adds a class loader to the class loaders to search registries with, unless it is
+     * <code>null</code> or already in the list.
+     * 
+     * @param classLoaders Class loaders to search registries with.
+     * @param classLoader Class loader to add.
+     */
+    private static void addClassLoader(List<ClassLoader> classLoaders, ClassLoader classLoader)
+    {
+        if (classLoader != null && !classLoaders.contains(classLoader))
         {
-            loaders.put(cl);
+            classLoaders.add(classLoader);
         }
+    }
 
-        if (loaders.size() == 0)
+    /**
+     * Discovers the {@link AbstractFactoryRegistry}s using the standard service loader mechanism.
+     * 
+     * @param classLoaders Class loaders to search registries with.
+     * @return always non-null but can be empty.
+     */
+    private static List<AbstractFactoryRegistry> discover(List<ClassLoader> classLoaders)
+    {
+        ClassLoaders loaders = new ClassLoaders();
+        for (ClassLoader classLoader : classLoaders)
         {
-            // this is not our day. bail out.
-            return Collections.EMPTY_LIST;
+            loaders.put(classLoader);
         }
 
         List<AbstractFactoryRegistry> registries = new ArrayList<AbstractFactoryRegistry>();
@@ -19,6 +19,11 @@
  */
 package org.codehaus.cargo.generic;
 
+import java.io.IOException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -61,4 +66,41 @@ public class FactoryRegistryTest
             ContainerType.INSTALLED, ConfigurationType.STANDALONE);
         Assertions.assertTrue(cc instanceof SuperConfigurationCapability);
     }
+
+    /**
+     * Test that the registries are only discovered once for the same class loaders, while each
+     * factory still gets its implementations registered.
+     */
+    @Test
+    public void testDiscoveryCached()
+    {
+        AbstractFactoryRegistry.clearCache();
+        final AtomicInteger lookups = new AtomicInteger();
+        ClassLoader classLoader = new ClassLoader(getClass().getClassLoader())
+        {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException
+            {
+                if (name.endsWith(AbstractFactoryRegistry.class.getName()))
+                {
+                    lookups.incrementAndGet();
+                }
+                return super.getResources(name);
+            }
+        };
+
+        new DefaultDeployableFactory(classLoader);
+        int discoveryLookups = lookups.get();
+        Assertions.assertTrue(discoveryLookups > 0);
+
+        DefaultDeployableFactory f = new DefaultDeployableFactory(classLoader);
+        new DefaultConfigurationCapabilityFactory(classLoader);
+        Assertions.assertEquals(discoveryLookups, lookups.get());
+        Assertions.assertTrue(f.createDeployable("super-container", ".", DeployableType.WAR)
+            instanceof SuperContainerWar);
+
+        AbstractFactoryRegistry.clearCache();
+        new DefaultDeployableFactory(classLoader);
+        Assertions.assertEquals(discoveryLookups * 2, lookups.get());
+    }
 }
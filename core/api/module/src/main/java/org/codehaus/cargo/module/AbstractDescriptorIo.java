@@ -20,7 +20,6 @@
 package org.codehaus.cargo.module;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -30,6 +29,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.codehaus.cargo.util.DefaultFileHandler;
 import org.jdom2.Document;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
@@ -172,7 +172,9 @@ public abstract class AbstractDescriptorIo implements DescriptorIo
     public static void writeDescriptor(Descriptor descriptor, File file, Charset encoding,
         boolean isIndent) throws IOException
     {
-        try (OutputStream out = new FileOutputStream(file))
+        // Write through the file handler, which never writes through a hard link to a file of the
+        // container installation or of a deployable
+        try (OutputStream out = new DefaultFileHandler().getOutputStream(file.getPath()))
         {
             writeDescriptor(descriptor, out, encoding, isIndent);
         }
@@ -24,27 +24,157 @@ package org.codehaus.cargo.module;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.codehaus.cargo.util.DefaultFileHandler;
 import org.codehaus.cargo.util.FileHandler;
 
 /**
- * Provide convenient methods to read information from a Jar archive.
+ * Provide convenient methods to read information from a Jar archive.<br>
+ * <br>
+ * Archives passed in as a file of the local file system are indexed using their ZIP central
+ * directory, hence lookups do not need to read the archive and only the requested entries are
+ * inflated. Other archives are read as a stream for each lookup.<br>
+ * <br>
+ * Archives passed in as an input stream are kept in memory up to the
+ * {@link #IN_HEAP_THRESHOLD} size; larger archives are written to a temporary file, which is then
+ * indexed as an archive file and deleted when the archive is closed.
  */
 public class DefaultJarArchive implements JarArchive
 {
     /**
-     * The content of the archive as an input stream.
+     * System property with the maximum size, in bytes, of an archive passed in as an input stream
+     * which is kept in memory. Larger archives are written to a temporary file.
+     */
+    public static final String IN_HEAP_THRESHOLD = "cargo.module.archive.inHeapThreshold";
+
+    /**
+     * Default value of the {@link #IN_HEAP_THRESHOLD} system property.
+     */
+    public static final int DEFAULT_IN_HEAP_THRESHOLD = 16 * 1024 * 1024;
+
+    /**
+     * Size of the buffer used when reading archives.
+     */
+    private static final int BUFFER_SIZE = 40960;
+
+    /**
+     * Index of the entries of an archive file, read from its central directory.
+     */
+    private static final class ArchiveIndex
+    {
+        /**
+         * Archive file.
+         */
+        private final File file;
+
+        /**
+         * Last modification time of the archive file when it was indexed.
+         */
+        private final long lastModified;
+
+        /**
+         * Length of the archive file when it was indexed.
+         */
+        private final long length;
+
+        /**
+         * Entry names, in the order of the archive.
+         */
+        private final Set<String> entryNames = new LinkedHashSet<String>();
+
+        /**
+         * First entry path for each file name.
+         */
+        private final Map<String, String> pathsByFileName = new HashMap<String, String>();
+
+        /**
+         * @param file Archive file to index.
+         * @throws IOException If the archive cannot be read.
+         */
+        private ArchiveIndex(File file) throws IOException
+        {
+            this.file = file;
+            this.lastModified = file.lastModified();
+            this.length = file.length();
+
+            try (ZipFile zipFile = new ZipFile(file))
+            {
+                boolean leading = true;
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements())
+                {
+                    String entryName = entries.nextElement().getName();
+
+                    // Hide the leading manifest as JarInputStream does, so that file and stream
+                    // based archives have the same entries
+                    if (leading && "META-INF/".equalsIgnoreCase(entryName))
+                    {
+                        continue;
+                    }
+                    if (leading && JarFile.MANIFEST_NAME.equalsIgnoreCase(entryName))
+                    {
+                        leading = false;
+                        continue;
+                    }
+                    leading = false;
+
+                    if (this.entryNames.add(entryName))
+                    {
+                        String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+                        if (!this.pathsByFileName.containsKey(fileName))
+                        {
+                            this.pathsByFileName.put(fileName, entryName);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * @param file Archive file.
+         * @return <code>true</code> if the archive file did not change since it was indexed.
+         */
+        private boolean isUpToDate(File file)
+        {
+            return file.lastModified() == this.lastModified && file.length() == this.length;
+        }
+    }
+
+    /**
+     * The content of the archive, if passed in as an input stream and kept in memory.
      */
     private byte[] content;
 
+    /**
+     * Length of the {@link #content}.
+     */
+    private int contentLength;
+
+    /**
+     * Temporary file with the content of the archive, if passed in as an input stream and larger
+     * than the {@link #IN_HEAP_THRESHOLD}.
+     */
+    private File contentFile;
+
     /**
      * The archive itself, if passed in as a file.
      */
@@ -55,6 +185,11 @@ public class DefaultJarArchive implements JarArchive
      */
     private FileHandler fileHandler = new DefaultFileHandler();
 
+    /**
+     * Index of the archive file, <code>null</code> until the first lookup.
+     */
+    private ArchiveIndex index;
+
     /**
      * Constructor.
      * 
@@ -80,7 +215,8 @@ public class DefaultJarArchive implements JarArchive
     public DefaultJarArchive(InputStream inputStream) throws IOException
     {
         this.sourceFile = null;
-        this.content = streamToByteArray(inputStream);
+        readContent(inputStream,
+            Integer.getInteger(IN_HEAP_THRESHOLD, DEFAULT_IN_HEAP_THRESHOLD).intValue());
     }
 
     /**
@@ -106,6 +242,11 @@ public class DefaultJarArchive implements JarArchive
     public boolean containsClass(String className) throws IOException
     {
         String resourceName = className.replace('.', '/') + ".class";
+        ArchiveIndex archiveIndex = getIndex();
+        if (archiveIndex != null)
+        {
+            return archiveIndex.entryNames.contains(resourceName);
+        }
         return getResource(resourceName) != null;
     }
 
@@ -115,6 +256,12 @@ public class DefaultJarArchive implements JarArchive
     @Override
     public String findResource(String name) throws IOException
     {
+        ArchiveIndex archiveIndex = getIndex();
+        if (archiveIndex != null)
+        {
+            return archiveIndex.pathsByFileName.get(name);
+        }
+
         String result = null;
         for (String entryPath : getResources(""))
         {
@@ -141,24 +288,77 @@ public class DefaultJarArchive implements JarArchive
     @Override
     public InputStream getResource(String path) throws IOException
     {
-        try (JarInputStream in = getContentAsStream())
+        InputStream in = openResource(path);
+        if (in == null)
+        {
+            return null;
+        }
+        return new ByteArrayInputStream(streamToByteArray(in));
+    }
+
+    /**
+     * Opens a resource of the archive as a stream, without reading it into memory first.
+     * 
+     * @param path The path to the resource in the archive
+     * @return An input stream positioned on the specified resource, which the caller must close, or
+     * <code>null</code> if the resource was not found in the archive
+     * @throws IOException If an exception occurred reading the archive
+     */
+    protected InputStream openResource(String path) throws IOException
+    {
+        ArchiveIndex archiveIndex = getIndex();
+        if (archiveIndex != null)
+        {
+            if (!archiveIndex.entryNames.contains(path))
+            {
+                return null;
+            }
+
+            final ZipFile zipFile = new ZipFile(archiveIndex.file);
+            try
+            {
+                return new FilterInputStream(zipFile.getInputStream(zipFile.getEntry(path)))
+                {
+                    @Override
+                    public void close() throws IOException
+                    {
+                        try
+                        {
+                            super.close();
+                        }
+                        finally
+                        {
+                            zipFile.close();
+                        }
+                    }
+                };
+            }
+            catch (IOException | RuntimeException e)
+            {
+                zipFile.close();
+                throw e;
+            }
+        }
+
+        JarInputStream in = getContentAsStream();
+        try
         {
             ZipEntry zipEntry;
             while ((zipEntry = in.getNextEntry()) != null)
             {
                 if (path.equals(zipEntry.getName()))
                 {
-                    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-                    byte[] bytes = new byte[2048];
-                    int bytesRead;
-                    while ((bytesRead = in.read(bytes)) != -1)
-                    {
-                        buffer.write(bytes, 0, bytesRead);
-                    }
-                    return new ByteArrayInputStream(buffer.toByteArray());
+                    // The stream now reads the content of the entry only
+                    return in;
                 }
             }
         }
+        catch (IOException | RuntimeException e)
+        {
+            in.close();
+            throw e;
+        }
+        in.close();
         return null;
     }
 
@@ -175,6 +375,19 @@ public class DefaultJarArchive implements JarArchive
         }
 
         List<String> resources = new ArrayList<String>();
+        ArchiveIndex archiveIndex = getIndex();
+        if (archiveIndex != null)
+        {
+            for (String entryName : archiveIndex.entryNames)
+            {
+                if (entryName.startsWith(normalizedPath) && !entryName.equals(normalizedPath))
+                {
+                    resources.add(entryName);
+                }
+            }
+            return resources;
+        }
+
         try (JarInputStream in = getContentAsStream())
         {
             ZipEntry zipEntry;
@@ -200,12 +413,56 @@ public class DefaultJarArchive implements JarArchive
     {
         if (this.content != null)
         {
-            return new JarInputStream(new ByteArrayInputStream(this.content));
+            return new JarInputStream(
+                new ByteArrayInputStream(this.content, 0, this.contentLength));
+        }
+        else if (this.contentFile != null)
+        {
+            return new JarInputStream(new FileInputStream(this.contentFile));
+        }
+        else if (this.sourceFile == null)
+        {
+            throw new IOException("The archive has been closed");
         }
 
         return new JarInputStream(getFileHandler().getInputStream(this.sourceFile));
     }
 
+    /**
+     * Returns the index of the archive, reading it again if the archive file changed since it was
+     * last indexed.
+     * 
+     * @return The index, <code>null</code> if the archive is not a file of the local file system
+     * @throws IOException If an exception occurred reading the archive
+     */
+    private synchronized ArchiveIndex getIndex() throws IOException
+    {
+        File file;
+        if (this.contentFile != null)
+        {
+            file = this.contentFile;
+        }
+        else if (this.sourceFile != null)
+        {
+            file = new File(this.sourceFile);
+        }
+        else
+        {
+            return null;
+        }
+
+        if (!file.isFile())
+        {
+            return null;
+        }
+
+        if (this.index == null || !this.index.isUpToDate(file))
+        {
+            this.index = new ArchiveIndex(file);
+        }
+        return this.index;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -251,6 +508,93 @@ public class DefaultJarArchive implements JarArchive
         }
     }
 
+    /**
+     * Deletes the temporary file with the content of the archive, if the archive was passed in as
+     * an input stream larger than the {@link #IN_HEAP_THRESHOLD}. Such an archive cannot be read
+     * anymore once closed; other archives are not affected.
+     */
+    @Override
+    public synchronized void close()
+    {
+        this.index = null;
+        if (this.contentFile != null)
+        {
+            this.contentFile.delete();
+            this.contentFile = null;
+        }
+    }
+
+    /**
+     * Reads the content of an archive passed in as an input stream, keeping it in memory if it is
+     * not larger than the given threshold and writing it to a temporary file otherwise.
+     * 
+     * @param inputStream The input stream for the archive, closed once read
+     * @param threshold Maximum size of an archive kept in memory
+     * @throws IOException If there was a problem reading the archive or writing the temporary file
+     */
+    private void readContent(InputStream inputStream, int threshold) throws IOException
+    {
+        try
+        {
+            byte[] buffer = new byte[Math.max(1, Math.min(BUFFER_SIZE, threshold))];
+            int length = 0;
+            int read;
+            while ((read = inputStream.read(buffer, length, buffer.length - length)) != -1)
+            {
+                length += read;
+                if (length == buffer.length)
+                {
+                    if (length >= threshold)
+                    {
+                        this.contentFile = spillContent(buffer, length, inputStream);
+                        return;
+                    }
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(threshold, 2L * length));
+                }
+            }
+            this.content = buffer;
+            this.contentLength = length;
+        }
+        finally
+        {
+            if (inputStream != null)
+            {
+                inputStream.close();
+            }
+        }
+    }
+
+    /**
+     * Writes the content of an archive to a temporary file.
+     * 
+     * @param buffer The content read so far, also used as buffer for reading the rest
+     * @param length Length of the content read so far
+     * @param inputStream The input stream with the rest of the content
+     * @return The temporary file, deleted when the archive is closed or else when the JVM exits
+     * @throws IOException If there was a problem reading the archive or writing the temporary file
+     */
+    private File spillContent(byte[] buffer, int length, InputStream inputStream)
+        throws IOException
+    {
+        File file = File.createTempFile("cargo-archive-", ".jar");
+        file.deleteOnExit();
+        try (OutputStream out = new FileOutputStream(file))
+        {
+            out.write(buffer, 0, length);
+            int read;
+            while ((read = inputStream.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, read);
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            file.delete();
+            throw e;
+        }
+        return file;
+    }
+
     /**
      * Read a stream into a byte array.
      * @param inputStream the input stream
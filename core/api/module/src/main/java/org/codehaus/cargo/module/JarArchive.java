@@ -22,6 +22,7 @@
  */
 package org.codehaus.cargo.module;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -29,7 +30,7 @@ import java.util.List;
 /**
  * Provide convenient methods to read information from a Jar archive.
  */
-public interface JarArchive
+public interface JarArchive extends Closeable
 {
     /**
      * Returns whether a class of the specified name is contained in the archive.
@@ -74,4 +75,15 @@ public interface JarArchive
      * @throws java.io.IOException If an I/O error occurs
      */
     void expandToPath(String path) throws IOException;
+
+    /**
+     * Releases the resources held by the archive, such as temporary files. The default
+     * implementation does nothing.
+     * @throws java.io.IOException If an I/O error occurs
+     */
+    @Override
+    default void close() throws IOException
+    {
+        // Nothing to release
+    }
 }
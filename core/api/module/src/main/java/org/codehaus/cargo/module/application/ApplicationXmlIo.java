@@ -24,13 +24,13 @@ package org.codehaus.cargo.module.application;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
 
 import org.codehaus.cargo.module.AbstractDescriptorIo;
+import org.codehaus.cargo.util.DefaultFileHandler;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 import org.jdom2.output.Format;
@@ -167,7 +167,8 @@ public final class ApplicationXmlIo extends AbstractDescriptorIo
     public static void writeApplicationXml(ApplicationXml appXml, File file, Charset encoding,
         boolean isIndent) throws IOException
     {
-        try (OutputStream out = new FileOutputStream(file))
+        // Write through the file handler, which never writes through a hard link
+        try (OutputStream out = new DefaultFileHandler().getOutputStream(file.getPath()))
         {
             writeApplicationXml(appXml, out, encoding, isIndent);
         }
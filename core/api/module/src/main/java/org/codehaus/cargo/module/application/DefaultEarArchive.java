@@ -84,7 +84,7 @@ public class DefaultEarArchive extends DefaultJarArchive implements EarArchive
     @Override
     public WarArchive getWebModule(String uri) throws IOException
     {
-        try (InputStream war = getResource(uri))
+        try (InputStream war = openResource(uri))
         {
             if (war != null)
             {
@@ -100,7 +100,7 @@ public class DefaultEarArchive extends DefaultJarArchive implements EarArchive
     @Override
     public EjbArchive getEjbModule(String uri) throws IOException
     {
-        try (InputStream ejb = getResource(uri))
+        try (InputStream ejb = openResource(uri))
         {
             if (ejb != null)
             {
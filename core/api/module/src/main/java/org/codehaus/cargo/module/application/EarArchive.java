@@ -44,7 +44,9 @@ public interface EarArchive extends JarArchive
     ApplicationXml getApplicationXml() throws IOException, JDOMException;
 
     /**
-     * Returns the web-app archive stored in the EAR with the specified URI.
+     * Returns the web-app archive stored in the EAR with the specified URI. The returned archive
+     * should be closed once not needed anymore, as large nested archives are kept in a temporary
+     * file.
      * 
      * @param uri The URI of the web module
      * @return The web-app archive, or <code>null</code> if no WAR was found at the specified URI
@@ -53,7 +55,9 @@ public interface EarArchive extends JarArchive
     WarArchive getWebModule(String uri) throws IOException;
 
     /**
-     * Returns the ejb archive stored in the EAR with the specified URI.
+     * Returns the ejb archive stored in the EAR with the specified URI. The returned archive
+     * should be closed once not needed anymore, as large nested archives are kept in a temporary
+     * file.
      * 
      * @param uri The URI of the ejb module
      * @return The ejb archive, or <code>null</code> if no WAR was found at the specified URI
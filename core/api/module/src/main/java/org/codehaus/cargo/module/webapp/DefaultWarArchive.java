@@ -186,26 +186,29 @@ public class DefaultWarArchive extends DefaultJarArchive implements WarArchive
     @Override
     public boolean containsClass(String className) throws IOException
     {
-        boolean containsClass = false;
-
         // Look in WEB-INF/classes first
         String resourceName = "WEB-INF/classes/" + className.replace('.', '/') + ".class";
-        if (getResource(resourceName) != null)
+        try (InputStream in = openResource(resourceName))
         {
-            containsClass = true;
+            if (in != null)
+            {
+                return true;
+            }
         }
 
         // Next scan the JARs in WEB-INF/lib
         for (String resource : getResources("WEB-INF/lib/"))
         {
-            JarArchive jar = new DefaultJarArchive(getResource(resource));
-            if (jar.containsClass(className))
+            try (JarArchive jar = new DefaultJarArchive(openResource(resource)))
             {
-                containsClass = true;
+                if (jar.containsClass(className))
+                {
+                    return true;
+                }
             }
         }
 
-        return containsClass;
+        return false;
     }
 
     /**
@@ -22,9 +22,15 @@
  */
 package org.codehaus.cargo.module;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -211,4 +217,102 @@ public final class JarArchiveTest extends AbstractResourceTest
         // Verify that the rootResource.txt file has been correctly expanded
         Assertions.assertTrue(this.fsManager.resolveFile("ram:///test/rootResource.txt").exists());
     }
+
+    /**
+     * Verifies that an archive file, which is indexed, has the same entries as the same archive
+     * read as a stream.
+     * 
+     * @throws Exception If an unexpected error occurs
+     */
+    @Test
+    public void testIndexedArchiveMatchesStream() throws Exception
+    {
+        File file = File.createTempFile("cargo-", ".jar");
+        try
+        {
+            Manifest manifest = new Manifest();
+            manifest.getMainAttributes().putValue("Manifest-Version", "1.0");
+            try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(file), manifest))
+            {
+                jos.putNextEntry(new ZipEntry("folder/test/Test.class"));
+                jos.write("Test".getBytes(StandardCharsets.UTF_8));
+                jos.closeEntry();
+            }
+
+            JarArchive fileJar = new DefaultJarArchive(file.getPath());
+            JarArchive streamJar;
+            try (InputStream in = new FileInputStream(file))
+            {
+                streamJar = new DefaultJarArchive(in);
+            }
+
+            Assertions.assertEquals(streamJar.getResources(""), fileJar.getResources(""));
+            Assertions.assertEquals("folder/test/Test.class", fileJar.findResource("Test.class"));
+            Assertions.assertNull(fileJar.getResource("META-INF/MANIFEST.MF"));
+            Assertions.assertNull(fileJar.getResource("folder"));
+            assertContains(fileJar.getResource("folder/test/Test.class"), "Test");
+
+            // The index is read again when the archive file changes
+            try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file)))
+            {
+                zos.putNextEntry(new ZipEntry("test/Test2.class"));
+                zos.write("Test2".getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+            file.setLastModified(file.lastModified() + 10000);
+            Assertions.assertFalse(fileJar.containsClass("folder.test.Test"));
+            Assertions.assertTrue(fileJar.containsClass("test.Test2"));
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that an archive passed in as a stream larger than the in-heap threshold is written to
+     * a temporary file, which is deleted when the archive is closed.
+     * 
+     * @throws Exception If an unexpected error occurs
+     */
+    @Test
+    public void testSpilledArchive() throws Exception
+    {
+        File file = File.createTempFile("cargo-", ".jar");
+        System.setProperty(DefaultJarArchive.IN_HEAP_THRESHOLD, "16");
+        try
+        {
+            try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(file)))
+            {
+                jos.putNextEntry(new ZipEntry("folder/test/Test.class"));
+                jos.write("Test".getBytes(StandardCharsets.UTF_8));
+                jos.closeEntry();
+            }
+
+            JarArchive jar;
+            try (InputStream in = new FileInputStream(file))
+            {
+                jar = new DefaultJarArchive(in);
+            }
+
+            Assertions.assertEquals("folder/test/Test.class", jar.findResource("Test.class"));
+            assertContains(jar.getResource("folder/test/Test.class"), "Test");
+
+            jar.close();
+            try
+            {
+                jar.getResources("");
+                Assertions.fail("No exception thrown");
+            }
+            catch (IOException expected)
+            {
+                // Expected, the temporary file has been deleted
+            }
+        }
+        finally
+        {
+            System.clearProperty(DefaultJarArchive.IN_HEAP_THRESHOLD);
+            file.delete();
+        }
+    }
 }
@@ -28,32 +28,35 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Enumeration;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpression;
-import javax.xml.xpath.XPathFactory;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.codehaus.cargo.util.log.LoggedObject;
 import org.codehaus.cargo.util.log.Logger;
@@ -68,11 +71,84 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
      */
     public static final int FILE_BUFFER_SIZE = 256 * 1024;
 
+    /**
+     * Default maximum number of threads used when exploding archives.
+     */
+    public static final int EXPLODE_THREADS = 4;
+
+    /**
+     * Minimal number of archive entries each thread should extract when exploding archives in
+     * parallel, smaller archives are extracted sequentially.
+     */
+    private static final int EXPLODE_ENTRIES_PER_THREAD = 64;
+
     /**
      * Counter for creating unique temp directories.
      */
     private static int uniqueNameCounter = -1;
 
+    /**
+     * Whether the number of hard links of a file can be read, which is needed to make sure that
+     * writes never go through a hard link created by {@link CopyMode#LINK}.
+     */
+    private static final boolean HARD_LINK_COUNT_SUPPORTED =
+        FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+
+    /**
+     * Strategies that can be used to copy binary files.
+     */
+    public enum CopyMode
+    {
+        /**
+         * Copy by streaming all bytes through a heap buffer.
+         */
+        STREAM,
+
+        /**
+         * Copy using {@link FileChannel#transferTo}, which lets the operating system move the
+         * bytes without going through the JVM heap.
+         */
+        CHANNEL,
+
+        /**
+         * Create a hard link to the source file instead of copying it. Files created this way share
+         * their contents with the source, hence all writes of this file handler first replace a
+         * file which has other hard links with an unlinked copy of itself. If the file system does
+         * not support hard links or cannot tell how many hard links a file has (or if the source
+         * and target are on different file systems), the copy falls back to {@link #CHANNEL}.
+         */
+        LINK;
+
+        /**
+         * @param copyMode Copy mode name, case insensitive.
+         * @return The matching {@link CopyMode}.
+         * @throws CargoException If the copy mode is unknown.
+         */
+        public static CopyMode toCopyMode(String copyMode) throws CargoException
+        {
+            try
+            {
+                return CopyMode.valueOf(copyMode.trim().toUpperCase(Locale.ENGLISH));
+            }
+            catch (IllegalArgumentException e)
+            {
+                throw new CargoException("Unknown file copy mode [" + copyMode + "], valid values "
+                    + "are stream, channel and link", e);
+            }
+        }
+    }
+
+    /**
+     * Strategy used for copying binary files.
+     */
+    private CopyMode copyMode = CopyMode.CHANNEL;
+
+    /**
+     * Maximum number of threads used when exploding archives.
+     */
+    private int explodeThreads =
+        Math.min(Runtime.getRuntime().availableProcessors(), DefaultFileHandler.EXPLODE_THREADS);
+
     /**
      * Sanitize a given name to turn it into a safe file name, removing for example leading or
      * trailing slashes, as well as intermediate parent path jumps.
@@ -214,31 +290,189 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
                 targetFile = new File(this.append(target, getName(source)));
             }
 
-            try (InputStream in = new FileInputStream(sourceFile);
-                FileOutputStream out = new FileOutputStream(targetFile))
+            long start = System.currentTimeMillis();
+            CopyMode usedCopyMode;
+            try
             {
-                this.copy(in, out);
+                usedCopyMode = this.copyFile(sourceFile, targetFile);
             }
             catch (IOException e)
             {
                 throw new CargoException("Failed to copy source file [" + source + "] to ["
                     + targetFile + "]", e);
             }
+            long duration = System.currentTimeMillis() - start;
+
+            getLogger().debug("Copied binary file [" + source + "] to [" + target + "] ("
+                + DefaultFileHandler.formatSize(targetFile.length()) + " in " + duration
+                    + " ms, copy mode " + usedCopyMode + ")", this.getClass().getName());
+        }
+    }
+
+    /**
+     * Copy a binary file using the configured {@link CopyMode}, falling back to the next slower
+     * mode if the file system cannot handle the requested one.
+     * 
+     * @param sourceFile File to copy from.
+     * @param targetFile File to copy to, will be overwritten if it exists.
+     * @return The {@link CopyMode} that has actually been used.
+     * @throws IOException If the copy fails.
+     */
+    private CopyMode copyFile(File sourceFile, File targetFile) throws IOException
+    {
+        if (this.copyMode == CopyMode.LINK && DefaultFileHandler.HARD_LINK_COUNT_SUPPORTED)
+        {
+            Path targetPath = targetFile.toPath();
+            try
+            {
+                Files.deleteIfExists(targetPath);
+                Files.createLink(targetPath, sourceFile.toPath());
+                return CopyMode.LINK;
+            }
+            catch (IOException | UnsupportedOperationException | SecurityException e)
+            {
+                getLogger().debug("Cannot create hard link from [" + sourceFile + "] to ["
+                    + targetFile + "], falling back to copy: " + e, this.getClass().getName());
+            }
+        }
 
-            long size = targetFile.length();
-            String unit = "bytes";
-            if (size > 1024)
+        this.breakHardLink(targetFile);
+        try (FileInputStream in = new FileInputStream(sourceFile);
+            FileOutputStream out = new FileOutputStream(targetFile))
+        {
+            if (this.copyMode != CopyMode.STREAM && this.transfer(in, out))
             {
-                size = size / 1024;
-                unit = "KB";
+                return CopyMode.CHANNEL;
             }
-            else if (size > 1024)
+            this.streamCopy(in, out, DefaultFileHandler.FILE_BUFFER_SIZE);
+            return CopyMode.STREAM;
+        }
+    }
+
+    /**
+     * Replace a file which has other hard links, for example because it has been copied using
+     * {@link CopyMode#LINK}, with an unlinked copy of itself, so that writing to the file does not
+     * modify the other hard links' contents.
+     * 
+     * @param file File about to be written to.
+     * @throws IOException If the file cannot be replaced.
+     */
+    private void breakHardLink(File file) throws IOException
+    {
+        if (!DefaultFileHandler.HARD_LINK_COUNT_SUPPORTED || !file.isFile())
+        {
+            return;
+        }
+
+        Path path = file.toPath();
+        Object links = Files.getAttribute(path, "unix:nlink");
+        if (links instanceof Integer && (Integer) links > 1)
+        {
+            Path copy = Files.createTempFile(path.getParent(), ".cargo-", ".tmp");
+            try
             {
-                size = size / 1024;
-                unit = "MB";
+                Files.copy(path, copy, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.COPY_ATTRIBUTES);
+                Files.move(copy, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
             }
-            getLogger().debug("Copied binary file [" + source + "] to [" + target + "] (" + size
-                + " " + unit + ")", this.getClass().getName());
+            finally
+            {
+                Files.deleteIfExists(copy);
+            }
+            getLogger().debug("Replaced hard link [" + file + "] with a copy before writing",
+                this.getClass().getName());
+        }
+    }
+
+    /**
+     * Transfer the remaining contents of a file input stream into a file output stream using
+     * {@link FileChannel#transferTo}.
+     * 
+     * @param in File input stream to read from, starting at its current position.
+     * @param out File output stream to write to, starting at its current position.
+     * @return <code>true</code> if all contents have been transferred, <code>false</code> if the
+     * underlying channels cannot transfer (any more), in which case the input stream is positioned
+     * after the transferred contents and the caller should copy the remaining ones using streams.
+     * @throws IOException If the transfer fails after some data has been written.
+     */
+    private boolean transfer(FileInputStream in, FileOutputStream out) throws IOException
+    {
+        FileChannel inChannel = in.getChannel();
+        FileChannel outChannel = out.getChannel();
+        long position = inChannel.position();
+        long outPosition = outChannel.position();
+        long size = inChannel.size();
+        try
+        {
+            while (position < size)
+            {
+                long transferred = inChannel.transferTo(position, size - position, outChannel);
+                if (transferred <= 0)
+                {
+                    getLogger().debug("Channel transfer stopped after " + position + " of " + size
+                        + " bytes, copying the rest using streams", this.getClass().getName());
+                    inChannel.position(position);
+                    return false;
+                }
+                position += transferred;
+            }
+        }
+        catch (IOException e)
+        {
+            if (outChannel.position() != outPosition)
+            {
+                throw e;
+            }
+            getLogger().debug("Channel transfer not supported, falling back to stream copy: " + e,
+                this.getClass().getName());
+            return false;
+        }
+        inChannel.position(position);
+        return true;
+    }
+
+    /**
+     * @param size Size in bytes.
+     * @return Human-readable size.
+     */
+    private static String formatSize(long size)
+    {
+        if (size > 1024 * 1024)
+        {
+            return size / (1024 * 1024) + " MB";
+        }
+        else if (size > 1024)
+        {
+            return size / 1024 + " KB";
+        }
+        else
+        {
+            return size + " bytes";
+        }
+    }
+
+    /**
+     * @return Strategy used for copying binary files.
+     */
+    public CopyMode getCopyMode()
+    {
+        return this.copyMode;
+    }
+
+    /**
+     * @param copyMode Strategy to use for copying binary files, <code>null</code> to reset to the
+     * default {@link CopyMode#CHANNEL}.
+     */
+    public void setCopyMode(CopyMode copyMode)
+    {
+        if (copyMode == null)
+        {
+            this.copyMode = CopyMode.CHANNEL;
+        }
+        else
+        {
+            this.copyMode = copyMode;
         }
     }
 
@@ -248,31 +482,31 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
     @Override
     public void copyFile(
         String source, String target, Map<String, String> replacements, Charset encoding)
+    {
+        this.copyFile(source, target, new TokenReplacer(replacements, "@"), encoding);
+    }
+
+    /**
+     * Copy a file from a source to a destination using token replacement.
+     * 
+     * @param source the file to copy from. Must not be <code>null</code>
+     * @param target the file to copy to. Must not be <code>null</code>
+     * @param replacer the compiled token replacements to use. Must not be <code>null</code>
+     * @param encoding The character encoding to use, may be {@code null} or empty to use the
+     *            platform's default encoding.
+     */
+    private void copyFile(String source, String target, TokenReplacer replacer, Charset encoding)
     {
         try (BufferedReader fileReader =
                 new BufferedReader(this.newReader(this.getInputStream(source), encoding));
-                BufferedWriter out = new BufferedWriter(this.newWriter(target, encoding)))
+                Writer out = replacer.newWriter(
+                    new BufferedWriter(this.newWriter(target, encoding))))
         {
             String line;
             while ((line = fileReader.readLine()) != null)
             {
-                if (line.isEmpty())
-                {
-                    out.newLine();
-                }
-                else
-                {
-                    if (replacements != null)
-                    {
-                        for (Map.Entry<String, String> replacement : replacements.entrySet())
-                        {
-                            String replacementKey = "@" + replacement.getKey() + "@";
-                            line = line.replace(replacementKey, replacement.getValue());
-                        }
-                    }
-                    out.write(line);
-                    out.newLine();
-                }
+                out.write(line);
+                out.write(FileHandler.NEW_LINE);
             }
         }
         catch (IOException e)
@@ -281,20 +515,9 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
                     + "] with replacements", e);
         }
 
-        long size = getSize(target);
-        String unit = "bytes";
-        if (size > 1024)
-        {
-            size = size / 1024;
-            unit = "KB";
-        }
-        else if (size > 1024)
-        {
-            size = size / 1024;
-            unit = "MB";
-        }
-        getLogger().debug("Copied text file [" + source + "] to [" + target + "] (" + size + " "
-            + unit + "), encoding " + encoding, this.getClass().getName());
+        getLogger().debug("Copied text file [" + source + "] to [" + target + "] ("
+            + DefaultFileHandler.formatSize(getSize(target)) + "), encoding " + encoding,
+                this.getClass().getName());
     }
 
     /**
@@ -411,6 +634,29 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
     @Override
     public void copyDirectory(
         String source, String target, Map<String, String> replacements, Charset encoding)
+    {
+        TokenReplacer replacer = null;
+        if (replacements != null)
+        {
+            replacer = new TokenReplacer(replacements, "@");
+        }
+        this.copyDirectory(source, target, replacer, encoding);
+
+        getLogger().debug("Copied directory [" + source + "] to [" + target
+            + "] with replacements [" + replacements + "]", this.getClass().getName());
+    }
+
+    /**
+     * Copy a directory from a source to a destination using a token replacement.
+     * 
+     * @param source the directory to copy from. Must not be <code>null</code>
+     * @param target the directory to copy to. Must not be <code>null</code>
+     * @param replacer the compiled token replacements to use, <code>null</code> to copy as-is.
+     * @param encoding The character encoding to use, may be {@code null} or empty to use the
+     *            platform's default encoding.
+     */
+    private void copyDirectory(
+        String source, String target, TokenReplacer replacer, Charset encoding)
     {
         File sourceDirectory = new File(source);
         if (!sourceDirectory.isDirectory())
@@ -433,7 +679,7 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
             File targetFile = new File(targetDirectory, sourceDirectoryContent.getName());
             if (sourceDirectoryContent.isFile())
             {
-                if (replacements == null)
+                if (replacer == null)
                 {
                     this.copyFile(
                         sourceDirectoryContent.getAbsolutePath(), targetFile.getAbsolutePath());
@@ -441,18 +687,15 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
                 else
                 {
                     this.copyFile(sourceDirectoryContent.getAbsolutePath(),
-                        targetFile.getAbsolutePath(), replacements, encoding);
+                        targetFile.getAbsolutePath(), replacer, encoding);
                 }
             }
             else
             {
                 this.copyDirectory(sourceDirectoryContent.getAbsolutePath(),
-                    targetFile.getAbsolutePath(), replacements, encoding);
+                    targetFile.getAbsolutePath(), replacer, encoding);
             }
         }
-
-        getLogger().debug("Copied directory [" + source + "] to [" + target
-            + "] with replacements [" + replacements + "]", this.getClass().getName());
     }
 
     /**
@@ -466,30 +709,53 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
             delete(exploded);
         }
 
-        Path explodedPath = new File(exploded).toPath();
-        try (JarFile archive = new JarFile(new File(war).getAbsoluteFile()))
+        File warFile = new File(war).getAbsoluteFile();
+        try
         {
-            Enumeration e = archive.entries();
-            while (e.hasMoreElements())
+            // Read the central directory once, then create all directories in a single pass so
+            // that the extraction itself only needs to write files
+            List<String[]> files = new ArrayList<String[]>();
+            Set<String> directories = new LinkedHashSet<String>();
+            try (ZipFile archive = new ZipFile(warFile))
             {
-                JarEntry j = (JarEntry) e.nextElement();
-                String dst = this.append(exploded,
-                    DefaultFileHandler.sanitizeFilename(j.getName(), getLogger()));
-
-                if (j.isDirectory())
+                Enumeration<? extends ZipEntry> e = archive.entries();
+                while (e.hasMoreElements())
                 {
-                    this.mkdirs(dst);
-                    continue;
+                    ZipEntry entry = e.nextElement();
+                    String dst = this.append(exploded,
+                        DefaultFileHandler.sanitizeFilename(entry.getName(), getLogger()));
+
+                    if (entry.isDirectory())
+                    {
+                        directories.add(dst);
+                    }
+                    else
+                    {
+                        directories.add(getParent(dst));
+                        files.add(new String[] {entry.getName(), dst});
+                    }
                 }
 
-                this.mkdirs(getParent(dst));
+                for (String directory : directories)
+                {
+                    this.mkdirs(directory);
+                }
 
-                try (InputStream in = archive.getInputStream(j);
-                    FileOutputStream out = new FileOutputStream(dst))
+                int threads = Math.min(this.explodeThreads,
+                    files.size() / DefaultFileHandler.EXPLODE_ENTRIES_PER_THREAD);
+                if (threads <= 1)
                 {
-                    this.copy(in, out);
+                    this.explode(archive, files, 0, 1);
+                }
+                else
+                {
+                    this.explode(warFile, files, threads);
                 }
             }
+
+            getLogger().debug("Exploded [" + war + "] into [" + exploded + "]: "
+                + files.size() + " files, " + directories.size() + " directories",
+                    this.getClass().getName());
         }
         catch (IOException e)
         {
@@ -507,6 +773,126 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
         }
     }
 
+    /**
+     * Extracts files from an archive in parallel, each worker reading through its own
+     * {@link ZipFile} handle.
+     * 
+     * @param warFile Archive to extract.
+     * @param files Files to extract, each element being the entry name and the destination.
+     * @param threads Number of worker threads.
+     * @throws IOException If extraction fails.
+     */
+    private void explode(final File warFile, final List<String[]> files, int threads)
+        throws IOException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<Void>> workers = new ArrayList<Future<Void>>(threads);
+            for (int i = 0; i < threads; i++)
+            {
+                final int offset = i;
+                final int stride = threads;
+                workers.add(executor.submit(new Callable<Void>()
+                {
+                    @Override
+                    public Void call() throws IOException
+                    {
+                        try (ZipFile archive = new ZipFile(warFile))
+                        {
+                            DefaultFileHandler.this.explode(archive, files, offset, stride);
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> worker : workers)
+            {
+                try
+                {
+                    worker.get();
+                }
+                catch (ExecutionException e)
+                {
+                    if (e.getCause() instanceof IOException)
+                    {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new CargoException("Failed to extract file [" + warFile + "]",
+                        e.getCause());
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new CargoException("Interrupted while extracting [" + warFile + "]", e);
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Extracts a slice of the files of an archive. Destination directories must already exist.
+     * 
+     * @param archive Archive to read from.
+     * @param files Files to extract, each element being the entry name and the destination.
+     * @param offset Index of the first file to extract.
+     * @param stride Distance between two files to extract.
+     * @throws IOException If extraction fails.
+     */
+    private void explode(ZipFile archive, List<String[]> files, int offset, int stride)
+        throws IOException
+    {
+        for (int i = offset; i < files.size(); i += stride)
+        {
+            if (Thread.currentThread().isInterrupted())
+            {
+                throw new InterruptedIOException("Extraction of [" + archive.getName()
+                    + "] interrupted");
+            }
+
+            String[] file = files.get(i);
+            ZipEntry entry = archive.getEntry(file[0]);
+            if (entry == null)
+            {
+                throw new FileNotFoundException("Entry [" + file[0] + "] not found in ["
+                    + archive.getName() + "]");
+            }
+
+            this.breakHardLink(new File(file[1]));
+            try (InputStream in = archive.getInputStream(entry);
+                FileOutputStream out = new FileOutputStream(file[1]))
+            {
+                this.copy(in, out);
+            }
+        }
+    }
+
+    /**
+     * @return Maximum number of threads used when exploding archives.
+     */
+    public int getExplodeThreads()
+    {
+        return this.explodeThreads;
+    }
+
+    /**
+     * @param explodeThreads Maximum number of threads to use when exploding archives, set to
+     * <code>1</code> to extract sequentially.
+     */
+    public void setExplodeThreads(int explodeThreads)
+    {
+        if (explodeThreads < 1)
+        {
+            throw new IllegalArgumentException("The number of explode threads must be positive");
+        }
+        this.explodeThreads = explodeThreads;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -530,12 +916,14 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
     {
         try
         {
-            byte[] buf = new byte[bufSize];
-            int length;
-            while ((length = in.read(buf)) != -1)
+            if (this.copyMode != CopyMode.STREAM && in instanceof FileInputStream
+                && out instanceof FileOutputStream
+                    && this.transfer((FileInputStream) in, (FileOutputStream) out))
             {
-                out.write(buf, 0, length);
+                return;
             }
+
+            this.streamCopy(in, out, bufSize);
         }
         catch (IOException e)
         {
@@ -544,6 +932,24 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
         }
     }
 
+    /**
+     * Copy the remaining contents of an input stream into an output stream through a heap buffer.
+     * 
+     * @param in Input stream to read from.
+     * @param out Output stream to write to.
+     * @param bufSize Size of the buffer.
+     * @throws IOException If the copy fails.
+     */
+    private void streamCopy(InputStream in, OutputStream out, int bufSize) throws IOException
+    {
+        byte[] buf = new byte[bufSize];
+        int length;
+        while ((length = in.read(buf)) != -1)
+        {
+            out.write(buf, 0, length);
+        }
+    }
+
     /**
      * {@inheritDoc}. The default buffer size is {@link DefaultFileHandler#FILE_BUFFER_SIZE}.
      */
@@ -570,19 +976,42 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
     public void replaceInFile(String file, Map<String, String> replacements, Charset encoding,
         boolean ignoreNonExistingProperties) throws CargoException
     {
-        String fileContents = readTextFile(file, encoding);
+        TokenReplacer replacer = new TokenReplacer(replacements);
+        String replacedFile = file + ".cargo-replace";
+        Set<String> unmatchedKeys;
 
-        for (Map.Entry<String, String> replacement : replacements.entrySet())
+        // Stream the file with replacements into a temporary file, only overwrite the original
+        // file once all replacements have been validated
+        try
         {
-            if (!fileContents.contains(replacement.getKey()))
+            try (BufferedReader in =
+                    new BufferedReader(this.newReader(this.getInputStream(file), encoding));
+                TokenReplacer.ReplacingWriter out =
+                    replacer.newWriter(new BufferedWriter(this.newWriter(replacedFile, encoding))))
+            {
+                String line;
+                boolean firstLine = true;
+                while ((line = in.readLine()) != null)
+                {
+                    if (!firstLine)
+                    {
+                        out.write(FileHandler.NEW_LINE);
+                    }
+                    out.write(line);
+                    firstLine = false;
+                }
+                out.close();
+                unmatchedKeys = out.getUnmatchedKeys();
+            }
+
+            for (String unmatchedKey : unmatchedKeys)
             {
                 String message = "File " + file + " does not contain replacement key "
-                    + replacement.getKey();
+                    + unmatchedKey;
 
                 if (ignoreNonExistingProperties)
                 {
                     getLogger().debug(message, this.getClass().getName());
-                    continue;
                 }
                 else
                 {
@@ -590,127 +1019,39 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
                 }
             }
 
-            fileContents = fileContents.replace(replacement.getKey(), replacement.getValue());
-        }
-
-        writeTextFile(file, fileContents, encoding);
-    }
-
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public void replaceInXmlFile(XmlReplacement... xmlReplacements) throws CargoException
-    {
-        Map<String, Map<XmlReplacementDetails, String>> replacements =
-            new HashMap<String, Map<XmlReplacementDetails, String>>();
-
-        for (XmlReplacement xmlReplacement : xmlReplacements)
-        {
-            Map<XmlReplacementDetails, String> replacementDetails =
-                replacements.get(xmlReplacement.getFile());
-            if (replacementDetails == null)
+            try (InputStream in = this.getInputStream(replacedFile);
+                OutputStream out = this.getOutputStream(file))
             {
-                replacementDetails = new HashMap<XmlReplacementDetails, String>();
-                replacements.put(xmlReplacement.getFile(), replacementDetails);
+                this.copy(in, out);
             }
-
-            XmlReplacementDetails xmlReplacementDetails = new XmlReplacementDetails(
-                xmlReplacement.getXpathExpression(), xmlReplacement.getAttributeName(),
-                    xmlReplacement.getReplacementBehavior());
-            replacementDetails.put(xmlReplacementDetails, xmlReplacement.getValue());
         }
-
-        for (Map.Entry<String, Map<XmlReplacementDetails, String>> replacement
-            : replacements.entrySet())
+        catch (IOException e)
         {
-            replaceInXmlFile(replacement.getKey(), replacement.getValue());
+            throw new CargoException("Failed to replace in file [" + file + "]", e);
         }
-    }
-
-    /**
-     * Replaces using a map of XML replacements in a given file.
-     * 
-     * @param file File to replace in.
-     * @param replacements Map containing XML replacements.
-     * @throws CargoException If anything fails, most notably if one of the replacements does not
-     * exist in the file.
-     */
-    private void replaceInXmlFile(String file, Map<XmlReplacementDetails, String> replacements)
-        throws CargoException
-    {
-        XmlUtils domUtils = new XmlUtils(this);
-        Document doc = domUtils.loadXmlFromFile(file);
-
-        try
+        finally
         {
-            XPathFactory xPathFactory = XPathFactory.newInstance();
-            XPath xPath = xPathFactory.newXPath();
-
-            for (Map.Entry<XmlReplacementDetails, String> replacement : replacements.entrySet())
+            if (this.exists(replacedFile))
             {
-                String expression = replacement.getKey().getXpathExpression();
-                String attributeName = replacement.getKey().getAttributeName();
-
-                XPathExpression xPathExpr = xPath.compile(expression);
-
-                Node node = (Node) xPathExpr.evaluate(doc, XPathConstants.NODE);
-
-                if (node == null)
-                {
-                    String message = "Node " + expression + " not found in file " + file;
-
-                    XmlReplacement.ReplacementBehavior replacementBehavior =
-                            replacement.getKey().getReplacementBehavior();
-                    switch (replacementBehavior)
-                    {
-                        case IGNORE_IF_NON_EXISTING:
-                            getLogger().debug(message, this.getClass().getName());
-                            continue;
-
-                        case THROW_EXCEPTION:
-                            throw new CargoException(message);
-
-                        case ADD_MISSING_NODES:
-                            node = new MissingXmlElementAppender(doc, expression).append();
-                            break;
-
-                        default:
-                            throw new IllegalStateException("Unknown ReplacementBehavior ["
-                                + replacementBehavior + "]");
-                    }
-                }
-
-                if (attributeName != null)
-                {
-                    Node attribute = node.getAttributes().getNamedItem(attributeName);
-
-                    if (attribute == null)
-                    {
-                        ((Element) node).setAttribute(attributeName, replacement.getValue());
-                    }
-                    else
-                    {
-                        attribute.setNodeValue(replacement.getValue());
-                    }
-                }
-                else
-                {
-                    node.setTextContent(replacement.getValue());
-                }
+                this.delete(replacedFile);
             }
         }
-        catch (Exception e)
-        {
-            throw new CargoException("Cannot modify XML document " + file, e);
-        }
 
-        domUtils.saveXml(doc, file);
-
-        getLogger().debug("Performed XML replacements in [" + file + "]",
+        getLogger().debug("Performed replacements in [" + file + "], encoding " + encoding,
             this.getClass().getName());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void replaceInXmlFile(XmlReplacement... xmlReplacements) throws CargoException
+    {
+        XmlEditSession session = new XmlEditSession(this);
+        session.replace(xmlReplacements);
+        session.save();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -780,6 +1121,25 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
         return fileObject.length();
     }
 
+    /**
+     * {@inheritDoc}. A file which has other hard links, for example because it has been copied
+     * using {@link CopyMode#LINK}, is first replaced with an unlinked copy of itself, so that the
+     * modification time of the other hard links does not change.
+     */
+    @Override
+    public void setLastModified(String file, long time)
+    {
+        try
+        {
+            this.breakHardLink(new File(file).getAbsoluteFile());
+        }
+        catch (IOException e)
+        {
+            throw new CargoException("Failed to set the modification time of [" + file + "]", e);
+        }
+        FileHandler.super.setLastModified(file, time);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -813,9 +1173,10 @@ public class DefaultFileHandler extends LoggedObject implements FileHandler
         OutputStream os;
         try
         {
+            this.breakHardLink(new File(file));
             os = new FileOutputStream(file);
         }
-        catch (FileNotFoundException e)
+        catch (IOException e)
         {
             throw new CargoException("Failed to open output stream for file [" + file + "]", e);
         }
@@ -19,6 +19,7 @@
  */
 package org.codehaus.cargo.util;
 
+import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
@@ -305,6 +306,32 @@ public interface FileHandler extends Loggable
      */
     long getSize(String file);
 
+    /**
+     * @param file the file for which to get the modification time
+     * @return Modification time of the file, in milliseconds since the epoch
+     */
+    default long getLastModified(String file)
+    {
+        File fileObject = new File(file).getAbsoluteFile();
+        if (!fileObject.exists())
+        {
+            throw new CargoException("File [" + file + "] does not exist");
+        }
+        return fileObject.lastModified();
+    }
+
+    /**
+     * @param file the file for which to set the modification time
+     * @param time Modification time to set, in milliseconds since the epoch
+     */
+    default void setLastModified(String file, long time)
+    {
+        if (!new File(file).getAbsoluteFile().setLastModified(time))
+        {
+            throw new CargoException("Failed to set the modification time of [" + file + "]");
+        }
+    }
+
     /**
      * @param file the file for which to get an InputStream for
      * @return an InputStream pointing to the file
@@ -0,0 +1,456 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.util;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Replaces tokens in streamed text. The result is the same as calling
+ * {@link String#replace(CharSequence, CharSequence)} for each replacement, in the order of the
+ * replacements map: each replacement applies to the text produced by the previous ones, so a key
+ * which is contained in, or overlaps, another key is still replaced if it remains in the text.
+ * Text is streamed through a {@link ReplacingWriter} which chains one stage per replacement, so
+ * the text is never fully loaded in memory. A {@link TokenReplacer} is immutable and can be shared
+ * between threads.
+ */
+public class TokenReplacer
+{
+    /**
+     * Minimal size of the character buffer of a replacing stage.
+     */
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Single replacement.
+     */
+    private static class Replacement
+    {
+        /**
+         * Replacement key.
+         */
+        private final String key;
+
+        /**
+         * Token to look for.
+         */
+        private final char[] token;
+
+        /**
+         * Replacement value.
+         */
+        private final String value;
+
+        /**
+         * @param key Replacement key.
+         * @param token Token to look for.
+         * @param value Replacement value.
+         */
+        Replacement(String key, String token, String value)
+        {
+            this.key = key;
+            this.token = token.toCharArray();
+            this.value = value;
+        }
+    }
+
+    /**
+     * Replacements, in the order of the original map.
+     */
+    private final List<Replacement> replacements = new ArrayList<Replacement>();
+
+    /**
+     * Replacement keys, in the order of the original map.
+     */
+    private final Set<String> keys = new LinkedHashSet<String>();
+
+    /**
+     * Compiles replacements where each key is replaced as-is.
+     * @param replacements Replacements, keys being the text to replace. Entries with an empty key
+     * or a <code>null</code> value are ignored.
+     */
+    public TokenReplacer(Map<String, String> replacements)
+    {
+        this(replacements, "");
+    }
+
+    /**
+     * Compiles replacements where each key is surrounded by a delimiter, for example
+     * <code>@</code> to replace <code>@key@</code> tokens.
+     * @param replacements Replacements, keys being the token names. Entries with an empty key or a
+     * <code>null</code> value are ignored.
+     * @param delimiter Delimiter surrounding each key in the text.
+     */
+    public TokenReplacer(Map<String, String> replacements, String delimiter)
+    {
+        if (replacements != null)
+        {
+            for (Map.Entry<String, String> replacement : replacements.entrySet())
+            {
+                if (replacement.getKey() != null && !replacement.getKey().isEmpty()
+                    && replacement.getValue() != null)
+                {
+                    this.replacements.add(new Replacement(replacement.getKey(),
+                        delimiter + replacement.getKey() + delimiter, replacement.getValue()));
+                    this.keys.add(replacement.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whether this replacer has no token to replace.
+     */
+    public boolean isEmpty()
+    {
+        return this.keys.isEmpty();
+    }
+
+    /**
+     * Creates a writer replacing tokens on the fly. Tokens can span several <code>write</code>
+     * calls, hence the writer must be closed in order to write the last characters.
+     * @param out Writer to write the replaced text into.
+     * @return Replacing writer.
+     */
+    public ReplacingWriter newWriter(Writer out)
+    {
+        return new ReplacingWriter(out);
+    }
+
+    /**
+     * Replaces tokens in a string.
+     * @param text Text to replace tokens in.
+     * @return Text with tokens replaced.
+     */
+    public String replace(String text)
+    {
+        if (isEmpty() || text.isEmpty())
+        {
+            return text;
+        }
+
+        StringWriter result = new StringWriter(text.length());
+        try (ReplacingWriter writer = newWriter(result))
+        {
+            writer.write(text);
+        }
+        catch (IOException e)
+        {
+            throw new CargoException("Cannot replace tokens", e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Writer replacing the token of one replacement on the fly.
+     */
+    private static class Stage extends FilterWriter
+    {
+        /**
+         * Replacement done by this stage.
+         */
+        private final Replacement replacement;
+
+        /**
+         * Characters that have not been processed yet.
+         */
+        private final char[] buffer;
+
+        /**
+         * Number of characters in the buffer.
+         */
+        private int count;
+
+        /**
+         * Whether the token has been replaced at least once.
+         */
+        private boolean matched;
+
+        /**
+         * @param out Writer to write the replaced text into.
+         * @param replacement Replacement done by this stage.
+         */
+        Stage(Writer out, Replacement replacement)
+        {
+            super(out);
+            this.replacement = replacement;
+            this.buffer = new char[Math.max(BUFFER_SIZE, replacement.token.length * 2)];
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(int c) throws IOException
+        {
+            if (this.count == this.buffer.length)
+            {
+                process(false);
+            }
+            this.buffer[this.count++] = (char) c;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0)
+            {
+                if (this.count == this.buffer.length)
+                {
+                    process(false);
+                }
+                int length = Math.min(remaining, this.buffer.length - this.count);
+                System.arraycopy(cbuf, offset, this.buffer, this.count, length);
+                this.count += length;
+                offset += length;
+                remaining -= length;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(String str, int off, int len) throws IOException
+        {
+            int offset = off;
+            int remaining = len;
+            while (remaining > 0)
+            {
+                if (this.count == this.buffer.length)
+                {
+                    process(false);
+                }
+                int length = Math.min(remaining, this.buffer.length - this.count);
+                str.getChars(offset, offset + length, this.buffer, this.count);
+                this.count += length;
+                offset += length;
+                remaining -= length;
+            }
+        }
+
+        /**
+         * @param position Position in the buffer.
+         * @return Whether the token starts at the given position.
+         */
+        private boolean matches(int position)
+        {
+            char[] token = this.replacement.token;
+            for (int i = 0; i < token.length; i++)
+            {
+                if (this.buffer[position + i] != token[i])
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Replaces the token in the buffered characters and writes them. Characters which might be
+         * the start of a token are kept in the buffer.
+         * @param endOfText Whether the end of the text has been reached.
+         * @throws IOException If writing fails.
+         */
+        private void process(boolean endOfText) throws IOException
+        {
+            int tokenLength = this.replacement.token.length;
+            int limit = this.count - tokenLength + 1;
+
+            int position = 0;
+            int pending = 0;
+            while (position < limit)
+            {
+                if (matches(position))
+                {
+                    this.out.write(this.buffer, pending, position - pending);
+                    this.out.write(this.replacement.value);
+                    this.matched = true;
+                    position += tokenLength;
+                    pending = position;
+                }
+                else
+                {
+                    position++;
+                }
+            }
+            int processed = endOfText ? this.count : Math.max(position, pending);
+            this.out.write(this.buffer, pending, processed - pending);
+
+            this.count -= processed;
+            System.arraycopy(this.buffer, processed, this.buffer, 0, this.count);
+        }
+
+        /**
+         * Writes all remaining characters, without closing the underlying writer.
+         * @throws IOException If writing fails.
+         */
+        void finish() throws IOException
+        {
+            process(true);
+        }
+    }
+
+    /**
+     * Writer replacing tokens on the fly and keeping track of which replacement keys have been
+     * found.
+     */
+    public class ReplacingWriter extends FilterWriter
+    {
+        /**
+         * Replacing stages, in the order of the replacements. Each stage writes into the next one
+         * and the last one writes into the underlying writer.
+         */
+        private final List<Stage> stages = new ArrayList<Stage>();
+
+        /**
+         * Whether this writer has been closed.
+         */
+        private boolean closed;
+
+        /**
+         * @param out Writer to write the replaced text into.
+         */
+        protected ReplacingWriter(Writer out)
+        {
+            super(out);
+            Writer next = out;
+            for (int i = replacements.size() - 1; i >= 0; i--)
+            {
+                Stage stage = new Stage(next, replacements.get(i));
+                this.stages.add(0, stage);
+                next = stage;
+            }
+        }
+
+        /**
+         * @return Writer the text should be written into.
+         */
+        private Writer first()
+        {
+            if (this.stages.isEmpty())
+            {
+                return this.out;
+            }
+            return this.stages.get(0);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(int c) throws IOException
+        {
+            first().write(c);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException
+        {
+            first().write(cbuf, off, len);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void write(String str, int off, int len) throws IOException
+        {
+            first().write(str, off, len);
+        }
+
+        /**
+         * Flushes the underlying writer. Characters which might be the start of a token are kept
+         * until more text is written or this writer is closed.
+         * {@inheritDoc}
+         */
+        @Override
+        public void flush() throws IOException
+        {
+            this.out.flush();
+        }
+
+        /**
+         * Writes all remaining characters and closes the underlying writer.
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() throws IOException
+        {
+            if (!this.closed)
+            {
+                this.closed = true;
+                try
+                {
+                    for (Stage stage : this.stages)
+                    {
+                        stage.finish();
+                    }
+                }
+                finally
+                {
+                    this.out.close();
+                }
+            }
+        }
+
+        /**
+         * @return Keys that have been replaced so far.
+         */
+        public Set<String> getMatchedKeys()
+        {
+            Set<String> matchedKeys = new HashSet<String>();
+            for (Stage stage : this.stages)
+            {
+                if (stage.matched)
+                {
+                    matchedKeys.add(stage.replacement.key);
+                }
+            }
+            return matchedKeys;
+        }
+
+        /**
+         * @return Keys that have not been replaced so far, in the order of the replacements.
+         */
+        public Set<String> getUnmatchedKeys()
+        {
+            Set<String> unmatchedKeys = new LinkedHashSet<String>(keys);
+            unmatchedKeys.removeAll(getMatchedKeys());
+            return unmatchedKeys;
+        }
+    }
+}
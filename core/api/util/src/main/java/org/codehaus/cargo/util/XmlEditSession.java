@@ -0,0 +1,253 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.xpath.XPathConstants;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import org.codehaus.cargo.util.FileHandler.XmlReplacementDetails;
+import org.codehaus.cargo.util.log.LoggedObject;
+
+/**
+ * Groups edits to XML files: each file is parsed the first time it is edited, all edits are then
+ * applied to the in-memory document and each modified file is written exactly once when calling
+ * {@link #save()}. A session is meant to be used by a single thread.
+ */
+public class XmlEditSession extends LoggedObject
+{
+    /**
+     * File handler used to read and write the XML files.
+     */
+    private FileHandler fileHandler;
+
+    /**
+     * XML utilities, used for parsing, XPath evaluation and saving.
+     */
+    private XmlUtils xmlUtil;
+
+    /**
+     * Documents being edited, indexed by file name.
+     */
+    private Map<String, Document> documents = new LinkedHashMap<String, Document>();
+
+    /**
+     * Creates an XML edit session.
+     *
+     * @param fileHandler File handler used to read and write the XML files.
+     */
+    public XmlEditSession(FileHandler fileHandler)
+    {
+        this.fileHandler = fileHandler;
+        this.xmlUtil = new XmlUtils(fileHandler);
+        setLogger(fileHandler.getLogger());
+    }
+
+    /**
+     * @param file XML file.
+     * @return In-memory document for the file, parsing it if this is the first time it is used in
+     * this session.
+     */
+    public Document getDocument(String file)
+    {
+        Document document = this.documents.get(file);
+        if (document == null)
+        {
+            document = this.xmlUtil.loadXmlFromFile(file);
+            this.documents.put(file, document);
+        }
+        return document;
+    }
+
+    /**
+     * Applies XML replacements. If several replacements target the same file, XPath expression
+     * and attribute, the last one wins.
+     *
+     * @param xmlReplacements XML replacements to apply.
+     * @throws CargoException If anything fails, most notably if one of the replacements does not
+     * exist in the file.
+     */
+    public void replace(XmlReplacement... xmlReplacements) throws CargoException
+    {
+        Map<String, Map<XmlReplacementDetails, String>> replacements =
+            new LinkedHashMap<String, Map<XmlReplacementDetails, String>>();
+
+        for (XmlReplacement xmlReplacement : xmlReplacements)
+        {
+            Map<XmlReplacementDetails, String> replacementDetails =
+                replacements.get(xmlReplacement.getFile());
+            if (replacementDetails == null)
+            {
+                replacementDetails = new LinkedHashMap<XmlReplacementDetails, String>();
+                replacements.put(xmlReplacement.getFile(), replacementDetails);
+            }
+
+            XmlReplacementDetails xmlReplacementDetails = new XmlReplacementDetails(
+                xmlReplacement.getXpathExpression(), xmlReplacement.getAttributeName(),
+                    xmlReplacement.getReplacementBehavior());
+            replacementDetails.put(xmlReplacementDetails, xmlReplacement.getValue());
+        }
+
+        for (Map.Entry<String, Map<XmlReplacementDetails, String>> replacement
+            : replacements.entrySet())
+        {
+            replace(replacement.getKey(), replacement.getValue());
+        }
+    }
+
+    /**
+     * Applies a map of XML replacements to a given file.
+     *
+     * @param file File to replace in.
+     * @param replacements Map containing XML replacements.
+     * @throws CargoException If anything fails, most notably if one of the replacements does not
+     * exist in the file.
+     */
+    private void replace(String file, Map<XmlReplacementDetails, String> replacements)
+        throws CargoException
+    {
+        Document doc = getDocument(file);
+
+        try
+        {
+            for (Map.Entry<XmlReplacementDetails, String> replacement : replacements.entrySet())
+            {
+                String expression = replacement.getKey().getXpathExpression();
+                String attributeName = replacement.getKey().getAttributeName();
+
+                Node node = (Node) this.xmlUtil.compileXPath(expression).evaluate(
+                    doc, XPathConstants.NODE);
+
+                if (node == null)
+                {
+                    String message = "Node " + expression + " not found in file " + file;
+
+                    XmlReplacement.ReplacementBehavior replacementBehavior =
+                            replacement.getKey().getReplacementBehavior();
+                    switch (replacementBehavior)
+                    {
+                        case IGNORE_IF_NON_EXISTING:
+                            getLogger().debug(message, this.getClass().getName());
+                            continue;
+
+                        case THROW_EXCEPTION:
+                            throw new CargoException(message);
+
+                        case ADD_MISSING_NODES:
+                            node = new MissingXmlElementAppender(doc, expression).append();
+                            break;
+
+                        default:
+                            throw new IllegalStateException("Unknown ReplacementBehavior ["
+                                + replacementBehavior + "]");
+                    }
+                }
+
+                if (attributeName != null)
+                {
+                    Node attribute = node.getAttributes().getNamedItem(attributeName);
+
+                    if (attribute == null)
+                    {
+                        ((Element) node).setAttribute(attributeName, replacement.getValue());
+                    }
+                    else
+                    {
+                        attribute.setNodeValue(replacement.getValue());
+                    }
+                }
+                else
+                {
+                    node.setTextContent(replacement.getValue());
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            throw new CargoException("Cannot modify XML document " + file, e);
+        }
+
+        getLogger().debug("Performed XML replacements in [" + file + "]",
+            this.getClass().getName());
+    }
+
+    /**
+     * Inserts XML elements under the element matching an XPath expression.
+     *
+     * @param file XML file to insert into.
+     * @param elementsToParse XML elements to insert, as a string.
+     * @param xpath XPath expression for the parent element.
+     * @param namespaces Namespaces used by the XPath expression, may be <code>null</code>.
+     */
+    public void insertElementsUnderXPath(String file, String elementsToParse, String xpath,
+        Map<String, String> namespaces)
+    {
+        Document document = getDocument(file);
+
+        this.xmlUtil.setNamespaces(namespaces);
+        Element parent =
+            this.xmlUtil.selectElementMatchingXPath(xpath, document.getDocumentElement());
+
+        Element nestedElements =
+            this.xmlUtil.parseIntoElement("<parent>" + elementsToParse + "</parent>");
+        NodeList children = nestedElements.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++)
+        {
+            Node clone = document.importNode(children.item(i), true);
+            parent.appendChild(clone);
+        }
+    }
+
+    /**
+     * Writes each document edited in this session once and ends the session.
+     */
+    public void save()
+    {
+        for (Map.Entry<String, Document> document : this.documents.entrySet())
+        {
+            this.xmlUtil.saveXml(document.getValue(), document.getKey());
+            getLogger().debug("Saved XML file [" + document.getKey() + "]",
+                this.getClass().getName());
+        }
+        this.documents.clear();
+    }
+
+    /**
+     * Ends the session without writing any document.
+     */
+    public void discard()
+    {
+        this.documents.clear();
+    }
+
+    /**
+     * @return File handler used to read and write the XML files.
+     */
+    public FileHandler getFileHandler()
+    {
+        return this.fileHandler;
+    }
+}
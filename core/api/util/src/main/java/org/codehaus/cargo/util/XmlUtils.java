@@ -24,8 +24,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -36,6 +39,7 @@ import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import javax.xml.xpath.XPath;
 
@@ -50,6 +54,124 @@ import org.w3c.dom.ls.LSSerializer;
  */
 public class XmlUtils
 {
+    /**
+     * Maximum number of compiled XPath expressions cached per {@link XmlUtils} instance.
+     */
+    private static final int XPATH_CACHE_SIZE = 256;
+
+    /**
+     * Maximum number of idle {@link XmlFactories} kept in the pool.
+     */
+    private static final int FACTORIES_POOL_SIZE = 4;
+
+    /**
+     * Pool of idle XML factories. JAXP factories are not thread-safe whereas looking them up is
+     * expensive, hence borrowing them from a bounded pool for the duration of each operation.
+     * Unlike a {@link ThreadLocal}, the pool is not referenced by long-lived threads and hence
+     * does not prevent the class loader of Cargo from being garbage collected.
+     */
+    private static final Queue<XmlFactories> FACTORIES = new ConcurrentLinkedQueue<XmlFactories>();
+
+    /**
+     * XML factories, used by one thread at a time.
+     */
+    private static class XmlFactories
+    {
+        /**
+         * Document builder factories, index 0 is not namespace aware and index 1 is.
+         */
+        private final DocumentBuilderFactory[] documentBuilderFactories =
+            new DocumentBuilderFactory[2];
+
+        /**
+         * XPath factory.
+         */
+        private XPathFactory xPathFactory;
+
+        /**
+         * Transformer factory.
+         */
+        private TransformerFactory transformerFactory;
+
+        /**
+         * @param namespaceAware Whether the factory should be namespace aware.
+         * @return Document builder factory.
+         */
+        private DocumentBuilderFactory getDocumentBuilderFactory(boolean namespaceAware)
+        {
+            int index = namespaceAware ? 1 : 0;
+            if (documentBuilderFactories[index] == null)
+            {
+                DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
+                domFactory.setNamespaceAware(namespaceAware);
+                // Do not load remote DTDS as remote servers sometimes become unreachable
+                try
+                {
+                    domFactory.setFeature(
+                        "http://apache.org/xml/features/nonvalidating/load-dtd-grammar", false);
+                    domFactory.setFeature(
+                        "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+                }
+                catch (AbstractMethodError | ParserConfigurationException ignored)
+                {
+                    // Ignored
+                }
+                documentBuilderFactories[index] = domFactory;
+            }
+            return documentBuilderFactories[index];
+        }
+
+        /**
+         * @return XPath factory.
+         */
+        private XPathFactory getXPathFactory()
+        {
+            if (xPathFactory == null)
+            {
+                xPathFactory = XPathFactory.newInstance();
+            }
+            return xPathFactory;
+        }
+
+        /**
+         * @return Transformer factory.
+         */
+        private TransformerFactory getTransformerFactory()
+        {
+            if (transformerFactory == null)
+            {
+                transformerFactory = TransformerFactory.newInstance();
+            }
+            return transformerFactory;
+        }
+    }
+
+    /**
+     * @return XML factories borrowed from the pool, to be given back using
+     * {@link #release(XmlFactories)}.
+     */
+    private static XmlFactories borrow()
+    {
+        XmlFactories factories = XmlUtils.FACTORIES.poll();
+        if (factories == null)
+        {
+            factories = new XmlFactories();
+        }
+        return factories;
+    }
+
+    /**
+     * Gives XML factories back to the pool, dropping them if the pool is full.
+     * @param factories XML factories obtained using {@link #borrow()}.
+     */
+    private static void release(XmlFactories factories)
+    {
+        if (XmlUtils.FACTORIES.size() < XmlUtils.FACTORIES_POOL_SIZE)
+        {
+            XmlUtils.FACTORIES.offer(factories);
+        }
+    }
+
     /**
      * File utility class.
      */
@@ -65,6 +187,22 @@ public class XmlUtils
      */
     private XPath xPath;
 
+    /**
+     * Compiled XPath expressions, least recently used ones being evicted first.
+     */
+    private final Map<String, XPathExpression> xPathExpressions =
+        new LinkedHashMap<String, XPathExpression>(16, 0.75f, true)
+        {
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest)
+            {
+                return size() > XPATH_CACHE_SIZE;
+            }
+        };
+
     /**
      * XML namespaces map.
      */
@@ -114,31 +252,48 @@ public class XmlUtils
         this.fileHandler = fileHandler;
         this.namespaceContext = new NamespaceContextImpl();
         this.namespaceAware = namespaceAware;
-        XPathFactory xPathFactory = XPathFactory.newInstance();
-        this.xPath = xPathFactory.newXPath();
-        this.xPath.setNamespaceContext(namespaceContext);
-        DocumentBuilderFactory domFactory = DocumentBuilderFactory.newInstance();
-        domFactory.setNamespaceAware(namespaceAware);
-        // Do not load remote DTDS as remote servers sometimes become unreachable
+        XmlFactories factories = XmlUtils.borrow();
         try
         {
-            domFactory.setFeature(
-                "http://apache.org/xml/features/nonvalidating/load-dtd-grammar", false);
-            domFactory.setFeature(
-                "http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+            this.xPath = factories.getXPathFactory().newXPath();
+            this.xPath.setNamespaceContext(namespaceContext);
+            this.builder = factories.getDocumentBuilderFactory(namespaceAware)
+                .newDocumentBuilder();
         }
-        catch (AbstractMethodError | ParserConfigurationException ignored)
+        catch (Exception e)
         {
-            // Ignored
+            throw new CargoException("Cannot create XML DOM builder", e);
         }
-        try
+        finally
         {
-            this.builder = domFactory.newDocumentBuilder();
+            XmlUtils.release(factories);
         }
-        catch (Exception e)
+    }
+
+    /**
+     * Compiles an XPath expression using the namespaces of this instance. Compiled expressions are
+     * cached by this instance, the returned expression must hence not be shared between threads.
+     * 
+     * @param expression XPath expression to compile.
+     * @return Compiled XPath expression.
+     * @throws XPathExpressionException If the expression cannot be compiled.
+     */
+    public XPathExpression compileXPath(String expression) throws XPathExpressionException
+    {
+        Map<String, String> namespaces = namespaceContext.getNamespaces();
+        String key = expression;
+        if (namespaces != null && !namespaces.isEmpty())
         {
-            throw new CargoException("Cannot create XML DOM builder", e);
+            key = namespaces + expression;
+        }
+
+        XPathExpression xPathExpr = this.xPathExpressions.get(key);
+        if (xPathExpr == null)
+        {
+            xPathExpr = xPath.compile(expression);
+            this.xPathExpressions.put(key, xPathExpr);
         }
+        return xPathExpr;
     }
 
     /**
@@ -167,7 +322,7 @@ public class XmlUtils
                     }
                 }
             }
-            XPathExpression xPathExpr = xPath.compile(xpathWithoutNamespace);
+            XPathExpression xPathExpr = compileXPath(xpathWithoutNamespace);
             nodelist = (NodeList) xPathExpr.evaluate(toSearch, XPathConstants.NODESET);
         }
         catch (Exception e)
@@ -235,16 +390,20 @@ public class XmlUtils
      */
     public void saveXml(Document document, String filename)
     {
+        XmlFactories factories = XmlUtils.borrow();
         try (OutputStream os = getFileHandler().getOutputStream(filename))
         {
-            TransformerFactory tFactory = TransformerFactory.newInstance();
-            Transformer transformer = tFactory.newTransformer();
+            Transformer transformer = factories.getTransformerFactory().newTransformer();
             transformer.transform(new DOMSource(document), new StreamResult(os));
         }
         catch (Exception e)
         {
             throw new CargoException("Cannot modify XML file " + filename, e);
         }
+        finally
+        {
+            XmlUtils.release(factories);
+        }
     }
 
     /**
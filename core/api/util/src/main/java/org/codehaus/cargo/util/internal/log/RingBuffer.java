@@ -0,0 +1,175 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.util.internal.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free bounded ring buffer, which can be used by multiple producers and consumers. Each slot
+ * has a sequence number telling whether it is ready to be written or read, so producers and
+ * consumers only contend on their respective position counter.
+ * 
+ * @param <E> Element type.
+ */
+public class RingBuffer<E>
+{
+    /**
+     * Elements.
+     */
+    private final AtomicReferenceArray<E> elements;
+
+    /**
+     * Sequence number of each slot.
+     */
+    private final AtomicLongArray sequences;
+
+    /**
+     * Mask used to compute the slot of a position, the capacity being a power of two.
+     */
+    private final int mask;
+
+    /**
+     * Position of the next element to write.
+     */
+    private final AtomicLong writePosition = new AtomicLong();
+
+    /**
+     * Position of the next element to read.
+     */
+    private final AtomicLong readPosition = new AtomicLong();
+
+    /**
+     * @param capacity Minimal capacity, rounded up to the next power of two.
+     */
+    public RingBuffer(int capacity)
+    {
+        if (capacity < 1 || capacity > 1 << 30)
+        {
+            throw new IllegalArgumentException("Invalid ring buffer capacity: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+        {
+            size <<= 1;
+        }
+        this.elements = new AtomicReferenceArray<E>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+        {
+            this.sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Adds an element, unless the ring buffer is full.
+     * 
+     * @param element Element to add.
+     * @return <code>true</code> if the element has been added, <code>false</code> if the ring
+     * buffer is full.
+     */
+    public boolean offer(E element)
+    {
+        long position = this.writePosition.get();
+        while (true)
+        {
+            int slot = (int) position & this.mask;
+            long difference = this.sequences.get(slot) - position;
+            if (difference == 0)
+            {
+                if (this.writePosition.compareAndSet(position, position + 1))
+                {
+                    this.elements.set(slot, element);
+                    this.sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = this.writePosition.get();
+            }
+            else if (difference < 0)
+            {
+                return false;
+            }
+            else
+            {
+                position = this.writePosition.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest element.
+     * 
+     * @return Oldest element, <code>null</code> if the ring buffer is empty.
+     */
+    public E poll()
+    {
+        long position = this.readPosition.get();
+        while (true)
+        {
+            int slot = (int) position & this.mask;
+            long difference = this.sequences.get(slot) - (position + 1);
+            if (difference == 0)
+            {
+                if (this.readPosition.compareAndSet(position, position + 1))
+                {
+                    E element = this.elements.getAndSet(slot, null);
+                    this.sequences.set(slot, position + this.mask + 1);
+                    return element;
+                }
+                position = this.readPosition.get();
+            }
+            else if (difference < 0)
+            {
+                return null;
+            }
+            else
+            {
+                position = this.readPosition.get();
+            }
+        }
+    }
+
+    /**
+     * @return Approximate number of elements in the ring buffer.
+     */
+    public int size()
+    {
+        long size = this.writePosition.get() - this.readPosition.get();
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    /**
+     * @return Whether the ring buffer is empty.
+     */
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    /**
+     * @return Capacity of the ring buffer.
+     */
+    public int capacity()
+    {
+        return this.mask + 1;
+    }
+}
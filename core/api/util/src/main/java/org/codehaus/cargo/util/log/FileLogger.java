@@ -19,40 +19,308 @@
  */
 package org.codehaus.cargo.util.log;
 
-import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.codehaus.cargo.util.CargoException;
 import org.codehaus.cargo.util.internal.log.AbstractLogger;
+import org.codehaus.cargo.util.internal.log.RingBuffer;
 
 /**
- * File implementation which sends logged messages to a file.
+ * File implementation which sends logged messages to a file.<br>
+ * <br>
+ * By default, each message is written and flushed synchronously. In asynchronous mode, messages
+ * are added to a bounded ring buffer and a writer thread, shared by all asynchronous loggers,
+ * writes them to the file in batches, flushing the file at a given interval; what happens when the
+ * ring buffer is full is controlled by the {@link OverflowPolicy}. An asynchronous logger must be
+ * closed in order to write the remaining messages, which is also done when the JVM shuts down.
+ * Messages logged once a logger has been closed are dropped.
  */
-public class FileLogger extends AbstractLogger
+public class FileLogger extends AbstractLogger implements Closeable
 {
     /**
-     * The OutputStream to log to.
+     * What to do with a message when the ring buffer of an asynchronous logger is full.
      */
-    private OutputStream output;
+    public enum OverflowPolicy
+    {
+        /**
+         * Wait for the writer thread to free some space.
+         */
+        BLOCK,
+
+        /**
+         * Drop the message.
+         */
+        DROP,
+
+        /**
+         * Drop all messages but one every {@link FileLogger#SAMPLE_RATE}, which wait for the writer
+         * thread to free some space.
+         */
+        SAMPLE
+    }
+
+    /**
+     * With the {@link OverflowPolicy#SAMPLE} overflow policy, one message every
+     * <code>SAMPLE_RATE</code> is kept when the ring buffer is full.
+     */
+    public static final int SAMPLE_RATE = 100;
+
+    /**
+     * Ring buffer capacity of asynchronous loggers created with
+     * {@link #FileLogger(File, boolean, boolean)}.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 8192;
+
+    /**
+     * Flush interval of asynchronous loggers created with
+     * {@link #FileLogger(File, boolean, boolean)}, in milliseconds.
+     */
+    public static final long DEFAULT_FLUSH_INTERVAL = 100;
 
     /**
      * Date format used when logging to the file.
      */
-    private final DateFormat format = new SimpleDateFormat("HH:mm:ss.SSS");
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
+
+    /**
+     * Minimal time the writer thread waits for messages, in nanoseconds.
+     */
+    private static final long MIN_WAIT = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * Time a producer waits for free space when the ring buffer is full, in nanoseconds.
+     */
+    private static final long OVERFLOW_WAIT = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * Asynchronous loggers which have not been closed yet, guarded by the {@link FileLogger}
+     * class.
+     */
+    private static final Set<FileLogger> ASYNC_LOGGERS = new LinkedHashSet<FileLogger>();
+
+    /**
+     * Thread writing the messages of all asynchronous loggers, <code>null</code> when there are
+     * no asynchronous loggers.
+     */
+    private static volatile Thread writer;
+
+    /**
+     * Shutdown hook closing all asynchronous loggers, <code>null</code> when there are no
+     * asynchronous loggers.
+     */
+    private static Thread shutdownHook;
+
+    /**
+     * The Writer to log to.
+     */
+    private final Writer output;
+
+    /**
+     * Lock guarding the writes to the file.
+     */
+    private final Object writeLock = new Object();
+
+    /**
+     * Time zone of the logged dates.
+     */
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    /**
+     * Messages waiting to be written, <code>null</code> for a synchronous logger.
+     */
+    private final RingBuffer<LogRecord> queue;
+
+    /**
+     * Interval between two flushes of an asynchronous logger, in nanoseconds.
+     */
+    private final long flushInterval;
+
+    /**
+     * What to do with a message when the ring buffer is full.
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * Number of dropped messages.
+     */
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    /**
+     * Number of messages which have found the ring buffer full.
+     */
+    private final AtomicLong overflows = new AtomicLong();
+
+    /**
+     * Time of the last flush of an asynchronous logger, guarded by {@link #writeLock}.
+     */
+    private long lastFlush = System.nanoTime();
+
+    /**
+     * Whether messages have been written since the last flush, guarded by {@link #writeLock}.
+     */
+    private boolean dirty;
+
+    /**
+     * Whether the file has been closed, guarded by {@link #writeLock}.
+     */
+    private boolean outputClosed;
+
+    /**
+     * Error raised when writing the messages of an asynchronous logger.
+     */
+    private volatile IOException writeError;
+
+    /**
+     * Whether this logger has been closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Message waiting to be written by an asynchronous logger.
+     */
+    private static final class LogRecord
+    {
+        /**
+         * Time at which the message has been logged.
+         */
+        private final long timestamp;
+
+        /**
+         * Log level.
+         */
+        private final LogLevel level;
+
+        /**
+         * Message.
+         */
+        private final String message;
+
+        /**
+         * Log category.
+         */
+        private final String category;
+
+        /**
+         * @param timestamp Time at which the message has been logged.
+         * @param level Log level.
+         * @param message Message.
+         * @param category Log category.
+         */
+        private LogRecord(long timestamp, LogLevel level, String message, String category)
+        {
+            this.timestamp = timestamp;
+            this.level = level;
+            this.message = message;
+            this.category = category;
+        }
+    }
 
     /**
      * @param file the file to log to
      * @param append if true the file is appended to insted of being erased
      */
     public FileLogger(File file, boolean append)
+    {
+        this(file, append, false);
+    }
+
+    /**
+     * @param file the file to log to
+     * @param append if true the file is appended to insted of being erased
+     */
+    public FileLogger(String file, boolean append)
+    {
+        this(new File(file), append);
+    }
+
+    /**
+     * @param file the file to log to
+     * @param append if true the file is appended to insted of being erased
+     * @param async if true messages are written asynchronously, using a ring buffer of
+     * {@link #DEFAULT_QUEUE_CAPACITY} messages, a flush interval of
+     * {@link #DEFAULT_FLUSH_INTERVAL} milliseconds and the {@link OverflowPolicy#BLOCK} overflow
+     * policy
+     */
+    public FileLogger(File file, boolean append, boolean async)
+    {
+        this(file, append, async ? DEFAULT_QUEUE_CAPACITY : 0, DEFAULT_FLUSH_INTERVAL,
+            OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * @param file the file to log to
+     * @param append if true the file is appended to insted of being erased
+     * @param async if true messages are written asynchronously
+     * @see #FileLogger(File, boolean, boolean)
+     */
+    public FileLogger(String file, boolean append, boolean async)
+    {
+        this(new File(file), append, async);
+    }
+
+    /**
+     * Creates an asynchronous logger.
+     * 
+     * @param file the file to log to
+     * @param append if true the file is appended to insted of being erased
+     * @param queueCapacity maximal number of messages waiting to be written, 0 to create a
+     * synchronous logger
+     * @param flushInterval maximal time between the logging of a message and the flush of the
+     * file, in milliseconds
+     * @param overflowPolicy what to do with a message when <code>queueCapacity</code> messages
+     * are already waiting to be written
+     */
+    public FileLogger(File file, boolean append, int queueCapacity, long flushInterval,
+        OverflowPolicy overflowPolicy)
+    {
+        if (queueCapacity == 0)
+        {
+            this.queue = null;
+            this.flushInterval = 0;
+            this.overflowPolicy = null;
+            this.output = open(file, append);
+            return;
+        }
+
+        if (flushInterval < 0)
+        {
+            throw new IllegalArgumentException("Invalid flush interval: " + flushInterval);
+        }
+        if (overflowPolicy == null)
+        {
+            throw new IllegalArgumentException("Overflow policy not set");
+        }
+        this.queue = new RingBuffer<LogRecord>(queueCapacity);
+        this.flushInterval = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        this.overflowPolicy = overflowPolicy;
+        this.output = open(file, append);
+        register(this);
+    }
+
+    /**
+     * @param file the file to log to
+     * @param append if true the file is appended to insted of being erased
+     * @return Writer to the file.
+     */
+    private static Writer open(File file, boolean append)
     {
         try
         {
@@ -62,7 +330,8 @@ public class FileLogger extends AbstractLogger
                 parent.mkdirs();
             }
             FileOutputStream fileOutputStream = new FileOutputStream(file, append);
-            this.output = new BufferedOutputStream(fileOutputStream);
+            return new BufferedWriter(
+                new OutputStreamWriter(fileOutputStream, StandardCharsets.UTF_8));
         }
         catch (FileNotFoundException e)
         {
@@ -71,12 +340,109 @@ public class FileLogger extends AbstractLogger
     }
 
     /**
-     * @param file the file to log to
-     * @param append if true the file is appended to insted of being erased
+     * Registers an asynchronous logger with the shared writer thread, starting that thread and
+     * the shared shutdown hook if needed.
+     * 
+     * @param logger Asynchronous logger.
      */
-    public FileLogger(String file, boolean append)
+    private static synchronized void register(FileLogger logger)
     {
-        this(new File(file), append);
+        FileLogger.ASYNC_LOGGERS.add(logger);
+        if (FileLogger.writer == null)
+        {
+            Thread thread = new Thread("Cargo FileLogger writer")
+            {
+                @Override
+                public void run()
+                {
+                    writeAll();
+                }
+            };
+            thread.setDaemon(true);
+            FileLogger.writer = thread;
+            thread.start();
+        }
+        if (FileLogger.shutdownHook == null)
+        {
+            FileLogger.shutdownHook = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    List<FileLogger> loggers;
+                    synchronized (FileLogger.class)
+                    {
+                        loggers = new ArrayList<FileLogger>(FileLogger.ASYNC_LOGGERS);
+                    }
+                    for (FileLogger logger : loggers)
+                    {
+                        try
+                        {
+                            logger.close();
+                        }
+                        catch (CargoException e)
+                        {
+                            // Nowhere to report it, go on with the other loggers
+                        }
+                    }
+                }
+            };
+            Runtime.getRuntime().addShutdownHook(FileLogger.shutdownHook);
+        }
+    }
+
+    /**
+     * Unregisters an asynchronous logger from the shared writer thread, removing the shared
+     * shutdown hook once there are no more asynchronous loggers.
+     * 
+     * @param logger Asynchronous logger.
+     */
+    private static synchronized void unregister(FileLogger logger)
+    {
+        FileLogger.ASYNC_LOGGERS.remove(logger);
+        if (FileLogger.ASYNC_LOGGERS.isEmpty() && FileLogger.shutdownHook != null
+            && Thread.currentThread() != FileLogger.shutdownHook)
+        {
+            try
+            {
+                Runtime.getRuntime().removeShutdownHook(FileLogger.shutdownHook);
+                FileLogger.shutdownHook = null;
+            }
+            catch (IllegalStateException e)
+            {
+                // JVM shutdown in progress, ignore
+            }
+        }
+        LockSupport.unpark(FileLogger.writer);
+    }
+
+    /**
+     * Main loop of the shared writer thread: writes the waiting messages of all asynchronous
+     * loggers, flushes the files whose flush interval has elapsed and waits for more messages.
+     * Exits once there are no more asynchronous loggers.
+     */
+    private static void writeAll()
+    {
+        while (true)
+        {
+            List<FileLogger> loggers;
+            synchronized (FileLogger.class)
+            {
+                if (FileLogger.ASYNC_LOGGERS.isEmpty())
+                {
+                    FileLogger.writer = null;
+                    return;
+                }
+                loggers = new ArrayList<FileLogger>(FileLogger.ASYNC_LOGGERS);
+            }
+
+            long wait = Long.MAX_VALUE;
+            for (FileLogger logger : loggers)
+            {
+                wait = Math.min(wait, logger.writeRecords());
+            }
+            LockSupport.parkNanos(FileLogger.class, Math.max(wait, MIN_WAIT));
+        }
     }
 
     /**
@@ -84,21 +450,267 @@ public class FileLogger extends AbstractLogger
      */
     @Override
     protected void doLog(LogLevel level, String message, String category)
+    {
+        long timestamp = System.currentTimeMillis();
+
+        if (this.queue == null)
+        {
+            synchronized (this.writeLock)
+            {
+                if (this.outputClosed)
+                {
+                    this.droppedMessages.incrementAndGet();
+                    return;
+                }
+                try
+                {
+                    write(timestamp, level, message, category);
+                    this.output.flush();
+                }
+                catch (IOException e)
+                {
+                    throw new CargoException("Failed to write log message [" + message + "]", e);
+                }
+            }
+            return;
+        }
+
+        if (this.writeError != null)
+        {
+            throw new CargoException("Failed to write log messages", this.writeError);
+        }
+        if (this.closed)
+        {
+            this.droppedMessages.incrementAndGet();
+            return;
+        }
+
+        LogRecord record = new LogRecord(timestamp, level, message, category);
+        if (!this.queue.offer(record))
+        {
+            long overflow = this.overflows.incrementAndGet();
+            if (this.overflowPolicy == OverflowPolicy.DROP
+                || this.overflowPolicy == OverflowPolicy.SAMPLE && overflow % SAMPLE_RATE != 0)
+            {
+                this.droppedMessages.incrementAndGet();
+                return;
+            }
+            while (!this.queue.offer(record))
+            {
+                if (this.writeError != null)
+                {
+                    throw new CargoException("Failed to write log messages", this.writeError);
+                }
+                // Nobody drains the ring buffer anymore once closed or if the writer thread
+                // died, hence waiting would never end
+                Thread current = FileLogger.writer;
+                if (this.closed || current == null || !current.isAlive())
+                {
+                    this.droppedMessages.incrementAndGet();
+                    return;
+                }
+                LockSupport.unpark(current);
+                LockSupport.parkNanos(this, OVERFLOW_WAIT);
+            }
+        }
+
+        if (this.closed)
+        {
+            // The logger has been closed while adding the message, which might hence never be
+            // written
+            synchronized (this.writeLock)
+            {
+                if (this.outputClosed)
+                {
+                    dropQueued();
+                }
+            }
+        }
+        else if (this.queue.size() >= this.queue.capacity() / 2)
+        {
+            // Wake up the writer thread before the ring buffer fills up
+            LockSupport.unpark(FileLogger.writer);
+        }
+    }
+
+    /**
+     * Writes a message, without flushing.
+     * 
+     * @param timestamp Time at which the message has been logged.
+     * @param level the log level (aka severity) of the message
+     * @param message the message to log
+     * @param category the log category
+     * @throws IOException If writing fails.
+     */
+    private void write(long timestamp, LogLevel level, String message, String category)
+        throws IOException
     {
         final String formattedCategory = category.length() > 20
             ? category.substring(category.length() - 20) : category;
 
-        final String msg = "[" + this.format.format(new Date()) + "]"
-            + "[" + level.getLevel() + "][" + formattedCategory + "] " + message + "\n";
-        try
+        this.output.write('[');
+        FORMAT.formatTo(Instant.ofEpochMilli(timestamp).atZone(this.zone), this.output);
+        this.output.write("][");
+        this.output.write(level.getLevel());
+        this.output.write("][");
+        this.output.write(formattedCategory);
+        this.output.write("] ");
+        this.output.write(String.valueOf(message));
+        this.output.write('\n');
+    }
+
+    /**
+     * Writes all waiting messages, without flushing. Must be called holding {@link #writeLock}.
+     * 
+     * @throws IOException If writing fails.
+     */
+    private void writeQueued() throws IOException
+    {
+        LogRecord record;
+        while ((record = this.queue.poll()) != null)
+        {
+            write(record.timestamp, record.level, record.message, record.category);
+            this.dirty = true;
+        }
+    }
+
+    /**
+     * Drops all waiting messages. Must be called holding {@link #writeLock}.
+     */
+    private void dropQueued()
+    {
+        while (this.queue.poll() != null)
+        {
+            this.droppedMessages.incrementAndGet();
+        }
+    }
+
+    /**
+     * Called by the shared writer thread: writes all waiting messages and flushes the file if the
+     * flush interval has elapsed.
+     * 
+     * @return Time after which this method should be called again, in nanoseconds.
+     */
+    private long writeRecords()
+    {
+        synchronized (this.writeLock)
+        {
+            if (this.outputClosed || this.writeError != null)
+            {
+                return Long.MAX_VALUE;
+            }
+
+            long now;
+            try
+            {
+                writeQueued();
+                now = System.nanoTime();
+                if (this.dirty && now - this.lastFlush >= this.flushInterval)
+                {
+                    this.output.flush();
+                    this.lastFlush = now;
+                    this.dirty = false;
+                }
+            }
+            catch (IOException e)
+            {
+                this.writeError = e;
+                return Long.MAX_VALUE;
+            }
+
+            if (this.dirty)
+            {
+                return this.flushInterval - (now - this.lastFlush);
+            }
+            return this.flushInterval;
+        }
+    }
+
+    /**
+     * @return Whether this logger writes messages asynchronously.
+     */
+    public boolean isAsync()
+    {
+        return this.queue != null;
+    }
+
+    /**
+     * @return Number of messages which have been dropped because the ring buffer was full or the
+     * logger closed.
+     */
+    public long getDroppedMessages()
+    {
+        return this.droppedMessages.get();
+    }
+
+    /**
+     * @return Number of messages waiting to be written, always 0 for a synchronous logger.
+     */
+    public int getQueueDepth()
+    {
+        if (this.queue == null)
+        {
+            return 0;
+        }
+        return this.queue.size();
+    }
+
+    /**
+     * Writes all remaining messages and closes the file. Messages logged afterwards are dropped.
+     */
+    @Override
+    public void close()
+    {
+        synchronized (this)
+        {
+            if (this.closed)
+            {
+                return;
+            }
+            this.closed = true;
+        }
+
+        if (this.queue != null)
         {
-            this.output.write(msg.getBytes(StandardCharsets.UTF_8));
-            this.output.flush();
+            unregister(this);
+        }
+
+        IOException error = this.writeError;
+        synchronized (this.writeLock)
+        {
+            if (this.queue != null && error == null)
+            {
+                try
+                {
+                    writeQueued();
+                }
+                catch (IOException e)
+                {
+                    error = e;
+                }
+            }
+            try
+            {
+                this.output.close();
+            }
+            catch (IOException e)
+            {
+                if (error == null)
+                {
+                    error = e;
+                }
+            }
+            this.outputClosed = true;
+            if (this.queue != null)
+            {
+                // Messages which could not be written or have been added while closing
+                dropQueued();
+            }
         }
-        catch (IOException e)
+
+        if (error != null)
         {
-            throw new CargoException("Failed to write log message ["
-                + msg + "]", e);
+            throw new CargoException("Failed to close log file", error);
         }
     }
 }
@@ -20,7 +20,10 @@
 package org.codehaus.cargo.util;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -233,4 +236,139 @@ public class DefaultFileHandlerTest
             Assert.assertTrue(expected.getMessage().contains("Invalid character"));
         }
     }
+
+    /**
+     * Test binary file copy with all copy modes.
+     */
+    @Test
+    public void testCopyFileWithAllCopyModes()
+    {
+        final String source = "target/copymode-source.bin";
+        this.fileHandler.writeTextFile(source, "copy mode test content", StandardCharsets.UTF_8);
+
+        for (DefaultFileHandler.CopyMode copyMode : DefaultFileHandler.CopyMode.values())
+        {
+            ((DefaultFileHandler) this.fileHandler).setCopyMode(copyMode);
+            String target = "target/copymode-" + copyMode + "/copymode-target.bin";
+            this.fileHandler.copyFile(source, target, true);
+            Assertions.assertEquals("copy mode test content",
+                this.fileHandler.readTextFile(target, StandardCharsets.UTF_8),
+                    "Copy mode " + copyMode + " did not copy the file contents");
+
+            // Copying again with overwrite must replace the existing target
+            this.fileHandler.copyFile(source, target, true);
+            Assertions.assertEquals(this.fileHandler.getSize(source),
+                this.fileHandler.getSize(target), "Copy mode " + copyMode + " overwrite failed");
+        }
+    }
+
+    /**
+     * Test that writing to a file copied in link mode does not modify the source file.
+     */
+    @Test
+    public void testWriteToLinkedCopy()
+    {
+        final String source = "target/linkmode-source.txt";
+        final String target = "target/linkmode/linkmode-target.txt";
+        this.fileHandler.writeTextFile(source, "@token@ source", StandardCharsets.UTF_8);
+
+        ((DefaultFileHandler) this.fileHandler).setCopyMode(DefaultFileHandler.CopyMode.LINK);
+        this.fileHandler.copyFile(source, target, true);
+        this.fileHandler.replaceInFile(target,
+            Collections.singletonMap("@token@", "replaced"), StandardCharsets.UTF_8);
+
+        Assertions.assertEquals("replaced source",
+            this.fileHandler.readTextFile(target, StandardCharsets.UTF_8));
+        Assertions.assertEquals("@token@ source",
+            this.fileHandler.readTextFile(source, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test that touching a file copied in link mode does not modify the source file.
+     */
+    @Test
+    public void testSetLastModifiedOnLinkedCopy()
+    {
+        final String source = "target/linkmode-touch-source.txt";
+        final String target = "target/linkmode/linkmode-touch-target.txt";
+        this.fileHandler.writeTextFile(source, "source", StandardCharsets.UTF_8);
+        this.fileHandler.setLastModified(source, 1000000000000L);
+
+        ((DefaultFileHandler) this.fileHandler).setCopyMode(DefaultFileHandler.CopyMode.LINK);
+        this.fileHandler.copyFile(source, target, true);
+        this.fileHandler.setLastModified(target, 1500000000000L);
+
+        Assertions.assertEquals(1500000000000L, this.fileHandler.getLastModified(target));
+        Assertions.assertEquals(1000000000000L, this.fileHandler.getLastModified(source));
+        Assertions.assertEquals("source",
+            this.fileHandler.readTextFile(target, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test copy mode parsing.
+     */
+    @Test
+    public void testToCopyMode()
+    {
+        Assertions.assertEquals(DefaultFileHandler.CopyMode.LINK,
+            DefaultFileHandler.CopyMode.toCopyMode(" Link "));
+        Assertions.assertThrows(CargoException.class,
+            () -> DefaultFileHandler.CopyMode.toCopyMode("reflink"));
+    }
+
+    /**
+     * Test exploding an archive large enough to be extracted in parallel, both in parallel and
+     * sequentially.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testExplode() throws Exception
+    {
+        final String war = "target/explode-test.war";
+        final int entries = 500;
+        try (ZipOutputStream zip = new ZipOutputStream(this.fileHandler.getOutputStream(war)))
+        {
+            zip.putNextEntry(new ZipEntry("WEB-INF/"));
+            zip.closeEntry();
+            for (int i = 0; i < entries; i++)
+            {
+                zip.putNextEntry(new ZipEntry("/dir" + (i % 7) + "/../file" + i + ".txt"));
+                zip.write(("content of file " + i).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+
+        DefaultFileHandler defaultFileHandler = (DefaultFileHandler) this.fileHandler;
+        for (int threads : new int[] {4, 1})
+        {
+            defaultFileHandler.setExplodeThreads(threads);
+            String exploded = "target/explode-test-" + threads;
+            this.fileHandler.explode(war, exploded);
+
+            Assertions.assertTrue(this.fileHandler.isDirectory(exploded + "/WEB-INF"));
+            for (int i = 0; i < entries; i++)
+            {
+                String file = exploded + "/dir" + (i % 7) + "/file" + i + ".txt";
+                Assertions.assertEquals("content of file " + i,
+                    this.fileHandler.readTextFile(file, StandardCharsets.UTF_8),
+                        "Wrong content for " + file + " with " + threads + " threads");
+            }
+        }
+    }
+
+    /**
+     * Test that a failed explode does not leave a partially exploded directory behind.
+     */
+    @Test
+    public void testExplodeInvalidArchive()
+    {
+        final String war = "target/explode-invalid.war";
+        final String exploded = "target/explode-invalid";
+        this.fileHandler.writeTextFile(war, "not a zip file", StandardCharsets.UTF_8);
+        this.fileHandler.mkdirs(exploded);
+
+        Assertions.assertThrows(CargoException.class,
+            () -> this.fileHandler.explode(war, exploded));
+        Assertions.assertFalse(this.fileHandler.exists(exploded));
+    }
 }
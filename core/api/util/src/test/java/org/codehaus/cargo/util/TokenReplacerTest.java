@@ -0,0 +1,176 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.util;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link TokenReplacer}.
+ */
+public class TokenReplacerTest
+{
+
+    /**
+     * Test replacing delimited tokens.
+     */
+    @Test
+    public void testReplaceDelimitedTokens()
+    {
+        Map<String, String> replacements = new HashMap<String, String>();
+        replacements.put("cargo.servlet.port", "8080");
+        replacements.put("cargo.hostname", "localhost");
+
+        TokenReplacer replacer = new TokenReplacer(replacements, "@");
+        Assertions.assertEquals("http://localhost:8080/ @cargo.unknown@ cargo.hostname",
+            replacer.replace("http://@cargo.hostname@:@cargo.servlet.port@/ @cargo.unknown@ "
+                + "cargo.hostname"));
+    }
+
+    /**
+     * Test that replacements apply one after the other, in the order of the map, as successive
+     * {@link String#replace(CharSequence, CharSequence)} calls would, and that a replacement does
+     * not rescan its own output.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testSequentialReplacement() throws Exception
+    {
+        Map<String, String> replacements = new LinkedHashMap<String, String>();
+        replacements.put("</Host>", "<Valve/></Host>");
+        replacements.put("abc", "2");
+        replacements.put("ab", "1");
+
+        TokenReplacer replacer = new TokenReplacer(replacements);
+        Assertions.assertEquals("<Valve/></Host> 2 1d", replacer.replace("</Host> abc abd"));
+
+        replacements.put("2 1", "3");
+        replacer = new TokenReplacer(replacements);
+        Assertions.assertEquals("<Valve/></Host> 3d", replacer.replace("</Host> abc abd"));
+    }
+
+    /**
+     * Test keys which are a prefix of, or overlap, other keys.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testOverlappingKeys() throws Exception
+    {
+        String text = "abc abd";
+        Map<String, String> replacements = new LinkedHashMap<String, String>();
+        replacements.put("ab", "1");
+        replacements.put("abc", "2");
+        replacements.put("bd", "3");
+
+        StringWriter result = new StringWriter();
+        TokenReplacer.ReplacingWriter writer =
+            new TokenReplacer(replacements).newWriter(result);
+        writer.write(text);
+        writer.close();
+
+        String expected = text;
+        for (Map.Entry<String, String> replacement : replacements.entrySet())
+        {
+            expected = expected.replace(replacement.getKey(), replacement.getValue());
+        }
+        Assertions.assertEquals(expected, result.toString());
+        Assertions.assertEquals("1c 1d", result.toString());
+        Assertions.assertEquals(Collections.singleton("ab"), writer.getMatchedKeys());
+        Assertions.assertEquals(new LinkedHashSet<String>(Arrays.asList("abc", "bd")),
+            writer.getUnmatchedKeys());
+
+        replacements.clear();
+        replacements.put("bd", "3");
+        replacements.put("ab", "1");
+        replacements.put("abc", "2");
+        Assertions.assertEquals("1c a3", new TokenReplacer(replacements).replace(text));
+    }
+
+    /**
+     * Test tokens spanning several writes and buffer boundaries, as well as matched keys
+     * tracking.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testTokensAcrossWrites() throws Exception
+    {
+        Map<String, String> replacements = new HashMap<String, String>();
+        replacements.put("token", "value");
+        replacements.put("missing", "none");
+        TokenReplacer replacer = new TokenReplacer(replacements, "@");
+
+        StringBuilder input = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+        {
+            input.append("line ").append(i).append(" @token@\n");
+            expected.append("line ").append(i).append(" value\n");
+        }
+
+        StringWriter result = new StringWriter();
+        TokenReplacer.ReplacingWriter writer = replacer.newWriter(result);
+        for (int i = 0; i < input.length(); i += 3)
+        {
+            writer.write(input.substring(i, Math.min(i + 3, input.length())));
+        }
+        writer.close();
+
+        Assertions.assertEquals(expected.toString(), result.toString());
+        Assertions.assertEquals(Collections.singleton("token"), writer.getMatchedKeys());
+        Assertions.assertEquals(Collections.singleton("missing"), writer.getUnmatchedKeys());
+    }
+
+    /**
+     * Test replacing in a file, including missing keys.
+     */
+    @Test
+    public void testReplaceInFile()
+    {
+        FileHandler fileHandler = new DefaultFileHandler();
+        String file = "target/token-replacer-test.txt";
+        fileHandler.writeTextFile(file, "port=8080" + FileHandler.NEW_LINE + "host=old",
+            StandardCharsets.UTF_8);
+
+        Map<String, String> replacements = new HashMap<String, String>();
+        replacements.put("8080", "9090");
+        replacements.put("host=old", "host=new");
+        fileHandler.replaceInFile(file, replacements, StandardCharsets.UTF_8);
+        Assertions.assertEquals("port=9090" + FileHandler.NEW_LINE + "host=new",
+            fileHandler.readTextFile(file, StandardCharsets.UTF_8));
+
+        replacements.put("not-there", "value");
+        Assertions.assertThrows(CargoException.class,
+            () -> fileHandler.replaceInFile(file, replacements, StandardCharsets.UTF_8));
+        Assertions.assertEquals("port=9090" + FileHandler.NEW_LINE + "host=new",
+            fileHandler.readTextFile(file, StandardCharsets.UTF_8));
+        Assertions.assertFalse(fileHandler.exists(file + ".cargo-replace"));
+
+        fileHandler.replaceInFile(file, replacements, StandardCharsets.UTF_8, true);
+    }
+}
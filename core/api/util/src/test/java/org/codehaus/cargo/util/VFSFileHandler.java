@@ -300,6 +300,42 @@ public class VFSFileHandler extends DefaultFileHandler
         return result;
     }
 
+    /**
+     * Gets the modification time of a given file. {@inheritDoc}
+     * @param file File name.
+     * @return Modification time of <code>file</code>.
+     */
+    @Override
+    public long getLastModified(String file)
+    {
+        try
+        {
+            return getFileSystemManager().resolveFile(file).getContent().getLastModifiedTime();
+        }
+        catch (FileSystemException e)
+        {
+            throw new CargoException("Failed to get the modification time of [" + file + "]", e);
+        }
+    }
+
+    /**
+     * Sets the modification time of a given file. {@inheritDoc}
+     * @param file File name.
+     * @param time Modification time to set.
+     */
+    @Override
+    public void setLastModified(String file, long time)
+    {
+        try
+        {
+            getFileSystemManager().resolveFile(file).getContent().setLastModifiedTime(time);
+        }
+        catch (FileSystemException e)
+        {
+            throw new CargoException("Failed to set the modification time of [" + file + "]", e);
+        }
+    }
+
     /**
      * Test if a directory is empty. {@inheritDoc}
      * @param dir Directory to check.
@@ -0,0 +1,151 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.util;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.apache.commons.vfs2.impl.StandardFileSystemManager;
+import org.custommonkey.xmlunit.XMLAssert;
+
+/**
+ * Unit tests for {@link XmlEditSession}.
+ */
+public class XmlEditSessionTest
+{
+    /**
+     * Test file name.
+     */
+    private static final String TEST_FILE = "ram:/path/to/server.xml";
+
+    /**
+     * File system manager.
+     */
+    private StandardFileSystemManager fsManager;
+
+    /**
+     * Number of times the test file has been read.
+     */
+    private int reads;
+
+    /**
+     * Number of times the test file has been written.
+     */
+    private int writes;
+
+    /**
+     * File handler, counting reads and writes.
+     */
+    private FileHandler fileHandler;
+
+    /**
+     * Creates the file handler and the test file.
+     * @throws Exception If anything goes wrong.
+     */
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        this.fsManager = new StandardFileSystemManager();
+        this.fsManager.init();
+        this.fileHandler = new VFSFileHandler(this.fsManager)
+        {
+            @Override
+            public InputStream getInputStream(String file)
+            {
+                reads++;
+                return super.getInputStream(file);
+            }
+
+            @Override
+            public OutputStream getOutputStream(String file)
+            {
+                writes++;
+                return super.getOutputStream(file);
+            }
+        };
+        this.fileHandler.writeTextFile(TEST_FILE,
+            "<Server><Service><Connector port=\"8080\"/><Engine/></Service></Server>",
+                StandardCharsets.UTF_8);
+        this.reads = 0;
+        this.writes = 0;
+    }
+
+    /**
+     * Closes the file system manager created for tests.
+     */
+    @AfterEach
+    protected void tearDown()
+    {
+        if (this.fsManager != null)
+        {
+            this.fsManager.close();
+        }
+    }
+
+    /**
+     * Test that replacements and insertions are applied with a single parse and a single write.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testEditsParseAndWriteOnce() throws Exception
+    {
+        XmlEditSession session = new XmlEditSession(this.fileHandler);
+        session.replace(new XmlReplacement(TEST_FILE, "//Server/Service/Connector", "port",
+            XmlReplacement.ReplacementBehavior.THROW_EXCEPTION, "9090"));
+        session.replace(new XmlReplacement(TEST_FILE, "//Server/Service/Engine", "name",
+            XmlReplacement.ReplacementBehavior.THROW_EXCEPTION, "Catalina"));
+        for (int i = 0; i < 3; i++)
+        {
+            session.insertElementsUnderXPath(TEST_FILE, "<Resource name=\"ds" + i + "\"/>",
+                "//Server/Service/Engine", null);
+        }
+        Assertions.assertEquals(0, this.writes, "File written before saving the session");
+        session.save();
+
+        Assertions.assertEquals(1, this.reads, "File should be parsed once");
+        Assertions.assertEquals(1, this.writes, "File should be written once");
+
+        String xml = this.fileHandler.readTextFile(TEST_FILE, StandardCharsets.UTF_8);
+        XMLAssert.assertXpathEvaluatesTo("9090", "//Server/Service/Connector/@port", xml);
+        XMLAssert.assertXpathEvaluatesTo("Catalina", "//Server/Service/Engine/@name", xml);
+        XMLAssert.assertXpathEvaluatesTo("3", "count(//Server/Service/Engine/Resource)", xml);
+    }
+
+    /**
+     * Test that a discarded session does not write anything.
+     */
+    @Test
+    public void testDiscard()
+    {
+        XmlEditSession session = new XmlEditSession(this.fileHandler);
+        session.replace(new XmlReplacement(TEST_FILE, "//Server/Service/Connector", "port",
+            XmlReplacement.ReplacementBehavior.THROW_EXCEPTION, "9090"));
+        session.discard();
+        session.save();
+
+        Assertions.assertEquals(0, this.writes, "Discarded session should not write");
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.util.log;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import org.codehaus.cargo.util.CargoException;
+
+/**
+ * Unit tests for {@link FileLogger}.
+ */
+public class FileLoggerTest
+{
+    /**
+     * Number of threads logging concurrently.
+     */
+    private static final int THREADS = 4;
+
+    /**
+     * Number of messages logged by each thread.
+     */
+    private static final int MESSAGES = 5000;
+
+    /**
+     * Logs messages from several threads.
+     * @param logger Logger to log to.
+     * @throws Exception If anything goes wrong.
+     */
+    private void logConcurrently(final Logger logger) throws Exception
+    {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < THREADS; i++)
+        {
+            final int thread = i;
+            threads.add(new Thread(() ->
+            {
+                for (int j = 0; j < MESSAGES; j++)
+                {
+                    logger.info("message " + thread + "-" + j, "test");
+                }
+            }));
+        }
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+    }
+
+    /**
+     * @param file Log file.
+     * @return Lines of the log file.
+     * @throws Exception If anything goes wrong.
+     */
+    private List<String> readLines(File file) throws Exception
+    {
+        return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test the synchronous logger format.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testSynchronousLogger() throws Exception
+    {
+        File file = new File("target/file-logger-test/sync.log");
+        FileLogger logger = new FileLogger(file, false);
+        logger.info("Hello", "org.codehaus.cargo.util.log.FileLoggerTest");
+        List<String> lines = readLines(file);
+        logger.close();
+
+        Assertions.assertEquals(1, lines.size());
+        Assertions.assertTrue(
+            lines.get(0).matches("\\[\\d\\d:\\d\\d:\\d\\d\\.\\d\\d\\d\\]\\[info\\]"
+                + "\\[l.log.FileLoggerTest\\] Hello"), lines.get(0));
+
+        logger.info("after close", "test");
+        Assertions.assertEquals(1, logger.getDroppedMessages());
+        Assertions.assertEquals(1, readLines(file).size());
+    }
+
+    /**
+     * Test that asynchronous loggers share a single writer thread.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testAsynchronousLoggersShareWriter() throws Exception
+    {
+        List<FileLogger> loggers = new ArrayList<FileLogger>();
+        for (int i = 0; i < 3; i++)
+        {
+            FileLogger logger =
+                new FileLogger(new File("target/file-logger-test/shared-" + i + ".log"), false,
+                    true);
+            Assertions.assertTrue(logger.isAsync());
+            loggers.add(logger);
+        }
+        try
+        {
+            for (FileLogger logger : loggers)
+            {
+                logConcurrently(logger);
+            }
+            Assertions.assertEquals(1, Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> "Cargo FileLogger writer".equals(thread.getName())).count());
+        }
+        finally
+        {
+            for (FileLogger logger : loggers)
+            {
+                logger.close();
+            }
+        }
+
+        for (int i = 0; i < loggers.size(); i++)
+        {
+            Assertions.assertEquals(0, loggers.get(i).getDroppedMessages());
+            Assertions.assertEquals(THREADS * MESSAGES, readLines(
+                new File("target/file-logger-test/shared-" + i + ".log")).size());
+        }
+    }
+
+    /**
+     * Test that an asynchronous logger with the blocking overflow policy writes all messages.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testAsynchronousLoggerBlocking() throws Exception
+    {
+        File file = new File("target/file-logger-test/async-block.log");
+        FileLogger logger =
+            new FileLogger(file, false, 64, 100, FileLogger.OverflowPolicy.BLOCK);
+        logConcurrently(logger);
+        logger.close();
+
+        Assertions.assertEquals(0, logger.getDroppedMessages());
+        Assertions.assertEquals(0, logger.getQueueDepth());
+        List<String> lines = readLines(file);
+        Assertions.assertEquals(THREADS * MESSAGES, lines.size());
+        for (int i = 0; i < THREADS; i++)
+        {
+            String last = "[info][test] message " + i + "-" + (MESSAGES - 1);
+            Assertions.assertTrue(lines.stream().anyMatch(line -> line.endsWith(last)), last);
+        }
+
+        logger.info("after close", "test");
+        Assertions.assertEquals(1, logger.getDroppedMessages());
+    }
+
+    /**
+     * Test that an asynchronous logger with the dropping overflow policy accounts for all messages.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testAsynchronousLoggerDropping() throws Exception
+    {
+        File file = new File("target/file-logger-test/async-drop.log");
+        FileLogger logger = new FileLogger(file, false, 4, 1000, FileLogger.OverflowPolicy.DROP);
+        logConcurrently(logger);
+        logger.close();
+
+        Assertions.assertEquals(THREADS * MESSAGES,
+            readLines(file).size() + logger.getDroppedMessages());
+    }
+
+    /**
+     * Test that a blocking asynchronous logger reports write errors instead of having the threads
+     * waiting for the full ring buffer to be drained wait forever.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testAsynchronousLoggerWriteError() throws Exception
+    {
+        File full = new File("/dev/full");
+        Assumptions.assumeTrue(full.exists(), "No /dev/full to simulate a full disk");
+
+        // The writer thread fails once its buffer overflows, while more threads than the ring
+        // buffer can hold wait for it
+        final FileLogger logger =
+            new FileLogger(full, true, 2, 60000, FileLogger.OverflowPolicy.BLOCK);
+        final String message = String.format("%1024s", "message");
+        final AtomicInteger failures = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < THREADS * 4; i++)
+        {
+            threads.add(new Thread(() ->
+            {
+                try
+                {
+                    for (int j = 0; j < MESSAGES; j++)
+                    {
+                        logger.info(message, "test");
+                    }
+                }
+                catch (CargoException expected)
+                {
+                    failures.incrementAndGet();
+                }
+            }));
+        }
+        try
+        {
+            for (Thread thread : threads)
+            {
+                thread.setDaemon(true);
+                thread.start();
+            }
+            for (Thread thread : threads)
+            {
+                thread.join(10000);
+                Assertions.assertFalse(thread.isAlive(), "Logging thread still blocked");
+            }
+            Assertions.assertTrue(failures.get() > 0);
+        }
+        finally
+        {
+            try
+            {
+                logger.close();
+            }
+            catch (CargoException expected)
+            {
+                // Flushing the remaining messages fails too
+            }
+        }
+    }
+}
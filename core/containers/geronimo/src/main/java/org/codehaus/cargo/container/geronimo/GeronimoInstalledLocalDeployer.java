@@ -20,8 +20,8 @@
 package org.codehaus.cargo.container.geronimo;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.jar.JarFile;
 
 import org.codehaus.cargo.container.ContainerException;
@@ -41,6 +41,7 @@ import org.codehaus.cargo.container.spi.deployer.DeployerWatchdog;
 import org.codehaus.cargo.container.spi.jvm.JvmLauncher;
 import org.codehaus.cargo.container.spi.jvm.JvmLauncherException;
 import org.codehaus.cargo.container.spi.jvm.JvmLauncherRequest;
+import org.codehaus.cargo.util.CargoException;
 
 /**
  * A Geronimo deploytool-based deployer to perform deployment to a local container.
@@ -456,11 +457,12 @@ public class GeronimoInstalledLocalDeployer extends AbstractInstalledLocalDeploy
             {
                 File toFile = new File(getContainer().getConfiguration().getHome(), "var/temp/"
                     + new File(deployableFile).getName() + ".xml");
-                try (FileWriter writer = new FileWriter(toFile))
+                try
                 {
-                    writer.write(plan);
+                    getFileHandler().writeTextFile(toFile.getPath(), plan,
+                        Charset.defaultCharset());
                 }
-                catch (IOException e)
+                catch (CargoException e)
                 {
                     throw new ContainerException("Cannot write deployment plan", e);
                 }
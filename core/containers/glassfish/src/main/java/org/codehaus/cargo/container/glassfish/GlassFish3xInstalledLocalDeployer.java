@@ -188,7 +188,7 @@ public class GlassFish3xInstalledLocalDeployer extends AbstractGlassFishInstalle
 
         this.addDeploymentArguments(args);
         args.add(new File(deployable.getFile()).getAbsolutePath());
-        this.getLocalContainer().invokeAsAdmin(false, args);
+        this.invokeAsAdmin(args);
     }
 
     /**
@@ -206,7 +206,7 @@ public class GlassFish3xInstalledLocalDeployer extends AbstractGlassFishInstalle
 
         args.add(getDeployableName(deployable));
 
-        this.getLocalContainer().invokeAsAdmin(false, args);
+        this.invokeAsAdmin(args);
     }
 
     /**
@@ -281,7 +281,7 @@ public class GlassFish3xInstalledLocalDeployer extends AbstractGlassFishInstalle
         args.add("--property");
         args.add(dataSourcePropertyString.toString());
         args.add(dataSourceId);
-        this.getLocalContainer().invokeAsAdmin(false, args);
+        this.invokeAsAdmin(args);
 
         for (Object propertyName : extraProperties.keySet())
         {
@@ -297,7 +297,7 @@ public class GlassFish3xInstalledLocalDeployer extends AbstractGlassFishInstalle
                             GlassFishPropertySet.DOMAIN_NAME)
                             + ".resources.jdbc-connection-pool." + dataSourceId + "."
                                 + propertyName + "=" + extraProperties.get(propertyName));
-                    this.getLocalContainer().invokeAsAdmin(false, args);
+                    this.invokeAsAdmin(args);
                 }
             }
         }
@@ -308,7 +308,7 @@ public class GlassFish3xInstalledLocalDeployer extends AbstractGlassFishInstalle
         args.add("--connectionpoolid");
         args.add(dataSourceId);
         args.add(dataSource.getJndiLocation());
-        this.getLocalContainer().invokeAsAdmin(false, args);
+        this.invokeAsAdmin(args);
     }
 
     /**
@@ -323,13 +323,13 @@ public class GlassFish3xInstalledLocalDeployer extends AbstractGlassFishInstalle
         this.addConnectOptions(args);
         args.add("delete-jdbc-resource");
         args.add(jdbcName);
-        this.getLocalContainer().invokeAsAdmin(false, args);
+        this.invokeAsAdmin(args);
 
         args.clear();
         this.addConnectOptions(args);
         args.add("delete-jdbc-connection-pool");
         args.add(poolName);
-        this.getLocalContainer().invokeAsAdmin(false, args);
+        this.invokeAsAdmin(args);
     }
 
     /**
@@ -375,7 +375,7 @@ public class GlassFish3xInstalledLocalDeployer extends AbstractGlassFishInstalle
                 args.add(propertyBuilder.toString());
             }
             args.add(resource.getName());
-            this.getLocalContainer().invokeAsAdmin(false, args);
+            this.invokeAsAdmin(args);
         }
         else if (ConfigurationEntryType.MAIL_SESSION.equals(resource.getType())
             || ConfigurationEntryType.MAIL_SESSION.replace("javax.", "jakarta.")
@@ -409,7 +409,7 @@ public class GlassFish3xInstalledLocalDeployer extends AbstractGlassFishInstalle
                 args.add(propertyBuilder.toString());
             }
             args.add(resource.getName());
-            this.getLocalContainer().invokeAsAdmin(false, args);
+            this.invokeAsAdmin(args);
         }
         else if (
             GlassFish3xInstalledLocalDeployer.MANAGED_EXECUTOR_SERVICE.equals(resource.getType())
@@ -455,7 +455,7 @@ public class GlassFish3xInstalledLocalDeployer extends AbstractGlassFishInstalle
                 args.add(propertyBuilder.toString());
             }
             args.add(resource.getName());
-            this.getLocalContainer().invokeAsAdmin(false, args);
+            this.invokeAsAdmin(args);
         }
         else
         {
@@ -497,7 +497,7 @@ public class GlassFish3xInstalledLocalDeployer extends AbstractGlassFishInstalle
                 args.add(propertyBuilder.toString());
             }
             args.add(resource.getName());
-            this.getLocalContainer().invokeAsAdmin(false, args);
+            this.invokeAsAdmin(args);
         }
     }
 
@@ -91,7 +91,7 @@ public class GlassFish4xInstalledLocalDeployer extends GlassFish3xInstalledLocal
             args.add(groups.toString());
             args.add(user.getName().trim());
             new PrintWriter(System.out).println(args);
-            this.getLocalContainer().invokeAsAdmin(false, args);
+            this.invokeAsAdmin(args);
 
             tempPasswordFile.delete();
         }
@@ -142,7 +142,7 @@ public class GlassFish4xInstalledLocalDeployer extends GlassFish3xInstalledLocal
         args.add("set");
         args.add("configs.config.server-config.security-service."
                 + "activate-default-principal-to-role-mapping=true");
-        this.getLocalContainer().invokeAsAdmin(false, args);
+        this.invokeAsAdmin(args);
     }
 
 }
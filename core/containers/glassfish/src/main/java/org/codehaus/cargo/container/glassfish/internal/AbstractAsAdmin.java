@@ -22,6 +22,9 @@ package org.codehaus.cargo.container.glassfish.internal;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
 import org.codehaus.cargo.container.configuration.LocalConfiguration;
 import org.codehaus.cargo.container.property.RemotePropertySet;
 import org.codehaus.cargo.container.spi.jvm.JvmLauncher;
@@ -45,6 +48,34 @@ public abstract class AbstractAsAdmin
     public abstract int invokeAsAdmin(boolean async, JvmLauncher java, String[] args)
         throws CargoException;
 
+    /**
+     * @return <code>true</code> if this asadmin can run several commands in one
+     * <code>multimode</code> session, see {@link #invokeAsAdmin(JvmLauncher, List, List)}.
+     */
+    public boolean isMultimodeSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Invokes several asadmin commands in one <code>multimode</code> session, which costs one JVM
+     * instead of one JVM per command. Like in an interactive session, the commands following a
+     * failed command are still executed.
+     * 
+     * @param java JVM launcher.
+     * @param options asadmin options applying to all commands, for example connection options.
+     * @param commands Commands to run, each one being the command name followed by its arguments.
+     * @return Output of each failed command, mapped by the index of the command in
+     * <code>commands</code>; empty if all commands succeeded.
+     * @throws CargoException If the <code>multimode</code> session itself fails, or if this
+     * asadmin does not support it.
+     */
+    public Map<Integer, String> invokeAsAdmin(JvmLauncher java, List<String> options,
+        List<List<String>> commands) throws CargoException
+    {
+        throw new CargoException("This asadmin cannot run several commands in one session");
+    }
+
     /**
      * Creates and returns the password file that contains admin's password.
      * 
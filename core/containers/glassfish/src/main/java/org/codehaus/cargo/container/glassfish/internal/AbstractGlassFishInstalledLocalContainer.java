@@ -25,6 +25,7 @@ import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.codehaus.cargo.container.configuration.LocalConfiguration;
 import org.codehaus.cargo.container.configuration.StandaloneLocalConfiguration;
@@ -98,6 +99,30 @@ public abstract class AbstractGlassFishInstalledLocalContainer
         return asadmin.invokeAsAdmin(async, java, args);
     }
 
+    /**
+     * Invokes several asadmin commands in one asadmin session.
+     * 
+     * @param options asadmin options applying to all commands, for example connection options.
+     * @param commands Commands to run, each one being the command name followed by its arguments.
+     * @return Output of each failed command, mapped by the index of the command in
+     * <code>commands</code>; empty if all commands succeeded.
+     * @see AbstractAsAdmin#invokeAsAdmin(JvmLauncher, List, List)
+     */
+    public Map<Integer, String> invokeAsAdmin(List<String> options, List<List<String>> commands)
+    {
+        JvmLauncher java = createJvmLauncher(false);
+        return getAsAdmin().invokeAsAdmin(java, options, commands);
+    }
+
+    /**
+     * @return <code>true</code> if the asadmin of the GlassFish server can run several commands in
+     * one session, see {@link #invokeAsAdmin(List, List)}.
+     */
+    public boolean isAsAdminMultimodeSupported()
+    {
+        return getAsAdmin().isMultimodeSupported();
+    }
+
     /**
      * Returns the asadmin for the GlassFish server.
      * 
@@ -237,7 +262,13 @@ public abstract class AbstractGlassFishInstalledLocalContainer
                             GlassFishPropertySet.REMOVE_DEFAULT_DATASOURCE, "false");
                     }
                 }
+            }
+
+            // Run all the following asadmin commands in one asadmin session
+            deployer.startBatch();
 
+            if (this.getConfiguration() instanceof StandaloneLocalConfiguration)
+            {
                 for (DataSource dataSource : this.getConfiguration().getDataSources())
                 {
                     deployer.deployDatasource(dataSource);
@@ -266,6 +297,7 @@ public abstract class AbstractGlassFishInstalledLocalContainer
             {
                 deployer.redeploy(deployable);
             }
+            deployer.runBatch();
         }
         catch (Throwable t)
         {
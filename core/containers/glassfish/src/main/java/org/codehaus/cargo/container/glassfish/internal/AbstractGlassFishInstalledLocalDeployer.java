@@ -19,7 +19,9 @@
  */
 package org.codehaus.cargo.container.glassfish.internal;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.codehaus.cargo.container.InstalledLocalContainer;
 import org.codehaus.cargo.container.configuration.LocalConfiguration;
@@ -35,6 +37,7 @@ import org.codehaus.cargo.container.property.User;
 import org.codehaus.cargo.container.spi.deployable.AbstractDeployablewithSettableName;
 import org.codehaus.cargo.container.spi.deployer.AbstractLocalDeployer;
 import org.codehaus.cargo.container.spi.deployer.DeployerWatchdog;
+import org.codehaus.cargo.util.CargoException;
 
 /**
  * GlassFish installed local deployer, which uses the GlassFish asadmin to deploy and undeploy
@@ -43,6 +46,12 @@ import org.codehaus.cargo.container.spi.deployer.DeployerWatchdog;
 public abstract class AbstractGlassFishInstalledLocalDeployer extends AbstractLocalDeployer
 {
 
+    /**
+     * asadmin commands collected since {@link #startBatch()}, without their connection options;
+     * <code>null</code> when commands are invoked one by one.
+     */
+    private List<List<String>> batch;
+
     /**
      * Calls parent constructor, which saves the container.
      * 
@@ -163,6 +172,84 @@ public abstract class AbstractGlassFishInstalledLocalDeployer extends AbstractLo
         super.stop(deployable);
     }
 
+    /**
+     * Starts collecting the asadmin commands of this deployer, so that
+     * {@link #runBatch()} then runs them all in one asadmin session. Does nothing if the asadmin
+     * of the container cannot run several commands in one session.
+     */
+    public void startBatch()
+    {
+        if (this.batch == null && this.getLocalContainer().isAsAdminMultimodeSupported())
+        {
+            this.batch = new ArrayList<List<String>>();
+        }
+    }
+
+    /**
+     * Runs the asadmin commands collected since {@link #startBatch()} in one asadmin session, and
+     * goes back to invoking commands one by one.
+     * 
+     * @throws CargoException Listing all failed commands, if any command failed.
+     */
+    public void runBatch() throws CargoException
+    {
+        List<List<String>> commands = this.batch;
+        this.batch = null;
+        if (commands == null || commands.isEmpty())
+        {
+            return;
+        }
+
+        List<String> options = new ArrayList<String>();
+        this.addConnectOptions(options);
+        getLogger().debug("Running " + commands.size() + " asadmin commands in one session",
+            this.getClass().getName());
+        Map<Integer, String> failures =
+            this.getLocalContainer().invokeAsAdmin(options, commands);
+        if (!failures.isEmpty())
+        {
+            StringBuilder message = new StringBuilder();
+            message.append(failures.size());
+            message.append(" of ");
+            message.append(commands.size());
+            message.append(" GlassFish admin commands failed:");
+            for (Map.Entry<Integer, String> failure : failures.entrySet())
+            {
+                message.append("\n - ");
+                message.append(commands.get(failure.getKey()));
+                message.append(": ");
+                message.append(failure.getValue());
+            }
+            throw new CargoException(message.toString());
+        }
+    }
+
+    /**
+     * Invokes asadmin, or adds the command to the current batch if {@link #startBatch()} was
+     * called. Only commands starting with the options of {@link #addConnectOptions(List)} can
+     * be added to a batch; for any other command, the batch collected so far is run first.
+     * 
+     * @param args asadmin arguments.
+     */
+    protected void invokeAsAdmin(List<String> args)
+    {
+        if (this.batch != null)
+        {
+            List<String> options = new ArrayList<String>();
+            this.addConnectOptions(options);
+            if (args.size() > options.size() && args.subList(0, options.size()).equals(options))
+            {
+                this.batch.add(new ArrayList<String>(args.subList(options.size(), args.size())));
+                return;
+            }
+
+            runBatch();
+            this.batch = new ArrayList<List<String>>();
+        }
+
+        this.getLocalContainer().invokeAsAdmin(false, args);
+    }
+
     /**
      * Adds connection options.
      * 
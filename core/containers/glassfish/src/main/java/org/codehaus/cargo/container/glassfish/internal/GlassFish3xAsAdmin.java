@@ -22,6 +22,12 @@ package org.codehaus.cargo.container.glassfish.internal;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.codehaus.cargo.container.spi.jvm.JvmLauncher;
 import org.codehaus.cargo.util.CargoException;
@@ -34,6 +40,12 @@ import org.codehaus.cargo.util.FileHandler;
 public class GlassFish3xAsAdmin extends AbstractAsAdmin
 {
 
+    /**
+     * Status line printed by <code>multimode</code> after each command.
+     */
+    private static final Pattern MULTIMODE_STATUS =
+        Pattern.compile("^Command (\\S+) (executed successfully|failed)");
+
     /**
      * GlassFish home, where the AsAdmin executable can be found.
      */
@@ -111,6 +123,107 @@ public class GlassFish3xAsAdmin extends AbstractAsAdmin
         return exitCode;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isMultimodeSupported()
+    {
+        return true;
+    }
+
+    /**
+     * Writes the commands to a command file and runs it with <code>asadmin multimode</code>. The
+     * outcome of each command is read from the <code>Command ... executed successfully</code> and
+     * <code>Command ... failed</code> lines <code>multimode</code> prints after each command; if
+     * these cannot be matched with the commands, the exit code of <code>asadmin</code> decides for
+     * the whole session. {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, String> invokeAsAdmin(JvmLauncher java, List<String> options,
+        List<List<String>> commands)
+    {
+        File home = new File(this.home);
+        if (!home.isDirectory())
+        {
+            throw new CargoException("GlassFish home directory is not valid: " + home);
+        }
+
+        FileHandler fh = new DefaultFileHandler();
+        File commandFile;
+        File asAdminOutput;
+        try
+        {
+            commandFile = File.createTempFile("cargo-glassfish-asadmin-", ".commands");
+            asAdminOutput = File.createTempFile("cargo-glassfish-asadmin-", ".txt");
+        }
+        catch (IOException e)
+        {
+            throw new CargoException("Cannot create asadmin command file", e);
+        }
+
+        try
+        {
+            StringBuilder script = new StringBuilder();
+            for (List<String> command : commands)
+            {
+                for (String arg : command)
+                {
+                    // multimode unquotes and unescapes arguments, quote all of them
+                    script.append('"');
+                    script.append(arg.replace("\\", "\\\\").replace("\"", "\\\""));
+                    script.append("\" ");
+                }
+                script.append('\n');
+            }
+            fh.writeTextFile(commandFile.getPath(), script.toString(), StandardCharsets.UTF_8);
+
+            List<String> args = new ArrayList<String>(options);
+            args.add("multimode");
+            args.add("--printprompt=false");
+            args.add("--encoding=UTF-8");
+            args.add("--file");
+            args.add(commandFile.getAbsolutePath());
+
+            initializeAsAdminJavaCall(home, java);
+            java.addAppArguments(args.toArray(new String[args.size()]));
+            java.setOutputFile(asAdminOutput);
+            int exitCode = java.execute();
+            String output = fh.readTextFile(asAdminOutput.getPath(), StandardCharsets.UTF_8);
+
+            Map<Integer, String> failures = new LinkedHashMap<Integer, String>();
+            int index = 0;
+            StringBuilder commandOutput = new StringBuilder();
+            for (String line : output.split("\\r?\\n"))
+            {
+                commandOutput.append(line);
+                commandOutput.append('\n');
+                Matcher status = MULTIMODE_STATUS.matcher(line);
+                if (status.find())
+                {
+                    if ("failed".equals(status.group(2)))
+                    {
+                        failures.put(index, commandOutput.toString().trim());
+                    }
+                    commandOutput.setLength(0);
+                    index++;
+                }
+            }
+
+            if (index != commands.size() && exitCode != 0 && failures.isEmpty())
+            {
+                throw new CargoException("GlassFish admin commands in multimode failed: asadmin "
+                    + "exited " + exitCode + ": " + output);
+            }
+            return failures;
+        }
+        finally
+        {
+            commandFile.delete();
+            asAdminOutput.delete();
+        }
+    }
+
     /**
      * Initialize the <code>asadmin</code> Java call.
      * @param home GlassFish home.
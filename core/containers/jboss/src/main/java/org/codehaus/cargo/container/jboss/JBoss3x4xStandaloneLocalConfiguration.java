@@ -21,8 +21,8 @@ package org.codehaus.cargo.container.jboss;
 
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
@@ -265,8 +265,8 @@ public class JBoss3x4xStandaloneLocalConfiguration extends AbstractStandaloneLoc
                     }
                     else
                     {
-                        try (FileOutputStream fops =
-                            new FileOutputStream(new File(destDir, sourceFile.getName()));
+                        try (OutputStream fops = getFileHandler().getOutputStream(
+                            new File(destDir, sourceFile.getName()).getPath());
                             FileInputStream fips = new FileInputStream(sourceFile))
                         {
                             getFileHandler().copy(fips, fops);
@@ -96,6 +96,15 @@ public class JBoss71xStandaloneLocalConfiguration extends JBoss7xStandaloneLocal
                 "port-offset", GeneralPropertySet.PORT_OFFSET);
 
         super.configure(container);
+    }
+
+    /**
+     * {@inheritDoc}. Then writes the application users and roles.
+     */
+    @Override
+    protected void configureHome(LocalContainer container)
+    {
+        super.configureHome(container);
 
         // Add token filters for authenticated users
         if (!getUsers().isEmpty())
@@ -532,4 +532,14 @@ public class JBoss7xInstalledLocalContainer extends AbstractInstalledLocalContai
         HttpUtils httpUtils = new HttpUtils();
         return httpUtils.ping(ContainerUtils.getCPCURL(getConfiguration()));
     }
+
+    /**
+     * JBoss 7.x logs <code>JBAS015874</code> once started, or <code>JBAS015875</code> if some
+     * services failed to start. {@inheritDoc}
+     */
+    @Override
+    protected String getStartupLogPattern()
+    {
+        return "JBAS01587[45]:";
+    }
 }
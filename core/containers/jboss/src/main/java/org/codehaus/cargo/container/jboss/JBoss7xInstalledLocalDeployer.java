@@ -85,16 +85,30 @@ public class JBoss7xInstalledLocalDeployer extends JBossInstalledLocalDeployer
                 + " with the JBoss container classpath", e);
         }
 
+        // When synchronizing an already deployed copy, the marker is only created if anything
+        // changed, through reloadDeployable
+        boolean synchronizedRedeploy = isSynchronizedRedeploy(deployableDir, deployableToDeploy);
+
         super.doDeploy(deployableDir, deployableToDeploy);
 
-        if (deployableToDeploy.isExpanded())
+        if (deployableToDeploy.isExpanded() && !synchronizedRedeploy)
         {
-            String deployableName = getDeployableName(deployableToDeploy);
-            getFileHandler().createFile(getFileHandler().append(deployableDir, deployableName
-                + ".dodeploy"));
+            reloadDeployable(deployableDir, deployableToDeploy);
         }
     }
 
+    /**
+     * {@inheritDoc}. JBoss only deploys expanded deployables once they have a
+     * <code>.dodeploy</code> marker file, which this method creates.
+     */
+    @Override
+    protected void reloadDeployable(String deployableDir, Deployable deployable)
+    {
+        String deployableName = getDeployableName(deployable);
+        getFileHandler().createFile(getFileHandler().append(deployableDir, deployableName
+            + ".dodeploy"));
+    }
+
     /**
      * Modify the classpath via the <code>MANIFEST.MF</code> as explained on
      * https://community.jboss.org/wiki/HowToPutAnExternalFileInTheClasspath
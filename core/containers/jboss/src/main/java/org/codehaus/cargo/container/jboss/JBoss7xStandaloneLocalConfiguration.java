@@ -132,6 +132,15 @@ public class JBoss7xStandaloneLocalConfiguration extends AbstractStandaloneLocal
         }
 
         super.configure(container);
+    }
+
+    /**
+     * {@inheritDoc}. Then writes the management users.
+     */
+    @Override
+    protected void configureHome(LocalContainer container)
+    {
+        super.configureHome(container);
 
         // Add token filters for authenticated users
         if (!getUsers().isEmpty())
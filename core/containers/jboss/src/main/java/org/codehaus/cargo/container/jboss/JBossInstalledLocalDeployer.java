@@ -106,6 +106,8 @@ public class JBossInstalledLocalDeployer extends AbstractCopyingInstalledLocalDe
     @Override
     public void undeploy(Deployable deployable)
     {
+        deleteSyncManifest(getDeployableDir(deployable), deployable);
+
         if (deployable.getType() == DeployableType.WAR)
         {
             WAR war = (WAR) deployable;
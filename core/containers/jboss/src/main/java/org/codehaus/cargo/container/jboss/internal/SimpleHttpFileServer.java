@@ -19,18 +19,39 @@
  */
 package org.codehaus.cargo.container.jboss.internal;
 
-import java.io.BufferedReader;
+import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.InetSocketAddress;
 import java.net.MalformedURLException;
-import java.net.ServerSocket;
 import java.net.Socket;
-import java.net.SocketException;
+import java.net.SocketTimeoutException;
 import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.codehaus.cargo.container.deployable.Deployable;
 import org.codehaus.cargo.container.jboss.JBossPropertySet;
@@ -40,11 +61,48 @@ import org.codehaus.cargo.util.FileHandler;
 import org.codehaus.cargo.util.log.Logger;
 
 /**
- * Implementation of a Web server that serves one file.
+ * Implementation of a Web server that serves one file.<br>
+ * <br>
+ * Connections are accepted on a dedicated thread and served by a small pool of worker threads,
+ * hence several nodes (for example, of a JBoss cluster) can download the file at the same time.
+ * Connections are kept alive between requests, <code>Range</code> requests are supported so that
+ * interrupted downloads can be resumed and the file body is sent using
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, without
+ * copying it through the Java heap.
  */
 public class SimpleHttpFileServer implements Runnable, ISimpleHttpFileServer
 {
 
+    /**
+     * Number of worker threads serving connections.
+     */
+    private static final int WORKERS = 8;
+
+    /**
+     * Time in milliseconds after which an idle connection is closed.
+     */
+    private static final int KEEP_ALIVE_TIMEOUT = 30000;
+
+    /**
+     * Maximum size of the headers of a request.
+     */
+    private static final int MAX_HEADER_SIZE = 8192;
+
+    /**
+     * Size of the buffer used when the file is not on the local file system.
+     */
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * HTTP line separator.
+     */
+    private static final String CRLF = "\r\n";
+
+    /**
+     * Single byte range, as in <code>Range: bytes=start-end</code>.
+     */
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
     /**
      * Logger instance.
      */
@@ -71,31 +129,46 @@ public class SimpleHttpFileServer implements Runnable, ISimpleHttpFileServer
     protected String remotePath;
 
     /**
-     * TCP socket.
+     * TCP server socket channel.
+     */
+    protected ServerSocketChannel serverChannel;
+
+    /**
+     * Worker threads serving connections.
+     */
+    protected ExecutorService workers;
+
+    /**
+     * Open connections.
+     */
+    protected final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of requests for which the requested file content was fully sent.
      */
-    protected ServerSocket serverSocket;
+    protected final AtomicInteger callCount = new AtomicInteger();
 
     /**
-     * Call count.
+     * Number of bytes of the file sent so far.
      */
-    protected int callCount;
+    protected final AtomicLong bytesSent = new AtomicLong();
 
     /**
      * Has stop been called?
      */
-    protected boolean stopped;
+    protected volatile boolean stopped;
 
     /**
      * Last exception.
      */
-    protected Throwable lastException;
+    protected volatile Throwable lastException;
 
     /**
      * create the simple http file server.
      */
     public SimpleHttpFileServer()
     {
-        callCount = 0;
+        // Nothing to initialize
     }
 
     /**
@@ -167,8 +240,10 @@ public class SimpleHttpFileServer implements Runnable, ISimpleHttpFileServer
 
         try
         {
-            this.serverSocket = new ServerSocket(listenSocket.getPort(), 0,
-                listenSocket.getAddress());
+            this.serverChannel = ServerSocketChannel.open();
+            this.serverChannel.socket().setReuseAddress(true);
+            this.serverChannel.socket().bind(
+                new InetSocketAddress(listenSocket.getAddress(), listenSocket.getPort()));
         }
         catch (IOException e)
         {
@@ -196,7 +271,16 @@ public class SimpleHttpFileServer implements Runnable, ISimpleHttpFileServer
     @Override
     public int getCallCount()
     {
-        return this.callCount;
+        return this.callCount.get();
+    }
+
+    /**
+     * @return the number of bytes of the file sent so far, including the bytes of partial and
+     * interrupted downloads.
+     */
+    public long getBytesSent()
+    {
+        return this.bytesSent.get();
     }
 
     /**
@@ -214,13 +298,21 @@ public class SimpleHttpFileServer implements Runnable, ISimpleHttpFileServer
     @Override
     public void start()
     {
-        if (this.serverSocket == null)
+        if (this.serverChannel == null)
         {
             throw new CargoException("Please call setListeningParameters first!");
         }
 
         this.stopped = false;
-        Thread thread = new Thread(this);
+        final AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(WORKERS, runnable ->
+        {
+            Thread worker = new Thread(runnable,
+                "Cargo HTTP file server worker " + workerNumber.incrementAndGet());
+            worker.setDaemon(true);
+            return worker;
+        });
+        Thread thread = new Thread(this, "Cargo HTTP file server");
         thread.setDaemon(true);
         thread.start();
     }
@@ -235,136 +327,434 @@ public class SimpleHttpFileServer implements Runnable, ISimpleHttpFileServer
 
         try
         {
-            this.serverSocket.close();
+            this.serverChannel.close();
         }
         catch (IOException e)
         {
             throw new CargoException("Error stopping embedded HTTP server", e);
         }
+        finally
+        {
+            if (this.workers != null)
+            {
+                this.workers.shutdownNow();
+            }
+            for (SocketChannel connection : this.connections)
+            {
+                close(connection);
+            }
+        }
     }
 
     /**
-     * {@inheritDoc}
+     * Accepts connections and hands them over to the worker threads.
      */
     @Override
     public void run()
     {
         try
         {
-            this.runAndThrow();
+            while (!this.stopped)
+            {
+                this.logger.debug("Waiting for connection on socket "
+                    + this.serverChannel.socket(), this.getClass().getName());
+
+                SocketChannel connection = this.serverChannel.accept();
+                this.connections.add(connection);
+                try
+                {
+                    this.workers.execute(() -> this.serve(connection));
+                }
+                catch (RejectedExecutionException e)
+                {
+                    close(connection);
+                }
+            }
         }
         catch (Throwable t)
         {
-            if (!this.stopped)
+            this.handleException(t);
+        }
+    }
+
+    /**
+     * Serves all requests of a connection, until the client or the server closes it or it stays
+     * idle for too long.
+     * @param connection Connection to serve.
+     */
+    private void serve(SocketChannel connection)
+    {
+        try
+        {
+            Socket socket = connection.socket();
+            this.logger.debug("Handling requests on socket " + socket, this.getClass().getName());
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(KEEP_ALIVE_TIMEOUT);
+            // The socket's stream is only used for reading request headers; it is buffered since
+            // headers are parsed byte after byte and since clients may pipeline requests
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+
+            List<String> request;
+            while (!this.stopped && (request = this.readRequest(in)) != null)
             {
-                this.lastException = t;
-                this.logger.warn("Error in the embedded HTTP server: " + t.toString(),
-                    this.getClass().getName());
-                for (StackTraceElement ste : t.getStackTrace())
+                if (!this.handleRequest(connection, request))
                 {
-                    this.logger.warn(ste.toString(), this.getClass().getName());
+                    break;
                 }
             }
         }
+        catch (SocketTimeoutException e)
+        {
+            this.logger.debug("Closing idle connection " + connection.socket(),
+                this.getClass().getName());
+        }
+        catch (IOException ignored)
+        {
+            // Ignored exception, the client closed the connection, for example since it got
+            // the file or it will resume the download with a Range request. Not ignoring would
+            // result in the CARGO-859 (JBoss timing out with big files)
+        }
+        catch (Throwable t)
+        {
+            this.handleException(t);
+        }
+        finally
+        {
+            close(connection);
+        }
     }
 
     /**
-     * runs the thread.
-     * @throws Throwable if anything is thrown.
+     * Reads the request line and headers of a request.
+     * @param in Stream to read from.
+     * @return the request line followed by the header lines, <code>null</code> if the client
+     * closed the connection.
+     * @throws IOException if reading fails or if the headers are too large.
      */
-    private void runAndThrow() throws Throwable
+    private List<String> readRequest(InputStream in) throws IOException
     {
-        final String expectedGetRequest = "GET " + this.remotePath;
-
-        while (!this.stopped)
+        List<String> request = new ArrayList<String>();
+        StringBuilder line = new StringBuilder();
+        int size = 0;
+        int c;
+        while ((c = in.read()) != -1)
         {
-            this.logger.debug("Waiting for connection on socket " + this.serverSocket,
-                this.getClass().getName());
-
-            // wait for a connection
-            try (Socket socket = this.serverSocket.accept())
+            if (++size > MAX_HEADER_SIZE)
             {
-                this.logger.debug("Handling request on socket " + socket,
-                    this.getClass().getName());
+                throw new IOException("HTTP request headers larger than " + MAX_HEADER_SIZE
+                    + " bytes");
+            }
 
-                boolean error = false;
-                try (BufferedReader in = new BufferedReader(new InputStreamReader(
-                    socket.getInputStream())); OutputStream out = socket.getOutputStream())
+            if (c == '\n')
+            {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r')
                 {
-                    String line = in.readLine();
-                    if (line == null)
-                    {
-                        line = "";
-                    }
-                    if (!line.startsWith(expectedGetRequest))
-                    {
-                        error = true;
-                    }
-                    while (!"".equals(line))
+                    line.setLength(length - 1);
+                }
+                if (line.length() == 0)
+                {
+                    if (!request.isEmpty())
                     {
-                        line = in.readLine();
+                        return request;
                     }
+                }
+                else
+                {
+                    request.add(line.toString());
+                    line.setLength(0);
+                }
+            }
+            else
+            {
+                line.append((char) c);
+            }
+        }
+        return null;
+    }
 
-                    this.logger.debug("Got HTTP request line " + line, this.getClass().getName());
+    /**
+     * Answers a request.
+     * @param connection Connection to answer on.
+     * @param request Request line followed by the header lines.
+     * @return <code>true</code> if the connection should be kept alive for further requests.
+     * @throws IOException if sending the answer fails.
+     */
+    private boolean handleRequest(SocketChannel connection, List<String> request)
+        throws IOException
+    {
+        long start = System.currentTimeMillis();
+        this.logger.debug("Got HTTP request line " + request.get(0), this.getClass().getName());
+
+        String[] requestLine = request.get(0).split(" ");
+        String method = requestLine[0];
+        String path = requestLine.length > 1 ? requestLine[1] : "";
+        boolean http11 = requestLine.length > 2 && "HTTP/1.1".equals(requestLine[2]);
+        Map<String, String> headers = new HashMap<String, String>();
+        for (int i = 1; i < request.size(); i++)
+        {
+            String header = request.get(i);
+            int colon = header.indexOf(':');
+            if (colon > 0)
+            {
+                headers.put(header.substring(0, colon).trim().toLowerCase(Locale.ENGLISH),
+                    header.substring(colon + 1).trim());
+            }
+        }
+        String connectionHeader = headers.get("connection");
+        boolean keepAlive = http11 ? !"close".equalsIgnoreCase(connectionHeader)
+            : "keep-alive".equalsIgnoreCase(connectionHeader);
 
-                    if (error)
+        StringBuilder answer = new StringBuilder();
+        if (!"GET".equals(method) && !"HEAD".equals(method))
+        {
+            answer.append("HTTP/1.1 405 Method Not Allowed").append(CRLF);
+            answer.append("Allow: GET, HEAD").append(CRLF);
+            answer.append("Content-Length: 0").append(CRLF);
+            keepAlive = false;
+        }
+        else if (!this.isServedPath(path))
+        {
+            answer.append("HTTP/1.1 404 Not Found").append(CRLF);
+            answer.append("Content-Length: 0").append(CRLF);
+        }
+        else
+        {
+            long size = this.fileHandler.getSize(this.filePath);
+            long first = 0;
+            long last = size - 1;
+            String range = headers.get("range");
+            Matcher matcher = range == null ? null : RANGE.matcher(range.trim());
+            // Multiple ranges and invalid ranges are ignored, the whole file is then sent
+            if (matcher != null && matcher.matches()
+                && (!matcher.group(1).isEmpty() || !matcher.group(2).isEmpty()))
+            {
+                try
+                {
+                    if (matcher.group(1).isEmpty())
                     {
-                        StringBuilder answer = new StringBuilder();
-                        answer.append("HTTP/1.0 404 NOTFOUND");
-                        answer.append("\r\n");
-                        answer.append("Connection: close");
-                        answer.append("\r\n");
-                        answer.append("\r\n");
-
-                        out.write(answer.toString().getBytes(StandardCharsets.US_ASCII));
-                        out.flush();
+                        first = Math.max(0, size - Long.parseLong(matcher.group(2)));
                     }
                     else
                     {
-                        StringBuilder answer = new StringBuilder();
-                        answer.append("HTTP/1.0 200 OK");
-                        answer.append("\r\n");
-                        answer.append("Connection: close");
-                        answer.append("\r\n");
-                        answer.append("Content-Type: application/octet-stream");
-                        answer.append("\r\n");
-                        answer.append("Content-Length: ");
-                        answer.append(Long.toString(this.fileHandler.getSize(this.filePath)));
-                        answer.append("\r\n");
-                        answer.append("\r\n");
-
-                        out.write(answer.toString().getBytes(StandardCharsets.US_ASCII));
-                        out.flush();
-
-                        byte[] fileBytes = new byte[socket.getSendBufferSize()];
-
-                        try (InputStream file = this.fileHandler.getInputStream(this.filePath))
+                        first = Long.parseLong(matcher.group(1));
+                        if (!matcher.group(2).isEmpty())
                         {
-                            int read;
-                            while ((read = file.read(fileBytes)) > 0)
-                            {
-                                out.write(fileBytes, 0, read);
-                                out.flush();
-                            }
+                            last = Math.min(last, Long.parseLong(matcher.group(2)));
                         }
-
-                        this.callCount++;
                     }
+                }
+                catch (NumberFormatException e)
+                {
+                    first = 0;
+                    last = size - 1;
+                    range = null;
+                }
+
+                if (range != null && (first >= size || first > last))
+                {
+                    answer.append("HTTP/1.1 416 Range Not Satisfiable").append(CRLF);
+                    answer.append("Content-Range: bytes */").append(size).append(CRLF);
+                    answer.append("Content-Length: 0").append(CRLF);
+                    this.sendHeaders(connection, answer, keepAlive);
+                    return keepAlive;
+                }
+            }
+            else
+            {
+                range = null;
+            }
+
+            long length = last - first + 1;
+            if (range == null)
+            {
+                answer.append("HTTP/1.1 200 OK").append(CRLF);
+            }
+            else
+            {
+                answer.append("HTTP/1.1 206 Partial Content").append(CRLF);
+                answer.append("Content-Range: bytes ").append(first).append('-').append(last)
+                    .append('/').append(size).append(CRLF);
+            }
+            answer.append("Accept-Ranges: bytes").append(CRLF);
+            answer.append("Content-Type: application/octet-stream").append(CRLF);
+            answer.append("Content-Length: ").append(length).append(CRLF);
+            this.sendHeaders(connection, answer, keepAlive);
+
+            if ("GET".equals(method))
+            {
+                this.sendFile(connection, first, length);
+                this.callCount.incrementAndGet();
+                this.logger.debug("Sent bytes " + first + "-" + last + "/" + size + " of "
+                    + this.filePath + " to " + connection.socket().getRemoteSocketAddress()
+                        + " in " + (System.currentTimeMillis() - start) + " ms",
+                            this.getClass().getName());
+            }
+            return keepAlive;
+        }
+
+        this.sendHeaders(connection, answer, keepAlive);
+        return keepAlive;
+    }
+
+    /**
+     * @param path Path of a request, possibly URL-encoded and with a query string.
+     * @return <code>true</code> if the path is the one of the served file.
+     */
+    private boolean isServedPath(String path)
+    {
+        String requestedPath = path;
+        int query = requestedPath.indexOf('?');
+        if (query != -1)
+        {
+            requestedPath = requestedPath.substring(0, query);
+        }
+        if (requestedPath.equals(this.remotePath))
+        {
+            return true;
+        }
+
+        try
+        {
+            return URLDecoder.decode(requestedPath, StandardCharsets.UTF_8.name()).equals(
+                this.remotePath);
+        }
+        catch (IllegalArgumentException | UnsupportedEncodingException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Sends the status line and headers of an answer.
+     * @param connection Connection to send on.
+     * @param answer Status line and headers, without the <code>Connection</code> header and the
+     * final empty line.
+     * @param keepAlive Whether the connection will be kept alive.
+     * @throws IOException if sending fails.
+     */
+    private void sendHeaders(SocketChannel connection, StringBuilder answer, boolean keepAlive)
+        throws IOException
+    {
+        answer.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append(CRLF);
+        answer.append(CRLF);
+        ByteBuffer buffer =
+            ByteBuffer.wrap(answer.toString().getBytes(StandardCharsets.US_ASCII));
+        while (buffer.hasRemaining())
+        {
+            connection.write(buffer);
+        }
+    }
 
-                    this.logger.debug("Finished responding to HTTP request line " + line,
-                        this.getClass().getName());
+    /**
+     * Sends part of the file. Files of the local file system are transferred from the file
+     * channel to the socket channel, others are copied through a direct buffer.
+     * @param connection Connection to send on.
+     * @param position Position of the first byte to send.
+     * @param length Number of bytes to send.
+     * @throws IOException if reading the file or sending fails.
+     */
+    private void sendFile(SocketChannel connection, long position, long length)
+        throws IOException
+    {
+        long sent = 0;
+        File file = new File(this.filePath);
+        if (file.isFile())
+        {
+            try (FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+            {
+                while (sent < length)
+                {
+                    long transferred =
+                        fileChannel.transferTo(position + sent, length - sent, connection);
+                    if (transferred <= 0 && position + sent >= fileChannel.size())
+                    {
+                        throw new IOException("File " + this.filePath
+                            + " was truncated while being sent");
+                    }
+                    sent += transferred;
+                    this.bytesSent.addAndGet(transferred);
+                }
+            }
+        }
+        else
+        {
+            try (InputStream in = this.fileHandler.getInputStream(this.filePath);
+                ReadableByteChannel fileChannel = Channels.newChannel(in))
+            {
+                long skipped = 0;
+                while (skipped < position)
+                {
+                    long n = in.skip(position - skipped);
+                    if (n <= 0)
+                    {
+                        throw new IOException("File " + this.filePath
+                            + " was truncated while being sent");
+                    }
+                    skipped += n;
+                }
 
-                    out.flush();
+                ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                while (sent < length)
+                {
+                    buffer.clear();
+                    if (length - sent < buffer.capacity())
+                    {
+                        buffer.limit((int) (length - sent));
+                    }
+                    if (fileChannel.read(buffer) == -1)
+                    {
+                        throw new IOException("File " + this.filePath
+                            + " was truncated while being sent");
+                    }
+                    buffer.flip();
+                    int read = buffer.remaining();
+                    while (buffer.hasRemaining())
+                    {
+                        connection.write(buffer);
+                    }
+                    sent += read;
+                    this.bytesSent.addAndGet(read);
                 }
             }
-            catch (SocketException ignored)
+        }
+    }
+
+    /**
+     * Records and logs an exception, unless the server is stopping.
+     * @param t Exception to handle.
+     */
+    private void handleException(Throwable t)
+    {
+        if (!this.stopped)
+        {
+            this.lastException = t;
+            this.logger.warn("Error in the embedded HTTP server: " + t.toString(),
+                this.getClass().getName());
+            for (StackTraceElement ste : t.getStackTrace())
             {
-                // Ignored exception. Not ignoring will break the while loop, end the sending
-                // thread and result in the CARGO-859 (JBoss timing out with big files)
+                this.logger.warn(ste.toString(), this.getClass().getName());
             }
         }
     }
 
+    /**
+     * Closes a connection, ignoring errors.
+     * @param connection Connection to close.
+     */
+    private void close(SocketChannel connection)
+    {
+        this.connections.remove(connection);
+        try
+        {
+            connection.close();
+        }
+        catch (IOException ignored)
+        {
+            // Ignored, the connection is not used anymore
+        }
+    }
+
     /**
      * Get the deployable name for a given deployable. This also takes into account the WAR context.
      * @param deployable Deployable to get the name for.
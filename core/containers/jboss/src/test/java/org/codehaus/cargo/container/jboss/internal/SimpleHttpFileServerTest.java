@@ -0,0 +1,223 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.jboss.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.codehaus.cargo.container.deployable.WAR;
+import org.codehaus.cargo.util.DefaultFileHandler;
+import org.codehaus.cargo.util.FileHandler;
+import org.codehaus.cargo.util.log.NullLogger;
+
+/**
+ * Unit tests for {@link SimpleHttpFileServer}.
+ */
+public class SimpleHttpFileServerTest
+{
+    /**
+     * Content of the served file.
+     */
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+
+    /**
+     * File handler.
+     */
+    private FileHandler fileHandler;
+
+    /**
+     * Temporary directory.
+     */
+    private String tmpDir;
+
+    /**
+     * Server being tested.
+     */
+    private SimpleHttpFileServer server;
+
+    /**
+     * Creates the served file and starts the server.
+     * @throws Exception If anything goes wrong.
+     */
+    @BeforeEach
+    protected void setUp() throws Exception
+    {
+        this.fileHandler = new DefaultFileHandler();
+        this.tmpDir = this.fileHandler.createUniqueTmpDirectory();
+        String file = this.fileHandler.append(this.tmpDir, "test.war");
+        this.fileHandler.writeTextFile(file, CONTENT, StandardCharsets.US_ASCII);
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0))
+        {
+            port = socket.getLocalPort();
+        }
+
+        this.server = new SimpleHttpFileServer();
+        this.server.setFileHandler(this.fileHandler);
+        this.server.setLogger(new NullLogger());
+        this.server.setFile(new WAR(file), "false");
+        this.server.setListeningParameters(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), port), null);
+        this.server.start();
+    }
+
+    /**
+     * Stops the server and deletes the temporary directory.
+     */
+    @AfterEach
+    protected void tearDown()
+    {
+        this.server.stop();
+        this.fileHandler.delete(this.tmpDir);
+    }
+
+    /**
+     * @param connection Connection to read from.
+     * @return Body of the answer.
+     * @throws IOException If anything goes wrong.
+     */
+    private static String read(HttpURLConnection connection) throws IOException
+    {
+        try (InputStream in = connection.getInputStream())
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[16];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+            {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * Waits for the server to count its calls, since clients may receive all bytes of an answer
+     * before the server counts it.
+     * @param expected Expected call count.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private void assertCallCount(int expected) throws InterruptedException
+    {
+        long timeout = System.currentTimeMillis() + 5000;
+        while (this.server.getCallCount() < expected && System.currentTimeMillis() < timeout)
+        {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(expected, this.server.getCallCount());
+    }
+
+    /**
+     * Test that the whole file is served.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testGetFile() throws Exception
+    {
+        HttpURLConnection connection = (HttpURLConnection) this.server.getURL().openConnection();
+        Assertions.assertEquals(200, connection.getResponseCode());
+        Assertions.assertEquals(CONTENT.length(), connection.getContentLength());
+        Assertions.assertEquals(CONTENT, read(connection));
+        assertCallCount(1);
+        Assertions.assertNull(this.server.getException());
+    }
+
+    /**
+     * Test that byte ranges are served.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testGetRange() throws Exception
+    {
+        HttpURLConnection connection = (HttpURLConnection) this.server.getURL().openConnection();
+        connection.setRequestProperty("Range", "bytes=10-19");
+        Assertions.assertEquals(206, connection.getResponseCode());
+        Assertions.assertEquals("bytes 10-19/" + CONTENT.length(),
+            connection.getHeaderField("Content-Range"));
+        Assertions.assertEquals("abcdefghij", read(connection));
+
+        connection = (HttpURLConnection) this.server.getURL().openConnection();
+        connection.setRequestProperty("Range", "bytes=-6");
+        Assertions.assertEquals(206, connection.getResponseCode());
+        Assertions.assertEquals("uvwxyz", read(connection));
+
+        connection = (HttpURLConnection) this.server.getURL().openConnection();
+        connection.setRequestProperty("Range", "bytes=100-");
+        Assertions.assertEquals(416, connection.getResponseCode());
+
+        assertCallCount(2);
+        Assertions.assertEquals(16, this.server.getBytesSent());
+    }
+
+    /**
+     * Test that several requests are served on a kept alive connection, and that other files are
+     * not found.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testKeepAlive() throws Exception
+    {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+            this.server.getURL().getPort()))
+        {
+            OutputStream out = socket.getOutputStream();
+            out.write(("GET /test.war HTTP/1.1\r\nHost: localhost\r\nRange: bytes=0-3\r\n\r\n"
+                + "GET /other.war HTTP/1.1\r\nHost: localhost\r\n\r\n"
+                + "GET /test.war HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            ByteArrayOutputStream answer = new ByteArrayOutputStream();
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[256];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+            {
+                answer.write(buffer, 0, n);
+            }
+            String answers = new String(answer.toByteArray(), StandardCharsets.US_ASCII);
+
+            int partial = answers.indexOf("HTTP/1.1 206");
+            int notFound = answers.indexOf("HTTP/1.1 404");
+            int ok = answers.indexOf("HTTP/1.1 200");
+            Assertions.assertTrue(partial == 0, answers);
+            Assertions.assertTrue(notFound > partial, answers);
+            Assertions.assertTrue(ok > notFound, answers);
+            Assertions.assertTrue(answers.substring(0, notFound).endsWith("\r\n\r\n0123"),
+                answers);
+            Assertions.assertTrue(answers.endsWith("\r\n\r\n" + CONTENT), answers);
+        }
+        assertCallCount(2);
+    }
+}
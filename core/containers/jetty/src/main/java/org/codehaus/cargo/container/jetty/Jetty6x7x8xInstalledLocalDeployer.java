@@ -115,6 +115,26 @@ public class Jetty6x7x8xInstalledLocalDeployer extends AbstractCopyingInstalledL
         }
     }
 
+    /**
+     * {@inheritDoc}. Jetty redeploys a web application when its context XML file is modified;
+     * hence this method touches that file. Without such a file, it touches the deployed
+     * directory, which Jetty's deployment scanner also watches.
+     */
+    @Override
+    protected void reloadDeployable(String deployableDir, Deployable deployable)
+    {
+        String trigger = getFileHandler().append(deployableDir, getDeployableName(deployable));
+        if (DeployableType.WAR.equals(deployable.getType()))
+        {
+            String contextFile = getContextFilename((WAR) deployable, "xml");
+            if (getFileHandler().exists(contextFile))
+            {
+                trigger = contextFile;
+            }
+        }
+        getFileHandler().setLastModified(trigger, System.currentTimeMillis());
+    }
+
     /**
      * Context file name.
      * 
@@ -272,4 +272,13 @@ public class Jetty6xInstalledLocalContainer extends AbstractInstalledLocalContai
     {
         return this.capability;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getStartupLogPattern()
+    {
+        return "Started SelectChannelConnector@";
+    }
 }
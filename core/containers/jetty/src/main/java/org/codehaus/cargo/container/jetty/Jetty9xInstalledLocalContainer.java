@@ -145,4 +145,14 @@ public class Jetty9xInstalledLocalContainer extends Jetty8xInstalledLocalContain
             };
         }
     }
+
+    /**
+     * Jetty 9.x and above log their uptime, for example <code>Started @1234ms</code> or
+     * <code>Started oejs.Server@6b2fad11{STARTING}[12.0.0,sto=0] @573ms</code>. {@inheritDoc}
+     */
+    @Override
+    protected String getStartupLogPattern()
+    {
+        return "Started .*@\\d+ms";
+    }
 }
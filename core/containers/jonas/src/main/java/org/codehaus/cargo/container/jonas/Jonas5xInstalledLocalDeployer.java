@@ -80,6 +80,7 @@ public class Jonas5xInstalledLocalDeployer extends AbstractCopyingInstalledLocal
         String deployableFilename =
             getDeployableDir(deployable) + "/" + getDeployableName(deployable);
         getFileHandler().delete(deployableFilename);
+        deleteSyncManifest(getDeployableDir(deployable), deployable);
     }
 
     /**
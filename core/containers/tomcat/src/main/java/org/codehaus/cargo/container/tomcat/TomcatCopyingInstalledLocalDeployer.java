@@ -165,6 +165,29 @@ public class TomcatCopyingInstalledLocalDeployer extends AbstractCopyingInstalle
         }
     }
 
+    /**
+     * {@inheritDoc}. Tomcat reloads a context when its <code>WEB-INF/web.xml</code> file, which
+     * is watched by default, is modified; hence this method touches that file. Without such a
+     * file, it touches the deployed directory, which makes Tomcat redeploy the context. A
+     * <code>WEB-INF/web.xml</code> file hard linked to its source, when copying with
+     * {@link org.codehaus.cargo.util.DefaultFileHandler.CopyMode#LINK}, is unlinked by the file
+     * handler before being touched, so that the source does not look modified.
+     */
+    @Override
+    protected void reloadDeployable(String deployableDir, Deployable deployable)
+    {
+        String target = getFileHandler().append(deployableDir, getDeployableName(deployable));
+        String webXml = getFileHandler().append(target, "WEB-INF/web.xml");
+        if (getFileHandler().exists(webXml))
+        {
+            getFileHandler().setLastModified(webXml, System.currentTimeMillis());
+        }
+        else
+        {
+            getFileHandler().setLastModified(target, System.currentTimeMillis());
+        }
+    }
+
     /**
      * Configures the specified context element with the extra classpath (if any) of the given WAR.
      * 
@@ -231,6 +254,7 @@ public class TomcatCopyingInstalledLocalDeployer extends AbstractCopyingInstalle
                         this.getClass().getName());
                     getFileHandler().delete(expandedwarLocation);
                 }
+                deleteSyncManifest(deployableDir, deployable);
             }
             else
             {
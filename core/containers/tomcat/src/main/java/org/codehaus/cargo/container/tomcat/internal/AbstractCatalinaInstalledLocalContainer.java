@@ -199,4 +199,12 @@ public abstract class AbstractCatalinaInstalledLocalContainer extends
         java.start();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getStartupLogPattern()
+    {
+        return "Server startup in";
+    }
 }
@@ -25,6 +25,8 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
 
 import org.codehaus.cargo.container.Container;
 import org.codehaus.cargo.container.ContainerException;
@@ -33,6 +35,7 @@ import org.codehaus.cargo.container.deployable.Deployable;
 import org.codehaus.cargo.container.deployable.DeployableType;
 import org.codehaus.cargo.container.deployable.WAR;
 import org.codehaus.cargo.container.deployer.DeployableMonitor;
+import org.codehaus.cargo.container.deployer.DeploymentReport;
 import org.codehaus.cargo.container.property.GeneralPropertySet;
 import org.codehaus.cargo.container.property.RemotePropertySet;
 import org.codehaus.cargo.container.property.ServletPropertySet;
@@ -79,7 +82,7 @@ public abstract class AbstractTomcatManagerDeployer extends AbstractDeployer
     /**
      * @return the tomcat manager instance
      */
-    protected TomcatManager getTomcatManager()
+    protected synchronized TomcatManager getTomcatManager()
     {
         if (this.manager == null)
         {
@@ -199,6 +202,29 @@ public abstract class AbstractTomcatManagerDeployer extends AbstractDeployer
         watchdog.watchForAvailability();
     }
 
+    /**
+     * {@inheritDoc}. As {@link #redeploy(Deployable, DeployableMonitor)} does, each deployable is
+     * redeployed in one action and then waited for until it is available.
+     */
+    @Override
+    public DeploymentReport redeploy(List<Deployable> deployables,
+        Map<Deployable, DeployableMonitor> monitors, int concurrency)
+    {
+        DeploymentReport report = super.redeploy(deployables, null, concurrency);
+        watch(report.getSuccessfulDeployables(), monitors, true, report);
+        return report;
+    }
+
+    /**
+     * {@inheritDoc}. Each Tomcat manager command is a separate HTTP request, hence commands for
+     * different deployables can run concurrently.
+     */
+    @Override
+    public boolean isConcurrentDeploymentSupported()
+    {
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -93,6 +93,7 @@ public class WebLogic9x10x12x14x15xCopyingInstalledLocalDeployer extends
             getLogger().info("Undeploying [" + fileName + "]...", this.getClass().getName());
             getFileHandler().delete(fileName);
         }
+        deleteSyncManifest(getDeployableDir(deployable), deployable);
     }
 
 }
@@ -100,9 +100,8 @@ public class DeployDeployableScriptCommand extends AbstractResourceScriptCommand
 
         if (deployable instanceof WAR)
         {
-            try
+            try (WarArchive warArchive = WarArchiveIo.open(deployable.getFile()))
             {
-                WarArchive warArchive = WarArchiveIo.open(deployable.getFile());
                 WebXml webXml = warArchive.getWebXml();
                 List<Element> resources = webXml.getElements(WebXmlType.RESOURCE_REF);
                 for (Element resource : resources)
@@ -267,9 +266,8 @@ public class DeployDeployableScriptCommand extends AbstractResourceScriptCommand
 
         if (deployable instanceof WAR)
         {
-            try
+            try (WarArchive warArchive = WarArchiveIo.open(deployable.getFile()))
             {
-                WarArchive warArchive = WarArchiveIo.open(deployable.getFile());
                 WebXml webXml = warArchive.getWebXml();
                 List<String> securityRoleNames = WebXmlUtils.getSecurityRoleNames(webXml);
                 for (String securityRoleName : securityRoleNames)
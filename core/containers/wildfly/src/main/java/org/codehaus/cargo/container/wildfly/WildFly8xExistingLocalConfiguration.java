@@ -58,6 +58,7 @@ public class WildFly8xExistingLocalConfiguration extends JBoss71xExistingLocalCo
 
         setProperty(JBossPropertySet.JBOSS_MANAGEMENT_NATIVE_PORT, null);
         setProperty(JBossPropertySet.JBOSS_MANAGEMENT_HTTP_PORT, "9990");
+        setProperty(JBossPropertySet.CLI_SESSION, "true");
     }
 
     /**
@@ -19,11 +19,14 @@
  */
 package org.codehaus.cargo.container.wildfly;
 
+import java.io.File;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 
+import org.codehaus.cargo.container.ContainerException;
 import org.codehaus.cargo.container.LocalContainer;
 import org.codehaus.cargo.container.configuration.ConfigurationCapability;
 import org.codehaus.cargo.container.configuration.entry.DataSource;
@@ -37,6 +40,7 @@ import org.codehaus.cargo.container.wildfly.internal.WildFly9xStandaloneLocalCon
 import org.codehaus.cargo.container.wildfly.internal.configuration.factory.WildFly9xCliConfigurationFactory;
 import org.codehaus.cargo.container.wildfly.internal.configuration.factory.WildFlyCliConfigurationFactory;
 import org.codehaus.cargo.container.wildfly.internal.util.WildFlyModuleUtils;
+import org.codehaus.cargo.util.FileHandler;
 
 /**
  * WildFly 9.x standalone local configuration.
@@ -45,6 +49,16 @@ public class WildFly9xStandaloneLocalConfiguration
     extends AbstractWildFlyStandaloneLocalConfiguration
 {
 
+    /**
+     * CLI command starting an embedded server.
+     */
+    private static final String EMBED_SERVER = "embed-server";
+
+    /**
+     * CLI command stopping the embedded server.
+     */
+    private static final String STOP_EMBEDDED_SERVER = "stop-embedded-server";
+
     /**
      * WildFly container capability.
      */
@@ -94,13 +108,23 @@ public class WildFly9xStandaloneLocalConfiguration
             (AbstractWildFlyInstalledLocalContainer) c;
         super.doConfigure(c);
 
+        // All configuration steps, including the custom offline scripts, run in one CLI
+        // invocation. Steps are ordered so that each of them only depends on earlier ones.
         List<ScriptCommand> configurationScript = new ArrayList<ScriptCommand>();
 
         configurationScript.add(factory.startEmbedServerScript());
         configurationScript.add(factory.configurePortsScript());
         configurationScript.add(factory.loggingScript());
 
-        // add modules
+        // add system properties to configuration - to be persistent; before the resources, whose
+        // attributes may use them in expressions
+        for (Entry<String, String> systemProperty : container.getSystemProperties().entrySet())
+        {
+            configurationScript.add(factory.systemPropertyScript(
+                    systemProperty.getKey(), systemProperty.getValue()));
+        }
+
+        // add modules, before the DataSource drivers using them
         for (String classpathElement : container.getExtraClasspath())
         {
             addModuleScript(classpathElement, container, configurationScript);
@@ -110,13 +134,20 @@ public class WildFly9xStandaloneLocalConfiguration
             addModuleScript(classpathElement, container, configurationScript);
         }
 
-        // add DataSources
+        // add DataSource drivers, each driver once, then the DataSources using them
+        Set<String> driverClasses = new HashSet<String>();
+        List<ScriptCommand> dataSourceScripts = new ArrayList<ScriptCommand>();
         for (DataSource ds : getDataSources())
         {
-            String driverModule = WildFlyModuleUtils.getDataSourceDriverModuleName(container, ds);
-            configurationScript.add(factory.dataSourceDriverScript(ds, driverModule));
-            configurationScript.add(factory.dataSourceScript(ds));
+            if (driverClasses.add(ds.getDriverClass()))
+            {
+                String driverModule =
+                    WildFlyModuleUtils.getDataSourceDriverModuleName(container, ds);
+                configurationScript.add(factory.dataSourceDriverScript(ds, driverModule));
+            }
+            dataSourceScripts.add(factory.dataSourceScript(ds));
         }
+        configurationScript.addAll(dataSourceScripts);
 
         // add Resources
         for (Resource resource : getResources())
@@ -124,13 +155,6 @@ public class WildFly9xStandaloneLocalConfiguration
             configurationScript.add(factory.resourceScript(resource));
         }
 
-        // add system properties to configuration - to be persistent
-        for (Entry<String, String> systemProperty : container.getSystemProperties().entrySet())
-        {
-            configurationScript.add(factory.systemPropertyScript(
-                    systemProperty.getKey(), systemProperty.getValue()));
-        }
-
         // add custom embedded scripts
         for (String property : getProperties())
         {
@@ -141,18 +165,48 @@ public class WildFly9xStandaloneLocalConfiguration
             }
         }
 
-        container.executeScript(configurationScript);
-
-        // execute CLI scripts
+        // add custom offline scripts; those starting their own embedded server need the
+        // current one to be stopped first
+        boolean embedServerRunning = true;
         for (String property : getProperties())
         {
             if (property.startsWith(WildFlyPropertySet.CLI_OFFLINE_SCRIPT))
             {
                 String scriptPath = getPropertyValue(property);
-                container.executeScriptFiles(Arrays.asList(scriptPath));
+                if (new File(scriptPath).isAbsolute() && !getFileHandler().exists(scriptPath))
+                {
+                    getLogger().warn(String.format("Script file %s doesn't exists.",
+                        scriptPath), this.getClass().getName());
+                    continue;
+                }
+
+                ScriptCommand offlineScript = factory.customScript(scriptPath);
+                List<String> embedServerCommands =
+                    getEmbedServerCommands(offlineScript.readScript());
+                if (!embedServerCommands.isEmpty())
+                {
+                    if (embedServerRunning && EMBED_SERVER.equals(embedServerCommands.get(0)))
+                    {
+                        configurationScript.add(factory.stopEmbedServerScript());
+                    }
+                    embedServerRunning = EMBED_SERVER.equals(
+                        embedServerCommands.get(embedServerCommands.size() - 1));
+                }
+                configurationScript.add(offlineScript);
             }
         }
 
+        try
+        {
+            container.executeScript(configurationScript);
+        }
+        catch (ContainerException e)
+        {
+            throw new ContainerException("Failed to configure " + container.getName()
+                + " using one CLI script made of: " + describe(configurationScript)
+                    + FileHandler.NEW_LINE + e.getMessage(), e);
+        }
+
         // CARGO-1601: Workaround for WFCORE-1373, where WildFly 10.x writes configuration changes
         // directly into the container directory instead of the configuration directory
         String configuration = getPropertyValue(JBossPropertySet.CONFIGURATION);
@@ -179,4 +233,58 @@ public class WildFly9xStandaloneLocalConfiguration
         JBoss7xInstalledLocalDeployer deployer = new JBoss7xInstalledLocalDeployer(container);
         deployer.deploy(getDeployables());
     }
+
+    /**
+     * @param script CLI script.
+     * @return The <code>embed-server</code> and <code>stop-embedded-server</code> commands of the
+     * script, in their order of appearance.
+     */
+    private static List<String> getEmbedServerCommands(String script)
+    {
+        List<String> commands = new ArrayList<String>();
+        for (String line : script.split("\r?\n|\r"))
+        {
+            String command = line.trim().split("\\s+", 2)[0];
+            if (EMBED_SERVER.equals(command) || STOP_EMBEDDED_SERVER.equals(command))
+            {
+                commands.add(command);
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * @param configurationScript Configuration script.
+     * @return Description of the steps of the script, for error reports.
+     */
+    private static String describe(List<ScriptCommand> configurationScript)
+    {
+        StringBuilder description = new StringBuilder();
+        String previous = null;
+        int count = 0;
+        for (int i = 0; i <= configurationScript.size(); i++)
+        {
+            String step = null;
+            if (i < configurationScript.size())
+            {
+                step = configurationScript.get(i).getClass().getSimpleName();
+            }
+            if (previous != null && !previous.equals(step))
+            {
+                description.append(FileHandler.NEW_LINE);
+                description.append(" - ");
+                description.append(previous);
+                if (count > 1)
+                {
+                    description.append(" (x");
+                    description.append(count);
+                    description.append(')');
+                }
+                count = 0;
+            }
+            previous = step;
+            count++;
+        }
+        return description.toString();
+    }
 }
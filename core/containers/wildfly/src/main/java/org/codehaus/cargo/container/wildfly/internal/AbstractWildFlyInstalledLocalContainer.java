@@ -61,6 +61,17 @@ public abstract class AbstractWildFlyInstalledLocalContainer extends AbstractIns
      */
     protected String version;
 
+    /**
+     * CLI session kept for the whole life of the container, created on first use.
+     */
+    private WildFlyCliSession cliSession;
+
+    /**
+     * Whether the CLI session cannot be used, for example because the CLI client could not be
+     * loaded.
+     */
+    private boolean cliSessionUnavailable;
+
     /**
      * {@inheritDoc}
      * @see AbstractInstalledLocalContainer#AbstractInstalledLocalContainer(LocalConfiguration)
@@ -167,7 +178,95 @@ public abstract class AbstractWildFlyInstalledLocalContainer extends AbstractIns
         configurationScript.add(factory.connectToServerScript());
         configurationScript.add(factory.shutdownServerScript());
 
-        executeScript(configurationScript);
+        try
+        {
+            executeScript(configurationScript);
+        }
+        finally
+        {
+            closeCliSession();
+        }
+    }
+
+    /**
+     * @return CLI session in which to run the scripts which do not need a CLI process of their
+     * own, <code>null</code> if scripts should always run in a new CLI process.
+     */
+    protected synchronized WildFlyCliSession getCliSession()
+    {
+        if (this.cliSession == null && !this.cliSessionUnavailable)
+        {
+            WildFlyCliSession session = new WildFlyCliSession(getHome());
+            session.setLogger(getLogger());
+            String javaHome = getConfiguration().getPropertyValue(GeneralPropertySet.JAVA_HOME);
+            String jvmArgs = getConfiguration().getPropertyValue(GeneralPropertySet.JVMARGS);
+            if (Boolean.FALSE.toString().equalsIgnoreCase(
+                getConfiguration().getPropertyValue(JBossPropertySet.CLI_SESSION)))
+            {
+                this.cliSessionUnavailable = true;
+            }
+            else if ((javaHome != null && !javaHome.trim().isEmpty())
+                || (jvmArgs != null && !jvmArgs.trim().isEmpty()))
+            {
+                // The CLI session runs in the Cargo JVM, which would ignore these settings
+                getLogger().debug("The Java home or JVM arguments are set, CLI scripts will each "
+                    + "run in a new CLI process", this.getClass().getName());
+                this.cliSessionUnavailable = true;
+            }
+            else if (!session.isAvailable())
+            {
+                getLogger().debug("The CLI client JAR is missing, CLI scripts will each run in a "
+                    + "new CLI process", this.getClass().getName());
+                this.cliSessionUnavailable = true;
+            }
+            else
+            {
+                try
+                {
+                    session.open();
+                    this.cliSession = session;
+                }
+                catch (LinkageError | RuntimeException e)
+                {
+                    // For example, a CLI client compiled for a newer Java version than the one
+                    // of the Cargo JVM fails with an UnsupportedClassVersionError
+                    getLogger().warn("Cannot open a CLI session, CLI scripts will each run in a "
+                        + "new CLI process: " + e
+                            + (e.getCause() != null ? ", caused by " + e.getCause() : ""),
+                        this.getClass().getName());
+                    this.cliSessionUnavailable = true;
+                }
+            }
+        }
+        return this.cliSession;
+    }
+
+    /**
+     * Closes the CLI session, if any.
+     */
+    protected synchronized void closeCliSession()
+    {
+        if (this.cliSession != null)
+        {
+            this.cliSession.close();
+        }
+    }
+
+    /**
+     * Executes a CLI script in the CLI session, if the script can run there.
+     * @param script Lines of the CLI script.
+     * @return <code>true</code> if the script was executed, <code>false</code> if it needs to run
+     * in a new CLI process.
+     */
+    private boolean executeInCliSession(List<String> script)
+    {
+        WildFlyCliSession session = getCliSession();
+        if (session == null || !WildFlyCliSession.canExecute(script))
+        {
+            return false;
+        }
+        session.execute(script);
+        return true;
     }
 
     /**
@@ -190,6 +289,11 @@ public abstract class AbstractWildFlyInstalledLocalContainer extends AbstractIns
         getLogger().debug("Sending CLI script: " + newLine + sb.toString(),
             this.getClass().getName());
 
+        if (executeInCliSession(WildFlyCliSession.toLines(sb.toString())))
+        {
+            return;
+        }
+
         try
         {
             // script is stored to *.cli file which is added as parameter when invoking CLI
@@ -224,7 +328,8 @@ public abstract class AbstractWildFlyInstalledLocalContainer extends AbstractIns
                 getLogger().warn(String.format("Script file %s doesn't exists.", scriptFilePath),
                         this.getClass().getName());
             }
-            else
+            else if (!scriptFile.isFile() || !executeInCliSession(WildFlyCliSession.toLines(
+                getFileHandler().readTextFile(scriptFile.getPath(), StandardCharsets.UTF_8))))
             {
                 JvmLauncher java = createJvmLauncher(false);
                 File scriptOutput = new File(scriptFile + ".output");
@@ -425,11 +530,28 @@ public abstract class AbstractWildFlyInstalledLocalContainer extends AbstractIns
         {
             ContainerMonitor first = new ManagementUrlWildFlyMonitor(this);
             ContainerMonitor second = new CLIWildFlyMonitor(this);
-            waitForStarting(new CombinedContainerMonitor(this, first, second));
+            ContainerMonitor monitor = new CombinedContainerMonitor(this, first, second);
+            ContainerMonitor logMonitor = createStartupLogMonitor();
+            if (logMonitor != null)
+            {
+                monitor = new CombinedContainerMonitor(this, false, logMonitor, monitor);
+            }
+            waitForStarting(monitor);
         }
         else
         {
             super.waitForCompletion(waitForStarting);
         }
     }
+
+    /**
+     * WildFly logs <code>WFLYSRV0025</code> once started, or <code>WFLYSRV0026</code> if some
+     * services failed to start; WildFly 8.x uses the <code>JBAS015874</code> and
+     * <code>JBAS015875</code> codes instead. {@inheritDoc}
+     */
+    @Override
+    protected String getStartupLogPattern()
+    {
+        return "WFLYSRV002[56]:|JBAS01587[45]:";
+    }
 }
@@ -72,8 +72,11 @@ public abstract class AbstractWildFlyRemoteDeployer extends AbstractRemoteDeploy
     {
         try
         {
-            String bytesValue = uploadDeployable(deployable);
-            deployDeployable(deployable, bytesValue);
+            if (!deployExistingContent(deployable))
+            {
+                String bytesValue = uploadDeployable(deployable);
+                deployDeployable(deployable, bytesValue);
+            }
         }
         catch (IOException e)
         {
@@ -98,6 +101,60 @@ public abstract class AbstractWildFlyRemoteDeployer extends AbstractRemoteDeploy
         }
     }
 
+    /**
+     * {@inheritDoc}. Each action uses its own HTTP requests, hence actions on different
+     * deployables can run concurrently.
+     */
+    @Override
+    public boolean isConcurrentDeploymentSupported()
+    {
+        return true;
+    }
+
+    /**
+     * WildFly's content repository is addressed by the SHA-1 hash of each content, hence a
+     * deployable whose content is already on the server can be deployed by hash without being
+     * uploaded again. This method computes that hash locally and attempts such a deployment; the
+     * server refuses it if it does not have the content.
+     * 
+     * @param deployable Deployable to be deployed.
+     * @return <code>true</code> if the deployable was deployed from content already on the
+     * server, <code>false</code> if it needs to be uploaded.
+     * @throws IOException If connecting to the server fails.
+     */
+    private boolean deployExistingContent(Deployable deployable) throws IOException
+    {
+        File file = new File(deployable.getFile());
+        if (!file.isFile())
+        {
+            return false;
+        }
+
+        String username = configuration.getPropertyValue(RemotePropertySet.USERNAME);
+        String password = configuration.getPropertyValue(RemotePropertySet.PASSWORD);
+
+        String bytesValue = marshaller.computeBytesValue(file);
+        HttpRequest request = new HttpRequest(getManagementUrl());
+        request.setLogger(this.getLogger());
+        request.addRequestProperty("Content-Type", "application/json");
+        request.setAuthentication(username, password);
+        request.setRequestBody(marshaller.marshallDeployRequest(deployable, bytesValue));
+
+        HttpResult response = request.post();
+        if (response.isSuccessful())
+        {
+            getLogger().info("Content of [" + deployable.getFile() + "] is already on the server"
+                + " with hash [" + bytesValue + "], deployed it without uploading it",
+                    this.getClass().getName());
+            return true;
+        }
+
+        getLogger().debug("Deploying [" + deployable.getFile() + "] with hash [" + bytesValue
+            + "] failed, uploading it. Response code: " + response.getResponseCode()
+                + ", response body: " + response.getResponseBody(), this.getClass().getName());
+        return false;
+    }
+
     /**
      * Upload deployable to remote server.
      * 
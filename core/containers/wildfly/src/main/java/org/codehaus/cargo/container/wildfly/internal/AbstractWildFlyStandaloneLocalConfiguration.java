@@ -58,6 +58,7 @@ public abstract class AbstractWildFlyStandaloneLocalConfiguration
         setProperty(JBossPropertySet.CONFIGURATION, "standalone");
         setProperty(JBossPropertySet.DEPLOYER_KEEP_ORIGINAL_WAR_FILENAME, "false");
         setProperty(JBossPropertySet.ALTERNATIVE_MODULES_DIR, "modules");
+        setProperty(JBossPropertySet.CLI_SESSION, "true");
         setProperty(JBossPropertySet.JBOSS_AJP_PORT, "8009");
         setProperty(JBossPropertySet.JBOSS_HTTPS_PORT, "8443");
         setProperty(JBossPropertySet.JBOSS_MANAGEMENT_HTTP_PORT, "9990");
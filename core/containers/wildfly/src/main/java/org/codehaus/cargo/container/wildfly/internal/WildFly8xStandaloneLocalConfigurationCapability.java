@@ -49,6 +49,7 @@ public class WildFly8xStandaloneLocalConfigurationCapability
             JBossPropertySet.DEPLOYER_KEEP_ORIGINAL_WAR_FILENAME, Boolean.TRUE);
         this.propertySupportMap.put(
             JBossPropertySet.ALTERNATIVE_MODULES_DIR, Boolean.TRUE);
+        this.propertySupportMap.put(JBossPropertySet.CLI_SESSION, Boolean.TRUE);
         this.propertySupportMap.put(JBossPropertySet.CONFIGURATION, Boolean.TRUE);
     }
 }
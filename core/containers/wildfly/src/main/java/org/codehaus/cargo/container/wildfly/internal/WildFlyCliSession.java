@@ -0,0 +1,344 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.wildfly.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.codehaus.cargo.container.ContainerException;
+import org.codehaus.cargo.util.log.LoggedObject;
+
+/**
+ * WildFly CLI session running in the Cargo JVM, using the <code>jboss-cli-client.jar</code> file
+ * of the WildFly installation. The session stays connected to the server across scripts, hence
+ * configuration scripts, liveness checks and stop commands do not each need to launch a new CLI
+ * JVM and to authenticate again.<br>
+ * <br>
+ * This class is thread safe; commands of concurrent scripts are never interleaved.
+ */
+public class WildFlyCliSession extends LoggedObject
+{
+    /**
+     * Location of the CLI client JAR in the WildFly installation.
+     */
+    private static final String CLI_CLIENT_JAR = "bin/client/jboss-cli-client.jar";
+
+    /**
+     * Commands which need a CLI process of their own, for example because they start an embedded
+     * server or they need the modules of the WildFly installation.
+     */
+    private static final List<String> PROCESS_COMMANDS =
+        Arrays.asList("embed-server", "embed-host-controller", "module", "patch");
+
+    /**
+     * Cheap operation used to check that an already connected session is still connected.
+     */
+    private static final String CHECK_CONNECTION = ":read-attribute(name=server-state)";
+
+    /**
+     * CLI client JAR.
+     */
+    private final File cliClientJar;
+
+    /**
+     * Class loader of the CLI client, created when opening the session and closed with it.
+     */
+    private URLClassLoader classLoader;
+
+    /**
+     * The <code>org.jboss.as.cli.CommandContext</code>, <code>null</code> when no session is open.
+     */
+    private Object commandContext;
+
+    /**
+     * The <code>CommandContext.handle(String)</code> method.
+     */
+    private Method handle;
+
+    /**
+     * The <code>CommandContext.terminateSession()</code> method.
+     */
+    private Method terminateSession;
+
+    /**
+     * Output of the session, reset before each command.
+     */
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    /**
+     * The <code>connect</code> command which opened the current connection, if any.
+     */
+    private String connectCommand;
+
+    /**
+     * @param home WildFly installation directory.
+     */
+    public WildFlyCliSession(String home)
+    {
+        this.cliClientJar = new File(home, CLI_CLIENT_JAR);
+    }
+
+    /**
+     * @return <code>true</code> if the WildFly installation has a CLI client JAR.
+     */
+    public boolean isAvailable()
+    {
+        return this.cliClientJar.isFile();
+    }
+
+    /**
+     * @param script Lines of a CLI script.
+     * @return <code>true</code> if the script can run in this session, <code>false</code> if it
+     * contains commands which need a CLI process of their own.
+     */
+    public static boolean canExecute(List<String> script)
+    {
+        for (String line : script)
+        {
+            String command = line.trim().split("\\s+", 2)[0];
+            if (PROCESS_COMMANDS.contains(command))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param script CLI script.
+     * @return Lines of the script.
+     */
+    public static List<String> toLines(String script)
+    {
+        return Arrays.asList(script.split("\r?\n|\r"));
+    }
+
+    /**
+     * Executes a CLI script, one command after the other. A <code>connect</code> command identical
+     * to the one of the current connection reuses the connection if it is still alive. If a
+     * command fails, the session is closed so that the next script starts from a clean state.
+     * @param script Lines of the CLI script. Blank lines and comments are ignored.
+     * @throws ContainerException If a command fails.
+     */
+    public synchronized void execute(List<String> script) throws ContainerException
+    {
+        open();
+        for (String line : script)
+        {
+            String command = line.trim();
+            if (command.isEmpty() || command.startsWith("#"))
+            {
+                continue;
+            }
+
+            if (command.equals(this.connectCommand) && isConnected())
+            {
+                getLogger().debug("Reusing CLI connection for [" + command + "]",
+                    this.getClass().getName());
+                continue;
+            }
+
+            handle(command);
+            if (command.startsWith("connect"))
+            {
+                this.connectCommand = command;
+            }
+        }
+    }
+
+    /**
+     * Closes the session, disconnecting from the server, and the class loader of the CLI client.
+     * The next script opens a new session.
+     */
+    public synchronized void close()
+    {
+        if (this.commandContext != null)
+        {
+            try
+            {
+                this.terminateSession.invoke(this.commandContext);
+            }
+            catch (Exception e)
+            {
+                getLogger().debug("Failed to terminate CLI session: " + e,
+                    this.getClass().getName());
+            }
+        }
+        this.commandContext = null;
+        this.connectCommand = null;
+
+        if (this.classLoader != null)
+        {
+            try
+            {
+                this.classLoader.close();
+            }
+            catch (IOException e)
+            {
+                getLogger().debug("Failed to close CLI client class loader: " + e,
+                    this.getClass().getName());
+            }
+            this.classLoader = null;
+        }
+    }
+
+    /**
+     * Opens a session if none is open.
+     * @throws ContainerException If the CLI client cannot be loaded.
+     */
+    public synchronized void open() throws ContainerException
+    {
+        if (this.commandContext != null)
+        {
+            return;
+        }
+
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try
+        {
+            if (this.classLoader == null)
+            {
+                // No parent but the bootstrap class loader, so that the CLI client's
+                // dependencies do not clash with the ones of the Cargo JVM
+                this.classLoader = new URLClassLoader(
+                    new URL[] {this.cliClientJar.toURI().toURL()}, null);
+            }
+            thread.setContextClassLoader(this.classLoader);
+
+            Class<?> factoryClass =
+                this.classLoader.loadClass("org.jboss.as.cli.CommandContextFactory");
+            Object factory = factoryClass.getMethod("getInstance").invoke(null);
+            this.output.reset();
+            Object context;
+            try
+            {
+                context = factoryClass.getMethod("newCommandContext",
+                    String.class, char[].class, InputStream.class, OutputStream.class).invoke(
+                        factory, new Object[] {null, null,
+                            new ByteArrayInputStream(new byte[0]), this.output});
+            }
+            catch (NoSuchMethodException e)
+            {
+                context = factoryClass.getMethod("newCommandContext").invoke(factory);
+            }
+            Class<?> contextClass =
+                this.classLoader.loadClass("org.jboss.as.cli.CommandContext");
+            this.handle = contextClass.getMethod("handle", String.class);
+            this.terminateSession = contextClass.getMethod("terminateSession");
+            this.commandContext = context;
+            getLogger().debug("Opened CLI session using [" + this.cliClientJar + "]",
+                this.getClass().getName());
+        }
+        catch (InvocationTargetException e)
+        {
+            close();
+            throw new ContainerException("Cannot open CLI session using [" + this.cliClientJar
+                + "]", e.getCause());
+        }
+        catch (ReflectiveOperationException | IOException | LinkageError | RuntimeException e)
+        {
+            // A LinkageError is, for example, an UnsupportedClassVersionError when the CLI client
+            // has been compiled for a newer Java version than the one of the Cargo JVM
+            close();
+            throw new ContainerException("Cannot open CLI session using [" + this.cliClientJar
+                + "]", e);
+        }
+        finally
+        {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    /**
+     * @return <code>true</code> if the session's connection to the server is still alive.
+     */
+    private boolean isConnected()
+    {
+        try
+        {
+            handle(CHECK_CONNECTION);
+            return true;
+        }
+        catch (ContainerException e)
+        {
+            getLogger().debug("CLI connection lost, reconnecting", this.getClass().getName());
+            open();
+            return false;
+        }
+    }
+
+    /**
+     * Executes one command in the session, closing the session if it fails. The thread context
+     * class loader is set to the one of the CLI client for the command, as the session might have
+     * been reopened with a new class loader since the previous command.
+     * @param command CLI command.
+     * @throws ContainerException If the command fails.
+     */
+    private void handle(String command) throws ContainerException
+    {
+        this.output.reset();
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try
+        {
+            thread.setContextClassLoader(this.classLoader);
+            this.handle.invoke(this.commandContext, command);
+            getLogger().debug("CLI command [" + command + "] output: " + getOutput(),
+                this.getClass().getName());
+        }
+        catch (InvocationTargetException e)
+        {
+            String detail = getOutput();
+            close();
+            throw new ContainerException("Failure when invoking CLI command [" + command + "]: "
+                + e.getCause().getMessage() + (detail.isEmpty() ? "" : ", detailed message: "
+                    + detail));
+        }
+        catch (IllegalAccessException | LinkageError | RuntimeException e)
+        {
+            close();
+            throw new ContainerException("Cannot invoke CLI command [" + command + "]", e);
+        }
+        finally
+        {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    /**
+     * @return Output of the last command.
+     */
+    private String getOutput()
+    {
+        return new String(this.output.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+}
@@ -36,5 +36,6 @@ public class WildFlyExistingLocalConfigurationCapability extends
     {
         this.propertySupportMap.remove(JBossPropertySet.JBOSS_MANAGEMENT_NATIVE_PORT);
         this.propertySupportMap.put(JBossPropertySet.JBOSS_MANAGEMENT_HTTP_PORT, Boolean.TRUE);
+        this.propertySupportMap.put(JBossPropertySet.CLI_SESSION, Boolean.TRUE);
     }
 }
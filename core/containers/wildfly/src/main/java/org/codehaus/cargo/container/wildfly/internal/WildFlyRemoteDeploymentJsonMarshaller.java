@@ -22,6 +22,14 @@
  */
 package org.codehaus.cargo.container.wildfly.internal;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
 import org.codehaus.cargo.container.configuration.RuntimeConfiguration;
 import org.codehaus.cargo.container.deployable.Deployable;
 import org.codehaus.cargo.container.internal.http.HttpResult;
@@ -39,11 +47,6 @@ import org.json.simple.parser.ParseException;
 public class WildFlyRemoteDeploymentJsonMarshaller
 {
 
-    /**
-     * JSON parser.
-     */
-    private JSONParser parser;
-
     /**
      * Configuration.
      */
@@ -55,7 +58,6 @@ public class WildFlyRemoteDeploymentJsonMarshaller
      */
     public WildFlyRemoteDeploymentJsonMarshaller(RuntimeConfiguration configuration)
     {
-        parser = new JSONParser();
         this.configuration = configuration;
     }
 
@@ -74,7 +76,7 @@ public class WildFlyRemoteDeploymentJsonMarshaller
         JSONObject obj;
         try
         {
-            obj = (JSONObject) parser.parse(responseBody);
+            obj = (JSONObject) new JSONParser().parse(responseBody);
         }
         catch (ParseException e)
         {
@@ -88,6 +90,37 @@ public class WildFlyRemoteDeploymentJsonMarshaller
         return bytesValue;
     }
 
+    /**
+     * Computes the BYTES_VALUE under which WildFly's content repository stores a file, i.e. the
+     * Base64 encoded SHA-1 hash of its content.
+     * @param file File to compute the BYTES_VALUE of.
+     * @return BYTES_VALUE of <code>file</code>.
+     * @throws IOException If reading the file fails.
+     */
+    public String computeBytesValue(File file) throws IOException
+    {
+        MessageDigest digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new CargoException("Cannot compute content hashes", e);
+        }
+
+        try (InputStream in = new FileInputStream(file))
+        {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, n);
+            }
+        }
+        return Base64.getEncoder().encodeToString(digest.digest());
+    }
+
     /**
      * @param deployable Deployable.
      * @param bytesValue Bytes value.
@@ -42,6 +42,7 @@ import org.codehaus.cargo.container.wildfly.internal.configuration.commands.wild
 import org.codehaus.cargo.container.wildfly.internal.configuration.commands.wildfly9.server.BatchScriptCommand;
 import org.codehaus.cargo.container.wildfly.internal.configuration.commands.wildfly9.server.RunBatchScriptCommand;
 import org.codehaus.cargo.container.wildfly.internal.configuration.commands.wildfly9.server.StartEmbedServerScriptCommand;
+import org.codehaus.cargo.container.wildfly.internal.configuration.commands.wildfly9.server.StopEmbedServerScriptCommand;
 import org.codehaus.cargo.util.CargoException;
 
 /**
@@ -88,6 +89,14 @@ public class WildFly9xCliConfigurationFactory extends WildFly8xCliConfigurationF
         return new StartEmbedServerScriptCommand(configuration, RESOURCE_PATH);
     }
 
+    /**
+     * @return Stop embed server CLI script.
+     */
+    public ScriptCommand stopEmbedServerScript()
+    {
+        return new StopEmbedServerScriptCommand(configuration, RESOURCE_PATH);
+    }
+
     /**
      * @return Batch CLI script.
      */
@@ -0,0 +1,101 @@
+/*
+ * ========================================================================
+ *
+ * Codehaus Cargo, copyright 2004-2011 Vincent Massol, 2012-2026 Ali Tokmen.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ========================================================================
+ */
+package org.codehaus.cargo.container.wildfly.internal;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import org.codehaus.cargo.container.ContainerException;
+
+/**
+ * Unit tests for {@link WildFlyCliSession}.
+ */
+public class WildFlyCliSessionTest
+{
+    /**
+     * Test that online scripts can run in the CLI session.
+     */
+    @Test
+    public void testCanExecuteOnlineScript()
+    {
+        Assertions.assertTrue(WildFlyCliSession.canExecute(Arrays.asList(
+            "# Deploy the application", "",
+            "connect localhost:9990",
+            "  deploy /tmp/cargo.war --force",
+            ":read-attribute(name=server-state)")));
+    }
+
+    /**
+     * Test that scripts which need a CLI process of their own are detected, even when the command
+     * is indented or followed by arguments.
+     */
+    @Test
+    public void testCannotExecuteProcessCommands()
+    {
+        Assertions.assertFalse(WildFlyCliSession.canExecute(Arrays.asList(
+            "embed-server --server-config=standalone.xml", "stop-embedded-server")));
+        Assertions.assertFalse(WildFlyCliSession.canExecute(Arrays.asList(
+            "connect", "  module add --name=org.codehaus.cargo --resources=cargo.jar")));
+        Assertions.assertFalse(WildFlyCliSession.canExecute(Arrays.asList(
+            "embed-host-controller")));
+        Assertions.assertFalse(WildFlyCliSession.canExecute(Arrays.asList(
+            "patch apply /tmp/patch.zip")));
+    }
+
+    /**
+     * Test that commands which only start like process commands can run in the CLI session.
+     */
+    @Test
+    public void testCanExecuteSimilarCommands()
+    {
+        Assertions.assertTrue(WildFlyCliSession.canExecute(Arrays.asList(
+            "/subsystem=logging/logger=modules:add",
+            "patch-info")));
+    }
+
+    /**
+     * Test splitting scripts with all kinds of line separators.
+     */
+    @Test
+    public void testToLines()
+    {
+        Assertions.assertEquals(Arrays.asList("connect", "deploy a.war", "deploy b.war", "quit"),
+            WildFlyCliSession.toLines("connect\ndeploy a.war\r\ndeploy b.war\rquit"));
+        Assertions.assertEquals(Arrays.asList("connect", "", "quit"),
+            WildFlyCliSession.toLines("connect\n\nquit\n"));
+        Assertions.assertEquals(Arrays.asList(""), WildFlyCliSession.toLines(""));
+    }
+
+    /**
+     * Test that opening a session without CLI client fails with a {@link ContainerException}.
+     */
+    @Test
+    public void testOpenWithoutCliClient()
+    {
+        WildFlyCliSession session = new WildFlyCliSession(
+            new File("target/wildfly-without-cli-client").getAbsolutePath());
+        Assertions.assertFalse(session.isAvailable());
+        Assertions.assertThrows(ContainerException.class, () -> session.open());
+        session.close();
+    }
+}
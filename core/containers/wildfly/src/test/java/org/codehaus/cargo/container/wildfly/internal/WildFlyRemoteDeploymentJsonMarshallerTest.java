@@ -19,6 +19,10 @@
  */
 package org.codehaus.cargo.container.wildfly.internal;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.codehaus.cargo.container.deployable.Deployable;
@@ -47,4 +51,27 @@ public class WildFlyRemoteDeploymentJsonMarshallerTest
         Assertions.assertTrue(
             deployRequest.contains(hash), "Deploy request doesn't contain correct hash!");
     }
+
+    /**
+     * Test that the BYTES_VALUE of a file is the Base64 encoded SHA-1 hash of its content.
+     * @throws Exception If anything goes wrong.
+     */
+    @Test
+    public void testComputeBytesValue() throws Exception
+    {
+        WildFlyRemoteDeploymentJsonMarshaller marshaller =
+            new WildFlyRemoteDeploymentJsonMarshaller(null);
+
+        File file = File.createTempFile("cargo-content", ".war");
+        try
+        {
+            Files.write(file.toPath(), "abc".getBytes(StandardCharsets.US_ASCII));
+            Assertions.assertEquals("qZk+NkcGgWq6PiVxeFDCbJzQ2J0=",
+                marshaller.computeBytesValue(file));
+        }
+        finally
+        {
+            file.delete();
+        }
+    }
 }
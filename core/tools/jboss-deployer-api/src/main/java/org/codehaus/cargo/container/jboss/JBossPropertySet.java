@@ -164,4 +164,16 @@ public interface JBossPropertySet
      *                       "target/jms-journal.cli")</code>
      */
     String CLI_ONLINE_SCRIPT = "cargo.jboss.script.cli.online";
+
+    /**
+     * Whether to run the CLI scripts of WildFly containers in a CLI session kept open for the
+     * whole life of the container, instead of launching a new CLI process for each script. The
+     * session runs in the Cargo JVM, using the <code>bin/client/jboss-cli-client.jar</code> file
+     * of the WildFly installation, and keeps its connection to the server across scripts. Scripts
+     * which must run in a CLI process, such as offline configuration scripts, are not affected.
+     * The session is not used when <code>cargo.java.home</code> or <code>cargo.jvmargs</code> is
+     * set, as it would ignore them, nor when the CLI client cannot be loaded in the Cargo JVM.
+     * Defaults to <code>true</code>.
+     */
+    String CLI_SESSION = "cargo.jboss.cli.session";
 }
@@ -221,6 +221,12 @@ public class CargoTask extends Task
      */
     private LogLevel logLevel;
 
+    /**
+     * Whether the Cargo log file should be written asynchronously, in which case messages are
+     * written in batches by a background thread.
+     */
+    private boolean logAsync;
+
     /**
      * Whether output of the container should be appended to an existing file, or the existing file
      * should be truncated.
@@ -409,6 +415,14 @@ public class CargoTask extends Task
         this.logLevel = LogLevel.toLevel(logLevel);
     }
 
+    /**
+     * @param logAsync Whether the Cargo log file should be written asynchronously.
+     */
+    public void setLogAsync(boolean logAsync)
+    {
+        this.logAsync = logAsync;
+    }
+
     /**
      * @see org.codehaus.cargo.container.internal.RunnableContainer#setAppend(boolean)
      * @param isAppend Whether to append logs.
@@ -516,7 +530,7 @@ public class CargoTask extends Task
     {
         if (getLog() != null)
         {
-            this.logger = new FileLogger(getLog(), true);
+            this.logger = new FileLogger(getLog(), true, this.logAsync);
         }
         else
         {
@@ -852,6 +866,7 @@ public class CargoTask extends Task
             installer.setLogger(getContainer().getLogger());
             installer.install();
             ((InstalledLocalContainer) getContainer()).setHome(installer.getHome());
+            installer.release();
         }
     }
 
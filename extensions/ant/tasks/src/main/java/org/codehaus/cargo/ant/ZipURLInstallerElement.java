@@ -44,6 +44,26 @@ public class ZipURLInstallerElement
      */
     private String extractDir;
 
+    /**
+     * Checksum the downloaded container installation file must match.
+     */
+    private String checksum;
+
+    /**
+     * Whether to extract the zipped container installation file while it is being downloaded.
+     */
+    private boolean streamingInstall;
+
+    /**
+     * Directory of the installation cache shared by all builds.
+     */
+    private String cacheDir;
+
+    /**
+     * Size budget of the installation cache in bytes.
+     */
+    private long cacheSize;
+
     /**
      * Proxy properties.
      */
@@ -99,6 +119,75 @@ public class ZipURLInstallerElement
         return this.installURL;
     }
 
+    /**
+     * @param checksum the checksum the downloaded container installation file must match, as an
+     * hexadecimal string optionally prefixed with the digest algorithm.
+     */
+    public void setChecksum(String checksum)
+    {
+        this.checksum = checksum;
+    }
+
+    /**
+     * @return the checksum the downloaded container installation file must match.
+     */
+    public String getChecksum()
+    {
+        return this.checksum;
+    }
+
+    /**
+     * @param streamingInstall whether to extract the zipped container installation file while it
+     * is being downloaded.
+     */
+    public void setStreamingInstall(boolean streamingInstall)
+    {
+        this.streamingInstall = streamingInstall;
+    }
+
+    /**
+     * @return whether to extract the zipped container installation file while it is being
+     * downloaded.
+     */
+    public boolean isStreamingInstall()
+    {
+        return this.streamingInstall;
+    }
+
+    /**
+     * @param cacheDir the directory of the installation cache shared by all builds, in which
+     * installations are keyed by URL and checksum.
+     */
+    public void setCacheDir(String cacheDir)
+    {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * @return the directory of the installation cache shared by all builds.
+     */
+    public String getCacheDir()
+    {
+        return this.cacheDir;
+    }
+
+    /**
+     * @param cacheSize the size budget of the installation cache in bytes, <code>0</code> for no
+     * limit.
+     */
+    public void setCacheSize(long cacheSize)
+    {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * @return the size budget of the installation cache in bytes.
+     */
+    public long getCacheSize()
+    {
+        return this.cacheSize;
+    }
+
     /**
      * @return proxy properties.
      */
@@ -132,6 +221,13 @@ public class ZipURLInstallerElement
         {
             installer.setProxy(getProxy());
         }
+        if (getChecksum() != null)
+        {
+            installer.setChecksum(getChecksum());
+        }
+        installer.setStreamingInstall(isStreamingInstall());
+        installer.setCacheDir(getCacheDir());
+        installer.setCacheSize(getCacheSize());
         return installer;
     }
 }
@@ -44,6 +44,7 @@ import org.codehaus.cargo.container.internal.http.UrlEncodedFormContentType;
 import org.codehaus.cargo.util.DefaultFileHandler;
 import org.codehaus.cargo.util.FileHandler;
 import org.codehaus.cargo.util.XmlReplacement;
+import org.codehaus.cargo.util.log.FileLogger;
 import org.codehaus.cargo.util.log.LoggedObject;
 import org.codehaus.cargo.util.log.Logger;
 import org.json.simple.JSONObject;
@@ -247,6 +248,12 @@ public class DaemonClient extends LoggedObject
             parameters.setParameter("containerLogLevel",
                 container.getLogger().getLevel().toString());
 
+            if (container.getLogger() instanceof FileLogger
+                && ((FileLogger) container.getLogger()).isAsync())
+            {
+                parameters.setParameter("containerLogAsync", "on");
+            }
+
             if (container.isAppend())
             {
                 parameters.setParameter("containerAppend", "on");
@@ -539,6 +539,8 @@ public class CargoDaemonServlet extends HttpServlet implements Runnable
         String containerLogFile = request.getParameter("containerLogFile", false);
         String containerLogLevel = request.getParameter("containerLogLevel", false);
         boolean containerAppend = "on".equals(request.getParameter("containerAppend", false));
+        boolean containerLogAsync =
+            "on".equals(request.getParameter("containerLogAsync", false));
         String autostart = request.getParameter("autostart", false);
         String timeout = request.getParameter("timeout", false);
         PropertyTable containerProperties = request.getProperties("containerProperties", false);
@@ -656,7 +658,7 @@ public class CargoDaemonServlet extends HttpServlet implements Runnable
                 containerLogFile = "cargo.log";
             }
             containerLogFile = fileManager.getLogFile(handleId, containerLogFile);
-            Logger logger = new FileLogger(containerLogFile, containerAppend);
+            Logger logger = new FileLogger(containerLogFile, containerAppend, containerLogAsync);
 
             if (containerLogLevel != null && !containerLogLevel.isEmpty())
             {
@@ -1045,6 +1047,7 @@ public class CargoDaemonServlet extends HttpServlet implements Runnable
                     fileManager.getInstallDirectory(),
                     fileManager.getInstallDirectory());
             installer.install();
+            installer.release();
 
             return installer.getHome();
         }
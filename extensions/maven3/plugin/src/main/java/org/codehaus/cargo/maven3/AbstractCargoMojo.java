@@ -973,7 +973,8 @@ public abstract class AbstractCargoMojo extends AbstractCommonMojo
             // Ensure that the directories where the log will go are created
             getContainerElement().getLog().getParentFile().mkdirs();
 
-            logger = new FileLogger(getContainerElement().getLog(), true);
+            logger = new FileLogger(getContainerElement().getLog(), true,
+                getContainerElement().isLogAsync());
         }
         else
         {
@@ -114,6 +114,11 @@ public class Container
      */
     private LogLevel logLevel;
 
+    /**
+     * Whether to write the log file asynchronously.
+     */
+    private boolean logAsync;
+
     /**
      * Container type.
      */
@@ -356,6 +361,22 @@ public class Container
         return this.logLevel;
     }
 
+    /**
+     * @param logAsync Whether to write the log file asynchronously.
+     */
+    public void setLogAsync(boolean logAsync)
+    {
+        this.logAsync = logAsync;
+    }
+
+    /**
+     * @return Whether to write the log file asynchronously.
+     */
+    public boolean isLogAsync()
+    {
+        return this.logAsync;
+    }
+
     /**
      * @return Container implementation.
      */
@@ -755,6 +776,7 @@ public class Container
             {
                 installer.install();
                 tmpHome = installer.getHome();
+                installer.release();
             }
 
             this.installerZipFile = installer.getDownloadFile();
@@ -795,6 +817,7 @@ public class Container
             {
                 installer.install();
                 tmpHome = installer.getHome();
+                installer.release();
             }
 
             this.installerZipFile = installer.getDownloadFile();
@@ -19,8 +19,6 @@
  */
 package org.codehaus.cargo.deployer.jetty;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -30,6 +28,12 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -41,6 +45,7 @@ import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
+import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.webapp.ClassMatcher;
 import org.eclipse.jetty.webapp.WebAppClassLoader;
 import org.eclipse.jetty.webapp.WebAppContext;
@@ -54,6 +59,17 @@ import org.slf4j.LoggerFactory;
 public class DeployerServlet extends HttpServlet
 {
 
+    /**
+     * Size of the buffer used when receiving web archives.
+     */
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * Interval in milliseconds at which to look for the context handler Jetty creates for a new
+     * web archive.
+     */
+    private static final long HANDLER_LOOKUP_INTERVAL = 100;
+
     /**
      * Empty class matcher.
      */
@@ -136,6 +152,7 @@ public class DeployerServlet extends HttpServlet
         dummy = ContextHandler.class;
         dummy = Thread.class;
         dummy = PrintWriter.class;
+        dummy = LifeCycle.class;
     }
 
     /**
@@ -274,46 +291,235 @@ public class DeployerServlet extends HttpServlet
             File webappFile = new File(
                 this.webAppDirectory, getWebAppFilename(contextPath) + ".war");
 
-            InputStream inputStream = new BufferedInputStream(request.getInputStream());
-            OutputStream outputStream =
-                new BufferedOutputStream(new FileOutputStream(webappFile), 8096);
+            try
+            {
+                writeArchive(request.getInputStream(), webappFile, getContentLength(request));
+            }
+            catch (IOException e)
+            {
+                String errorMessage = "Cannot receive the web archive for context " + contextPath
+                    + ": " + e.getMessage();
+                sendError(response, errorMessage);
+                this.logger.warn(errorMessage, e);
+                return;
+            }
 
-            // transfer the data across
-            int i = inputStream.read();
-            while (i != -1)
+            // CARGO-1122: Just wait for Jetty to deploy the application by itself
+            String error;
+            try
+            {
+                error = waitForStart(contextPath, System.currentTimeMillis() + this.timeout);
+            }
+            catch (InterruptedException e)
             {
-                outputStream.write(i);
-                i = inputStream.read();
+                sendError(response, "Got interrupted when trying to start the webapp");
+                return;
             }
 
-            // close and flush readers
-            inputStream.close();
-            outputStream.flush();
-            outputStream.close();
+            if (error == null)
+            {
+                sendMessage(response, "Webapp deployed at context " + contextPath);
+            }
+            else
+            {
+                sendError(response, error);
+            }
+        }
+    }
 
-            // CARGO-1122: Just wait for Jetty to deploy the application by itself
-            long timeout = System.currentTimeMillis() + this.timeout;
-            while (System.currentTimeMillis() < timeout)
+    /**
+     * Writes a web archive to the webapps directory. The archive is first written to a hidden
+     * temporary file and then renamed, so that Jetty never picks up a partially written archive.
+     * @param inputStream The stream to read the archive from
+     * @param webappFile The web archive to write
+     * @param expectedLength The expected length of the archive, <code>-1</code> if unknown
+     * @throws IOException If an io exception occurs or if the length of the received archive is
+     * not the expected one
+     */
+    protected void writeArchive(InputStream inputStream, File webappFile, long expectedLength)
+        throws IOException
+    {
+        File tmpFile = File.createTempFile(".cargo-", ".tmp", this.webAppDirectory);
+        try
+        {
+            long length = 0;
+            OutputStream outputStream = new FileOutputStream(tmpFile);
+            try
             {
-                try
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1)
                 {
-                    Thread.sleep(1000);
+                    outputStream.write(buffer, 0, read);
+                    length += read;
                 }
-                catch (InterruptedException e)
+            }
+            finally
+            {
+                outputStream.close();
+            }
+
+            if (expectedLength != -1 && length != expectedLength)
+            {
+                throw new IOException("Received " + length + " bytes instead of the "
+                    + expectedLength + " announced bytes");
+            }
+            moveFile(tmpFile, webappFile);
+        }
+        finally
+        {
+            if (tmpFile.exists())
+            {
+                tmpFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Copies a web archive to the webapps directory, using a file channel transfer. As with
+     * {@link #writeArchive(InputStream, File, long)}, the archive is first copied to a hidden
+     * temporary file and then renamed.
+     * @param webappSource The web archive to copy
+     * @param webappFile The web archive to write
+     * @throws IOException If an io exception occurs
+     */
+    protected void copyArchive(File webappSource, File webappFile) throws IOException
+    {
+        File tmpFile = File.createTempFile(".cargo-", ".tmp", this.webAppDirectory);
+        try
+        {
+            FileInputStream fileInputStream = new FileInputStream(webappSource);
+            try
+            {
+                FileOutputStream fileOutputStream = new FileOutputStream(tmpFile);
+                try
                 {
-                    sendError(response, "Got interrupted when trying to start the webapp");
-                    return;
+                    FileChannel source = fileInputStream.getChannel();
+                    FileChannel target = fileOutputStream.getChannel();
+                    long size = source.size();
+                    long position = 0;
+                    while (position < size)
+                    {
+                        long transferred = source.transferTo(position, size - position, target);
+                        if (transferred <= 0)
+                        {
+                            throw new IOException(webappSource + " was truncated while copying");
+                        }
+                        position += transferred;
+                    }
                 }
-
-                Handler contextHandler = (Handler) getContextHandler(contextPath);
-                if (contextHandler != null && contextHandler.isStarted())
+                finally
                 {
-                    sendMessage(response, "Webapp deployed at context " + contextPath);
-                    return;
+                    fileOutputStream.close();
                 }
             }
+            finally
+            {
+                fileInputStream.close();
+            }
+            moveFile(tmpFile, webappFile);
+        }
+        finally
+        {
+            if (tmpFile.exists())
+            {
+                tmpFile.delete();
+            }
+        }
+    }
 
-            sendError(response, "Unexpected error when trying to start the webapp");
+    /**
+     * Renames a file, replacing the target file if it exists. The file is moved atomically if the
+     * file system supports it, so that Jetty never sees a missing or partially written target.
+     * @param source The file to rename
+     * @param target The new file
+     * @throws IOException If the file cannot be renamed
+     */
+    protected void moveFile(File source, File target) throws IOException
+    {
+        try
+        {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Returns the length of the request body.
+     * @param request The http request
+     * @return The value of the <code>Content-Length</code> header, <code>-1</code> if not set
+     */
+    protected long getContentLength(HttpServletRequest request)
+    {
+        String contentLength = request.getHeader("Content-Length");
+        if (contentLength == null)
+        {
+            return -1;
+        }
+        try
+        {
+            return Long.parseLong(contentLength.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
+    /**
+     * Waits for Jetty to deploy and start the webapp at the given context path. Jetty does not
+     * notify when it adds the context handler of a new web archive, hence the handler is looked up
+     * until it appears; its lifecycle events are then waited for until it has started or failed.
+     * @param contextPath The context path of the webapp
+     * @param deadline The time at which to stop waiting, in milliseconds since the epoch
+     * @return <code>null</code> if the webapp has started, else the error message
+     * @throws InterruptedException If interrupted while waiting
+     */
+    protected String waitForStart(String contextPath, long deadline) throws InterruptedException
+    {
+        ContextHandler contextHandler = (ContextHandler) getContextHandler(contextPath);
+        while (contextHandler == null)
+        {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0)
+            {
+                return "Jetty did not deploy the webapp within " + this.timeout + " ms";
+            }
+            Thread.sleep(Math.min(remaining, HANDLER_LOOKUP_INTERVAL));
+            contextHandler = (ContextHandler) getContextHandler(contextPath);
+        }
+
+        StartListener listener = new StartListener();
+        contextHandler.addEventListener(listener);
+        try
+        {
+            // The handler might have started or failed before the listener was added
+            if (!contextHandler.isStarted() && !contextHandler.isFailed())
+            {
+                listener.await(deadline - System.currentTimeMillis());
+            }
+        }
+        finally
+        {
+            contextHandler.removeEventListener(listener);
+        }
+
+        if (contextHandler.isStarted())
+        {
+            return null;
+        }
+        else if (contextHandler.isFailed() || listener.getFailure() != null)
+        {
+            return "Unexpected error when trying to start the webapp"
+                + (listener.getFailure() == null ? "" : ": " + listener.getFailure());
+        }
+        else
+        {
+            return "Jetty did not start the webapp within " + this.timeout + " ms";
         }
     }
 
@@ -435,19 +641,17 @@ public class DeployerServlet extends HttpServlet
             //                we need to read the source file requested
             File webappSource = new File(uri);
 
-            FileInputStream fileInputStream = new FileInputStream(webappSource);
-            FileOutputStream fileOutputStream = new FileOutputStream(webappDest);
-
-            int i = fileInputStream.read();
-            while (i != -1)
+            try
             {
-                fileOutputStream.write(i);
-                i = fileInputStream.read();
+                copyArchive(webappSource, webappDest);
+            }
+            catch (IOException e)
+            {
+                String errorMessage = "Cannot copy " + webappSource + " to " + webappDest;
+                sendError(response, errorMessage);
+                this.logger.warn(errorMessage, e);
+                return;
             }
-
-            fileInputStream.close();
-            fileOutputStream.flush();
-            fileOutputStream.close();
 
             WebAppContext webappcontext = new WebAppContext();
             webappcontext.setContextPath(context);
@@ -657,4 +861,84 @@ public class DeployerServlet extends HttpServlet
         return null;
     }
 
+    /**
+     * Lifecycle listener which waits for a context handler to start or fail.
+     */
+    private static class StartListener implements LifeCycle.Listener
+    {
+        /**
+         * Counted down when the context handler has started or failed.
+         */
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        /**
+         * Reason why the context handler failed, if any.
+         */
+        private volatile Throwable failure;
+
+        /**
+         * Waits for the context handler to start or fail.
+         * @param timeout The maximum time to wait, in milliseconds
+         * @throws InterruptedException If interrupted while waiting
+         */
+        public void await(long timeout) throws InterruptedException
+        {
+            this.done.await(timeout, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * @return Reason why the context handler failed, <code>null</code> if it did not.
+         */
+        public Throwable getFailure()
+        {
+            return this.failure;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void lifeCycleStarting(LifeCycle event)
+        {
+            // Nothing to do, the context handler is not started yet
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void lifeCycleStarted(LifeCycle event)
+        {
+            this.done.countDown();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void lifeCycleFailure(LifeCycle event, Throwable cause)
+        {
+            this.failure = cause;
+            this.done.countDown();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void lifeCycleStopping(LifeCycle event)
+        {
+            // Nothing to do, the context handler is not started
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void lifeCycleStopped(LifeCycle event)
+        {
+            // Nothing to do, the context handler is not started
+        }
+    }
+
 }
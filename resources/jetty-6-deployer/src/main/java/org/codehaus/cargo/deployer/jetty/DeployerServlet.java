@@ -19,8 +19,6 @@
  */
 package org.codehaus.cargo.deployer.jetty;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -30,6 +28,7 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -51,6 +50,11 @@ import org.mortbay.log.Logger;
 public class DeployerServlet extends HttpServlet
 {
 
+    /**
+     * Size of the buffer used when receiving web archives.
+     */
+    private static final int BUFFER_SIZE = 65536;
+
     /**
      * The Jetty logger.
      */
@@ -200,22 +204,18 @@ public class DeployerServlet extends HttpServlet
             File webappFile = new File(
                 this.webAppDirectory, getWebAppFilename(contextPath) + ".war");
 
-            InputStream inputStream = new BufferedInputStream(request.getInputStream());
-            OutputStream outputStream =
-                new BufferedOutputStream(new FileOutputStream(webappFile), 8096);
-
-            // transfer the data across
-            int i = inputStream.read();
-            while (i != -1)
+            try
             {
-                outputStream.write(i);
-                i = inputStream.read();
+                writeArchive(request.getInputStream(), webappFile, getContentLength(request));
+            }
+            catch (IOException e)
+            {
+                String errorMessage = "Cannot receive the web archive for context " + contextPath
+                    + ": " + e.getMessage();
+                sendError(response, errorMessage);
+                this.logger.warn(errorMessage, e);
+                return;
             }
-
-            // close and flush readers
-            inputStream.close();
-            outputStream.flush();
-            outputStream.close();
 
             // deploy webapp
             WebAppContext webappcontext = new WebAppContext();
@@ -240,6 +240,153 @@ public class DeployerServlet extends HttpServlet
         sendMessage(response, "Webapp deployed at context " + contextPath);
     }
 
+    /**
+     * Writes a web archive to the webapps directory. The archive is first written to a hidden
+     * temporary file and then renamed, so that Jetty never picks up a partially written archive.
+     * @param inputStream The stream to read the archive from
+     * @param webappFile The web archive to write
+     * @param expectedLength The expected length of the archive, <code>-1</code> if unknown
+     * @throws IOException If an io exception occurs or if the length of the received archive is
+     * not the expected one
+     */
+    protected void writeArchive(InputStream inputStream, File webappFile, long expectedLength)
+        throws IOException
+    {
+        File tmpFile = File.createTempFile(".cargo-", ".tmp", this.webAppDirectory);
+        try
+        {
+            long length = 0;
+            OutputStream outputStream = new FileOutputStream(tmpFile);
+            try
+            {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1)
+                {
+                    outputStream.write(buffer, 0, read);
+                    length += read;
+                }
+            }
+            finally
+            {
+                outputStream.close();
+            }
+
+            if (expectedLength != -1 && length != expectedLength)
+            {
+                throw new IOException("Received " + length + " bytes instead of the "
+                    + expectedLength + " announced bytes");
+            }
+            moveFile(tmpFile, webappFile);
+        }
+        finally
+        {
+            if (tmpFile.exists())
+            {
+                tmpFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Copies a web archive to the webapps directory, using a file channel transfer. As with
+     * {@link #writeArchive(InputStream, File, long)}, the archive is first copied to a hidden
+     * temporary file and then renamed.
+     * @param webappSource The web archive to copy
+     * @param webappFile The web archive to write
+     * @throws IOException If an io exception occurs
+     */
+    protected void copyArchive(File webappSource, File webappFile) throws IOException
+    {
+        File tmpFile = File.createTempFile(".cargo-", ".tmp", this.webAppDirectory);
+        try
+        {
+            FileInputStream fileInputStream = new FileInputStream(webappSource);
+            try
+            {
+                FileOutputStream fileOutputStream = new FileOutputStream(tmpFile);
+                try
+                {
+                    FileChannel source = fileInputStream.getChannel();
+                    FileChannel target = fileOutputStream.getChannel();
+                    long size = source.size();
+                    long position = 0;
+                    while (position < size)
+                    {
+                        long transferred = source.transferTo(position, size - position, target);
+                        if (transferred <= 0)
+                        {
+                            throw new IOException(webappSource + " was truncated while copying");
+                        }
+                        position += transferred;
+                    }
+                }
+                finally
+                {
+                    fileOutputStream.close();
+                }
+            }
+            finally
+            {
+                fileInputStream.close();
+            }
+            moveFile(tmpFile, webappFile);
+        }
+        finally
+        {
+            if (tmpFile.exists())
+            {
+                tmpFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Renames a file, replacing the target file if it exists. The file is first renamed over the
+     * target, which is atomic on most file systems, so that Jetty never sees a missing target;
+     * the target is only deleted beforehand on platforms where renaming cannot replace a file.
+     * @param source The file to rename
+     * @param target The new file
+     * @throws IOException If the file cannot be renamed
+     */
+    protected void moveFile(File source, File target) throws IOException
+    {
+        if (source.renameTo(target))
+        {
+            return;
+        }
+        if (target.exists() && !target.delete())
+        {
+            throw new IOException("Cannot replace " + target);
+        }
+        if (!source.renameTo(target))
+        {
+            throw new IOException("Cannot rename " + source + " to " + target);
+        }
+    }
+
+    /**
+     * Returns the length of the request body.
+     * @param request The http request
+     * @return The value of the <code>Content-Length</code> header, <code>-1</code> if not set
+     */
+    protected long getContentLength(HttpServletRequest request)
+    {
+        String contentLength = request.getHeader("Content-Length");
+        if (contentLength == null)
+        {
+            return -1;
+        }
+        try
+        {
+            return Long.parseLong(contentLength.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return -1;
+        }
+    }
+
     /**
      * Returns the file if it exists for the specified context path. If the file does not exist
      * then it will return null.
@@ -358,19 +505,17 @@ public class DeployerServlet extends HttpServlet
             //                we need to read the source file requested
             File webappSource = new File(uri);
 
-            FileInputStream fileInputStream = new FileInputStream(webappSource);
-            FileOutputStream fileOutputStream = new FileOutputStream(webappDest);
-
-            int i = fileInputStream.read();
-            while (i != -1)
+            try
             {
-                fileOutputStream.write(i);
-                i = fileInputStream.read();
+                copyArchive(webappSource, webappDest);
+            }
+            catch (IOException e)
+            {
+                String errorMessage = "Cannot copy " + webappSource + " to " + webappDest;
+                sendError(response, errorMessage);
+                this.logger.warn(errorMessage, e);
+                return;
             }
-
-            fileInputStream.close();
-            fileOutputStream.flush();
-            fileOutputStream.close();
 
             WebAppContext webappcontext = new WebAppContext();
             webappcontext.setContextPath(context);